@@ -0,0 +1,40 @@
+package com.crop.cropperlib.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 检查拖动时的覆盖层绘制在稳定状态下不分配内存：预热后连续绘制若干帧，用线程的分配计数确认分配的字节数为0。
+ * 替身Canvas不做任何绘制，因此计数只包含CropOverlayRenderer自己的代码。由 gradle -p benchmark check 运行
+ */
+public final class AllocationCheck {
+
+    private static final int WARMUP_FRAMES = 50000;
+    private static final int MEASURED_FRAMES = 10000;
+
+    private AllocationCheck() {
+    }
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        OverlayFrame frame = new OverlayFrame();
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame.draw();
+        }
+
+        // 读取计数本身的开销，从结果中扣除
+        long start = threads.getThreadAllocatedBytes(threadId);
+        long overhead = threads.getThreadAllocatedBytes(threadId) - start;
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            frame.draw();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+        System.out.println("overlay draw: " + allocated + " bytes allocated in " + MEASURED_FRAMES + " frames");
+        if (allocated > 0) {
+            throw new IllegalStateException("overlay drawing allocated " + allocated + " bytes in steady state");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.crop.cropperlib.benchmark;
+
+import com.crop.cropperlib.utils.CropMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getCroppedImage中裁剪区域换算的耗时：与CropImage相同，依次复合缩放平移、显示位图和原图的比例，再映射裁剪窗口
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CropRectBenchmark {
+
+    private final CropMapping mMapping = new CropMapping();
+    private final int[] mOut = new int[4];
+    private float mLeft = 80;
+
+    @Benchmark
+    public int[] mapCropRect() {
+        mLeft = mLeft == 80 ? 81 : 80;
+        mMapping.reset();
+        mMapping.postConcat(1d / 1.5, 40, 1d / 1.5, 30);
+        mMapping.postConcatDisplay(1f, 1f, -12f, 0f, 1080, 1440, 1200, 1600);
+        mMapping.postConcat(4000d / 1200, 0, 5333d / 1600, 0);
+        mMapping.mapRect(mLeft, 60, mLeft + 640, 540, 4000, 5333, mOut);
+        return mOut;
+    }
+}
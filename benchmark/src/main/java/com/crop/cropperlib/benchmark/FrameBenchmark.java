@@ -0,0 +1,47 @@
+package com.crop.cropperlib.benchmark;
+
+import com.crop.cropperlib.border.CropWindow;
+import com.crop.cropperlib.border.Frame;
+import ohos.agp.utils.RectFloat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame.isNewRectangleOutOfBounds在所有边组合下的耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameBenchmark {
+
+    private static final float ASPECT_RATIO = 4f / 3f;
+
+    // Frame.values()每次调用都会复制数组
+    private static final Frame[] FRAMES = Frame.values();
+
+    private final RectFloat mImageRect = new RectFloat(0, 0, 800, 600);
+    private final CropWindow mWindow = new CropWindow();
+
+    @Benchmark
+    public void isNewRectangleOutOfBounds(Blackhole blackhole) {
+        mWindow.set(80, 60, 720, 540);
+        for (Frame frame : FRAMES) {
+            for (Frame other : FRAMES) {
+                blackhole.consume(frame.isNewRectangleOutOfBounds(mWindow, other, mImageRect, ASPECT_RATIO));
+            }
+        }
+    }
+}
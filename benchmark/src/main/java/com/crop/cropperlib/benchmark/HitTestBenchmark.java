@@ -0,0 +1,109 @@
+package com.crop.cropperlib.benchmark;
+
+import com.crop.cropperlib.handle.Handle;
+import com.crop.cropperlib.utils.HandleUtil;
+import com.crop.cropperlib.utils.HitTester;
+import com.crop.cropperlib.utils.TargetGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 控制柄命中测试在不同触摸位置下的耗时，以及额外触摸目标数量对查询的影响
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HitTestBenchmark {
+
+    private static final float LEFT = 100f;
+    private static final float TOP = 100f;
+    private static final float RIGHT = 700f;
+    private static final float BOTTOM = 500f;
+    private static final float RADIUS = 24f;
+
+    @Param({"CORNER", "EDGE", "CENTER", "OUTSIDE"})
+    public String target;
+
+    @Param({"8", "1024"})
+    public int extraTargets;
+
+    private final HitTester mHitTester = new HitTester(RADIUS);
+
+    private float mX;
+    private float mY;
+
+    @Setup
+    public void setup() {
+        switch (target) {
+            case "CORNER":
+                mX = RIGHT - 5;
+                mY = BOTTOM + 5;
+                break;
+            case "EDGE":
+                mX = (LEFT + RIGHT) / 2;
+                mY = BOTTOM + 10;
+                break;
+            case "CENTER":
+                mX = (LEFT + RIGHT) / 2;
+                mY = (TOP + BOTTOM) / 2;
+                break;
+            default:
+                mX = RIGHT + 200;
+                mY = BOTTOM + 200;
+                break;
+        }
+
+        // 额外目标沿窗口边框均匀分布
+        TargetGrid grid = mHitTester.getExtraTargets();
+        grid.clear();
+        float perimeter = 2 * (RIGHT - LEFT + BOTTOM - TOP);
+        for (int i = 0; i < extraTargets; i++) {
+            float d = perimeter * i / extraTargets;
+            float x;
+            float y;
+            if (d < RIGHT - LEFT) {
+                x = LEFT + d;
+                y = TOP;
+            } else if ((d -= RIGHT - LEFT) < BOTTOM - TOP) {
+                x = RIGHT;
+                y = TOP + d;
+            } else if ((d -= BOTTOM - TOP) < RIGHT - LEFT) {
+                x = RIGHT - d;
+                y = BOTTOM;
+            } else {
+                x = LEFT;
+                y = BOTTOM - (d - (RIGHT - LEFT));
+            }
+            grid.add(i, x, y, RADIUS / 2);
+        }
+    }
+
+    @Benchmark
+    public Handle getPressedHandle() {
+        return HandleUtil.getPressedHandle(mX, mY, LEFT, TOP, RIGHT, BOTTOM, RADIUS);
+    }
+
+    @Benchmark
+    public Handle classify() {
+        return mHitTester.classify(mX, mY, LEFT, TOP, RIGHT, BOTTOM);
+    }
+
+    @Benchmark
+    public int hitExtraTarget() {
+        return mHitTester.hitExtraTarget(mX, mY);
+    }
+}
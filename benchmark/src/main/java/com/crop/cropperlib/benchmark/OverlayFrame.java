@@ -0,0 +1,53 @@
+package com.crop.cropperlib.benchmark;
+
+import com.crop.cropperlib.border.CropQuad;
+import com.crop.cropperlib.border.CropShape;
+import com.crop.cropperlib.border.CropWindow;
+import com.crop.cropperlib.render.CropOverlayRenderer;
+import ohos.agp.render.Canvas;
+import ohos.agp.utils.RectFloat;
+
+/**
+ * 拖动过程中的一帧覆盖层绘制：移动裁剪窗口后依次绘制矩形、旋转、椭圆和透视四边形的覆盖层，
+ * 覆盖CropOverlayRenderer的所有绘制路径
+ */
+final class OverlayFrame {
+
+    private static final float ANGLE = 15f;
+    private static final float KNOB_DISTANCE = 32f;
+    private static final float KNOB_RADIUS = 8f;
+    private static final float CORNER_RADIUS = 12f;
+
+    private final CropOverlayRenderer mRenderer = new CropOverlayRenderer();
+    private final CropOverlayRenderer mOvalRenderer = new CropOverlayRenderer();
+    private final Canvas mCanvas = new Canvas();
+    private final RectFloat mImageRect = new RectFloat(0, 0, 800, 600);
+    private final CropWindow mWindow = new CropWindow();
+    private final CropWindow mInactiveWindow = new CropWindow();
+    private final CropQuad mQuad = new CropQuad();
+    private float mLeft = 80;
+
+    OverlayFrame() {
+        mOvalRenderer.setShape(CropShape.OVAL);
+        mInactiveWindow.set(400, 300, 600, 450);
+        mInactiveWindow.setAngle(-ANGLE);
+    }
+
+    void draw() {
+        mLeft = mLeft == 80 ? 81 : 80;
+        mWindow.set(mLeft, 60, 720, 540);
+        mWindow.setAngle(0);
+        mRenderer.draw(mCanvas, mWindow, mImageRect);
+        mOvalRenderer.draw(mCanvas, mWindow, mImageRect);
+
+        mWindow.setAngle(ANGLE);
+        mRenderer.draw(mCanvas, mWindow, mImageRect);
+        mRenderer.drawInactiveWindow(mCanvas, mInactiveWindow);
+        mRenderer.drawRotationKnob(mCanvas, mWindow, KNOB_DISTANCE, KNOB_RADIUS);
+        mOvalRenderer.draw(mCanvas, mWindow, mImageRect);
+        mOvalRenderer.drawInactiveWindow(mCanvas, mInactiveWindow);
+
+        mQuad.set(mWindow);
+        mRenderer.drawQuad(mCanvas, mQuad, mImageRect, CORNER_RADIUS);
+    }
+}
@@ -0,0 +1,58 @@
+package com.crop.cropperlib.benchmark;
+
+import com.crop.cropperlib.border.CropWindow;
+import com.crop.cropperlib.handle.Handle;
+import ohos.agp.utils.RectFloat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handle.refreshCropWindow对每种处理器、自由和固定纵横比下的耗时
+ *
+ * 每次调用前把裁剪窗口重置到同一位置，拖动目标在两个点之间交替，其中一个点会触发贴边和越界修正。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RefreshCropWindowBenchmark {
+
+    private static final float SNAP_RADIUS = 3f;
+
+    @Param({"TOP_LEFT", "BOTTOM_RIGHT", "LEFT", "TOP", "CENTER"})
+    public Handle handle;
+
+    // 小于等于0表示自由纵横比
+    @Param({"0", "1.3333334"})
+    public float aspectRatio;
+
+    private final RectFloat mImageRect = new RectFloat(0, 0, 800, 600);
+    private final CropWindow mWindow = new CropWindow();
+    private boolean mToggle;
+
+    @Benchmark
+    public CropWindow refreshCropWindow() {
+        mWindow.set(80, 60, 720, 540);
+        mToggle = !mToggle;
+        float x = mToggle ? 40 : 790;
+        float y = mToggle ? 30 : 598;
+        if (aspectRatio > 0) {
+            handle.refreshCropWindow(mWindow, x, y, aspectRatio, mImageRect, SNAP_RADIUS);
+        } else {
+            handle.refreshCropWindow(mWindow, x, y, mImageRect, SNAP_RADIUS);
+        }
+        return mWindow;
+    }
+}
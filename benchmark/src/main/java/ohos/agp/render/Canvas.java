@@ -0,0 +1,33 @@
+package ohos.agp.render;
+
+import ohos.agp.utils.Point;
+import ohos.agp.utils.RectFloat;
+
+/**
+ * 基准测试用的替身类，只包含CropOverlayRenderer用到的部分；所有绘制都不做任何事，
+ * 因此测得的分配只来自覆盖层自己的代码
+ */
+public class Canvas {
+
+    public int save() {
+        return 0;
+    }
+
+    public void restore() {
+    }
+
+    public void rotate(float degrees, float pivotX, float pivotY) {
+    }
+
+    public void drawPath(Path path, Paint paint) {
+    }
+
+    public void drawLine(Point start, Point end, Paint paint) {
+    }
+
+    public void drawRect(RectFloat rect, Paint paint) {
+    }
+
+    public void drawOval(RectFloat rect, Paint paint) {
+    }
+}
@@ -0,0 +1,30 @@
+package ohos.agp.render;
+
+import ohos.agp.utils.Color;
+
+/**
+ * 基准测试用的替身类，只包含PaintUtil和CropOverlayRenderer用到的部分
+ */
+public class Paint {
+
+    public enum Style {
+        FILL_STYLE,
+        STROKE_STYLE
+    }
+
+    private float mStrokeWidth;
+
+    public void setStyle(Style style) {
+    }
+
+    public void setStrokeWidth(float strokeWidth) {
+        mStrokeWidth = strokeWidth;
+    }
+
+    public float getStrokeWidth() {
+        return mStrokeWidth;
+    }
+
+    public void setColor(Color color) {
+    }
+}
@@ -0,0 +1,40 @@
+package ohos.agp.render;
+
+import ohos.agp.utils.RectFloat;
+
+/**
+ * 基准测试用的替身类，只包含CropOverlayRenderer用到的部分；不记录路径
+ */
+public class Path {
+
+    public enum FillType {
+        WINDING,
+        EVEN_ODD
+    }
+
+    public enum Direction {
+        CLOCK_WISE,
+        COUNTER_CLOCK_WISE
+    }
+
+    public void reset() {
+    }
+
+    public void setFillType(FillType fillType) {
+    }
+
+    public void addRect(float left, float top, float right, float bottom, Direction direction) {
+    }
+
+    public void addOval(RectFloat rect, Direction direction) {
+    }
+
+    public void moveTo(float x, float y) {
+    }
+
+    public void lineTo(float x, float y) {
+    }
+
+    public void close() {
+    }
+}
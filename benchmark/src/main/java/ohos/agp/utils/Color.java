@@ -0,0 +1,16 @@
+package ohos.agp.utils;
+
+/**
+ * 基准测试用的替身类，只包含PaintUtil用到的部分
+ */
+public class Color {
+    private final int mValue;
+
+    public Color(int value) {
+        mValue = value;
+    }
+
+    public int getValue() {
+        return mValue;
+    }
+}
@@ -0,0 +1,30 @@
+package ohos.agp.utils;
+
+/**
+ * 基准测试用的替身类，只包含cropperlib的几何代码用到的部分
+ */
+public class Point {
+    private float mX;
+    private float mY;
+
+    public Point() {
+    }
+
+    public Point(float x, float y) {
+        mX = x;
+        mY = y;
+    }
+
+    public float getPointX() {
+        return mX;
+    }
+
+    public float getPointY() {
+        return mY;
+    }
+
+    public void modify(float x, float y) {
+        mX = x;
+        mY = y;
+    }
+}
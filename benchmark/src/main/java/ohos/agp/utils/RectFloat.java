@@ -0,0 +1,29 @@
+package ohos.agp.utils;
+
+/**
+ * 基准测试用的替身类，只包含cropperlib的几何代码用到的部分
+ */
+public class RectFloat {
+    public float left;
+    public float top;
+    public float right;
+    public float bottom;
+
+    public RectFloat() {
+    }
+
+    public RectFloat(float left, float top, float right, float bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public float getWidth() {
+        return right - left;
+    }
+
+    public float getHeight() {
+        return bottom - top;
+    }
+}
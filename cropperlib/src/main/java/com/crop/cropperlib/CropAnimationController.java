@@ -0,0 +1,118 @@
+package com.crop.cropperlib;
+
+import com.crop.cropperlib.anim.CropAnimator;
+
+import java.util.Arrays;
+
+/**
+ * {@link CropImage}的过渡动画：程序修改几何前后各读出一次选中几何的状态，再用{@link CropAnimator}
+ * 从修改前显示的状态平滑过渡到修改后的状态。只应在UI线程使用
+ */
+final class CropAnimationController implements CropAnimator.Target {
+
+    private final CropImage mView;
+    private final CropStateController mStates;
+
+    // 程序修改几何时是否播放过渡动画
+    private boolean mEnabled;
+
+    // 过渡动画；第一次播放时创建
+    private CropAnimator mAnimator;
+
+    // 播放动画的几何的标签，以及修改前显示的状态和修改后的目标状态
+    private int mTag;
+    private final float[] mFrom = new float[CropStateController.GEOMETRY_STATE_SIZE];
+    private final float[] mTo = new float[CropStateController.GEOMETRY_STATE_SIZE];
+
+    CropAnimationController(CropImage view, CropStateController states) {
+        mView = view;
+        mStates = states;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (!enabled) {
+            finish();
+        }
+        mEnabled = enabled;
+    }
+
+    boolean isEnabled() {
+        return mEnabled;
+    }
+
+    boolean isRunning() {
+        return mAnimator != null && mAnimator.isRunning();
+    }
+
+    void setFrameIntervalMs(long frameIntervalMs) {
+        if (mAnimator != null) {
+            mAnimator.setFrameIntervalMs(frameIntervalMs);
+        }
+    }
+
+    /**
+     * 程序修改几何之前调用，记录当前显示的状态。正在播放动画时先把几何设为动画的目标，使修改基于最终的几何
+     */
+    void beginChange() {
+        mTag = mStates.captureState(mFrom);
+        if (isRunning()) {
+            mAnimator.getGoal(mTo);
+            mStates.applyState(mTag, mTo);
+        }
+    }
+
+    /**
+     * 程序修改几何之后调用：开启动画时把几何退回修改前显示的状态，从那里向修改后的状态过渡；否则直接重绘
+     */
+    void endChange() {
+        int tag = mStates.captureState(mTo);
+        boolean running = isRunning();
+        if (!mEnabled || tag != mTag || !mView.hasImageBounds() || (!running && Arrays.equals(mFrom, mTo))) {
+            if (running) {
+                mAnimator.cancel();
+            }
+            mView.invalidate();
+            return;
+        }
+        if (tag != CropStateController.QUAD_STATE_TAG) {
+            // 角度沿较短的方向过渡
+            float turn = mTo[4] - mFrom[4];
+            if (turn > 180) {
+                mTo[4] -= 360;
+            } else if (turn < -180) {
+                mTo[4] += 360;
+            }
+        }
+        mStates.applyState(tag, mFrom);
+        if (mAnimator == null) {
+            mAnimator = new CropAnimator(mView.getContext().getUITaskDispatcher(),
+                    CropStateController.GEOMETRY_STATE_SIZE, this);
+            mAnimator.setFrameIntervalMs(mView.getFrameIntervalMs());
+        }
+        mAnimator.start(mFrom, mTo);
+    }
+
+    @Override
+    public void onAnimationFrame(float[] state, boolean finished) {
+        mStates.applyState(mTag, state);
+        mView.invalidate();
+    }
+
+    /**
+     * 立即把正在播放的动画跳到目标状态
+     */
+    void finish() {
+        if (mAnimator != null) {
+            mAnimator.finish();
+        }
+    }
+
+    /**
+     * 停止正在播放的动画，几何停在当前显示的位置
+     */
+    void cancel() {
+        if (mAnimator != null) {
+            mAnimator.cancel();
+        }
+    }
+}
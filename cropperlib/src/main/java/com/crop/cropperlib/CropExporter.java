@@ -0,0 +1,581 @@
+package com.crop.cropperlib;
+
+import com.crop.cropperlib.border.CropShape;
+import com.crop.cropperlib.cache.CropResultCache;
+import com.crop.cropperlib.cache.CropResultKey;
+import com.crop.cropperlib.engine.AffineResampler;
+import com.crop.cropperlib.engine.ArgbBuffer;
+import com.crop.cropperlib.engine.HomographyWarper;
+import com.crop.cropperlib.engine.OvalMask;
+import com.crop.cropperlib.engine.ResampleFilter;
+import com.crop.cropperlib.export.CropCallback;
+import com.crop.cropperlib.export.CropEncoder;
+import com.crop.cropperlib.export.CropExecutors;
+import com.crop.cropperlib.export.CropExportTask;
+import com.crop.cropperlib.source.CropSource;
+import ohos.app.dispatcher.TaskDispatcher;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.PixelFormat;
+import ohos.media.image.common.Rect;
+import ohos.media.image.common.Size;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link CropImage}的导出：按裁剪几何的快照从原图或显示位图中裁剪、缩放、加遮罩和编码，并管理结果缓存和异步任务。
+ * 静态方法只使用参数中的快照，可以在后台线程调用；实例方法只应在UI线程调用。
+ */
+final class CropExporter {
+
+    // 导出旋转裁剪区域时使用的重采样
+    private static final AffineResampler AFFINE_RESAMPLER = new AffineResampler();
+    private static final ResampleFilter ROTATION_FILTER = ResampleFilter.BICUBIC;
+
+    // 导出透视裁剪时使用的校正；文档扫描一次要处理大量图片，选用更快的双线性插值
+    private static final HomographyWarper HOMOGRAPHY_WARPER = new HomographyWarper();
+    private static final ResampleFilter PERSPECTIVE_FILTER = ResampleFilter.BILINEAR;
+
+    // 逐块导出旋转和透视裁剪时每块的边长，以及逐段加椭圆遮罩时每段的行数（输出像素）
+    private static final int EXPORT_TILE_SIZE = 256;
+    private static final int MASK_BAND_ROWS = 64;
+
+    // 写入时裁剪占总进度的比例，其余为编码
+    private static final float CROP_PROGRESS_SHARE = 0.8f;
+
+    // 椭圆裁剪时解码占裁剪进度的比例，其余为逐段加遮罩
+    private static final float DECODE_PROGRESS_SHARE = 0.5f;
+
+    private final TaskDispatcher mUiDispatcher;
+
+    // 裁剪结果缓存；为null表示不缓存
+    private CropResultCache mCache;
+
+    // 最近一次异步裁剪任务，以及它的快照：裁剪目标、区域、角度、形状、输出尺寸和透视四边形
+    private CropExportTask mTask;
+    private CropResultKey mTaskKey;
+    private float[] mTaskQuad;
+
+    CropExporter(TaskDispatcher uiDispatcher) {
+        mUiDispatcher = uiDispatcher;
+    }
+
+    void setCache(CropResultCache cache) {
+        mCache = cache;
+    }
+
+    CropResultCache getCache() {
+        return mCache;
+    }
+
+    /**
+     * 在调用线程裁剪，开启缓存时先查找缓存；透视裁剪的结果不缓存
+     *
+     * @param quad 透视裁剪的四边形（裁剪目标坐标）；为null时按cropRect和angle裁剪
+     */
+    PixelMap getCroppedImage(CropSource cropSource, PixelMap displayPixelMap, Rect cropRect, float angle,
+                             float[] quad, CropShape shape) {
+        CropResultCache cache = quad == null ? mCache : null;
+        CropResultKey key = null;
+        if (cache != null) {
+            key = new CropResultKey(getCropTarget(cropSource, displayPixelMap), cropRect, angle, shape, 0, 0);
+            PixelMap cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        PixelMap cropped = crop(cropSource, displayPixelMap, cropRect, angle, quad, shape, null, null, 1f);
+        if (cache != null) {
+            cache.put(key, cropped);
+        }
+        return cropped;
+    }
+
+    /**
+     * 在后台线程裁剪。上一次的任务仍在进行且快照完全相同时，把回调加到该任务上，而不是开始新的任务
+     *
+     * @param quad       透视裁剪的四边形（裁剪目标坐标）；为null时按cropRect和angle裁剪
+     * @param outputSize 输出尺寸；为null时保持裁剪区域的原始尺寸
+     */
+    CropExportTask getCroppedImageAsync(final CropSource cropSource, final PixelMap displayPixelMap,
+                                        final Rect cropRect, final float angle, final float[] quad,
+                                        final CropShape shape, final Size outputSize, CropCallback callback) {
+        final CropResultCache cache = quad == null ? mCache : null;
+        final CropResultKey key = new CropResultKey(getCropTarget(cropSource, displayPixelMap), cropRect, angle,
+                shape, outputSize == null ? 0 : outputSize.width, outputSize == null ? 0 : outputSize.height);
+        if (mTask != null && !mTask.isDone() && key.equals(mTaskKey) && Arrays.equals(quad, mTaskQuad)) {
+            mTask.addCallback(callback);
+            return mTask;
+        }
+
+        mTask = new CropExportTask(mUiDispatcher, new CropExportTask.Work() {
+            @Override
+            public PixelMap run(CropExportTask task) {
+                if (cache != null) {
+                    PixelMap cached = cache.get(key);
+                    if (cached != null) {
+                        // 缓存中的结果可能正被其他调用者使用，任务被取消时不能释放
+                        task.markResultShared();
+                        task.publishProgress(1f);
+                        return cached;
+                    }
+                }
+                PixelMap cropped = crop(cropSource, displayPixelMap, cropRect, angle, quad, shape, outputSize,
+                        task, 1f);
+                if (cropped == null) {
+                    // 裁剪过程中被取消
+                    return null;
+                }
+                if (task.isCancelled()) {
+                    cropped.release();
+                    return null;
+                }
+                if (cache != null) {
+                    cache.put(key, cropped);
+                    task.markResultShared();
+                }
+                return cropped;
+            }
+        });
+        mTaskKey = key;
+        mTaskQuad = quad;
+        mTask.addCallback(callback);
+        mTask.submit(CropExecutors.getDefault());
+        return mTask;
+    }
+
+    /**
+     * 在后台线程裁剪并编码写入输出流，成功时回调的参数为null
+     */
+    CropExportTask writeAsync(final CropSource cropSource, final PixelMap displayPixelMap, final Rect cropRect,
+                              final float angle, final float[] quad, final CropShape shape, final Size outputSize,
+                              final OutputStream output, final String format, final int quality,
+                              CropCallback callback) {
+        CropExportTask task = new CropExportTask(mUiDispatcher, new CropExportTask.Work() {
+            @Override
+            public PixelMap run(CropExportTask task) throws IOException {
+                write(cropSource, displayPixelMap, cropRect, angle, quad, shape, outputSize, output, format,
+                        quality, task);
+                return null;
+            }
+        });
+        task.addCallback(callback);
+        task.submit(CropExecutors.getDefault());
+        return task;
+    }
+
+    /**
+     * 一次裁剪出多个区域，会在调用线程解码。设置了原始编码图片时，如果所有区域的外接矩形不超过各区域面积之和的两倍，
+     * 只解码一次外接矩形，再从中切出每个区域；否则（区域相距很远时）逐个解码区域，避免解码大片不需要的像素
+     *
+     * @param rects  各区域在裁剪目标坐标系中的裁剪区域
+     * @param angles 各区域的旋转角度
+     */
+    static List<PixelMap> cropAll(CropSource cropSource, PixelMap displayPixelMap, List<Rect> rects, float[] angles,
+                                  CropShape shape) {
+        List<PixelMap> results = new ArrayList<>(rects.size());
+        boolean rotated = false;
+        for (float angle : angles) {
+            rotated |= angle != 0;
+        }
+        if (cropSource == null || rects.size() == 1 || rotated || shape != CropShape.RECTANGLE) {
+            // 旋转的区域各自只解码所需的范围，椭圆遮罩直接加在各自的输出上
+            for (int i = 0; i < rects.size(); i++) {
+                results.add(crop(cropSource, displayPixelMap, rects.get(i), angles[i], null, shape, null, null, 1f));
+            }
+            return results;
+        }
+
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        long area = 0;
+        for (Rect rect : rects) {
+            left = Math.min(left, rect.minX);
+            top = Math.min(top, rect.minY);
+            right = Math.max(right, rect.minX + rect.width);
+            bottom = Math.max(bottom, rect.minY + rect.height);
+            area += (long) rect.width * rect.height;
+        }
+        if ((long) (right - left) * (bottom - top) > 2 * area) {
+            for (Rect rect : rects) {
+                results.add(cropSource.decodeRegion(rect));
+            }
+            return results;
+        }
+
+        PixelMap union = cropSource.decodeRegion(new Rect(left, top, right - left, bottom - top));
+        try {
+            for (Rect rect : rects) {
+                PixelMap.InitializationOptions options = new PixelMap.InitializationOptions();
+                options.size = new Size(rect.width, rect.height);
+                results.add(PixelMap.create(union, new Rect(rect.minX - left, rect.minY - top, rect.width, rect.height),
+                        options));
+            }
+        } finally {
+            union.release();
+        }
+        return results;
+    }
+
+    /**
+     * 裁剪并编码写入输出流，可以在后台线程调用。中间只有一张输出尺寸的位图，
+     * 椭圆、旋转和透视裁剪另外只需要一段或一块大小的像素缓冲
+     *
+     * @param task 报告进度和检查取消的任务；同步写入时为null。被取消时不写入任何数据
+     */
+    static void write(CropSource cropSource, PixelMap displayPixelMap, Rect cropRect, float angle, float[] quad,
+                      CropShape shape, Size outputSize, OutputStream output, String format, int quality,
+                      CropExportTask task) throws IOException {
+        PixelMap cropped = crop(cropSource, displayPixelMap, cropRect, angle, quad, shape, outputSize, task,
+                CROP_PROGRESS_SHARE);
+        if (cropped == null) {
+            return;
+        }
+        try {
+            if (isCancelled(task)) {
+                return;
+            }
+            CropEncoder.encode(cropped, output, format, quality);
+            publishProgress(task, 1f);
+        } finally {
+            cropped.release();
+        }
+    }
+
+    /**
+     * 从原图或显示位图中裁剪给定区域，并一步缩放到输出尺寸，不产生中间位图。可以在后台线程调用
+     *
+     * @param angle      裁剪区域绕中心的旋转角度
+     * @param quad       透视裁剪的四边形（裁剪目标坐标）；不为null时忽略cropRect和angle
+     * @param shape      裁剪形状，椭圆时在输出上加透明遮罩
+     * @param outputSize 输出尺寸；为null时保持裁剪区域的原始尺寸
+     * @param task       报告进度和检查取消的任务；同步裁剪时为null
+     * @param share      裁剪完成时报告的进度
+     *
+     * @return 裁剪结果；任务被取消时为null
+     */
+    private static PixelMap crop(CropSource cropSource, PixelMap displayPixelMap, Rect cropRect, float angle,
+                                 float[] quad, CropShape shape, Size outputSize, CropExportTask task, float share) {
+        boolean oval = shape == CropShape.OVAL;
+        if (quad != null) {
+            return cropPerspective(cropSource, displayPixelMap, quad, oval, outputSize, task, share);
+        }
+        int width = outputSize == null ? cropRect.width : outputSize.width;
+        int height = outputSize == null ? cropRect.height : outputSize.height;
+        if (angle != 0) {
+            return cropRotated(cropSource, displayPixelMap, cropRect, angle, oval, width, height, task, share);
+        }
+        if (isCancelled(task)) {
+            return null;
+        }
+        PixelMap cropped;
+        if (cropSource != null) {
+            cropped = cropSource.decodeRegion(cropRect, width, height, oval);
+        } else {
+            PixelMap.InitializationOptions options = new PixelMap.InitializationOptions();
+            options.size = new Size(width, height);
+            if (oval) {
+                options.pixelFormat = PixelFormat.ARGB_8888;
+                options.editable = true;
+            }
+            cropped = PixelMap.create(displayPixelMap, cropRect, options);
+        }
+        if (!oval) {
+            publishProgress(task, share);
+            return cropped;
+        }
+        publishProgress(task, share * DECODE_PROGRESS_SHARE);
+        boolean masked = false;
+        try {
+            masked = maskOval(cropped, task, share * DECODE_PROGRESS_SHARE, share);
+        } finally {
+            if (!masked) {
+                cropped.release();
+            }
+        }
+        return masked ? cropped : null;
+    }
+
+    /**
+     * 给可编辑的ARGB裁剪结果加上椭圆遮罩：每次读出若干行，计算遮罩后写回原位图，不创建第二张位图。
+     * 每段完成后把进度从from推进到to
+     *
+     * @return 是否完成；任务被取消时为false
+     */
+    private static boolean maskOval(PixelMap cropped, CropExportTask task, float from, float to) {
+        Size size = cropped.getImageInfo().size;
+        ArgbBuffer band = new ArgbBuffer(size.width, Math.min(MASK_BAND_ROWS, size.height));
+        for (int top = 0; top < size.height; top += MASK_BAND_ROWS) {
+            if (isCancelled(task)) {
+                return false;
+            }
+            int rows = Math.min(MASK_BAND_ROWS, size.height - top);
+            if (rows != band.getHeight()) {
+                band = new ArgbBuffer(size.width, rows);
+            }
+            Rect region = new Rect(0, top, size.width, rows);
+            cropped.readPixels(band.getPixels(), 0, size.width, region);
+            OvalMask.apply(band, 0, top, size.width, size.height);
+            cropped.writePixels(band.getPixels(), 0, size.width, region);
+            publishProgress(task, from + (to - from) * (top + rows) / size.height);
+        }
+        return true;
+    }
+
+    /**
+     * 裁剪旋转的区域：按仿射映射逐块重采样，各行由多个线程并行计算。超出裁剪目标的部分为透明
+     */
+    private static PixelMap cropRotated(CropSource cropSource, PixelMap displayPixelMap, Rect cropRect, float angle,
+                                        boolean oval, int width, int height, CropExportTask task, float share) {
+        double[] matrix = AffineResampler.mapRectToRotated(cropRect.minX + cropRect.width / 2d,
+                cropRect.minY + cropRect.height / 2d, cropRect.width, cropRect.height, angle, width, height);
+        return warpTiles(cropSource, displayPixelMap, matrix, ROTATION_FILTER, oval, width, height, task, share);
+    }
+
+    /**
+     * 透视裁剪：按单应矩阵逐块校正为矩形，各行由多个线程并行计算。
+     * 输出尺寸默认取四边形对边中较长的一条，超出裁剪目标的部分为透明
+     */
+    private static PixelMap cropPerspective(CropSource cropSource, PixelMap displayPixelMap, float[] quad,
+                                            boolean oval, Size outputSize, CropExportTask task, float share) {
+        int width = outputSize == null ? HomographyWarper.estimateWidth(quad) : outputSize.width;
+        int height = outputSize == null ? HomographyWarper.estimateHeight(quad) : outputSize.height;
+        double[] matrix = HomographyWarper.mapRectToQuad(quad, width, height);
+        return warpTiles(cropSource, displayPixelMap, matrix, PERSPECTIVE_FILTER, oval, width, height, task, share);
+    }
+
+    /**
+     * 逐块生成旋转或透视裁剪的结果：每块只解码它在裁剪目标中覆盖的外接矩形（输出比原图小时按输出的分辨率缩小解码），
+     * 重采样并加遮罩后直接写入可编辑的输出位图。
+     * 同一时刻只持有一块输出和它对应的源像素，不会读出整个裁剪区域。每块完成后报告进度，开始下一块之前检查取消
+     *
+     * @param matrix 输出坐标到裁剪目标坐标的映射：长度为6时是仿射映射，长度为9时是单应矩阵
+     * @param task   报告进度和检查取消的任务；同步裁剪时为null
+     * @param share  所有块完成时报告的进度
+     *
+     * @return 裁剪结果；任务被取消时为null
+     */
+    private static PixelMap warpTiles(CropSource cropSource, PixelMap displayPixelMap, double[] matrix,
+                                      ResampleFilter filter, boolean oval, int width, int height,
+                                      CropExportTask task, float share) {
+        Size targetSize = getTargetSize(cropSource, displayPixelMap);
+        PixelMap.InitializationOptions options = new PixelMap.InitializationOptions();
+        options.size = new Size(width, height);
+        options.pixelFormat = PixelFormat.ARGB_8888;
+        options.editable = true;
+        PixelMap result = PixelMap.create(options);
+
+        // 外接矩形向外多取的像素，供滤波核读取边缘的邻近像素
+        int margin = (int) Math.ceil(filter.getRadius()) + 1;
+        int columns = (width + EXPORT_TILE_SIZE - 1) / EXPORT_TILE_SIZE;
+        int tileCount = columns * ((height + EXPORT_TILE_SIZE - 1) / EXPORT_TILE_SIZE);
+        int finished = 0;
+        ArgbBuffer tile = null;
+        boolean done = false;
+        try {
+            for (int tileTop = 0; tileTop < height; tileTop += EXPORT_TILE_SIZE) {
+                int tileHeight = Math.min(EXPORT_TILE_SIZE, height - tileTop);
+                for (int tileLeft = 0; tileLeft < width; tileLeft += EXPORT_TILE_SIZE) {
+                    if (isCancelled(task)) {
+                        return null;
+                    }
+                    int tileWidth = Math.min(EXPORT_TILE_SIZE, width - tileLeft);
+                    if (tile == null || tile.getWidth() != tileWidth || tile.getHeight() != tileHeight) {
+                        tile = new ArgbBuffer(tileWidth, tileHeight);
+                    }
+                    // 输出比原图小时按比例缩小解码，滤波核需要的边缘像素也随之按原图像素放大
+                    double scale = cropSource == null ? 1
+                            : getDecodeScale(matrix, tileLeft, tileTop, tileWidth, tileHeight);
+                    Rect region = getTileFootprint(matrix, tileLeft, tileTop, tileWidth, tileHeight,
+                            (int) Math.ceil(margin / scale), targetSize);
+                    if (region == null) {
+                        // 完全在裁剪目标之外
+                        Arrays.fill(tile.getPixels(), 0);
+                    } else {
+                        ArgbBuffer source = decodeArgb(cropSource, displayPixelMap, region, scale);
+                        double[] tileMatrix = translate(matrix, tileLeft, tileTop, region.minX, region.minY);
+                        scaleSource(tileMatrix, (double) source.getWidth() / region.width,
+                                (double) source.getHeight() / region.height);
+                        if (tileMatrix.length == 6) {
+                            AFFINE_RESAMPLER.resample(source, tileMatrix, tile, filter);
+                        } else {
+                            HOMOGRAPHY_WARPER.warp(source, tileMatrix, tile, filter);
+                        }
+                        if (oval) {
+                            OvalMask.apply(tile, tileLeft, tileTop, width, height);
+                        }
+                    }
+                    result.writePixels(tile.getPixels(), 0, tileWidth,
+                            new Rect(tileLeft, tileTop, tileWidth, tileHeight));
+                    finished++;
+                    publishProgress(task, share * finished / tileCount);
+                }
+            }
+            done = true;
+        } finally {
+            if (!done) {
+                result.release();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算一块输出在裁剪目标中覆盖的外接矩形，向外扩展margin并裁到裁剪目标之内
+     *
+     * @return 外接矩形；与裁剪目标不相交时为null
+     */
+    private static Rect getTileFootprint(double[] matrix, int tileLeft, int tileTop, int tileWidth, int tileHeight,
+                                         int margin, Size targetSize) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        boolean projective = matrix.length == 9;
+        for (int corner = 0; corner < 4; corner++) {
+            double u = tileLeft + ((corner & 1) == 0 ? 0 : tileWidth);
+            double v = tileTop + ((corner & 2) == 0 ? 0 : tileHeight);
+            double w = projective ? matrix[6] * u + matrix[7] * v + matrix[8] : 1;
+            if (w <= 0) {
+                // 块越过了四边形的消失线，退回到整个裁剪目标
+                minX = 0;
+                minY = 0;
+                maxX = targetSize.width;
+                maxY = targetSize.height;
+                break;
+            }
+            double x = (matrix[0] * u + matrix[1] * v + matrix[2]) / w;
+            double y = (matrix[3] * u + matrix[4] * v + matrix[5]) / w;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        int left = (int) Math.max(0, Math.floor(minX) - margin);
+        int top = (int) Math.max(0, Math.floor(minY) - margin);
+        int right = (int) Math.min(targetSize.width, Math.ceil(maxX) + margin);
+        int bottom = (int) Math.min(targetSize.height, Math.ceil(maxY) + margin);
+        if (right <= left || bottom <= top) {
+            return null;
+        }
+        return new Rect(left, top, right - left, bottom - top);
+    }
+
+    /**
+     * 计算一块输出的源像素可以缩小解码的比例：取块的四条边映射到裁剪目标后，每个输出像素对应的最少源像素数，
+     * 按它的倒数缩小后块内任何位置的采样都不会比原图粗。输出不比原图小或块越过消失线时为1
+     *
+     * @return 0到1之间的缩放比例
+     */
+    private static double getDecodeScale(double[] matrix, int tileLeft, int tileTop, int tileWidth,
+                                         int tileHeight) {
+        double[] xs = new double[4];
+        double[] ys = new double[4];
+        boolean projective = matrix.length == 9;
+        for (int corner = 0; corner < 4; corner++) {
+            double u = tileLeft + ((corner & 1) == 0 ? 0 : tileWidth);
+            double v = tileTop + ((corner & 2) == 0 ? 0 : tileHeight);
+            double w = projective ? matrix[6] * u + matrix[7] * v + matrix[8] : 1;
+            if (w <= 0) {
+                return 1;
+            }
+            xs[corner] = (matrix[0] * u + matrix[1] * v + matrix[2]) / w;
+            ys[corner] = (matrix[3] * u + matrix[4] * v + matrix[5]) / w;
+        }
+        // 上、下两条边按块宽，左、右两条边按块高
+        double density = Math.min(
+                Math.min(Math.hypot(xs[1] - xs[0], ys[1] - ys[0]), Math.hypot(xs[3] - xs[2], ys[3] - ys[2]))
+                        / tileWidth,
+                Math.min(Math.hypot(xs[2] - xs[0], ys[2] - ys[0]), Math.hypot(xs[3] - xs[1], ys[3] - ys[1]))
+                        / tileHeight);
+        return density > 1 ? 1 / density : 1;
+    }
+
+    /**
+     * 源像素缓冲按(scaleX, scaleY)缩小解码后，把映射的源坐标也按同样比例缩小
+     */
+    private static void scaleSource(double[] matrix, double scaleX, double scaleY) {
+        for (int column = 0; column < 3; column++) {
+            matrix[column] *= scaleX;
+            matrix[3 + column] *= scaleY;
+        }
+    }
+
+    /**
+     * 把整张输出的映射改写为一块输出到它的源像素缓冲的映射：输出坐标加上块的位置，源坐标减去缓冲的位置
+     */
+    private static double[] translate(double[] matrix, int tileLeft, int tileTop, int sourceLeft, int sourceTop) {
+        double[] m = matrix.clone();
+        boolean projective = m.length == 9;
+        double g = projective ? m[6] : 0;
+        double h = projective ? m[7] : 0;
+        double i = projective ? m[8] : 1;
+        m[0] -= sourceLeft * g;
+        m[1] -= sourceLeft * h;
+        m[2] -= sourceLeft * i;
+        m[3] -= sourceTop * g;
+        m[4] -= sourceTop * h;
+        m[5] -= sourceTop * i;
+        for (int row = 0; row < m.length; row += 3) {
+            m[row + 2] += m[row] * tileLeft + m[row + 1] * tileTop;
+        }
+        return m;
+    }
+
+    /**
+     * 从原图或显示位图中读出给定区域的ARGB像素。从原图解码时按scale缩小，缓冲的实际尺寸以解码结果为准
+     */
+    private static ArgbBuffer decodeArgb(CropSource cropSource, PixelMap displayPixelMap, Rect region,
+                                         double scale) {
+        if (cropSource == null) {
+            ArgbBuffer buffer = new ArgbBuffer(region.width, region.height);
+            displayPixelMap.readPixels(buffer.getPixels(), 0, region.width, region);
+            return buffer;
+        }
+        PixelMap regionPixels = scale < 1
+                ? cropSource.decodeRegion(region, (int) Math.ceil(region.width * scale),
+                        (int) Math.ceil(region.height * scale))
+                : cropSource.decodeRegion(region);
+        ArgbBuffer buffer;
+        try {
+            Size size = regionPixels.getImageInfo().size;
+            buffer = new ArgbBuffer(size.width, size.height);
+            regionPixels.readPixels(buffer.getPixels(), 0, size.width, new Rect(0, 0, size.width, size.height));
+        } finally {
+            regionPixels.release();
+        }
+        return buffer;
+    }
+
+    /**
+     * 任务是否已被取消；同步导出时task为null，从不取消
+     */
+    private static boolean isCancelled(CropExportTask task) {
+        return task != null && task.isCancelled();
+    }
+
+    private static void publishProgress(CropExportTask task, float progress) {
+        if (task != null) {
+            task.publishProgress(progress);
+        }
+    }
+
+    private static Size getTargetSize(CropSource cropSource, PixelMap displayPixelMap) {
+        if (cropSource != null) {
+            return new Size(cropSource.getWidth(), cropSource.getHeight());
+        }
+        return displayPixelMap.getImageInfo().size;
+    }
+
+    /**
+     * 获取裁剪目标：设置了原始编码图片时为原图，否则为显示位图
+     */
+    private static Object getCropTarget(CropSource cropSource, PixelMap displayPixelMap) {
+        return cropSource != null ? cropSource : displayPixelMap;
+    }
+}
@@ -0,0 +1,100 @@
+package com.crop.cropperlib;
+
+import com.crop.cropperlib.history.CropHistory;
+
+/**
+ * {@link CropImage}的撤销/重做：手势按下和抬起时读出选中几何的状态，按图片归一化后记录到{@link CropHistory}中，
+ * 归一化的差值在布局变化和缩放后仍然适用。撤销和重做时把差值作用到标签对应的当前几何上。只应在UI线程使用
+ */
+final class CropHistoryController {
+
+    private final CropStateController mStates;
+
+    private CropHistory mHistory = new CropHistory(CropHistory.DEFAULT_CAPACITY,
+            CropStateController.GEOMETRY_STATE_SIZE);
+
+    // 手势开始时的状态和撤销时读写的状态
+    private final float[] mGestureStartState = new float[CropStateController.GEOMETRY_STATE_SIZE];
+    private final float[] mState = new float[CropStateController.GEOMETRY_STATE_SIZE];
+    private int mGestureTag;
+
+    CropHistoryController(CropStateController states) {
+        mStates = states;
+    }
+
+    /**
+     * 手势按下时读出选中几何的状态
+     */
+    void beginGesture() {
+        mGestureTag = mStates.captureState(mGestureStartState);
+        mStates.normalizeState(mGestureTag, mGestureStartState);
+    }
+
+    /**
+     * 手势抬起时记录一条历史；几何没有变化时不记录
+     */
+    void endGesture() {
+        mStates.captureState(mState);
+        mStates.normalizeState(mGestureTag, mState);
+        mHistory.record(mGestureTag, mGestureStartState, mState);
+    }
+
+    boolean canUndo() {
+        return mHistory.canUndo();
+    }
+
+    boolean canRedo() {
+        return mHistory.canRedo();
+    }
+
+    int getPosition() {
+        return mHistory.getPosition();
+    }
+
+    int size() {
+        return mHistory.size();
+    }
+
+    /**
+     * 连续撤销或重做，直到历史位置等于给定位置。每一步是O(1)的，跳过k条记录需要O(k)
+     */
+    void jumpTo(int position) {
+        while (mHistory.getPosition() > position) {
+            step(true);
+        }
+        while (mHistory.getPosition() < position) {
+            step(false);
+        }
+    }
+
+    /**
+     * 撤销或重做一条记录：读出标签对应的当前状态，交给历史修改后再写回。区域已被移除时只移动历史位置
+     */
+    void step(boolean undo) {
+        int tag = undo ? mHistory.getUndoTag() : mHistory.getRedoTag();
+        float[] state = mState;
+        boolean exists = mStates.loadState(tag, state);
+        mStates.normalizeState(tag, state);
+        if (undo) {
+            mHistory.undo(state);
+        } else {
+            mHistory.redo(state);
+        }
+        if (exists) {
+            mStates.denormalizeState(tag, state);
+            mStates.applyState(tag, state);
+            mStates.selectStateRegion(tag);
+        }
+    }
+
+    /**
+     * 换一个容量的历史，已有的记录被清除
+     */
+    void setCapacity(int capacity) {
+        mHistory = new CropHistory(capacity, CropStateController.GEOMETRY_STATE_SIZE);
+    }
+
+    void clear() {
+        mHistory.clear();
+    }
+}
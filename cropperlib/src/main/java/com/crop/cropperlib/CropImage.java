@@ -1,16 +1,41 @@
 package com.crop.cropperlib;
 
+import com.crop.cropperlib.border.CropQuad;
+import com.crop.cropperlib.border.CropShape;
+import com.crop.cropperlib.border.CropWindow;
 import com.crop.cropperlib.border.Frame;
+import com.crop.cropperlib.cache.CropResultCache;
+import com.crop.cropperlib.engine.HomographyWarper;
+import com.crop.cropperlib.export.CropCallback;
+import com.crop.cropperlib.export.CropEncoder;
+import com.crop.cropperlib.export.CropExportTask;
 import com.crop.cropperlib.handle.Handle;
+import com.crop.cropperlib.history.CropHistory;
+import com.crop.cropperlib.metrics.TouchLatencyTracker;
+import com.crop.cropperlib.region.CropRegion;
+import com.crop.cropperlib.region.CropRegionSet;
+import com.crop.cropperlib.render.CropOverlayRenderer;
+import com.crop.cropperlib.render.GeometryChangeTracker;
+import com.crop.cropperlib.render.ZoomedImageRenderer;
+import com.crop.cropperlib.source.CropSource;
+import com.crop.cropperlib.state.CropState;
+import com.crop.cropperlib.tile.TileLoader;
+import com.crop.cropperlib.touch.MoveCoalescer;
+import com.crop.cropperlib.touch.ZoomPanState;
+import com.crop.cropperlib.utils.AspectRatioUtil;
+import com.crop.cropperlib.utils.CropMapping;
 import com.crop.cropperlib.utils.HandleUtil;
-import com.crop.cropperlib.utils.PaintUtil;
+import com.crop.cropperlib.utils.HitTester;
+import com.crop.cropperlib.utils.TargetGrid;
+import ohos.agp.components.AttrHelper;
 import ohos.agp.components.AttrSet;
 import ohos.agp.components.Component;
 import ohos.agp.components.Image;
 import ohos.agp.render.Canvas;
-import ohos.agp.render.Paint;
 import ohos.agp.utils.Point;
 import ohos.agp.utils.RectFloat;
+import ohos.agp.window.service.Display;
+import ohos.agp.window.service.DisplayManager;
 import ohos.app.Context;
 import ohos.hiviewdfx.HiLog;
 import ohos.hiviewdfx.HiLogLabel;
@@ -20,24 +45,43 @@ import ohos.media.image.common.Size;
 import ohos.multimodalinput.event.MmiPoint;
 import ohos.multimodalinput.event.TouchEvent;
 
-public class CropImage extends Image implements Component.TouchEventListener, Component.DrawTask, Component.LayoutRefreshedListener {
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class CropImage extends Image implements Component.TouchEventListener, Component.DrawTask,
+        Component.LayoutRefreshedListener, MoveCoalescer.Target, TileLoader.Listener {
     private static final HiLogLabel LABEL = new HiLogLabel(HiLog.LOG_APP, 0x00202, "CROP");
 
-    // 手柄周围可触摸区域的半径（以像素为单位）。
-    // 我们是基于建议的48dp触摸目标大小的值
-    private static final float M_HANDLE_RADIUS = 24f;
+    // 手柄周围可触摸区域的默认半径（以vp为单位）。
+    // 我们是基于建议的48vp触摸目标大小的值
+    private static final float DEFAULT_HANDLE_RADIUS_VP = 24f;
 
     // 当裁剪窗口边缘与边界框边缘的距离小于或等于此距离（以像素为单位）时，裁剪窗口的边缘将捕捉到指定边界框的相应边缘
     private static final float M_SNAP_RADIUS = 3f;
 
-    // 用来在裁剪区域周围绘制白色矩形
-    private Paint mBorderPaint;
+    // 默认的预览图最大边长
+    private static final int DEFAULT_PREVIEW_MAX_SIZE = 1080;
+
+    // 没有原图时的最大缩放倍数
+    private static final float DEFAULT_MAX_ZOOM = 4f;
+
+    // 有原图时，最大缩放到原图的一个像素显示为这么多个屏幕像素
+    private static final float MAX_DISPLAY_PER_SOURCE = 2f;
 
-    // 按下时用于在裁剪区域内绘制指导线
-    private Paint mGuidelinePaint;
+    // 旋转把手圆心到上边中点的距离和把手圆的半径（以vp为单位）
+    private static final float ROTATION_KNOB_DISTANCE_VP = 32f;
+    private static final float ROTATION_KNOB_RADIUS_VP = 8f;
 
-    // 用于使特定区域以外变暗
-    private Paint mSurroundingAreaPaint;
+    // 旋转把手在额外触摸目标中的id
+    private static final int ROTATION_KNOB_TARGET = 0;
+
+    // 绘制变暗区域、指导线和边框的覆盖层
+    private final CropOverlayRenderer mOverlayRenderer = new CropOverlayRenderer();
 
     // 正在裁剪的位图周围的边界框
     private RectFloat mPixelMapRect = new RectFloat();
@@ -47,6 +91,109 @@ public class CropImage extends Image implements Component.TouchEventListener, Co
     // 但是，我们希望在拖动控制柄时保持这些偏移值，以便控制柄不会跳转。
     private Point mTouchOffset = new Point();
 
+    // 当前选中区域的裁剪窗口，不与其他CropImage共享
+    private CropWindow mCropWindow = new CropWindow();
+
+    // 所有裁剪区域；默认只有一个使用mCropWindow的区域
+    private CropRegionSet mCropRegions;
+
+    // 是否固定裁剪窗口的纵横比
+    private boolean mFixAspectRatio;
+
+    // 固定纵横比模式下的宽高比例
+    private int mAspectRatioX = 1;
+    private int mAspectRatioY = 1;
+
+    // 记录每次拖动前后裁剪窗口的变化，用于跳过没有改变几何的重绘
+    private final GeometryChangeTracker mGeometryTracker = new GeometryChangeTracker();
+
+    // 原始编码图片；为null时直接从显示的位图裁剪
+    private CropSource mCropSource;
+
+    // 预览图的最大尺寸
+    private int mPreviewMaxWidth = DEFAULT_PREVIEW_MAX_SIZE;
+    private int mPreviewMaxHeight = DEFAULT_PREVIEW_MAX_SIZE;
+
+    // 是否按组件尺寸解码预览图；组件尚未布局时先使用最大尺寸
+    private boolean mPreviewFitsView = true;
+
+    // 组件坐标到裁剪目标（原图或显示位图）像素的映射，每次导出前重新计算
+    private final CropMapping mCropMapping = new CropMapping();
+
+    // 裁剪、缓存和异步导出
+    private final CropExporter mExporter = new CropExporter(getContext().getUITaskDispatcher());
+
+    // 合并一帧内多个移动采样；为null表示未开启合并模式
+    private MoveCoalescer mMoveCoalescer;
+
+    // 合并模式下是否预测触摸位置
+    private boolean mTouchPredictionEnabled;
+
+    // 移动采样合并和过渡动画的帧间隔（毫秒）；为0表示按屏幕刷新率计算
+    private long mFrameIntervalMs;
+
+    // 双指缩放和平移的状态
+    private final ZoomPanState mZoomPanState = new ZoomPanState();
+
+    // 缩放后绘制预览图和原图方块
+    private final ZoomedImageRenderer mZoomedImageRenderer = new ZoomedImageRenderer();
+
+    // 是否允许双指缩放
+    private boolean mZoomEnabled = true;
+
+    // 按屏幕密度换算后的触摸半径进行控制柄命中测试
+    private HitTester mHitTester;
+
+    // 是否显示旋转把手
+    private boolean mRotationEnabled;
+
+    // 按屏幕密度换算后的旋转把手距离和半径（像素）
+    private float mRotationKnobDistance;
+    private float mRotationKnobRadius;
+
+    // 是否为透视裁剪模式
+    private boolean mPerspectiveEnabled;
+
+    // 透视模式下的裁剪四边形（组件坐标）
+    private final CropQuad mCropQuad = new CropQuad();
+
+    // 裁剪形状
+    private CropShape mCropShape = CropShape.RECTANGLE;
+
+    // 组件坐标与窗口坐标互相转换时复用的缓冲
+    private final float[] mWindowPoint = new float[2];
+
+    // 读写几何状态和可以持久化的裁剪几何
+    private final CropStateController mStates = new CropStateController(this, mCropQuad);
+
+    // 撤销/重做历史，每次手势抬起时记录
+    private final CropHistoryController mHistory = new CropHistoryController(mStates);
+
+    // 程序修改几何时的过渡动画
+    private final CropAnimationController mAnimation = new CropAnimationController(this, mStates);
+
+    // 上一次布局时决定图片边界框的参数，全部不变时布局刷新不做任何事
+    private int mLayoutWidth;
+    private int mLayoutHeight;
+    private int mLayoutImageWidth;
+    private int mLayoutImageHeight;
+    private float mLayoutScaleX;
+    private float mLayoutScaleY;
+    private float mLayoutTranslationX;
+    private float mLayoutTranslationY;
+
+    // 换了图片，下一次布局时重新计算默认的初始窗口，而不是投影之前的裁剪
+    private boolean mResetCropOnLayout;
+
+    // 等待下一次布局时恢复的裁剪几何；为null表示使用默认的初始窗口
+    private CropState mPendingCropState;
+
+    // 按图片内容推荐初始窗口
+    private final CropSuggestionController mSuggestion = new CropSuggestionController(this);
+
+    // 触摸延迟统计；为null表示不统计
+    private TouchLatencyTracker mLatencyTracker;
+
     // 当前按下的句柄；如果没有按下句柄，则为空。
     private Handle mPressedHandle;
 
@@ -72,94 +219,1080 @@ public class CropImage extends Image implements Component.TouchEventListener, Co
     }
 
     private void init() {
-        mBorderPaint = PaintUtil.getBorderPaint();
-        mGuidelinePaint = PaintUtil.getGuidelinePaint();
-        mSurroundingAreaPaint = PaintUtil.getSurroundingAreaPaint();
+        setHandleRadius(DEFAULT_HANDLE_RADIUS_VP);
+        float density = AttrHelper.getDensity(getContext());
+        mRotationKnobDistance = HitTester.dpToPx(ROTATION_KNOB_DISTANCE_VP, density);
+        mRotationKnobRadius = HitTester.dpToPx(ROTATION_KNOB_RADIUS_VP, density);
+        mCropRegions = new CropRegionSet(mHitTester.getRadius());
+        mCropRegions.add(mCropWindow);
         setLayoutRefreshedListener(this);
         addDrawTask(this);
         setTouchEventListener(this);
     }
 
+    /**
+     * 按新的图片边界框更新裁剪几何：已有裁剪几何时先按旧的边界框归一化，再投影到新的边界框，保留用户的裁剪；
+     * 有等待恢复的几何时直接恢复；两者都没有时才计算默认的初始窗口
+     */
     private void initCropWindow() {
-        ohos.agp.utils.Rect position = getComponentPosition();
-        topLeftX = position.getCenterX() - getWidth() / 2;
-        topLeftY = position.getCenterY() - getHeight() / 2;
+        CropState state = mPendingCropState;
+        boolean project = state == null && !mResetCropOnLayout
+                && mPixelMapRect.getWidth() > 0 && mPixelMapRect.getHeight() > 0;
+        if (project) {
+            state = getCropState();
+        }
+        mPendingCropState = null;
+        mResetCropOnLayout = false;
         mPixelMapRect = getPixelMapRect();
+        initZoom();
+        // 历史按归一化坐标记录，投影到新的边界框后仍然有效；换了图片或恢复保存的几何时才清除
+        if (!project) {
+            mHistory.clear();
+        }
+        if (state != null) {
+            mStates.applyCropState(state);
+            mCropWindow = mCropRegions.getSelected().getWindow();
+            return;
+        }
+        setDefaultCropWindow();
+        if (mSuggestion.isAutoCropEnabled()) {
+            requestCropSuggestion();
+        }
+    }
+
+    /**
+     * 把选中的裁剪窗口设为默认的初始窗口
+     */
+    private void setDefaultCropWindow() {
         //  初始化裁剪窗口，使其具有相对于可绘制边界的10%填充
         float horizontalPadding = 0.1f * mPixelMapRect.getWidth();
         float verticalPadding = 0.1f * mPixelMapRect.getHeight();
-        Frame.LEFT.setCoordinate(mPixelMapRect.left + horizontalPadding);
-        Frame.TOP.setCoordinate(mPixelMapRect.top + verticalPadding);
-        Frame.RIGHT.setCoordinate(mPixelMapRect.right - horizontalPadding);
-        Frame.BOTTOM.setCoordinate(mPixelMapRect.bottom - verticalPadding);
+        Frame.LEFT.setCoordinate(mCropWindow, mPixelMapRect.left + horizontalPadding);
+        Frame.TOP.setCoordinate(mCropWindow, mPixelMapRect.top + verticalPadding);
+        Frame.RIGHT.setCoordinate(mCropWindow, mPixelMapRect.right - horizontalPadding);
+        Frame.BOTTOM.setCoordinate(mCropWindow, mPixelMapRect.bottom - verticalPadding);
+        if (mFixAspectRatio) {
+            fitCropWindowToAspectRatio();
+        }
+        mCropRegions.update(mCropRegions.getSelected());
+        if (mPerspectiveEnabled) {
+            mCropQuad.set(mCropWindow);
+        }
+    }
+
+    /**
+     * 获取按图片归一化的裁剪几何，可以用{@link CropState#toByteArray()}编码后保存到Ability的状态或文件中。
+     * 组件尚未布局时返回等待恢复的几何（没有时为null）
+     *
+     * @return 裁剪几何
+     */
+    public CropState getCropState() {
+        if (mPixelMapRect.getWidth() <= 0 || mPixelMapRect.getHeight() <= 0) {
+            return mPendingCropState;
+        }
+        return mStates.toCropState();
+    }
+
+    /**
+     * 恢复保存的裁剪几何。恢复推迟到下一次布局时进行，此时直接使用保存的几何，不再计算默认的初始窗口；
+     * 组件已经布局时立即恢复。固定纵横比、形状等设置不属于裁剪几何，需要由应用自己恢复
+     *
+     * @param state 裁剪几何
+     */
+    public void setCropState(CropState state) {
+        if (state == null) {
+            throw new IllegalArgumentException("state is null");
+        }
+        mSuggestion.cancel();
+        if (mPixelMapRect.getWidth() <= 0 || mPixelMapRect.getHeight() <= 0) {
+            mPendingCropState = state;
+            return;
+        }
+        mAnimation.finish();
+        mHistory.clear();
+        mStates.applyCropState(state);
+        mCropWindow = mCropRegions.getSelected().getWindow();
+        invalidate();
+    }
+
+    /**
+     * 组件坐标与按图片归一化的坐标互相转换，包含当前的缩放和平移
+     */
+    float normalizeX(float x) {
+        return (mZoomPanState.toBaseX(x) - mPixelMapRect.left) / mPixelMapRect.getWidth();
+    }
+
+    float normalizeY(float y) {
+        return (mZoomPanState.toBaseY(y) - mPixelMapRect.top) / mPixelMapRect.getHeight();
+    }
+
+    float denormalizeX(float x) {
+        return mZoomPanState.toViewX(mPixelMapRect.left + x * mPixelMapRect.getWidth());
+    }
+
+    float denormalizeY(float y) {
+        return mZoomPanState.toViewY(mPixelMapRect.top + y * mPixelMapRect.getHeight());
+    }
+
+    private void initZoom() {
+        mZoomPanState.setBounds(mPixelMapRect.left, mPixelMapRect.top,
+                mPixelMapRect.getWidth(), mPixelMapRect.getHeight());
+        float maxZoom = DEFAULT_MAX_ZOOM;
+        if (mCropSource != null && mPixelMapRect.getWidth() > 0) {
+            maxZoom = MAX_DISPLAY_PER_SOURCE * mCropSource.getWidth() / mPixelMapRect.getWidth();
+        }
+        mZoomPanState.setMaxZoom(maxZoom);
+    }
+
+    /**
+     * 设置是否固定裁剪窗口的纵横比。固定后裁剪窗口会立即收缩为当前窗口内居中的、满足纵横比的最大矩形
+     *
+     * @param fixAspectRatio 是否固定纵横比
+     */
+    public void setFixedAspectRatio(boolean fixAspectRatio) {
+        mFixAspectRatio = fixAspectRatio;
+        if (fixAspectRatio && mCropWindow.getWidth() > 0 && mCropWindow.getHeight() > 0) {
+            mAnimation.beginChange();
+            fitCropWindowToAspectRatio();
+            mAnimation.endChange();
+        }
+    }
+
+    /**
+     * 设置固定纵横比模式下使用的纵横比，例如1:1、4:3、16:9
+     *
+     * @param aspectRatioX 宽度比例
+     * @param aspectRatioY 高度比例
+     */
+    public void setAspectRatio(int aspectRatioX, int aspectRatioY) {
+        if (aspectRatioX <= 0 || aspectRatioY <= 0) {
+            throw new IllegalArgumentException("aspect ratio must be positive");
+        }
+        mAspectRatioX = aspectRatioX;
+        mAspectRatioY = aspectRatioY;
+        if (mFixAspectRatio && mCropWindow.getWidth() > 0 && mCropWindow.getHeight() > 0) {
+            mAnimation.beginChange();
+            fitCropWindowToAspectRatio();
+            mAnimation.endChange();
+        }
+    }
+
+    /**
+     * 是否固定了纵横比
+     */
+    public boolean isFixedAspectRatio() {
+        return mFixAspectRatio;
+    }
+
+    /**
+     * 获取纵横比（宽/高）
+     */
+    public float getAspectRatio() {
+        return (float) mAspectRatioX / mAspectRatioY;
+    }
+
+    /**
+     * 将裁剪窗口收缩为当前窗口内居中的、满足纵横比的最大矩形
+     */
+    private void fitCropWindowToAspectRatio() {
+        float aspectRatio = getAspectRatio();
+        float width = mCropWindow.getWidth();
+        float height = mCropWindow.getHeight();
+        float centerX = (mCropWindow.getLeft() + mCropWindow.getRight()) / 2;
+        float centerY = (mCropWindow.getTop() + mCropWindow.getBottom()) / 2;
+        if (width / height > aspectRatio) {
+            width = AspectRatioUtil.calculateWidth(height, aspectRatio);
+        } else {
+            height = AspectRatioUtil.calculateHeight(width, aspectRatio);
+        }
+        mCropWindow.set(centerX - width / 2, centerY - height / 2, centerX + width / 2, centerY + height / 2);
+        if (mCropRegions != null) {
+            mCropRegions.update(mCropRegions.getSelected());
+        }
     }
 
     @Override
     public void onRefreshed(Component component) {
+        refreshPreview();
+        PixelMap pixelMap = getPixelMap();
+        if (pixelMap == null) {
+            return;
+        }
+        // 组件位置可能单独变化（例如软键盘弹出），裁剪几何使用组件坐标，只需要更新触摸坐标的原点
+        ohos.agp.utils.Rect position = getComponentPosition();
+        topLeftX = position.getCenterX() - getWidth() / 2;
+        topLeftY = position.getCenterY() - getHeight() / 2;
+        Size imageSize = pixelMap.getImageInfo().size;
+        if (!isLayoutChanged(imageSize)) {
+            return;
+        }
+        if (imageSize.width != mLayoutImageWidth || imageSize.height != mLayoutImageHeight) {
+            // 图片变了，之前的推荐不再适用
+            mSuggestion.cancel();
+        }
+        mLayoutWidth = getWidth();
+        mLayoutHeight = getHeight();
+        mLayoutImageWidth = imageSize.width;
+        mLayoutImageHeight = imageSize.height;
+        mLayoutScaleX = getScaleX();
+        mLayoutScaleY = getScaleY();
+        mLayoutTranslationX = getTranslationX();
+        mLayoutTranslationY = getTranslationY();
+        mAnimation.finish();
         initCropWindow();
     }
 
+    /**
+     * 决定图片边界框的参数是否与上一次布局不同
+     */
+    private boolean isLayoutChanged(Size imageSize) {
+        return mResetCropOnLayout || mPixelMapRect.getWidth() <= 0 || mPixelMapRect.getHeight() <= 0
+                || getWidth() != mLayoutWidth || getHeight() != mLayoutHeight
+                || imageSize.width != mLayoutImageWidth || imageSize.height != mLayoutImageHeight
+                || getScaleX() != mLayoutScaleX || getScaleY() != mLayoutScaleY
+                || getTranslationX() != mLayoutTranslationX || getTranslationY() != mLayoutTranslationY;
+    }
+
+    /**
+     * 按组件尺寸重新解码预览图；尺寸未变化时不做任何事
+     */
+    private void refreshPreview() {
+        if (mCropSource == null || !mPreviewFitsView || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        PixelMap preview = getPixelMap();
+        if (preview != null) {
+            Size size = preview.getImageInfo().size;
+            Size target = mCropSource.getPreviewSize(getWidth(), getHeight());
+            if (size.width == target.width && size.height == target.height) {
+                return;
+            }
+        }
+        setPreview(mCropSource.decodePreview(getWidth(), getHeight()));
+    }
+
+    private void setPreview(PixelMap preview) {
+        PixelMap old = getPixelMap();
+        setPixelMap(preview);
+        if (old != null && old != preview) {
+            old.release();
+        }
+    }
+
     @Override
     public void onDraw(Component component, Canvas canvas) {
-        drawDarkenedSurroundingArea(canvas);
-        drawGuidelines(canvas);
-        drawBorder(canvas);
+        if (mZoomPanState.isZoomed()) {
+            mZoomedImageRenderer.draw(canvas, getPixelMap(), mZoomPanState, mPixelMapRect);
+        }
+        if (mPerspectiveEnabled) {
+            // 透视模式只有一个四边形，不显示窗口、旋转把手和其他区域
+            mOverlayRenderer.drawQuad(canvas, mCropQuad, mPixelMapRect, mRotationKnobRadius);
+            if (mLatencyTracker != null) {
+                mLatencyTracker.onDrawComplete();
+            }
+            return;
+        }
+        mOverlayRenderer.draw(canvas, mCropWindow, mPixelMapRect);
+        if (mRotationEnabled) {
+            mOverlayRenderer.drawRotationKnob(canvas, mCropWindow, mRotationKnobDistance, mRotationKnobRadius);
+        }
+        if (mCropRegions.size() > 1) {
+            List<CropRegion> regions = mCropRegions.getRegions();
+            for (int i = 0, size = regions.size(); i < size; i++) {
+                CropWindow window = regions.get(i).getWindow();
+                if (window != mCropWindow) {
+                    mOverlayRenderer.drawInactiveWindow(canvas, window);
+                }
+            }
+        }
+        if (mLatencyTracker != null) {
+            mLatencyTracker.onDrawComplete();
+        }
+    }
+
+    @Override
+    public void onTileLoaded() {
+        invalidate();
     }
 
     @Override
     public boolean onTouchEvent(Component component, TouchEvent touchEvent) {
         switch (touchEvent.getAction()) {
             case TouchEvent.PRIMARY_POINT_DOWN:
+                // 按下和抬起不会改变裁剪窗口的几何，因此不需要重绘
                 MmiPoint point1 = touchEvent.getPointerPosition(touchEvent.getIndex());
                 onActionDown(point1.getX() - topLeftX, point1.getY() - topLeftY);
-                invalidate();
+                mHistory.beginGesture();
                 return true;
             case TouchEvent.PRIMARY_POINT_UP:
+                if (mMoveCoalescer != null) {
+                    mMoveCoalescer.finish();
+                }
+                mZoomPanState.endPinch();
+                onActionUp();
+                return true;
             case TouchEvent.CANCEL:
+                if (mMoveCoalescer != null) {
+                    mMoveCoalescer.reset();
+                }
+                mZoomPanState.endPinch();
                 onActionUp();
-                invalidate();
+                return true;
+            case TouchEvent.OTHER_POINT_DOWN:
+                if (mZoomEnabled && touchEvent.getPointerCount() >= 2) {
+                    // 第二根手指按下后开始缩放，放弃正在进行的句柄拖动
+                    if (mMoveCoalescer != null) {
+                        mMoveCoalescer.reset();
+                    }
+                    onActionUp();
+                    MmiPoint first = touchEvent.getPointerPosition(0);
+                    MmiPoint second = touchEvent.getPointerPosition(1);
+                    mZoomPanState.beginPinch(getMidX(first, second), getMidY(first, second),
+                            getDistance(first, second));
+                }
+                return true;
+            case TouchEvent.OTHER_POINT_UP:
+                mZoomPanState.endPinch();
                 return true;
             case TouchEvent.POINT_MOVE:
+                if (mLatencyTracker != null) {
+                    mLatencyTracker.onTouchReceived();
+                }
+                if (mZoomPanState.isPinching()) {
+                    if (touchEvent.getPointerCount() >= 2) {
+                        MmiPoint first = touchEvent.getPointerPosition(0);
+                        MmiPoint second = touchEvent.getPointerPosition(1);
+                        onTouchRefreshed(mZoomPanState.updatePinch(getMidX(first, second), getMidY(first, second),
+                                getDistance(first, second)));
+                    }
+                    return true;
+                }
                 MmiPoint point2 = touchEvent.getPointerPosition(touchEvent.getIndex());
-                onActionMove(point2.getX() - topLeftX, point2.getY() - topLeftY);
-                invalidate();
+                if (mMoveCoalescer != null) {
+                    mMoveCoalescer.offer(point2.getX() - topLeftX, point2.getY() - topLeftY);
+                } else {
+                    onTouchRefreshed(onActionMove(point2.getX() - topLeftX, point2.getY() - topLeftY));
+                }
                 return true;
             default:
                 return false;
         }
     }
 
+    private float getMidX(MmiPoint first, MmiPoint second) {
+        return (first.getX() + second.getX()) / 2 - topLeftX;
+    }
+
+    private float getMidY(MmiPoint first, MmiPoint second) {
+        return (first.getY() + second.getY()) / 2 - topLeftY;
+    }
+
+    private float getDistance(MmiPoint first, MmiPoint second) {
+        float dx = first.getX() - second.getX();
+        float dy = first.getY() - second.getY();
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Override
+    public void onCoalescedMove(float x, float y) {
+        onTouchRefreshed(onActionMove(x, y));
+    }
+
+    /**
+     * 触摸更新几何之后调用：几何变化时请求重绘，并记录延迟的时间点
+     */
+    private void onTouchRefreshed(boolean changed) {
+        if (mLatencyTracker != null) {
+            mLatencyTracker.onRefreshDone(changed);
+        }
+        if (changed) {
+            invalidate();
+            if (mLatencyTracker != null) {
+                mLatencyTracker.onInvalidate();
+            }
+        }
+    }
+
+    /**
+     * 设置触摸延迟统计（默认不统计）。开启后每一帧记录触摸采样到达、裁剪窗口更新完成、请求重绘和本组件绘制完成的时间，
+     * 可以从统计对象读取滚动的百分位数，或注册监听器把每一帧的数据上报
+     *
+     * @param tracker 延迟统计；为null时关闭
+     */
+    public void setTouchLatencyTracker(TouchLatencyTracker tracker) {
+        mLatencyTracker = tracker;
+    }
+
+    /**
+     * 获取触摸延迟统计
+     *
+     * @return 延迟统计；未开启时为null
+     */
+    public TouchLatencyTracker getTouchLatencyTracker() {
+        return mLatencyTracker;
+    }
+
+    /**
+     * 开启或关闭移动采样合并模式。开启后，每个帧间隔只处理一次最新的移动采样
+     *
+     * @param enabled 是否开启
+     */
+    public void setTouchCoalescingEnabled(boolean enabled) {
+        if (enabled && mMoveCoalescer == null) {
+            mMoveCoalescer = new MoveCoalescer(getContext().getUITaskDispatcher(), this);
+            mMoveCoalescer.setPredictionEnabled(mTouchPredictionEnabled);
+            mMoveCoalescer.setFrameIntervalMs(getFrameIntervalMs());
+        } else if (!enabled && mMoveCoalescer != null) {
+            mMoveCoalescer.finish();
+            mMoveCoalescer = null;
+        }
+    }
+
+    /**
+     * 设置移动采样合并和过渡动画的帧间隔。默认按默认显示屏的刷新率计算（例如120Hz时为8毫秒），
+     * 刷新率会动态变化或需要固定的处理频率时可以手动设置
+     *
+     * @param frameIntervalMs 帧间隔（毫秒）；为0时恢复按刷新率计算
+     */
+    public void setFrameIntervalMs(long frameIntervalMs) {
+        if (frameIntervalMs < 0) {
+            throw new IllegalArgumentException("frameIntervalMs must not be negative");
+        }
+        mFrameIntervalMs = frameIntervalMs;
+        if (mMoveCoalescer != null) {
+            mMoveCoalescer.setFrameIntervalMs(getFrameIntervalMs());
+        }
+        mAnimation.setFrameIntervalMs(getFrameIntervalMs());
+    }
+
+    /**
+     * 获取移动采样合并和过渡动画的帧间隔（毫秒）
+     */
+    public long getFrameIntervalMs() {
+        if (mFrameIntervalMs > 0) {
+            return mFrameIntervalMs;
+        }
+        Optional<Display> display = DisplayManager.getInstance().getDefaultDisplay(getContext());
+        return MoveCoalescer.getFrameIntervalMs(display.isPresent() ? display.get().getRefreshRate() : 0);
+    }
+
+    /**
+     * 在合并模式下，是否按速度预测下一帧的触摸位置，而不是直接使用最新采样
+     *
+     * @param enabled 是否开启
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        mTouchPredictionEnabled = enabled;
+        if (mMoveCoalescer != null) {
+            mMoveCoalescer.setPredictionEnabled(enabled);
+        }
+    }
+
+    /**
+     * 获取合并模式下被丢弃（未单独处理）的移动采样数
+     *
+     * @return 丢弃的采样数；未开启合并模式时为0
+     */
+    public long getDroppedMoveSampleCount() {
+        return mMoveCoalescer == null ? 0 : mMoveCoalescer.getDroppedCount();
+    }
+
+    /**
+     * 设置手柄周围可触摸区域的半径，按屏幕密度换算为像素
+     *
+     * @param radiusVp 以vp为单位的半径
+     */
+    public void setHandleRadius(float radiusVp) {
+        mHitTester = new HitTester(HitTester.dpToPx(radiusVp, AttrHelper.getDensity(getContext())));
+        if (mCropRegions != null) {
+            mCropRegions.setTouchRadius(mHitTester.getRadius());
+        }
+    }
+
+    /**
+     * 设置是否显示旋转把手（默认关闭）。拖动把手可以任意角度旋转裁剪窗口，接近直角时会吸附；关闭时所有裁剪窗口恢复为不旋转
+     *
+     * @param enabled 是否显示
+     */
+    public void setRotationEnabled(boolean enabled) {
+        mRotationEnabled = enabled;
+        if (!enabled) {
+            mAnimation.finish();
+            for (CropRegion region : mCropRegions.getRegions()) {
+                if (region.getWindow().isRotated()) {
+                    region.getWindow().setAngle(0);
+                    mCropRegions.update(region);
+                }
+            }
+        }
+        invalidate();
+    }
+
+    /**
+     * 是否显示旋转把手
+     */
+    public boolean isRotationEnabled() {
+        return mRotationEnabled;
+    }
+
+    /**
+     * 设置选中的裁剪窗口绕中心的旋转角度
+     *
+     * @param angle 角度（度，顺时针为正）
+     */
+    public void setCropAngle(float angle) {
+        mAnimation.beginChange();
+        mCropWindow.setAngle(angle);
+        mCropRegions.update(mCropRegions.getSelected());
+        mAnimation.endChange();
+    }
+
+    /**
+     * 获取选中的裁剪窗口的旋转角度
+     *
+     * @return 角度（度，顺时针为正），范围为(-180, 180]
+     */
+    public float getCropAngle() {
+        return mCropWindow.getAngle();
+    }
+
+    /**
+     * 设置裁剪形状（默认为矩形）。椭圆形状时覆盖层显示裁剪窗口的内切椭圆，导出结果椭圆以外透明、边缘抗锯齿，
+     * 需要保留透明度时请用PNG或WEBP格式编码
+     *
+     * @param shape 裁剪形状
+     */
+    public void setCropShape(CropShape shape) {
+        mOverlayRenderer.setShape(shape);
+        mCropShape = shape;
+        invalidate();
+    }
+
+    /**
+     * 获取裁剪形状
+     */
+    public CropShape getCropShape() {
+        return mCropShape;
+    }
+
+    /**
+     * 设置是否为透视裁剪模式（默认关闭）。开启时四边形从选中的裁剪窗口开始，四个角可以各自拖动，
+     * 导出时把四边形校正为矩形，适合拍摄的文档和票据
+     *
+     * @param enabled 是否开启
+     */
+    public void setPerspectiveEnabled(boolean enabled) {
+        mAnimation.finish();
+        if (enabled && !mPerspectiveEnabled) {
+            mCropQuad.set(mCropWindow);
+        }
+        mPerspectiveEnabled = enabled;
+        invalidate();
+    }
+
+    /**
+     * 是否为透视裁剪模式
+     */
+    public boolean isPerspectiveEnabled() {
+        return mPerspectiveEnabled;
+    }
+
+    /**
+     * 获取透视模式下裁剪四边形的快照（组件坐标）
+     *
+     * @return 四边形的副本
+     */
+    public CropQuad getCropQuad() {
+        return new CropQuad(mCropQuad);
+    }
+
+    /**
+     * 设置透视模式下的裁剪四边形（组件坐标）
+     *
+     * @param quad 四边形，四个角按左上、右上、右下、左下排列，必须是凸四边形
+     */
+    public void setCropQuad(CropQuad quad) {
+        if (!quad.isConvex()) {
+            throw new IllegalArgumentException("quad must be convex and clockwise");
+        }
+        mAnimation.beginChange();
+        mCropQuad.set(quad);
+        mAnimation.endChange();
+    }
+
+    /**
+     * 获取裁剪四边形在裁剪目标（原图或显示位图）坐标系中的四个角，可以直接交给{@link HomographyWarper}使用
+     *
+     * @return 依次为左上、右上、右下、左下角的x, y坐标
+     */
+    public float[] getSourceQuad() {
+        return calculateSourceQuad(getPixelMap());
+    }
+
+    /**
+     * 撤销最近一次拖动。历史只记录完整的手势，程序设置的几何不会被记录；撤销按差值进行，
+     * 因此之后的程序修改会被保留。拖动过程中不能撤销
+     *
+     * @return 是否撤销
+     */
+    public boolean undo() {
+        if (mPressedHandle != null || !mHistory.canUndo()) {
+            return false;
+        }
+        mAnimation.finish();
+        mHistory.step(true);
+        invalidate();
+        return true;
+    }
+
+    /**
+     * 重做最近一次撤销的拖动
+     *
+     * @return 是否重做
+     */
+    public boolean redo() {
+        if (mPressedHandle != null || !mHistory.canRedo()) {
+            return false;
+        }
+        mAnimation.finish();
+        mHistory.step(false);
+        invalidate();
+        return true;
+    }
+
+    public boolean canUndo() {
+        return mHistory.canUndo();
+    }
+
+    public boolean canRedo() {
+        return mHistory.canRedo();
+    }
+
+    /**
+     * 连续撤销或重做，直到历史位置等于给定位置。每一步是O(1)的，跳过k条记录需要O(k)，k不超过历史容量
+     *
+     * @param position 目标位置，范围为[0, {@link #getHistorySize()}]；0表示撤销所有记录
+     */
+    public void jumpToHistoryPosition(int position) {
+        if (position < 0 || position > mHistory.size()) {
+            throw new IllegalArgumentException("position must be in [0, " + mHistory.size() + "]");
+        }
+        if (mPressedHandle != null || position == mHistory.getPosition()) {
+            return;
+        }
+        mAnimation.finish();
+        mHistory.jumpTo(position);
+        invalidate();
+    }
+
+    /**
+     * 获取当前的历史位置：已经生效的记录数
+     */
+    public int getHistoryPosition() {
+        return mHistory.getPosition();
+    }
+
+    /**
+     * 获取保存的历史记录数，包括可以重做的记录
+     */
+    public int getHistorySize() {
+        return mHistory.size();
+    }
+
+    /**
+     * 设置最多保存的历史记录数（默认{@value CropHistory#DEFAULT_CAPACITY}），会清除已有的记录
+     *
+     * @param capacity 记录数，会向上取整为2的幂
+     */
+    public void setHistoryCapacity(int capacity) {
+        mHistory.setCapacity(capacity);
+    }
+
+    /**
+     * 清除所有历史记录
+     */
+    public void clearHistory() {
+        mHistory.clear();
+    }
+
+    /**
+     * 添加一个裁剪区域，放在最上层并选中。新区域位于图片中央，边长为图片的40%，并按已有区域数错开位置
+     *
+     * @return 新区域
+     */
+    public CropRegion addCropRegion() {
+        float width = 0.4f * mPixelMapRect.getWidth();
+        float height = 0.4f * mPixelMapRect.getHeight();
+        float offset = 0.05f * (mCropRegions.size() % 5);
+        float left = mPixelMapRect.left + (0.3f + offset) * mPixelMapRect.getWidth();
+        float top = mPixelMapRect.top + (0.3f + offset) * mPixelMapRect.getHeight();
+        CropWindow window = new CropWindow();
+        window.set(left, top, left + width, top + height);
+        mAnimation.finish();
+        CropRegion region = mCropRegions.add(window);
+        mCropWindow = window;
+        if (mFixAspectRatio && width > 0 && height > 0) {
+            fitCropWindowToAspectRatio();
+        }
+        invalidate();
+        return region;
+    }
+
+    /**
+     * 移除一个裁剪区域；至少保留一个区域
+     *
+     * @param region 要移除的区域
+     *
+     * @return 是否移除
+     */
+    public boolean removeCropRegion(CropRegion region) {
+        if (mCropRegions.size() <= 1 || !mCropRegions.contains(region)) {
+            return false;
+        }
+        mAnimation.finish();
+        mCropRegions.remove(region);
+        mCropWindow = mCropRegions.getSelected().getWindow();
+        invalidate();
+        return true;
+    }
+
+    /**
+     * 选中一个裁剪区域并移到最上层。单个区域的接口（例如{@link #getCroppedImage()}）都作用于选中的区域
+     *
+     * @param region 要选中的区域
+     */
+    public void selectCropRegion(CropRegion region) {
+        mAnimation.finish();
+        mCropRegions.select(region);
+        mCropWindow = region.getWindow();
+        invalidate();
+    }
+
+    /**
+     * 获取选中的裁剪区域
+     */
+    public CropRegion getSelectedCropRegion() {
+        return mCropRegions.getSelected();
+    }
+
+    /**
+     * 获取所有裁剪区域，按叠放次序从下到上排列
+     *
+     * @return 区域列表的副本
+     */
+    public List<CropRegion> getCropRegions() {
+        return new ArrayList<>(mCropRegions.getRegions());
+    }
+
+    /**
+     * 获取组件自己的区域集合，供同一个包中的控制器直接修改
+     */
+    CropRegionSet getRegionSet() {
+        return mCropRegions;
+    }
+
+    /**
+     * 设置是否允许双指缩放和平移。关闭时恢复到未缩放的状态
+     *
+     * @param enabled 是否允许
+     */
+    public void setZoomEnabled(boolean enabled) {
+        mZoomEnabled = enabled;
+        if (!enabled && mZoomPanState.isZoomed()) {
+            mZoomPanState.reset();
+            invalidate();
+        }
+    }
+
+    /**
+     * 获取当前的缩放倍数，1表示未缩放
+     */
+    public float getZoom() {
+        return mZoomPanState.getZoom();
+    }
+
+    /**
+     * 设置缩放时原图方块缓存的字节预算
+     *
+     * @param maxBytes 字节预算
+     */
+    public void setTileCacheMaxBytes(long maxBytes) {
+        mZoomedImageRenderer.setTileCacheMaxBytes(maxBytes);
+    }
+
+    /**
+     * 获取当前裁剪窗口的快照，可以安全地交给其他线程使用
+     *
+     * @return 裁剪窗口的副本
+     */
+    public CropWindow getCropWindow() {
+        return new CropWindow(mCropWindow);
+    }
+
+    /**
+     * 设置被裁剪的原始编码图片。组件只显示按组件尺寸（或{@link #setPreviewMaxSize(int, int)}）缩小后的预览图，
+     * 组件占用的内存只与屏幕尺寸有关；{@link #getCroppedImage()}会从原图中只解码裁剪区域，而不解码整张原图
+     *
+     * @param cropSource 原始编码图片
+     */
+    public void setCropSource(CropSource cropSource) {
+        boolean ownsPreview = mCropSource != null;
+        mCropSource = cropSource;
+        mResetCropOnLayout = true;
+        mZoomedImageRenderer.setSource(cropSource, getContext().getUITaskDispatcher(), this);
+        int maxWidth = mPreviewMaxWidth;
+        int maxHeight = mPreviewMaxHeight;
+        if (mPreviewFitsView && getWidth() > 0 && getHeight() > 0) {
+            maxWidth = getWidth();
+            maxHeight = getHeight();
+        }
+        PixelMap preview = cropSource.decodePreview(maxWidth, maxHeight);
+        if (ownsPreview) {
+            // 之前的预览图由组件自己解码，可以立即释放
+            setPreview(preview);
+        } else {
+            setPixelMap(preview);
+        }
+    }
+
+    /**
+     * 设置预览图的最大尺寸，需要在{@link #setCropSource(CropSource)}之前调用。设置后预览图不再按组件尺寸解码
+     *
+     * @param maxWidth  最大宽度
+     * @param maxHeight 最大高度
+     */
+    public void setPreviewMaxSize(int maxWidth, int maxHeight) {
+        mPreviewMaxWidth = maxWidth;
+        mPreviewMaxHeight = maxHeight;
+        mPreviewFitsView = false;
+    }
+
+    /**
+     * 设置是否按组件尺寸解码预览图（默认开启）。开启后组件尺寸变化时会重新解码预览图
+     *
+     * @param fitsView 是否按组件尺寸解码
+     */
+    public void setPreviewFitsView(boolean fitsView) {
+        mPreviewFitsView = fitsView;
+    }
+
+    /**
+     * 获取组件坐标到裁剪目标像素的映射。设置了原始编码图片时目标为原图，否则为显示位图；已包含当前的缩放和平移
+     *
+     * @return 映射的副本
+     */
+    public CropMapping getCropMapping() {
+        CropMapping mapping = new CropMapping();
+        mapping.set(updateCropMapping(getPixelMap()));
+        return mapping;
+    }
+
+    /**
+     * 获取{@link #getCroppedImage()}使用的裁剪区域。设置了原始编码图片时为原图坐标，否则为显示位图的坐标。
+     * 可以直接交给{@link com.crop.cropperlib.engine.CropResizeEngine}使用。
+     * 裁剪窗口旋转时为未旋转的矩形，绕自身中心旋转{@link #getCropAngle()}度，可能超出裁剪目标的范围
+     *
+     * @return 裁剪区域
+     */
+    public Rect getCropRect() {
+        return calculateCropRect(this.getPixelMap());
+    }
+
     public PixelMap getCroppedImage() {
-        float scaleX = getScaleX();
-        float scaleY = getScaleY();
-        float transX = getTranslationX();
-        float transY = getTranslationY();
+        PixelMap displayPixelMap = this.getPixelMap();
+        float[] quad = mPerspectiveEnabled ? calculateSourceQuad(displayPixelMap) : null;
+        return mExporter.getCroppedImage(mCropSource, displayPixelMap, calculateCropRect(displayPixelMap),
+                mCropWindow.getAngle(), quad, mCropShape);
+    }
 
-        float pixelMapLeft = (transX < 0) ? Math.abs(transX) : 0;
-        float pixelMapTop = (transY < 0) ? Math.abs(transY) : 0;
+    /**
+     * 设置裁剪结果缓存（默认不缓存）。开启后，对同一裁剪目标、同一裁剪区域和输出尺寸的重复导出直接返回缓存的结果，
+     * 因此多次调用可能返回同一个PixelMap；调用者释放了返回的结果后，下一次导出会重新裁剪。
+     * 一个缓存可以被多个组件共享，并由应用在内存压力回调中调用{@link CropResultCache#onMemoryPressure(boolean)}
+     *
+     * @param cache 结果缓存；为null时关闭缓存
+     */
+    public void setCropResultCache(CropResultCache cache) {
+        mExporter.setCache(cache);
+    }
 
-        float cropX = (pixelMapLeft + Frame.LEFT.getCoordinate()) / scaleX;
-        float cropY = (pixelMapTop + Frame.TOP.getCoordinate()) / scaleY;
+    /**
+     * 获取裁剪结果缓存
+     *
+     * @return 结果缓存；未开启时为null
+     */
+    public CropResultCache getCropResultCache() {
+        return mExporter.getCache();
+    }
 
-        PixelMap originalPixelMap = this.getPixelMap();
-        Size size = originalPixelMap.getImageInfo().size;
+    /**
+     * 在后台线程裁剪当前的裁剪窗口，结果在UI线程回调
+     *
+     * @param callback 结果回调
+     *
+     * @return 裁剪任务，可用于取消
+     */
+    public CropExportTask getCroppedImageAsync(CropCallback callback) {
+        return getCroppedImageAsync(null, callback);
+    }
+
+    /**
+     * 在后台线程裁剪当前的裁剪窗口，并缩放到给定尺寸，结果在UI线程回调。
+     * 调用时会对裁剪区域做快照，之后对裁剪窗口的修改不影响本次结果。
+     * 如果上一次调用的任务仍在进行，并且快照（裁剪区域、角度、透视四边形、形状和输出尺寸）完全相同，
+     * 则不会开始新的任务，而是把回调加到正在进行的任务上；这些回调收到的是同一个PixelMap，
+     * 调用者之间需要约定由谁释放，不能在其他回调仍在使用时释放。快照不同时开始新的任务
+     *
+     * @param outputSize 输出尺寸；为null时保持裁剪区域的原始尺寸
+     * @param callback   结果回调
+     *
+     * @return 裁剪任务，可用于取消
+     */
+    public CropExportTask getCroppedImageAsync(Size outputSize, CropCallback callback) {
+        PixelMap displayPixelMap = this.getPixelMap();
+        float[] quad = mPerspectiveEnabled ? calculateSourceQuad(displayPixelMap) : null;
+        return mExporter.getCroppedImageAsync(mCropSource, displayPixelMap, calculateCropRect(displayPixelMap),
+                mCropWindow.getAngle(), quad, mCropShape, outputSize, callback);
+    }
+
+    /**
+     * 获取所有区域在裁剪目标坐标系中的裁剪区域，顺序与{@link #getCropRegions()}相同
+     *
+     * @return 裁剪区域列表
+     */
+    public List<Rect> getCropRects() {
+        PixelMap displayPixelMap = this.getPixelMap();
+        List<CropRegion> regions = mCropRegions.getRegions();
+        List<Rect> rects = new ArrayList<>(regions.size());
+        for (CropRegion region : regions) {
+            rects.add(calculateCropRect(displayPixelMap, region.getWindow()));
+        }
+        return rects;
+    }
 
-        float hideX = 0f;
-        if (size.width > getWidth()) {
-            hideX = (size.width - getWidth()) / 2f;
+    /**
+     * 一次裁剪出所有区域，顺序与{@link #getCropRegions()}相同。会在调用线程解码，应在后台线程调用。
+     * 设置了原始编码图片时，如果所有区域的外接矩形不超过各区域面积之和的两倍，只解码一次外接矩形，再从中切出每个区域；
+     * 否则（区域相距很远时）逐个解码区域，避免解码大片不需要的像素
+     *
+     * @return 裁剪结果列表
+     */
+    public List<PixelMap> getCroppedImages() {
+        List<CropRegion> regions = mCropRegions.getRegions();
+        float[] angles = new float[regions.size()];
+        for (int i = 0; i < angles.length; i++) {
+            angles[i] = regions.get(i).getWindow().getAngle();
         }
-        float hideY = 0f;
-        if (size.height > getHeight()) {
-            hideY = (size.height - getHeight()) / 2f;
+        return CropExporter.cropAll(mCropSource, this.getPixelMap(), getCropRects(), angles, mCropShape);
+    }
+
+    /**
+     * 把裁剪结果直接编码写入输出流，不会先生成完整的编码数据。会在调用线程解码和编码，应在后台线程调用。
+     * 输出流不会被关闭
+     *
+     * @param output  输出流
+     * @param format  输出格式，例如{@link CropEncoder#FORMAT_JPEG}
+     * @param quality 编码质量（0到100）
+     *
+     * @throws IOException 编码或写入失败
+     */
+    public void writeCroppedImage(OutputStream output, String format, int quality) throws IOException {
+        CropEncoder.checkOptions(format, quality);
+        PixelMap displayPixelMap = this.getPixelMap();
+        float[] quad = mPerspectiveEnabled ? calculateSourceQuad(displayPixelMap) : null;
+        CropExporter.write(mCropSource, displayPixelMap, calculateCropRect(displayPixelMap), mCropWindow.getAngle(),
+                quad, mCropShape, null, output, format, quality, null);
+    }
+
+    /**
+     * 把裁剪结果直接编码写入文件描述符，写入完成后关闭文件描述符。应在后台线程调用
+     *
+     * @param fd      文件描述符
+     * @param format  输出格式，例如{@link CropEncoder#FORMAT_JPEG}
+     * @param quality 编码质量（0到100）
+     *
+     * @throws IOException 编码或写入失败
+     */
+    public void writeCroppedImage(FileDescriptor fd, String format, int quality) throws IOException {
+        try (OutputStream output = new FileOutputStream(fd)) {
+            writeCroppedImage(output, format, quality);
         }
+    }
 
-        float cropWidth = Math.min(Frame.getWidth() / scaleX, size.width - cropX);
-        float cropHeight = Math.min(Frame.getHeight() / scaleY, size.height - cropY);
+    /**
+     * 在后台线程把裁剪结果编码写入输出流，结束后在UI线程回调；成功时{@link CropCallback#onSuccess(PixelMap)}的参数为null。
+     * 调用时会对裁剪区域做快照。输出流不会被关闭
+     *
+     * @param output     输出流
+     * @param format     输出格式，例如{@link CropEncoder#FORMAT_JPEG}
+     * @param quality    编码质量（0到100）
+     * @param outputSize 输出尺寸；为null时保持裁剪区域的原始尺寸
+     * @param callback   结果回调
+     *
+     * @return 写入任务，可用于取消
+     */
+    public CropExportTask writeCroppedImageAsync(OutputStream output, String format, int quality, Size outputSize,
+                                                 CropCallback callback) {
+        CropEncoder.checkOptions(format, quality);
+        PixelMap displayPixelMap = this.getPixelMap();
+        float[] quad = mPerspectiveEnabled ? calculateSourceQuad(displayPixelMap) : null;
+        return mExporter.writeAsync(mCropSource, displayPixelMap, calculateCropRect(displayPixelMap),
+                mCropWindow.getAngle(), quad, mCropShape, outputSize, output, format, quality, callback);
+    }
 
-        Rect cropRect = new Rect((int)(cropX + hideX), (int)(cropY + hideY),(int)cropWidth, (int)cropHeight);
-        PixelMap.InitializationOptions options = new PixelMap.InitializationOptions();
-        options.size = new Size(cropRect.width, cropRect.height);
-        return PixelMap.create(originalPixelMap, cropRect, options);
+    /**
+     * 计算裁剪窗口在裁剪目标（原图或显示位图）坐标系中的区域
+     */
+    private Rect calculateCropRect(PixelMap displayPixelMap) {
+        return calculateCropRect(displayPixelMap, mCropWindow);
+    }
+
+    private Rect calculateCropRect(PixelMap displayPixelMap, CropWindow window) {
+        updateCropMapping(displayPixelMap);
+        if (window.isRotated()) {
+            // 旋转的矩形不限制在裁剪目标之内，超出的部分导出为透明
+            int left = (int) Math.round(mCropMapping.mapX(window.getLeft()));
+            int top = (int) Math.round(mCropMapping.mapY(window.getTop()));
+            int right = (int) Math.round(mCropMapping.mapX(window.getRight()));
+            int bottom = (int) Math.round(mCropMapping.mapY(window.getBottom()));
+            return new Rect(left, top, Math.max(1, right - left), Math.max(1, bottom - top));
+        }
+        int width = mCropSource == null ? displayPixelMap.getImageInfo().size.width : mCropSource.getWidth();
+        int height = mCropSource == null ? displayPixelMap.getImageInfo().size.height : mCropSource.getHeight();
+        int[] rect = new int[4];
+        mCropMapping.mapRect(window.getLeft(), window.getTop(),
+                window.getRight(), window.getBottom(), width, height, rect);
+        return new Rect(rect[CropMapping.X], rect[CropMapping.Y], rect[CropMapping.WIDTH], rect[CropMapping.HEIGHT]);
+    }
+
+    /**
+     * 把透视四边形的四个角映射到裁剪目标坐标系
+     */
+    private float[] calculateSourceQuad(PixelMap displayPixelMap) {
+        updateCropMapping(displayPixelMap);
+        float[] quad = new float[8];
+        for (int i = 0; i < 4; i++) {
+            quad[i * 2] = (float) mCropMapping.mapX(mCropQuad.getX(i));
+            quad[i * 2 + 1] = (float) mCropMapping.mapY(mCropQuad.getY(i));
+        }
+        return quad;
+    }
+
+    /**
+     * 依次复合缩放平移、组件到显示位图、显示位图到原图三个映射
+     */
+    private CropMapping updateCropMapping(PixelMap displayPixelMap) {
+        Size size = displayPixelMap.getImageInfo().size;
+        float zoom = mZoomPanState.getZoom();
+        mCropMapping.reset();
+        mCropMapping.postConcat(1d / zoom, mZoomPanState.toBaseX(0), 1d / zoom, mZoomPanState.toBaseY(0));
+        mCropMapping.postConcatDisplay(getScaleX(), getScaleY(), getTranslationX(), getTranslationY(),
+                getWidth(), getHeight(), size.width, size.height);
+        if (mCropSource != null) {
+            mCropMapping.postConcat((double) mCropSource.getWidth() / size.width, 0,
+                    (double) mCropSource.getHeight() / size.height, 0);
+        }
+        return mCropMapping;
     }
 
     private RectFloat getPixelMapRect() {
@@ -182,81 +1315,216 @@ public class CropImage extends Image implements Component.TouchEventListener, Co
         return new RectFloat(left, top, right, bottom);
     }
 
-    private void drawDarkenedSurroundingArea(Canvas canvas) {
-        RectFloat bitmapRect = mPixelMapRect;
-        float left = Frame.LEFT.getCoordinate();
-        float top = Frame.TOP.getCoordinate();
-        float right = Frame.RIGHT.getCoordinate();
-        float bottom = Frame.BOTTOM.getCoordinate();
+    private void onActionDown(float x, float y) {
+        // 触摸打断动画，从当前显示的几何开始拖动；用户开始操作后不再应用推荐的窗口
+        mAnimation.cancel();
+        mSuggestion.cancel();
+        if (mPerspectiveEnabled) {
+            mPressedHandle = hitQuadCorner(x, y);
+            HandleUtil.getOffset(mPressedHandle, x, y, mCropQuad, mTouchOffset);
+            return;
+        }
+        if (mRotationEnabled && hitRotationKnob(x, y)) {
+            mPressedHandle = Handle.ROTATE;
+            mTouchOffset.modify(0, 0);
+            return;
+        }
+        if (mCropRegions.size() > 1) {
+            // 多个区域时，按下最上层被触摸的区域会选中它
+            CropRegion region = mCropRegions.hitTest(x, y, mHitTester);
+            if (region != null && region.getWindow() != mCropWindow) {
+                selectCropRegion(region);
+            }
+        }
+        // 旋转的窗口在窗口坐标系中判断控制柄
+        float[] point = mWindowPoint;
+        mCropWindow.mapToWindow(x, y, point);
+        mPressedHandle = mHitTester.classify(point[0], point[1], mCropWindow);
+        if (mPressedHandle == null) {
+            // 不在任何控制柄区域和窗口内部时也拖动整个窗口
+            mPressedHandle = Handle.CENTER;
+        }
+        HandleUtil.getOffset(mPressedHandle, point[0], point[1], mCropWindow, mTouchOffset);
+    }
 
-        RectFloat rect = new RectFloat(bitmapRect.left, bitmapRect.top, bitmapRect.right, top);
-        canvas.drawRect(rect, mSurroundingAreaPaint);
+    /**
+     * 判断是否按下了旋转把手。把手随窗口旋转，每次按下时重新登记到额外触摸目标中
+     */
+    private boolean hitRotationKnob(float x, float y) {
+        float[] point = mWindowPoint;
+        mCropWindow.mapFromWindow(mCropWindow.getCenterX(), mCropWindow.getTop() - mRotationKnobDistance, point);
+        TargetGrid targets = mHitTester.getExtraTargets();
+        targets.clear();
+        targets.add(ROTATION_KNOB_TARGET, point[0], point[1], mHitTester.getRadius());
+        return mHitTester.hitExtraTarget(x, y) == ROTATION_KNOB_TARGET;
+    }
 
-        rect = new RectFloat(bitmapRect.left, bottom, bitmapRect.right, bitmapRect.bottom);
-        canvas.drawRect(rect, mSurroundingAreaPaint);
+    /**
+     * 透视模式下判断按下的角。四个角每次按下时重新登记到额外触摸目标中，没有按下任何角时拖动整个四边形
+     */
+    private Handle hitQuadCorner(float x, float y) {
+        TargetGrid targets = mHitTester.getExtraTargets();
+        targets.clear();
+        for (int i = 0; i < 4; i++) {
+            targets.add(i, mCropQuad.getX(i), mCropQuad.getY(i), mHitTester.getRadius());
+        }
+        switch (mHitTester.hitExtraTarget(x, y)) {
+            case CropQuad.TOP_LEFT:
+                return Handle.TOP_LEFT;
+            case CropQuad.TOP_RIGHT:
+                return Handle.TOP_RIGHT;
+            case CropQuad.BOTTOM_RIGHT:
+                return Handle.BOTTOM_RIGHT;
+            case CropQuad.BOTTOM_LEFT:
+                return Handle.BOTTOM_LEFT;
+            default:
+                return Handle.CENTER;
+        }
+    }
 
-        rect = new RectFloat(bitmapRect.left, top, left, bottom);
-        canvas.drawRect(rect, mSurroundingAreaPaint);
+    private void onActionUp() {
+        if (mPressedHandle != null) {
+            mPressedHandle = null;
+            mCropRegions.update(mCropRegions.getSelected());
+            mHistory.endGesture();
+        }
+    }
 
-        rect = new RectFloat(right, top, bitmapRect.right, bottom);
-        canvas.drawRect(rect, mSurroundingAreaPaint);
+    /**
+     * 设置程序修改几何时是否播放过渡动画（默认关闭）。开启后{@link #resetCropWindow()}、{@link #setCropAngle(float)}、
+     * {@link #setAspectRatio(int, int)}、{@link #setFixedAspectRatio(boolean)}和{@link #setCropQuad(CropQuad)}
+     * 不再立即跳到新的几何，而是在之后的若干帧内平滑过渡；触摸会立即停止动画，几何停在当前显示的位置
+     *
+     * @param enabled 是否开启
+     */
+    public void setAnimationEnabled(boolean enabled) {
+        mAnimation.setEnabled(enabled);
     }
 
-    private void drawGuidelines(Canvas canvas) {
-        float left = Frame.LEFT.getCoordinate();
-        float top = Frame.TOP.getCoordinate();
-        float right = Frame.RIGHT.getCoordinate();
-        float bottom = Frame.BOTTOM.getCoordinate();
+    public boolean isAnimationEnabled() {
+        return mAnimation.isEnabled();
+    }
 
-        // 绘制垂直线
-        float oneThirdCropWidth = Frame.getWidth() / 3;
+    /**
+     * 是否正在播放过渡动画
+     */
+    public boolean isAnimating() {
+        return mAnimation.isRunning();
+    }
 
-        float x1 = left + oneThirdCropWidth;
-        canvas.drawLine(new Point(x1, top), new Point(x1, bottom), mGuidelinePaint);
-        float x2 = right - oneThirdCropWidth;
-        canvas.drawLine(new Point(x2, top), new Point(x2, bottom), mGuidelinePaint);
+    /**
+     * 把选中的裁剪窗口（透视模式下为四边形）恢复为默认的初始窗口：图片边界内缩10%，不旋转，固定纵横比时居中收缩
+     */
+    public void resetCropWindow() {
+        if (mPixelMapRect.getWidth() <= 0 || mPixelMapRect.getHeight() <= 0) {
+            return;
+        }
+        mAnimation.beginChange();
+        mCropWindow.setAngle(0);
+        setDefaultCropWindow();
+        mAnimation.endChange();
+    }
 
-        // 画水平线
-        float oneThirdCropHeight = Frame.getHeight() / 3;
+    /**
+     * 图片边界框是否有效；组件尚未布局或没有图片时无效
+     */
+    boolean hasImageBounds() {
+        return mPixelMapRect.getWidth() > 0 && mPixelMapRect.getHeight() > 0;
+    }
 
-        float y1 = top + oneThirdCropHeight;
-        canvas.drawLine(new Point(left, y1), new Point(right, y1), mGuidelinePaint);
+    /**
+     * 设置换了图片时是否按图片内容推荐初始窗口（默认关闭）。开启后先显示默认的初始窗口，
+     * 同时在后台线程分析缩小的图片（边缘能量、颜色显著性和三分法），在时间预算内完成后把选中的窗口换成推荐的窗口，
+     * 固定纵横比时按当前的纵横比推荐；开启了过渡动画时平滑过渡。分析完成前用户开始触摸、恢复了保存的几何或换了图片时，
+     * 推荐会被放弃
+     *
+     * @param enabled 是否开启
+     */
+    public void setAutoCropEnabled(boolean enabled) {
+        mSuggestion.setAutoCropEnabled(enabled);
+    }
 
-        float y2 = bottom - oneThirdCropHeight;
-        canvas.drawLine(new Point(left, y2), new Point(right, y2), mGuidelinePaint);
+    public boolean isAutoCropEnabled() {
+        return mSuggestion.isAutoCropEnabled();
     }
 
-    private void drawBorder(Canvas canvas) {
-        RectFloat rect = new RectFloat(
-                Frame.LEFT.getCoordinate(),
-                Frame.TOP.getCoordinate(),
-                Frame.RIGHT.getCoordinate(),
-                Frame.BOTTOM.getCoordinate());
-        canvas.drawRect(rect, mBorderPaint);
+    /**
+     * 设置内容分析的时间预算，到达后使用已找到的最好结果
+     *
+     * @param timeBudgetMs 时间预算（毫秒）
+     */
+    public void setAutoCropTimeBudgetMs(long timeBudgetMs) {
+        mSuggestion.setTimeBudgetMs(timeBudgetMs);
     }
 
-    private void onActionDown(float x, float y) {
-        float left = Frame.LEFT.getCoordinate();
-        float top = Frame.TOP.getCoordinate();
-        float right = Frame.RIGHT.getCoordinate();
-        float bottom = Frame.BOTTOM.getCoordinate();
-        mPressedHandle = HandleUtil.getPressedHandle(x, y, left, top, right, bottom, M_HANDLE_RADIUS);
-        HandleUtil.getOffset(mPressedHandle, x, y, left, top, right, bottom, mTouchOffset);
+    /**
+     * 按当前图片的内容推荐选中的裁剪窗口，结果在分析完成后应用
+     */
+    public void suggestCropWindow() {
+        if (getPixelMap() != null && mPixelMapRect.getWidth() > 0 && mPixelMapRect.getHeight() > 0) {
+            requestCropSuggestion();
+        }
+    }
 
+    private void requestCropSuggestion() {
+        float aspectRatio = mFixAspectRatio ? (float) mAspectRatioX / mAspectRatioY : 0;
+        mSuggestion.request(getPixelMap(), aspectRatio);
     }
 
-    private void onActionUp() {
-        if (mPressedHandle != null) {
-            mPressedHandle = null;
+    /**
+     * 应用推荐的窗口（按图片归一化的左、上、右、下）；用户正在拖动时放弃推荐
+     */
+    void applySuggestedWindow(float[] rect) {
+        if (mPressedHandle != null || mPixelMapRect.getWidth() <= 0 || mPixelMapRect.getHeight() <= 0) {
+            return;
+        }
+        mAnimation.beginChange();
+        mCropWindow.set(denormalizeX(rect[0]), denormalizeY(rect[1]), denormalizeX(rect[2]), denormalizeY(rect[3]));
+        mCropWindow.setAngle(0);
+        if (mFixAspectRatio) {
+            fitCropWindowToAspectRatio();
         }
+        mCropRegions.update(mCropRegions.getSelected());
+        if (mPerspectiveEnabled) {
+            mCropQuad.set(mCropWindow);
+        }
+        mAnimation.endChange();
     }
 
-    private void onActionMove(float x, float y) {
+    /**
+     * 根据拖动位置更新裁剪窗口
+     *
+     * @return 裁剪窗口是否发生了变化
+     */
+    private boolean onActionMove(float x, float y) {
         if (mPressedHandle == null) {
-            return;
+            return false;
+        }
+        if (mPerspectiveEnabled) {
+            mGeometryTracker.begin(mCropQuad);
+            mPressedHandle.refreshCropQuad(mCropQuad, x + mTouchOffset.getPointX(), y + mTouchOffset.getPointY(),
+                    mPixelMapRect, M_SNAP_RADIUS);
+            return mGeometryTracker.end(mCropQuad);
+        }
+        mGeometryTracker.begin(mCropWindow);
+        if (mPressedHandle == Handle.ROTATE) {
+            mPressedHandle.refreshCropWindow(mCropWindow, x, y, mPixelMapRect, M_SNAP_RADIUS);
+            return mGeometryTracker.end(mCropWindow);
+        }
+
+        // 旋转的窗口在窗口坐标系中修改四条边，再平移使未拖动的部分在屏幕上保持不动
+        float centerX = mCropWindow.getCenterX();
+        float centerY = mCropWindow.getCenterY();
+        float[] point = mWindowPoint;
+        mCropWindow.mapToWindow(x, y, point);
+        x = point[0] + mTouchOffset.getPointX();
+        y = point[1] + mTouchOffset.getPointY();
+        if (mFixAspectRatio) {
+            mPressedHandle.refreshCropWindow(mCropWindow, x, y, getAspectRatio(), mPixelMapRect, M_SNAP_RADIUS);
+        } else {
+            mPressedHandle.refreshCropWindow(mCropWindow, x, y, mPixelMapRect, M_SNAP_RADIUS);
         }
-        x += mTouchOffset.getPointX();
-        y += mTouchOffset.getPointY();
-        mPressedHandle.refreshCropWindow(x, y, mPixelMapRect, M_SNAP_RADIUS);
+        mCropWindow.keepAnchored(centerX, centerY);
+        return mGeometryTracker.end(mCropWindow);
     }
 }
\ No newline at end of file
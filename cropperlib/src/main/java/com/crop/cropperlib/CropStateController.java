@@ -0,0 +1,189 @@
+package com.crop.cropperlib;
+
+import com.crop.cropperlib.border.CropQuad;
+import com.crop.cropperlib.border.CropWindow;
+import com.crop.cropperlib.region.CropRegion;
+import com.crop.cropperlib.region.CropRegionSet;
+import com.crop.cropperlib.state.CropState;
+
+import java.util.List;
+
+/**
+ * {@link CropImage}的几何状态：把选中的裁剪窗口或透视四边形读写为定长的状态向量，供撤销/重做和过渡动画使用；
+ * 把所有区域按图片归一化为可以持久化的{@link CropState}，并从它重建区域。只应在UI线程使用
+ */
+final class CropStateController {
+
+    // 历史记录和过渡动画使用的几何状态：裁剪窗口为左、上、右、下、角度，透视四边形为四个角的坐标
+    static final int GEOMETRY_STATE_SIZE = 8;
+
+    // 透视四边形的状态标签；裁剪窗口的状态以区域id为标签
+    static final int QUAD_STATE_TAG = -1;
+
+    private final CropImage mView;
+
+    // 透视模式下的裁剪四边形（组件坐标），与组件共用
+    private final CropQuad mQuad;
+
+    CropStateController(CropImage view, CropQuad quad) {
+        mView = view;
+        mQuad = quad;
+    }
+
+    /**
+     * 把选中的裁剪窗口（透视模式下为四边形）写入状态向量
+     *
+     * @return 状态的历史记录标签
+     */
+    int captureState(float[] state) {
+        if (mView.isPerspectiveEnabled()) {
+            mQuad.getPoints(state);
+            return QUAD_STATE_TAG;
+        }
+        CropRegion selected = mView.getRegionSet().getSelected();
+        CropWindow window = selected.getWindow();
+        state[0] = window.getLeft();
+        state[1] = window.getTop();
+        state[2] = window.getRight();
+        state[3] = window.getBottom();
+        state[4] = window.getAngle();
+        for (int i = 5; i < GEOMETRY_STATE_SIZE; i++) {
+            state[i] = 0;
+        }
+        return selected.getId();
+    }
+
+    /**
+     * 撤销或重做后选中标签对应的区域；标签是四边形或区域已被移除时不做任何事
+     */
+    void selectStateRegion(int tag) {
+        CropRegionSet regions = mView.getRegionSet();
+        CropRegion region = tag == QUAD_STATE_TAG ? null : regions.findById(tag);
+        if (region != null && region != regions.getSelected()) {
+            mView.selectCropRegion(region);
+        }
+    }
+
+    /**
+     * 把组件坐标的几何状态原地转换为按图片归一化的坐标，历史中的差值使用归一化坐标，布局变化和缩放后仍然适用
+     */
+    void normalizeState(int tag, float[] state) {
+        // 四边形的状态全部是点坐标；窗口的状态是左、上、右、下和角度
+        int coordinates = tag == QUAD_STATE_TAG ? GEOMETRY_STATE_SIZE : 4;
+        for (int i = 0; i < coordinates; i += 2) {
+            state[i] = mView.normalizeX(state[i]);
+            state[i + 1] = mView.normalizeY(state[i + 1]);
+        }
+    }
+
+    void denormalizeState(int tag, float[] state) {
+        int coordinates = tag == QUAD_STATE_TAG ? GEOMETRY_STATE_SIZE : 4;
+        for (int i = 0; i < coordinates; i += 2) {
+            state[i] = mView.denormalizeX(state[i]);
+            state[i + 1] = mView.denormalizeY(state[i + 1]);
+        }
+    }
+
+    /**
+     * 读出标签对应的几何状态
+     *
+     * @return 几何是否存在（区域可能已被移除）
+     */
+    boolean loadState(int tag, float[] state) {
+        if (tag == QUAD_STATE_TAG) {
+            mQuad.getPoints(state);
+            return true;
+        }
+        CropRegion region = mView.getRegionSet().findById(tag);
+        if (region == null) {
+            return false;
+        }
+        CropWindow window = region.getWindow();
+        state[0] = window.getLeft();
+        state[1] = window.getTop();
+        state[2] = window.getRight();
+        state[3] = window.getBottom();
+        state[4] = window.getAngle();
+        return true;
+    }
+
+    /**
+     * 把几何状态写回标签对应的四边形或区域；区域已被移除时不做任何事
+     */
+    void applyState(int tag, float[] state) {
+        if (tag == QUAD_STATE_TAG) {
+            for (int i = 0; i < 4; i++) {
+                mQuad.set(i, state[i * 2], state[i * 2 + 1]);
+            }
+            return;
+        }
+        CropRegionSet regions = mView.getRegionSet();
+        CropRegion region = regions.findById(tag);
+        if (region != null) {
+            region.getWindow().set(state[0], state[1], state[2], state[3]);
+            region.getWindow().setAngle(state[4]);
+            regions.update(region);
+        }
+    }
+
+    /**
+     * 把所有区域和透视四边形按图片归一化；只在组件已经布局时调用
+     */
+    CropState toCropState() {
+        CropRegionSet regionSet = mView.getRegionSet();
+        List<CropRegion> regions = regionSet.getRegions();
+        float[] values = new float[regions.size() * CropState.REGION_SIZE];
+        int selectedIndex = 0;
+        for (int i = 0; i < regions.size(); i++) {
+            CropWindow window = regions.get(i).getWindow();
+            int offset = i * CropState.REGION_SIZE;
+            values[offset] = mView.normalizeX(window.getLeft());
+            values[offset + 1] = mView.normalizeY(window.getTop());
+            values[offset + 2] = mView.normalizeX(window.getRight());
+            values[offset + 3] = mView.normalizeY(window.getBottom());
+            values[offset + 4] = window.getAngle();
+            if (regions.get(i) == regionSet.getSelected()) {
+                selectedIndex = i;
+            }
+        }
+        float[] quad = new float[8];
+        for (int i = 0; i < 4; i++) {
+            quad[i * 2] = mView.normalizeX(mQuad.getX(i));
+            quad[i * 2 + 1] = mView.normalizeY(mQuad.getY(i));
+        }
+        return new CropState(values, selectedIndex, quad);
+    }
+
+    /**
+     * 按保存的几何重建所有区域，区域数不同时增删区域，并选中保存时选中的区域
+     */
+    void applyCropState(CropState state) {
+        CropRegionSet regionSet = mView.getRegionSet();
+        List<CropRegion> regions = regionSet.getRegions();
+        while (regionSet.size() > state.getRegionCount()) {
+            regionSet.remove(regions.get(regions.size() - 1));
+        }
+        while (regionSet.size() < state.getRegionCount()) {
+            regionSet.add(new CropWindow());
+        }
+        float[] values = new float[CropState.REGION_SIZE];
+        CropRegion selected = null;
+        for (int i = 0; i < regions.size(); i++) {
+            CropRegion region = regions.get(i);
+            state.getRegion(i, values);
+            region.getWindow().set(mView.denormalizeX(values[0]), mView.denormalizeY(values[1]),
+                    mView.denormalizeX(values[2]), mView.denormalizeY(values[3]));
+            region.getWindow().setAngle(values[4]);
+            regionSet.update(region);
+            if (i == state.getSelectedIndex()) {
+                selected = region;
+            }
+        }
+        float[] quad = new float[8];
+        state.getQuad(quad);
+        for (int i = 0; i < 4; i++) {
+            mQuad.set(i, mView.denormalizeX(quad[i * 2]), mView.denormalizeY(quad[i * 2 + 1]));
+        }
+        regionSet.select(selected);
+    }
+}
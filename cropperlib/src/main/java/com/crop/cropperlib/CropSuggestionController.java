@@ -0,0 +1,67 @@
+package com.crop.cropperlib;
+
+import com.crop.cropperlib.suggest.CropSuggestionLoader;
+import ohos.media.image.PixelMap;
+
+/**
+ * {@link CropImage}的初始窗口推荐：在后台分析图片内容，分析完成后交给组件应用推荐的窗口。只应在UI线程使用
+ */
+final class CropSuggestionController implements CropSuggestionLoader.Listener {
+
+    private final CropImage mView;
+
+    // 换了图片时是否按图片内容推荐初始窗口
+    private boolean mAutoCropEnabled;
+
+    // 内容分析；第一次推荐时创建
+    private CropSuggestionLoader mLoader;
+
+    CropSuggestionController(CropImage view) {
+        mView = view;
+    }
+
+    void setAutoCropEnabled(boolean enabled) {
+        mAutoCropEnabled = enabled;
+        if (!enabled) {
+            cancel();
+        }
+    }
+
+    boolean isAutoCropEnabled() {
+        return mAutoCropEnabled;
+    }
+
+    void setTimeBudgetMs(long timeBudgetMs) {
+        getLoader().setTimeBudgetMs(timeBudgetMs);
+    }
+
+    /**
+     * 请求分析图片，取消之前的请求
+     *
+     * @param aspectRatio 窗口的纵横比（宽 / 高）；小于等于0时使用图片本身的纵横比
+     */
+    void request(PixelMap pixelMap, float aspectRatio) {
+        getLoader().request(pixelMap, aspectRatio);
+    }
+
+    /**
+     * 放弃尚未交付的推荐
+     */
+    void cancel() {
+        if (mLoader != null) {
+            mLoader.cancel();
+        }
+    }
+
+    private CropSuggestionLoader getLoader() {
+        if (mLoader == null) {
+            mLoader = new CropSuggestionLoader(mView.getContext().getUITaskDispatcher(), this);
+        }
+        return mLoader;
+    }
+
+    @Override
+    public void onCropSuggested(float[] rect) {
+        mView.applySuggestedWindow(rect);
+    }
+}
@@ -0,0 +1,223 @@
+package com.crop.cropperlib.anim;
+
+import ohos.app.dispatcher.TaskDispatcher;
+import ohos.app.dispatcher.task.Revocable;
+
+/**
+ * 把裁剪几何平滑地过渡到目标状态
+ *
+ * 几何是固定长度的float向量，每个分量是一个临界阻尼弹簧，按固定步长积分，与帧率和掉帧无关；
+ * 每一帧把累计的真实时间切成若干个固定步，再在最后两步之间线性插值得到显示的状态。
+ * 动画进行中再次开始时，从当前显示的状态出发并保留速度，不会跳变。所有缓冲在创建时分配，每帧不分配对象；
+ * 所有分量都到达目标并且几乎静止时，输出一次精确的目标状态后停止，不再投递帧任务。
+ * 所有方法都必须在UI线程调用。
+ */
+public class CropAnimator {
+
+    /**
+     * 接收每一帧的状态
+     */
+    public interface Target {
+        /**
+         * @param state    这一帧的状态，只在回调内有效
+         * @param finished 是否是最后一帧（等于目标状态）
+         */
+        void onAnimationFrame(float[] state, boolean finished);
+    }
+
+    // 默认帧间隔，对应60Hz刷新率；应按屏幕刷新率设置
+    public static final long DEFAULT_FRAME_INTERVAL_MS = 16;
+
+    // 默认的弹簧角频率（弧度/秒），大约260毫秒完成95%的过渡
+    public static final float DEFAULT_FREQUENCY = 18f;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    // 积分的固定步长（秒）
+    private static final float STEP_SECONDS = 1f / 240;
+
+    // 一帧最多积分的时间，应用在后台被暂停后恢复时不会一次积分很多步
+    private static final float MAX_FRAME_SECONDS = 0.1f;
+
+    // 到目标的距离和速度都小于这两个值时认为动画结束
+    private static final float SETTLE_DISTANCE = 0.05f;
+    private static final float SETTLE_VELOCITY = 1f;
+
+    private final TaskDispatcher mDispatcher;
+    private final Target mTarget;
+    private final int mStateSize;
+
+    // 当前步和上一步的位置、速度、目标状态和输出的帧
+    private final float[] mPosition;
+    private final float[] mPrevious;
+    private final float[] mVelocity;
+    private final float[] mGoal;
+    private final float[] mFrame;
+
+    // 预先创建的帧任务，避免每帧分配
+    private final Runnable mFrameTask = new Runnable() {
+        @Override
+        public void run() {
+            mScheduled = null;
+            onFrame();
+        }
+    };
+
+    private long mFrameIntervalMs = DEFAULT_FRAME_INTERVAL_MS;
+    private float mFrequency = DEFAULT_FREQUENCY;
+
+    private boolean mRunning;
+    private long mLastFrameNanos;
+
+    // 尚未积分的时间（秒），总是小于一个步长
+    private float mAccumulator;
+
+    // 已投递但尚未执行的帧任务；为null表示没有任务
+    private Revocable mScheduled;
+
+    /**
+     * @param dispatcher UI线程的任务分发器
+     * @param stateSize  状态向量的长度
+     * @param target     接收每一帧的状态
+     */
+    public CropAnimator(TaskDispatcher dispatcher, int stateSize, Target target) {
+        if (stateSize <= 0) {
+            throw new IllegalArgumentException("stateSize must be positive");
+        }
+        mDispatcher = dispatcher;
+        mTarget = target;
+        mStateSize = stateSize;
+        mPosition = new float[stateSize];
+        mPrevious = new float[stateSize];
+        mVelocity = new float[stateSize];
+        mGoal = new float[stateSize];
+        mFrame = new float[stateSize];
+    }
+
+    /**
+     * 设置帧间隔
+     *
+     * @param frameIntervalMs 帧间隔（毫秒）
+     */
+    public void setFrameIntervalMs(long frameIntervalMs) {
+        mFrameIntervalMs = Math.max(1, frameIntervalMs);
+    }
+
+    /**
+     * 设置弹簧角频率，越大越快；大约在4.7 / frequency秒内完成95%的过渡
+     *
+     * @param frequency 角频率（弧度/秒）
+     */
+    public void setFrequency(float frequency) {
+        // 步长相对于弹簧周期太大时积分不稳定
+        if (!(frequency > 0) || frequency * STEP_SECONDS >= 1) {
+            throw new IllegalArgumentException("frequency must be in (0, " + (int) (1 / STEP_SECONDS) + ")");
+        }
+        mFrequency = frequency;
+    }
+
+    /**
+     * 开始向目标状态过渡。动画进行中时从给定的当前状态出发并保留每个分量的速度
+     *
+     * @param from 当前显示的状态
+     * @param to   目标状态
+     */
+    public void start(float[] from, float[] to) {
+        System.arraycopy(from, 0, mPosition, 0, mStateSize);
+        System.arraycopy(from, 0, mPrevious, 0, mStateSize);
+        System.arraycopy(to, 0, mGoal, 0, mStateSize);
+        if (!mRunning) {
+            for (int i = 0; i < mStateSize; i++) {
+                mVelocity[i] = 0;
+            }
+            mAccumulator = 0;
+            mLastFrameNanos = System.nanoTime();
+            mRunning = true;
+            schedule();
+        }
+    }
+
+    /**
+     * 停止动画，几何停在最后一次输出的状态，不再输出新的帧
+     */
+    public void cancel() {
+        mRunning = false;
+        if (mScheduled != null) {
+            mScheduled.revoke();
+            mScheduled = null;
+        }
+    }
+
+    /**
+     * 立即结束动画：输出一次目标状态后停止
+     */
+    public void finish() {
+        if (!mRunning) {
+            return;
+        }
+        cancel();
+        System.arraycopy(mGoal, 0, mFrame, 0, mStateSize);
+        mTarget.onAnimationFrame(mFrame, true);
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * 获取目标状态
+     *
+     * @param out 输出的状态，长度至少为状态向量的长度
+     */
+    public void getGoal(float[] out) {
+        System.arraycopy(mGoal, 0, out, 0, mStateSize);
+    }
+
+    private void schedule() {
+        mScheduled = mDispatcher.delayDispatch(mFrameTask, mFrameIntervalMs);
+    }
+
+    private void onFrame() {
+        if (!mRunning) {
+            return;
+        }
+        long now = System.nanoTime();
+        float elapsed = Math.min(MAX_FRAME_SECONDS, (float) (now - mLastFrameNanos) / NANOS_PER_SECOND);
+        mLastFrameNanos = now;
+        mAccumulator += elapsed;
+
+        // 临界阻尼弹簧：a = -ω²(x - goal) - 2ωv，半隐式欧拉积分
+        float stiffness = mFrequency * mFrequency;
+        float damping = 2 * mFrequency;
+        while (mAccumulator >= STEP_SECONDS) {
+            for (int i = 0; i < mStateSize; i++) {
+                mPrevious[i] = mPosition[i];
+                float acceleration = -stiffness * (mPosition[i] - mGoal[i]) - damping * mVelocity[i];
+                mVelocity[i] += acceleration * STEP_SECONDS;
+                mPosition[i] += mVelocity[i] * STEP_SECONDS;
+            }
+            mAccumulator -= STEP_SECONDS;
+        }
+
+        boolean settled = true;
+        for (int i = 0; i < mStateSize; i++) {
+            if (Math.abs(mPosition[i] - mGoal[i]) > SETTLE_DISTANCE || Math.abs(mVelocity[i]) > SETTLE_VELOCITY) {
+                settled = false;
+                break;
+            }
+        }
+        if (settled) {
+            mRunning = false;
+            System.arraycopy(mGoal, 0, mFrame, 0, mStateSize);
+            mTarget.onAnimationFrame(mFrame, true);
+            return;
+        }
+
+        float alpha = mAccumulator / STEP_SECONDS;
+        for (int i = 0; i < mStateSize; i++) {
+            mFrame[i] = mPrevious[i] + (mPosition[i] - mPrevious[i]) * alpha;
+        }
+        schedule();
+        mTarget.onAnimationFrame(mFrame, false);
+    }
+}
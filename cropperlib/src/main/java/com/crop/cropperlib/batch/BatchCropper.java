@@ -0,0 +1,176 @@
+package com.crop.cropperlib.batch;
+
+import com.crop.cropperlib.export.CropEncoder;
+import com.crop.cropperlib.source.CropSource;
+import ohos.media.image.ImageSource;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.Rect;
+import ohos.media.image.common.Size;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不依赖CropImage的批量裁剪：对一组图片应用同一个{@link CropSpec}
+ *
+ * 每张图片依次经过打开、区域解码（解码、裁剪并缩小到输出尺寸）、编码三个阶段。需要缩小时由解码器直接按输出尺寸采样，
+ * 每张图片只存在一张输出尺寸的位图。同时处理的图片数不超过maxInFlight，
+ * 提交线程在达到上限时阻塞，因此峰值内存只与maxInFlight有关，与图片总数无关。
+ */
+public class BatchCropper {
+
+    private static final String DEFAULT_FORMAT = CropEncoder.FORMAT_JPEG;
+    private static final int DEFAULT_QUALITY = 90;
+
+    private final int mMaxInFlight;
+    private final StageTimings mTimings = new StageTimings();
+
+    // 输出最大尺寸；小于等于0表示不缩放
+    private int mMaxOutputWidth;
+    private int mMaxOutputHeight;
+
+    private String mFormat = DEFAULT_FORMAT;
+    private int mQuality = DEFAULT_QUALITY;
+
+    /**
+     * @param maxInFlight 同时处理的最大图片数
+     */
+    public BatchCropper(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        mMaxInFlight = maxInFlight;
+    }
+
+    /**
+     * 设置输出的最大尺寸，裁剪结果会按比例缩小到不超过该尺寸
+     */
+    public void setMaxOutputSize(int maxWidth, int maxHeight) {
+        mMaxOutputWidth = maxWidth;
+        mMaxOutputHeight = maxHeight;
+    }
+
+    /**
+     * 设置输出格式和质量
+     *
+     * @param format  输出格式，例如"image/jpeg"
+     * @param quality 编码质量（0到100）
+     */
+    public void setOutputFormat(String format, int quality) {
+        CropEncoder.checkOptions(format, quality);
+        mFormat = format;
+        mQuality = quality;
+    }
+
+    /**
+     * 获取各阶段的累计耗时
+     */
+    public StageTimings getTimings() {
+        return mTimings;
+    }
+
+    /**
+     * 处理所有图片，直到全部完成才返回。会阻塞调用线程，不要在UI线程调用
+     *
+     * @param sources  图片列表
+     * @param spec     裁剪描述
+     * @param listener 每张图片的结果回调，可以为null
+     *
+     * @throws InterruptedException 等待时被中断；已提交的图片会继续处理完
+     */
+    public void run(List<? extends BatchSource> sources, final CropSpec spec, final BatchListener listener)
+            throws InterruptedException {
+        final Semaphore permits = new Semaphore(mMaxInFlight);
+        ExecutorService executor = Executors.newFixedThreadPool(mMaxInFlight);
+        try {
+            for (final BatchSource source : sources) {
+                // 达到上限时在这里等待，形成背压
+                permits.acquire();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Exception error = null;
+                        try {
+                            process(source, spec);
+                        } catch (Exception e) {
+                            error = e;
+                        } finally {
+                            permits.release();
+                        }
+                        // 回调放在try之外，回调本身抛出的异常不会把同一张图片再报告为失败
+                        if (listener == null) {
+                            return;
+                        }
+                        if (error == null) {
+                            listener.onCompleted(source);
+                        } else {
+                            listener.onFailed(source, error);
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private void process(BatchSource source, CropSpec spec) throws IOException {
+        long start = System.nanoTime();
+        ImageSource imageSource = source.openInput();
+        CropSource cropSource = null;
+        PixelMap pixelMap = null;
+        try {
+            cropSource = new CropSource(imageSource);
+            Rect region = spec.resolve(cropSource.getWidth(), cropSource.getHeight());
+            start = record(StageTimings.Stage.OPEN, start);
+
+            Size outputSize = getOutputSize(region.width, region.height);
+            pixelMap = outputSize == null ? cropSource.decodeRegion(region)
+                    : cropSource.decodeRegion(region, outputSize.width, outputSize.height);
+            start = record(StageTimings.Stage.DECODE, start);
+
+            encode(pixelMap, source);
+            record(StageTimings.Stage.ENCODE, start);
+        } finally {
+            if (pixelMap != null) {
+                pixelMap.release();
+            }
+            // CropSource构造失败时直接释放ImageSource
+            if (cropSource != null) {
+                cropSource.release();
+            } else if (imageSource != null) {
+                imageSource.release();
+            }
+        }
+    }
+
+    private void encode(PixelMap pixelMap, BatchSource source) throws IOException {
+        try (OutputStream output = source.openOutput()) {
+            CropEncoder.encode(pixelMap, output, mFormat, mQuality);
+        }
+    }
+
+    /**
+     * 计算输出尺寸；不需要缩放时返回null
+     */
+    private Size getOutputSize(int width, int height) {
+        if (mMaxOutputWidth <= 0 || mMaxOutputHeight <= 0
+                || (width <= mMaxOutputWidth && height <= mMaxOutputHeight)) {
+            return null;
+        }
+        float scale = Math.min((float) mMaxOutputWidth / width, (float) mMaxOutputHeight / height);
+        return new Size(Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale)));
+    }
+
+    private long record(StageTimings.Stage stage, long start) {
+        long now = System.nanoTime();
+        mTimings.record(stage, now - start);
+        return now;
+    }
+}
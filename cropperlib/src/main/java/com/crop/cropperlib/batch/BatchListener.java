@@ -0,0 +1,17 @@
+package com.crop.cropperlib.batch;
+
+/**
+ * 批量裁剪中每张图片的结果回调，在工作线程中调用
+ */
+public interface BatchListener {
+
+    /**
+     * 一张图片处理完成
+     */
+    void onCompleted(BatchSource source);
+
+    /**
+     * 一张图片处理失败，不影响其他图片
+     */
+    void onFailed(BatchSource source, Exception error);
+}
@@ -0,0 +1,22 @@
+package com.crop.cropperlib.batch;
+
+import ohos.media.image.ImageSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 批量裁剪中的一张图片：提供编码的输入和裁剪结果的输出
+ */
+public interface BatchSource {
+
+    /**
+     * 打开原始编码图片，只会在工作线程中调用
+     */
+    ImageSource openInput() throws IOException;
+
+    /**
+     * 打开裁剪结果的输出流，流会在写完后由批处理关闭
+     */
+    OutputStream openOutput() throws IOException;
+}
@@ -0,0 +1,84 @@
+package com.crop.cropperlib.batch;
+
+import ohos.media.image.common.Rect;
+
+/**
+ * 与图片尺寸无关的裁剪描述，坐标是相对于图片宽高的比例（0到1）
+ */
+public class CropSpec {
+
+    private final float mLeft;
+    private final float mTop;
+    private final float mRight;
+    private final float mBottom;
+
+    // 目标宽高比；小于等于0表示不固定
+    private final float mAspectRatio;
+
+    /**
+     * @param left        左边缘，相对于图片宽度
+     * @param top         上边缘，相对于图片高度
+     * @param right       右边缘，相对于图片宽度
+     * @param bottom      下边缘，相对于图片高度
+     * @param aspectRatio 目标宽高比；小于等于0表示不固定。固定时在上述区域内取最大的、居中的该比例矩形
+     */
+    public CropSpec(float left, float top, float right, float bottom, float aspectRatio) {
+        if (!(left >= 0 && top >= 0 && right <= 1 && bottom <= 1 && left < right && top < bottom)) {
+            throw new IllegalArgumentException("invalid normalized crop [" + left + ", " + top + ", "
+                    + right + ", " + bottom + "]");
+        }
+        mLeft = left;
+        mTop = top;
+        mRight = right;
+        mBottom = bottom;
+        mAspectRatio = aspectRatio;
+    }
+
+    /**
+     * 创建居中的裁剪描述，例如centered(0.8f, 4f / 3f)表示居中80%、宽高比4:3
+     *
+     * @param fraction    裁剪区域占图片宽高的比例
+     * @param aspectRatio 目标宽高比；小于等于0表示不固定
+     *
+     * @return 裁剪描述
+     */
+    public static CropSpec centered(float fraction, float aspectRatio) {
+        float margin = (1f - fraction) / 2f;
+        return new CropSpec(margin, margin, 1f - margin, 1f - margin, aspectRatio);
+    }
+
+    /**
+     * 计算给定尺寸的图片上的裁剪区域
+     *
+     * @param width  图片宽度
+     * @param height 图片高度
+     *
+     * @return 图片坐标系中的裁剪区域
+     */
+    public Rect resolve(int width, int height) {
+        float left = mLeft * width;
+        float top = mTop * height;
+        float right = mRight * width;
+        float bottom = mBottom * height;
+
+        if (mAspectRatio > 0) {
+            float cropWidth = right - left;
+            float cropHeight = bottom - top;
+            if (cropWidth / cropHeight > mAspectRatio) {
+                float targetWidth = cropHeight * mAspectRatio;
+                left += (cropWidth - targetWidth) / 2;
+                right = left + targetWidth;
+            } else {
+                float targetHeight = cropWidth / mAspectRatio;
+                top += (cropHeight - targetHeight) / 2;
+                bottom = top + targetHeight;
+            }
+        }
+
+        int x = Math.round(left);
+        int y = Math.round(top);
+        int w = Math.max(1, Math.min(Math.round(right) - x, width - x));
+        int h = Math.max(1, Math.min(Math.round(bottom) - y, height - y));
+        return new Rect(x, y, w, h);
+    }
+}
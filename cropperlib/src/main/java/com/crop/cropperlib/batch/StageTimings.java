@@ -0,0 +1,63 @@
+package com.crop.cropperlib.batch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 批量裁剪各个阶段的累计耗时，可以被多个工作线程同时更新
+ */
+public class StageTimings {
+
+    /**
+     * 批量裁剪的阶段
+     */
+    public enum Stage {
+        // 打开原图并读取尺寸
+        OPEN,
+        // 只解码裁剪区域并按输出尺寸采样，即同时完成解码、裁剪和缩放
+        DECODE,
+        // 编码并写出
+        ENCODE
+    }
+
+    private final AtomicLongArray mTotalNanos = new AtomicLongArray(Stage.values().length);
+    private final AtomicLongArray mCounts = new AtomicLongArray(Stage.values().length);
+
+    void record(Stage stage, long nanos) {
+        mTotalNanos.addAndGet(stage.ordinal(), nanos);
+        mCounts.incrementAndGet(stage.ordinal());
+    }
+
+    /**
+     * 获取某个阶段的累计耗时（纳秒）
+     */
+    public long getTotalNanos(Stage stage) {
+        return mTotalNanos.get(stage.ordinal());
+    }
+
+    /**
+     * 获取某个阶段执行的次数
+     */
+    public long getCount(Stage stage) {
+        return mCounts.get(stage.ordinal());
+    }
+
+    /**
+     * 获取某个阶段的平均耗时（毫秒）
+     */
+    public double getAverageMillis(Stage stage) {
+        long count = getCount(stage);
+        return count == 0 ? 0 : getTotalNanos(stage) / 1e6 / count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("StageTimings[");
+        for (Stage stage : Stage.values()) {
+            if (stage.ordinal() > 0) {
+                builder.append(", ");
+            }
+            builder.append(stage).append('=').append(String.format("%.2fms", getAverageMillis(stage)));
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.crop.cropperlib.border;
+
+/**
+ * 透视裁剪的四边形，四个角可以各自独立移动
+ *
+ * 角按左上、右上、右下、左下的顺序保存，每个实例独立持有坐标。与{@link CropWindow}一样本身不是线程安全的，
+ * 跨线程使用时请通过{@link #CropQuad(CropQuad)}复制一份快照。
+ */
+public class CropQuad {
+
+    public static final int TOP_LEFT = 0;
+    public static final int TOP_RIGHT = 1;
+    public static final int BOTTOM_RIGHT = 2;
+    public static final int BOTTOM_LEFT = 3;
+
+    // 四个角的坐标，依次为x0, y0, x1, y1...
+    private final float[] mPoints = new float[8];
+
+    public CropQuad() {
+    }
+
+    /**
+     * 复制给定四边形的坐标
+     *
+     * @param other 被复制的四边形
+     */
+    public CropQuad(CropQuad other) {
+        set(other);
+    }
+
+    public float getX(int corner) {
+        return mPoints[corner * 2];
+    }
+
+    public float getY(int corner) {
+        return mPoints[corner * 2 + 1];
+    }
+
+    /**
+     * 设置一个角的位置
+     *
+     * @param corner 角，例如{@link #TOP_LEFT}
+     * @param x      x坐标
+     * @param y      y坐标
+     */
+    public void set(int corner, float x, float y) {
+        mPoints[corner * 2] = x;
+        mPoints[corner * 2 + 1] = y;
+    }
+
+    /**
+     * 复制给定四边形的坐标
+     */
+    public void set(CropQuad other) {
+        System.arraycopy(other.mPoints, 0, mPoints, 0, mPoints.length);
+    }
+
+    /**
+     * 设置为裁剪窗口（包括旋转）的四个角
+     */
+    public void set(CropWindow window) {
+        window.getCorners(mPoints);
+    }
+
+    /**
+     * 获取四个角的坐标
+     *
+     * @param out 输出的坐标，依次为x0, y0, x1, y1...，长度至少为8
+     */
+    public void getPoints(float[] out) {
+        System.arraycopy(mPoints, 0, out, 0, mPoints.length);
+    }
+
+    /**
+     * 平移整个四边形
+     */
+    public void offset(float dx, float dy) {
+        for (int i = 0; i < mPoints.length; i += 2) {
+            mPoints[i] += dx;
+            mPoints[i + 1] += dy;
+        }
+    }
+
+    public float getCenterX() {
+        return (mPoints[0] + mPoints[2] + mPoints[4] + mPoints[6]) / 4;
+    }
+
+    public float getCenterY() {
+        return (mPoints[1] + mPoints[3] + mPoints[5] + mPoints[7]) / 4;
+    }
+
+    /**
+     * 获取外接矩形
+     *
+     * @param out 输出的左、上、右、下边缘，长度至少为4
+     */
+    public void getBounds(float[] out) {
+        out[0] = Math.min(Math.min(mPoints[0], mPoints[2]), Math.min(mPoints[4], mPoints[6]));
+        out[1] = Math.min(Math.min(mPoints[1], mPoints[3]), Math.min(mPoints[5], mPoints[7]));
+        out[2] = Math.max(Math.max(mPoints[0], mPoints[2]), Math.max(mPoints[4], mPoints[6]));
+        out[3] = Math.max(Math.max(mPoints[1], mPoints[3]), Math.max(mPoints[5], mPoints[7]));
+    }
+
+    /**
+     * 是否为顺时针方向的严格凸四边形。只有凸四边形才能透视校正为矩形
+     */
+    public boolean isConvex() {
+        for (int i = 0; i < 4; i++) {
+            if (cross(i, (i + 1) % 4, (i + 2) % 4) <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 点是否在四边形内部（含边界）；只对凸四边形有意义
+     */
+    public boolean contains(float x, float y) {
+        for (int i = 0; i < 4; i++) {
+            int next = (i + 1) % 4;
+            float edgeX = mPoints[next * 2] - mPoints[i * 2];
+            float edgeY = mPoints[next * 2 + 1] - mPoints[i * 2 + 1];
+            if (edgeX * (y - mPoints[i * 2 + 1]) - edgeY * (x - mPoints[i * 2]) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断坐标是否与给定四边形完全相同
+     */
+    public boolean contentEquals(CropQuad other) {
+        for (int i = 0; i < mPoints.length; i++) {
+            if (mPoints[i] != other.mPoints[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 三个角组成的两条边的叉积；屏幕坐标系（y向下）中顺时针转向时为正
+     */
+    private float cross(int a, int b, int c) {
+        float abX = mPoints[b * 2] - mPoints[a * 2];
+        float abY = mPoints[b * 2 + 1] - mPoints[a * 2 + 1];
+        float bcX = mPoints[c * 2] - mPoints[b * 2];
+        float bcY = mPoints[c * 2 + 1] - mPoints[b * 2 + 1];
+        return abX * bcY - abY * bcX;
+    }
+
+    @Override
+    public String toString() {
+        return "CropQuad[(" + mPoints[0] + ", " + mPoints[1] + "), (" + mPoints[2] + ", " + mPoints[3] + "), ("
+                + mPoints[4] + ", " + mPoints[5] + "), (" + mPoints[6] + ", " + mPoints[7] + ")]";
+    }
+}
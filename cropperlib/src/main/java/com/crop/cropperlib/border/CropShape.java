@@ -0,0 +1,16 @@
+package com.crop.cropperlib.border;
+
+/**
+ * 裁剪形状：裁剪窗口本身始终是矩形，形状决定覆盖层的绘制方式和导出结果的透明遮罩
+ */
+public enum CropShape {
+    /**
+     * 矩形，导出结果不带遮罩
+     */
+    RECTANGLE,
+
+    /**
+     * 内切于裁剪窗口的椭圆（窗口为正方形时是圆形），导出结果椭圆以外透明，边缘抗锯齿
+     */
+    OVAL
+}
@@ -0,0 +1,277 @@
+package com.crop.cropperlib.border;
+
+/**
+ * 裁剪窗口的几何数据，每个实例独立持有四条边的坐标
+ *
+ * 坐标按照{@link Frame#ordinal()}的顺序保存在一个float数组中，不依赖任何全局状态，
+ * 因此多个CropImage或者后台线程可以各自持有自己的裁剪窗口。本类本身不是线程安全的，
+ * 跨线程使用时请通过{@link #CropWindow(CropWindow)}复制一份快照。
+ *
+ * 裁剪窗口可以带有一个旋转角度：四条边保存的是未旋转的矩形，整个矩形绕自身中心旋转。
+ * 窗口坐标系指未旋转矩形所在的坐标系，拖动边和角时先把触摸点转换到窗口坐标系中。
+ */
+public class CropWindow {
+
+    // 四条边的坐标，下标为Frame.ordinal()
+    private final float[] mCoordinates = new float[4];
+
+    // 绕中心的旋转角度（度，屏幕上顺时针为正），范围为(-180, 180]
+    private float mAngle;
+
+    public CropWindow() {
+    }
+
+    /**
+     * 复制给定裁剪窗口的坐标和旋转角度
+     *
+     * @param other 被复制的裁剪窗口
+     */
+    public CropWindow(CropWindow other) {
+        set(other);
+    }
+
+    /**
+     * 获取指定边的坐标
+     *
+     * @param frame 边
+     *
+     * @return 边缘坐标（左右边缘的x坐标和上下边缘的y坐标）
+     */
+    public float get(Frame frame) {
+        return mCoordinates[frame.ordinal()];
+    }
+
+    /**
+     * 设置指定边的坐标
+     *
+     * @param frame      边
+     * @param coordinate 边缘的位置
+     */
+    public void set(Frame frame, float coordinate) {
+        mCoordinates[frame.ordinal()] = coordinate;
+    }
+
+    /**
+     * 将给定数量的像素添加到指定边的当前坐标
+     *
+     * @param frame    边
+     * @param distance 要添加的像素数
+     */
+    public void offset(Frame frame, float distance) {
+        mCoordinates[frame.ordinal()] += distance;
+    }
+
+    /**
+     * 一次性设置四条边的坐标
+     */
+    public void set(float left, float top, float right, float bottom) {
+        mCoordinates[0] = left;
+        mCoordinates[1] = top;
+        mCoordinates[2] = right;
+        mCoordinates[3] = bottom;
+    }
+
+    /**
+     * 复制给定裁剪窗口的坐标和旋转角度
+     */
+    public void set(CropWindow other) {
+        System.arraycopy(other.mCoordinates, 0, mCoordinates, 0, mCoordinates.length);
+        mAngle = other.mAngle;
+    }
+
+    /**
+     * 获取旋转角度
+     *
+     * @return 角度（度，屏幕上顺时针为正），范围为(-180, 180]
+     */
+    public float getAngle() {
+        return mAngle;
+    }
+
+    /**
+     * 设置绕中心的旋转角度，会被规范到(-180, 180]
+     *
+     * @param angle 角度（度，屏幕上顺时针为正）
+     */
+    public void setAngle(float angle) {
+        if (Float.isNaN(angle) || Float.isInfinite(angle)) {
+            throw new IllegalArgumentException("invalid angle " + angle);
+        }
+        angle %= 360;
+        if (angle > 180) {
+            angle -= 360;
+        } else if (angle <= -180) {
+            angle += 360;
+        }
+        mAngle = angle;
+    }
+
+    /**
+     * 是否带有旋转
+     */
+    public boolean isRotated() {
+        return mAngle != 0;
+    }
+
+    public float getCenterX() {
+        return (mCoordinates[0] + mCoordinates[2]) / 2;
+    }
+
+    public float getCenterY() {
+        return (mCoordinates[1] + mCoordinates[3]) / 2;
+    }
+
+    /**
+     * 把组件坐标中的点转换到窗口坐标系
+     *
+     * @param x   组件坐标x
+     * @param y   组件坐标y
+     * @param out 输出的窗口坐标，长度至少为2
+     */
+    public void mapToWindow(float x, float y, float[] out) {
+        rotate(x, y, -mAngle, out);
+    }
+
+    /**
+     * 把窗口坐标系中的点转换为组件坐标
+     *
+     * @param x   窗口坐标x
+     * @param y   窗口坐标y
+     * @param out 输出的组件坐标，长度至少为2
+     */
+    public void mapFromWindow(float x, float y, float[] out) {
+        rotate(x, y, mAngle, out);
+    }
+
+    /**
+     * 获取四个角在组件坐标中的位置，依次为左上、右上、右下、左下
+     *
+     * @param out 输出的坐标，依次为x0, y0, x1, y1...，长度至少为8
+     */
+    public void getCorners(float[] out) {
+        double radians = Math.toRadians(mAngle);
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+        float centerX = getCenterX();
+        float centerY = getCenterY();
+        float halfWidth = getWidth() / 2;
+        float halfHeight = getHeight() / 2;
+        for (int i = 0; i < 4; i++) {
+            float dx = (i == 0 || i == 3) ? -halfWidth : halfWidth;
+            float dy = i < 2 ? -halfHeight : halfHeight;
+            out[i * 2] = centerX + cos * dx - sin * dy;
+            out[i * 2 + 1] = centerY + sin * dx + cos * dy;
+        }
+    }
+
+    /**
+     * 获取旋转后窗口的外接矩形；未旋转时就是四条边
+     *
+     * @param out 输出的左、上、右、下边缘，长度至少为4
+     */
+    public void getBounds(float[] out) {
+        if (mAngle == 0) {
+            System.arraycopy(mCoordinates, 0, out, 0, mCoordinates.length);
+            return;
+        }
+        double radians = Math.toRadians(mAngle);
+        float cos = Math.abs((float) Math.cos(radians));
+        float sin = Math.abs((float) Math.sin(radians));
+        float halfWidth = getWidth() / 2;
+        float halfHeight = getHeight() / 2;
+        float extentX = cos * halfWidth + sin * halfHeight;
+        float extentY = sin * halfWidth + cos * halfHeight;
+        out[0] = getCenterX() - extentX;
+        out[1] = getCenterY() - extentY;
+        out[2] = getCenterX() + extentX;
+        out[3] = getCenterY() + extentY;
+    }
+
+    /**
+     * 拖动旋转窗口的边或角之后调用：四条边是在旧中心的窗口坐标系中修改的，而旋转中心随矩形一起移动了，
+     * 这里平移矩形使窗口坐标系中没有被修改的点在屏幕上保持原位，例如拖动右边时左边不会跟着移动
+     *
+     * @param oldCenterX 修改前的中心x坐标
+     * @param oldCenterY 修改前的中心y坐标
+     */
+    public void keepAnchored(float oldCenterX, float oldCenterY) {
+        if (mAngle == 0) {
+            return;
+        }
+        float dx = getCenterX() - oldCenterX;
+        float dy = getCenterY() - oldCenterY;
+        double radians = Math.toRadians(mAngle);
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+        float offsetX = cos * dx - sin * dy - dx;
+        float offsetY = sin * dx + cos * dy - dy;
+        mCoordinates[0] += offsetX;
+        mCoordinates[1] += offsetY;
+        mCoordinates[2] += offsetX;
+        mCoordinates[3] += offsetY;
+    }
+
+    private void rotate(float x, float y, float angle, float[] out) {
+        if (angle == 0) {
+            out[0] = x;
+            out[1] = y;
+            return;
+        }
+        double radians = Math.toRadians(angle);
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+        float centerX = getCenterX();
+        float centerY = getCenterY();
+        float dx = x - centerX;
+        float dy = y - centerY;
+        out[0] = centerX + cos * dx - sin * dy;
+        out[1] = centerY + sin * dx + cos * dy;
+    }
+
+    public float getLeft() {
+        return mCoordinates[0];
+    }
+
+    public float getTop() {
+        return mCoordinates[1];
+    }
+
+    public float getRight() {
+        return mCoordinates[2];
+    }
+
+    public float getBottom() {
+        return mCoordinates[3];
+    }
+
+    /**
+     * 获取裁剪窗口的当前宽度
+     */
+    public float getWidth() {
+        return mCoordinates[2] - mCoordinates[0];
+    }
+
+    /**
+     * 获取裁剪窗口的当前高度
+     */
+    public float getHeight() {
+        return mCoordinates[3] - mCoordinates[1];
+    }
+
+    /**
+     * 判断坐标和旋转角度是否与给定裁剪窗口完全相同
+     */
+    public boolean contentEquals(CropWindow other) {
+        return mAngle == other.mAngle
+                && mCoordinates[0] == other.mCoordinates[0]
+                && mCoordinates[1] == other.mCoordinates[1]
+                && mCoordinates[2] == other.mCoordinates[2]
+                && mCoordinates[3] == other.mCoordinates[3];
+    }
+
+    @Override
+    public String toString() {
+        return "CropWindow[" + mCoordinates[0] + ", " + mCoordinates[1] + ", "
+                + mCoordinates[2] + ", " + mCoordinates[3] + (mAngle != 0 ? ", " + mAngle + "°" : "") + "]";
+    }
+}
@@ -17,9 +17,16 @@ public enum Frame {
     // 这是一个任意值，可以简单地防止裁剪窗口变得太小
     public static final int MIN_CROP_LENGTH_PX = 40;
 
-    // 此边的坐标值.
-    // 这将是左右边缘的x坐标，以及上边缘和下边缘的y坐标
-    private float mCoordinate;
+    // 兼容旧接口的共享裁剪窗口。
+    // 不带CropWindow参数的方法都作用在这个窗口上；新代码应当使用自己的CropWindow实例
+    private static final CropWindow SHARED_WINDOW = new CropWindow();
+
+    /**
+     * 获取不带CropWindow参数的旧接口所使用的共享裁剪窗口
+     */
+    public static CropWindow getSharedWindow() {
+        return SHARED_WINDOW;
+    }
 
     /**
      * 设置框架的坐标。该坐标将表示左、右边缘的x坐标，以及上、下边缘的y坐标
@@ -27,7 +34,17 @@ public enum Frame {
      * @param coordinate 边缘的位置
      */
     public void setCoordinate(float coordinate) {
-        mCoordinate = coordinate;
+        setCoordinate(SHARED_WINDOW, coordinate);
+    }
+
+    /**
+     * 设置给定裁剪窗口中此边的坐标
+     *
+     * @param window     裁剪窗口
+     * @param coordinate 边缘的位置
+     */
+    public void setCoordinate(CropWindow window, float coordinate) {
+        window.set(this, coordinate);
     }
 
     /**
@@ -36,7 +53,17 @@ public enum Frame {
      * @param distance 要添加的像素数
      */
     public void offset(float distance) {
-        mCoordinate += distance;
+        offset(SHARED_WINDOW, distance);
+    }
+
+    /**
+     * 将给定数量的像素添加到给定裁剪窗口中此边的坐标
+     *
+     * @param window   裁剪窗口
+     * @param distance 要添加的像素数
+     */
+    public void offset(CropWindow window, float distance) {
+        window.offset(this, distance);
     }
 
     /**
@@ -45,7 +72,18 @@ public enum Frame {
      * @return 边缘坐标（左右边缘的x坐标和上下边缘的y坐标）
      */
     public float getCoordinate() {
-        return mCoordinate;
+        return getCoordinate(SHARED_WINDOW);
+    }
+
+    /**
+     * 获取给定裁剪窗口中此边的坐标
+     *
+     * @param window 裁剪窗口
+     *
+     * @return 边缘坐标（左右边缘的x坐标和上下边缘的y坐标）
+     */
+    public float getCoordinate(CropWindow window) {
+        return window.get(this);
     }
 
     /**
@@ -57,18 +95,32 @@ public enum Frame {
      * @param imageSnapRadius 边缘应捕捉到图像的半径
      */
     public void adjustCoordinate(float x, float y, RectFloat imageRect, float imageSnapRadius, float aspectRatio) {
+        adjustCoordinate(SHARED_WINDOW, x, y, imageRect, imageSnapRadius, aspectRatio);
+    }
+
+    /**
+     * 将给定裁剪窗口中的此边设置为给定的x-y坐标，但也调整为捕捉到图像边界和父视图边界约束
+     *
+     * @param window          裁剪窗口
+     * @param x               x坐标
+     * @param y               y坐标
+     * @param imageRect       图像的边框
+     * @param imageSnapRadius 边缘应捕捉到图像的半径
+     */
+    public void adjustCoordinate(CropWindow window, float x, float y, RectFloat imageRect, float imageSnapRadius,
+                                 float aspectRatio) {
         switch (this) {
             case LEFT:
-                mCoordinate = adjustLeft(x, imageRect, imageSnapRadius, aspectRatio);
+                window.set(this, adjustLeft(window, x, imageRect, imageSnapRadius, aspectRatio));
                 break;
             case TOP:
-                mCoordinate = adjustTop(y, imageRect, imageSnapRadius, aspectRatio);
+                window.set(this, adjustTop(window, y, imageRect, imageSnapRadius, aspectRatio));
                 break;
             case RIGHT:
-                mCoordinate = adjustRight(x, imageRect, imageSnapRadius, aspectRatio);
+                window.set(this, adjustRight(window, x, imageRect, imageSnapRadius, aspectRatio));
                 break;
             case BOTTOM:
-                mCoordinate = adjustBottom(y, imageRect, imageSnapRadius, aspectRatio);
+                window.set(this, adjustBottom(window, y, imageRect, imageSnapRadius, aspectRatio));
                 break;
         }
     }
@@ -79,23 +131,33 @@ public enum Frame {
      * @param aspectRatio 要达到的纵横比
      */
     public void adjustCoordinate(float aspectRatio) {
-        float left = Frame.LEFT.getCoordinate();
-        float top = Frame.TOP.getCoordinate();
-        float right = Frame.RIGHT.getCoordinate();
-        float bottom = Frame.BOTTOM.getCoordinate();
+        adjustCoordinate(SHARED_WINDOW, aspectRatio);
+    }
+
+    /**
+     * 调整给定裁剪窗口中此帧的位置，使生成的窗口具有给定的纵横比。
+     *
+     * @param window      裁剪窗口
+     * @param aspectRatio 要达到的纵横比
+     */
+    public void adjustCoordinate(CropWindow window, float aspectRatio) {
+        float left = window.getLeft();
+        float top = window.getTop();
+        float right = window.getRight();
+        float bottom = window.getBottom();
 
         switch (this) {
             case LEFT:
-                mCoordinate = AspectRatioUtil.calculateLeft(top, right, bottom, aspectRatio);
+                window.set(this, AspectRatioUtil.calculateLeft(top, right, bottom, aspectRatio));
                 break;
             case TOP:
-                mCoordinate = AspectRatioUtil.calculateTop(left, right, bottom, aspectRatio);
+                window.set(this, AspectRatioUtil.calculateTop(left, right, bottom, aspectRatio));
                 break;
             case RIGHT:
-                mCoordinate = AspectRatioUtil.calculateRight(left, top, bottom, aspectRatio);
+                window.set(this, AspectRatioUtil.calculateRight(left, top, bottom, aspectRatio));
                 break;
             case BOTTOM:
-                mCoordinate = AspectRatioUtil.calculateBottom(left, top, right, aspectRatio);
+                window.set(this, AspectRatioUtil.calculateBottom(left, top, right, aspectRatio));
                 break;
         }
     }
@@ -108,22 +170,34 @@ public enum Frame {
      * @return 此坐标的更改量（以像素为单位）（即新坐标减去旧坐标值）
      */
     public float snapToRect(RectFloat imageRect) {
-        float oldCoordinate = mCoordinate;
+        return snapToRect(SHARED_WINDOW, imageRect);
+    }
+
+    /**
+     * 将给定裁剪窗口中的此帧捕捉到给定的图像边界
+     *
+     * @param window    裁剪窗口
+     * @param imageRect 要捕捉到的图像的边框
+     *
+     * @return 此坐标的更改量（以像素为单位）（即新坐标减去旧坐标值）
+     */
+    public float snapToRect(CropWindow window, RectFloat imageRect) {
+        float oldCoordinate = window.get(this);
         switch (this) {
             case LEFT:
-                mCoordinate = imageRect.left;
+                window.set(this, imageRect.left);
                 break;
             case TOP:
-                mCoordinate = imageRect.top;
+                window.set(this, imageRect.top);
                 break;
             case RIGHT:
-                mCoordinate = imageRect.right;
+                window.set(this, imageRect.right);
                 break;
             case BOTTOM:
-                mCoordinate = imageRect.bottom;
+                window.set(this, imageRect.bottom);
                 break;
         }
-        return mCoordinate - oldCoordinate;
+        return window.get(this) - oldCoordinate;
     }
 
     /**
@@ -134,7 +208,19 @@ public enum Frame {
      *@return 此坐标更改的量（以像素为单位）（即新坐标减去旧坐标值）
      */
     public float snapOffset(RectFloat imageRect) {
-        float oldCoordinate = mCoordinate;
+        return snapOffset(SHARED_WINDOW, imageRect);
+    }
+
+    /**
+     * 返回给定裁剪窗口中snapToRect的潜在捕捉偏移，而不更改坐标。
+     *
+     * @param window    裁剪窗口
+     * @param imageRect 要捕捉到的图像的边框
+     *
+     *@return 此坐标更改的量（以像素为单位）（即新坐标减去旧坐标值）
+     */
+    public float snapOffset(CropWindow window, RectFloat imageRect) {
+        float oldCoordinate = window.get(this);
         float newCoordinate;
 
         switch (this) {
@@ -158,14 +244,14 @@ public enum Frame {
      * 获取裁剪窗口的当前宽度
      */
     public static float getWidth() {
-        return Frame.RIGHT.getCoordinate() - Frame.LEFT.getCoordinate();
+        return SHARED_WINDOW.getWidth();
     }
 
     /**
      * 获取裁剪窗口的当前高度
      */
     public static float getHeight() {
-        return Frame.BOTTOM.getCoordinate() - Frame.TOP.getCoordinate();
+        return SHARED_WINDOW.getHeight();
     }
 
 
@@ -179,21 +265,35 @@ public enum Frame {
      * @return 新图像是否超出范围.
      */
     public boolean isNewRectangleOutOfBounds(Frame frame, RectFloat imageRect, float aspectRatio) {
-        float offset = frame.snapOffset(imageRect);
+        return isNewRectangleOutOfBounds(SHARED_WINDOW, frame, imageRect, aspectRatio);
+    }
+
+    /**
+     * 返回是否可以根据给定裁剪窗口的边缘是否超出边界来重新缩放图像。检查所有边缘是否有跳出边界的可能。
+     *
+     * @param window      裁剪窗口
+     * @param frame       即将扩展的边缘
+     * @param imageRect   图片的矩形
+     * @param aspectRatio 图片所需的侧面
+     *
+     * @return 新图像是否超出范围.
+     */
+    public boolean isNewRectangleOutOfBounds(CropWindow window, Frame frame, RectFloat imageRect, float aspectRatio) {
+        float offset = frame.snapOffset(window, imageRect);
 
         switch (this) {
             case LEFT:
                 if (frame.equals(Frame.TOP)) {
                     float top = imageRect.top;
-                    float bottom = Frame.BOTTOM.getCoordinate() - offset;
-                    float right = Frame.RIGHT.getCoordinate();
+                    float bottom = window.getBottom() - offset;
+                    float right = window.getRight();
                     float left = AspectRatioUtil.calculateLeft(top, right, bottom, aspectRatio);
 
                     return isOutOfBounds(top, left, bottom, right, imageRect);
                 } else if (frame.equals(Frame.BOTTOM)) {
                     float bottom = imageRect.bottom;
-                    float top = Frame.TOP.getCoordinate() - offset;
-                    float right = Frame.RIGHT.getCoordinate();
+                    float top = window.getTop() - offset;
+                    float right = window.getRight();
                     float left = AspectRatioUtil.calculateLeft(top, right, bottom, aspectRatio);
 
                     return isOutOfBounds(top, left, bottom, right, imageRect);
@@ -202,15 +302,15 @@ public enum Frame {
             case TOP:
                 if (frame.equals(Frame.LEFT)) {
                     float left = imageRect.left;
-                    float right = Frame.RIGHT.getCoordinate() - offset;
-                    float bottom = Frame.BOTTOM.getCoordinate();
+                    float right = window.getRight() - offset;
+                    float bottom = window.getBottom();
                     float top = AspectRatioUtil.calculateTop(left, right, bottom, aspectRatio);
 
                     return isOutOfBounds(top, left, bottom, right, imageRect);
                 } else if (frame.equals(Frame.RIGHT)) {
                     float right = imageRect.right;
-                    float left = Frame.LEFT.getCoordinate() - offset;
-                    float bottom = Frame.BOTTOM.getCoordinate();
+                    float left = window.getLeft() - offset;
+                    float bottom = window.getBottom();
                     float top = AspectRatioUtil.calculateTop(left, right, bottom, aspectRatio);
 
                     return isOutOfBounds(top, left, bottom, right, imageRect);
@@ -219,15 +319,15 @@ public enum Frame {
             case RIGHT:
                 if (frame.equals(Frame.TOP)) {
                     float top = imageRect.top;
-                    float bottom = Frame.BOTTOM.getCoordinate() - offset;
-                    float left = Frame.LEFT.getCoordinate();
+                    float bottom = window.getBottom() - offset;
+                    float left = window.getLeft();
                     float right = AspectRatioUtil.calculateRight(left, top, bottom, aspectRatio);
 
                     return isOutOfBounds(top, left, bottom, right, imageRect);
                 } else if (frame.equals(Frame.BOTTOM)) {
                     float bottom = imageRect.bottom;
-                    float top = Frame.TOP.getCoordinate() - offset;
-                    float left = Frame.LEFT.getCoordinate();
+                    float top = window.getTop() - offset;
+                    float left = window.getLeft();
                     float right = AspectRatioUtil.calculateRight(left, top, bottom, aspectRatio);
 
                     return isOutOfBounds(top, left, bottom, right, imageRect);
@@ -236,15 +336,15 @@ public enum Frame {
             case BOTTOM:
                 if (frame.equals(Frame.LEFT)) {
                     float left = imageRect.left;
-                    float right = Frame.RIGHT.getCoordinate() - offset;
-                    float top = Frame.TOP.getCoordinate();
+                    float right = window.getRight() - offset;
+                    float top = window.getTop();
                     float bottom = AspectRatioUtil.calculateBottom(left, top, right, aspectRatio);
 
                     return isOutOfBounds(top, left, bottom, right, imageRect);
                 } else if (frame.equals(Frame.RIGHT)) {
                     float right = imageRect.right;
-                    float left = Frame.LEFT.getCoordinate() - offset;
-                    float top = Frame.TOP.getCoordinate();
+                    float left = window.getLeft() - offset;
+                    float top = window.getTop();
                     float bottom = AspectRatioUtil.calculateBottom(left, top, right, aspectRatio);
 
                     return isOutOfBounds(top, left, bottom, right, imageRect);
@@ -269,20 +369,28 @@ public enum Frame {
      * 确定此框架是否在给定边框的内边距之外。边距通过SNAPRADIUS数量进入实际帧；因此，确定点是否在内部“边距”帧之外。
      */
     public boolean isOutsideMargin(RectFloat rect, float margin) {
+        return isOutsideMargin(SHARED_WINDOW, rect, margin);
+    }
+
+    /**
+     * 确定给定裁剪窗口中的此框架是否在给定边框的内边距之外。
+     */
+    public boolean isOutsideMargin(CropWindow window, RectFloat rect, float margin) {
         boolean result;
+        float coordinate = window.get(this);
 
         switch (this) {
             case LEFT:
-                result = mCoordinate - rect.left < margin;
+                result = coordinate - rect.left < margin;
                 break;
             case TOP:
-                result = mCoordinate - rect.top < margin;
+                result = coordinate - rect.top < margin;
                 break;
             case RIGHT:
-                result = rect.right - mCoordinate < margin;
+                result = rect.right - coordinate < margin;
                 break;
             default: // BOTTOM
-                result = rect.bottom - mCoordinate < margin;
+                result = rect.bottom - coordinate < margin;
                 break;
         }
         return result;
@@ -291,13 +399,14 @@ public enum Frame {
     /**
      * 在给定控制柄位置、图像边界框和捕捉半径的情况下，获取裁剪窗口左边缘的结果x位置。
      *
+     * @param window          裁剪窗口
      * @param x               左边缘拖动到的x位置
      * @param imageRect       正在裁剪的图像的边界框
      * @param imageSnapRadius 到图像边缘的捕捉距离
      *
      * @return 左边缘的实际x位置
      */
-    private static float adjustLeft(float x, RectFloat imageRect, float imageSnapRadius, float aspectRatio) {
+    private static float adjustLeft(CropWindow window, float x, RectFloat imageRect, float imageSnapRadius, float aspectRatio) {
         float resultX;
 
         if (x - imageRect.left < imageSnapRadius) {
@@ -309,13 +418,13 @@ public enum Frame {
             float resultXVert = Float.POSITIVE_INFINITY;
 
             // 检查车窗是否水平过小
-            if (x >= Frame.RIGHT.getCoordinate() - MIN_CROP_LENGTH_PX) {
-                resultXHoriz = Frame.RIGHT.getCoordinate() - MIN_CROP_LENGTH_PX;
+            if (x >= window.getRight() - MIN_CROP_LENGTH_PX) {
+                resultXHoriz = window.getRight() - MIN_CROP_LENGTH_PX;
             }
 
             // 检查窗口是否垂直过小
-            if (((Frame.RIGHT.getCoordinate() - x) / aspectRatio) <= MIN_CROP_LENGTH_PX) {
-                resultXVert = Frame.RIGHT.getCoordinate() - (MIN_CROP_LENGTH_PX * aspectRatio);
+            if (((window.getRight() - x) / aspectRatio) <= MIN_CROP_LENGTH_PX) {
+                resultXVert = window.getRight() - (MIN_CROP_LENGTH_PX * aspectRatio);
             }
             resultX = Math.min(x, Math.min(resultXHoriz, resultXVert));
         }
@@ -325,13 +434,14 @@ public enum Frame {
     /**
      * 在给定控制柄位置、图像边界框和捕捉半径的情况下，获取裁剪窗口右边缘的结果x位置。
      *
+     * @param window          裁剪窗口
      * @param x               右边缘拖动到的x位置
      * @param imageRect       正在裁剪的图像的边界框
      * @param imageSnapRadius 到图像边缘的捕捉距离
      *
      * @return 右边缘的实际x位置
      */
-    private static float adjustRight(float x, RectFloat imageRect, float imageSnapRadius, float aspectRatio) {
+    private static float adjustRight(CropWindow window, float x, RectFloat imageRect, float imageSnapRadius, float aspectRatio) {
         float resultX;
 
         // 如果靠近边缘
@@ -344,12 +454,12 @@ public enum Frame {
             float resultXVert = Float.NEGATIVE_INFINITY;
 
             // 检查车窗是否水平过小
-            if (x <= Frame.LEFT.getCoordinate() + MIN_CROP_LENGTH_PX) {
-                resultXHoriz = Frame.LEFT.getCoordinate() + MIN_CROP_LENGTH_PX;
+            if (x <= window.getLeft() + MIN_CROP_LENGTH_PX) {
+                resultXHoriz = window.getLeft() + MIN_CROP_LENGTH_PX;
             }
             // 检查窗口是否垂直过小
-            if (((x - Frame.LEFT.getCoordinate()) / aspectRatio) <= MIN_CROP_LENGTH_PX) {
-                resultXVert = Frame.LEFT.getCoordinate() + (MIN_CROP_LENGTH_PX * aspectRatio);
+            if (((x - window.getLeft()) / aspectRatio) <= MIN_CROP_LENGTH_PX) {
+                resultXVert = window.getLeft() + (MIN_CROP_LENGTH_PX * aspectRatio);
             }
             resultX = Math.max(x, Math.max(resultXHoriz, resultXVert));
         }
@@ -359,13 +469,14 @@ public enum Frame {
     /**
      * 在给定控制柄位置、图像边界框和捕捉半径的情况下，获取裁剪窗口上边缘的结果y位置。
      *
+     * @param window          裁剪窗口
      * @param y               将上边缘拖动到的Y位置
      * @param imageRect       正在裁剪的图像的边界框
      * @param imageSnapRadius 到图像边缘的捕捉距离
      *
      * @return 上边缘的实际y位置
      */
-    private static float adjustTop(float y,RectFloat imageRect, float imageSnapRadius, float aspectRatio) {
+    private static float adjustTop(CropWindow window, float y, RectFloat imageRect, float imageSnapRadius, float aspectRatio) {
         float resultY;
 
         if (y - imageRect.top < imageSnapRadius) {
@@ -377,12 +488,12 @@ public enum Frame {
             float resultYHoriz = Float.POSITIVE_INFINITY;
 
             // 检查窗口是否垂直过小
-            if (y >= Frame.BOTTOM.getCoordinate() - MIN_CROP_LENGTH_PX) {
-                resultYHoriz = Frame.BOTTOM.getCoordinate() - MIN_CROP_LENGTH_PX;
+            if (y >= window.getBottom() - MIN_CROP_LENGTH_PX) {
+                resultYHoriz = window.getBottom() - MIN_CROP_LENGTH_PX;
             }
             // 检查窗口是否水平过小
-            if (((Frame.BOTTOM.getCoordinate() - y) * aspectRatio) <= MIN_CROP_LENGTH_PX) {
-                resultYVert = Frame.BOTTOM.getCoordinate() - (MIN_CROP_LENGTH_PX / aspectRatio);
+            if (((window.getBottom() - y) * aspectRatio) <= MIN_CROP_LENGTH_PX) {
+                resultYVert = window.getBottom() - (MIN_CROP_LENGTH_PX / aspectRatio);
             }
             resultY = Math.min(y, Math.min(resultYHoriz, resultYVert));
         }
@@ -392,13 +503,14 @@ public enum Frame {
     /**
      * 在给定控制柄位置、图像边界框和捕捉半径的情况下，获取裁剪窗口底部边缘的结果y位置。
      *
+     * @param window          裁剪窗口
      * @param y               底边拖动到的Y位置
      * @param imageRect       正在裁剪的图像的边界框
      * @param imageSnapRadius 到图像边缘的捕捉距离
      *
      * @return 底边的实际y位置
      */
-    private static float adjustBottom(float y, RectFloat imageRect, float imageSnapRadius, float aspectRatio) {
+    private static float adjustBottom(CropWindow window, float y, RectFloat imageRect, float imageSnapRadius, float aspectRatio) {
         float resultY;
 
         if (imageRect.bottom - y < imageSnapRadius) {
@@ -410,12 +522,12 @@ public enum Frame {
             float resultYHoriz = Float.NEGATIVE_INFINITY;
 
             // 检查窗口是否垂直过小
-            if (y <= Frame.TOP.getCoordinate() + MIN_CROP_LENGTH_PX) {
-                resultYVert = Frame.TOP.getCoordinate() + MIN_CROP_LENGTH_PX;
+            if (y <= window.getTop() + MIN_CROP_LENGTH_PX) {
+                resultYVert = window.getTop() + MIN_CROP_LENGTH_PX;
             }
             // 检查窗口是否水平过小
-            if (((y - Frame.TOP.getCoordinate()) * aspectRatio) <= MIN_CROP_LENGTH_PX) {
-                resultYHoriz = Frame.TOP.getCoordinate() + (MIN_CROP_LENGTH_PX / aspectRatio);
+            if (((y - window.getTop()) * aspectRatio) <= MIN_CROP_LENGTH_PX) {
+                resultYHoriz = window.getTop() + (MIN_CROP_LENGTH_PX / aspectRatio);
             }
             resultY = Math.max(y, Math.max(resultYHoriz, resultYVert));
         }
@@ -0,0 +1,49 @@
+package com.crop.cropperlib.cache;
+
+import ohos.media.image.PixelMap;
+
+/**
+ * 裁剪结果的LRU缓存，按像素字节数限制内存
+ *
+ * 缓存中的PixelMap会直接返回给调用者，因此淘汰时不会释放它们；调用者释放了返回的结果后，
+ * 该结果会在下一次查询时被丢弃并计为未命中。一个缓存可以被多个CropImage共享。
+ */
+public class CropResultCache extends LruByteCache<CropResultKey, PixelMap> {
+
+    // 默认的字节预算
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    public CropResultCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes 字节预算
+     */
+    public CropResultCache(long maxBytes) {
+        super(maxBytes);
+    }
+
+    @Override
+    protected long sizeOf(PixelMap value) {
+        return value.getPixelBytesNumber();
+    }
+
+    @Override
+    protected boolean isValid(PixelMap value) {
+        return !value.isReleased();
+    }
+
+    /**
+     * 响应系统的内存压力回调：一般压力下淘汰到预算的一半，严重时全部清除
+     *
+     * @param critical 是否为严重的内存压力
+     */
+    public void onMemoryPressure(boolean critical) {
+        if (critical) {
+            clear();
+        } else {
+            trimToSize(getMaxBytes() / 2);
+        }
+    }
+}
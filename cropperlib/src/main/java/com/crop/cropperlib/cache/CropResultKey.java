@@ -0,0 +1,103 @@
+package com.crop.cropperlib.cache;
+
+import com.crop.cropperlib.border.CropShape;
+import ohos.media.image.common.Rect;
+
+/**
+ * 裁剪结果缓存的键：裁剪目标、整数裁剪区域、旋转角度、裁剪形状和输出尺寸
+ *
+ * 裁剪目标按对象身份比较，即同一个CropSource或同一个显示位图。
+ */
+public final class CropResultKey {
+
+    private final Object mSource;
+    private final int mX;
+    private final int mY;
+    private final int mWidth;
+    private final int mHeight;
+    private final float mAngle;
+    private final CropShape mShape;
+    private final int mOutputWidth;
+    private final int mOutputHeight;
+
+    /**
+     * @param source       裁剪目标
+     * @param rect         裁剪区域
+     * @param outputWidth  输出宽度；0表示保持裁剪区域的尺寸
+     * @param outputHeight 输出高度；0表示保持裁剪区域的尺寸
+     */
+    public CropResultKey(Object source, Rect rect, int outputWidth, int outputHeight) {
+        this(source, rect, 0, outputWidth, outputHeight);
+    }
+
+    /**
+     * @param source       裁剪目标
+     * @param rect         未旋转的裁剪区域
+     * @param angle        裁剪区域绕中心的旋转角度（度）
+     * @param outputWidth  输出宽度；0表示保持裁剪区域的尺寸
+     * @param outputHeight 输出高度；0表示保持裁剪区域的尺寸
+     */
+    public CropResultKey(Object source, Rect rect, float angle, int outputWidth, int outputHeight) {
+        this(source, rect, angle, CropShape.RECTANGLE, outputWidth, outputHeight);
+    }
+
+    /**
+     * @param source       裁剪目标
+     * @param rect         未旋转的裁剪区域
+     * @param angle        裁剪区域绕中心的旋转角度（度）
+     * @param shape        裁剪形状
+     * @param outputWidth  输出宽度；0表示保持裁剪区域的尺寸
+     * @param outputHeight 输出高度；0表示保持裁剪区域的尺寸
+     */
+    public CropResultKey(Object source, Rect rect, float angle, CropShape shape, int outputWidth,
+                         int outputHeight) {
+        if (source == null || shape == null) {
+            throw new IllegalArgumentException("source or shape is null");
+        }
+        mSource = source;
+        mX = rect.minX;
+        mY = rect.minY;
+        mWidth = rect.width;
+        mHeight = rect.height;
+        mAngle = angle;
+        mShape = shape;
+        mOutputWidth = outputWidth;
+        mOutputHeight = outputHeight;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CropResultKey)) {
+            return false;
+        }
+        CropResultKey other = (CropResultKey) obj;
+        return mSource == other.mSource && mX == other.mX && mY == other.mY
+                && mWidth == other.mWidth && mHeight == other.mHeight && mAngle == other.mAngle
+                && mShape == other.mShape && mOutputWidth == other.mOutputWidth && mOutputHeight == other.mOutputHeight;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = System.identityHashCode(mSource);
+        result = 31 * result + mX;
+        result = 31 * result + mY;
+        result = 31 * result + mWidth;
+        result = 31 * result + mHeight;
+        result = 31 * result + Float.floatToIntBits(mAngle);
+        result = 31 * result + mShape.ordinal();
+        result = 31 * result + mOutputWidth;
+        result = 31 * result + mOutputHeight;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CropResultKey[" + mX + ", " + mY + ", " + mWidth + "x" + mHeight
+                + (mAngle != 0 ? " " + mAngle + "°" : "")
+                + (mShape != CropShape.RECTANGLE ? " " + mShape : "")
+                + " -> " + mOutputWidth + "x" + mOutputHeight + "]";
+    }
+}
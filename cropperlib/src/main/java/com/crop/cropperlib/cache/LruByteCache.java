@@ -0,0 +1,243 @@
+package com.crop.cropperlib.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 以字节数为预算的LRU缓存，线程安全
+ *
+ * 每个值占用的字节数在放入时由{@link #sizeOf(Object)}给出并记录下来；放入新值后，如果总字节数超过预算，
+ * 会从最久未使用的值开始淘汰，被淘汰或替换的值交给{@link #onRemoved(Object, Object)}释放。
+ * 缓存会统计命中、未命中和淘汰的次数，用于调整预算。
+ *
+ * @param <K> 键
+ * @param <V> 值
+ */
+public abstract class LruByteCache<K, V> {
+
+    /**
+     * 缓存的值及其放入时的字节数；值被外部释放后sizeOf可能改变，因此不能在移除时重新计算
+     */
+    private static final class Entry<V> {
+        final V mValue;
+        final long mSize;
+
+        Entry(V value, long size) {
+            mValue = value;
+            mSize = size;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry<V>> mMap = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long mMaxBytes;
+    private long mBytes;
+
+    // 统计计数，都在锁内修改
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+    /**
+     * @param maxBytes 字节预算
+     */
+    protected LruByteCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * 获取一个值的字节数
+     */
+    protected abstract long sizeOf(V value);
+
+    /**
+     * 值被淘汰、替换或清除时调用，不持有缓存的锁
+     *
+     * @param key   键
+     * @param value 被移除的值
+     */
+    protected void onRemoved(K key, V value) {
+    }
+
+    /**
+     * 缓存的值是否仍然可用，例如还没有被外部释放；不可用的值在get时被丢弃并计为未命中
+     */
+    protected boolean isValid(V value) {
+        return true;
+    }
+
+    /**
+     * 获取一个值并标记为最近使用
+     *
+     * @return 值；不存在时为null
+     */
+    public V get(K key) {
+        synchronized (this) {
+            Entry<V> entry = mMap.get(key);
+            if (entry != null && !isValid(entry.mValue)) {
+                mMap.remove(key);
+                mBytes -= entry.mSize;
+                entry = null;
+            }
+            if (entry == null) {
+                mMissCount++;
+                return null;
+            }
+            mHitCount++;
+            return entry.mValue;
+        }
+    }
+
+    /**
+     * 是否包含给定的键，不改变使用顺序
+     */
+    public boolean containsKey(K key) {
+        synchronized (this) {
+            return mMap.containsKey(key);
+        }
+    }
+
+    /**
+     * 放入一个值；超过预算时淘汰最久未使用的值。单个值超过整个预算时不会被缓存，而是直接交给onRemoved
+     */
+    public void put(K key, V value) {
+        long size = sizeOf(value);
+        Entry<V> previous;
+        long maxBytes;
+        synchronized (this) {
+            maxBytes = mMaxBytes;
+            if (size > maxBytes) {
+                previous = null;
+            } else {
+                previous = mMap.put(key, new Entry<>(value, size));
+                mBytes += size;
+                if (previous != null) {
+                    mBytes -= previous.mSize;
+                }
+            }
+        }
+        if (size > maxBytes) {
+            onRemoved(key, value);
+            return;
+        }
+        if (previous != null && previous.mValue != value) {
+            onRemoved(key, previous.mValue);
+        }
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * 移除一个值
+     */
+    public void remove(K key) {
+        Entry<V> previous;
+        synchronized (this) {
+            previous = mMap.remove(key);
+            if (previous != null) {
+                mBytes -= previous.mSize;
+            }
+        }
+        if (previous != null) {
+            onRemoved(key, previous.mValue);
+        }
+    }
+
+    /**
+     * 淘汰最久未使用的值，直到总字节数不超过给定值
+     *
+     * @param maxBytes 淘汰后允许的最大字节数
+     */
+    public void trimToSize(long maxBytes) {
+        while (true) {
+            K key;
+            V value;
+            synchronized (this) {
+                if (mBytes <= maxBytes || mMap.isEmpty()) {
+                    return;
+                }
+                Iterator<Map.Entry<K, Entry<V>>> iterator = mMap.entrySet().iterator();
+                Map.Entry<K, Entry<V>> eldest = iterator.next();
+                key = eldest.getKey();
+                value = eldest.getValue().mValue;
+                mBytes -= eldest.getValue().mSize;
+                iterator.remove();
+                mEvictionCount++;
+            }
+            onRemoved(key, value);
+        }
+    }
+
+    /**
+     * 清除所有值
+     */
+    public void clear() {
+        trimToSize(-1);
+    }
+
+    /**
+     * 修改字节预算，必要时立即淘汰
+     */
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        synchronized (this) {
+            mMaxBytes = maxBytes;
+        }
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * 获取字节预算
+     */
+    public synchronized long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    /**
+     * 获取当前占用的字节数
+     */
+    public synchronized long getBytes() {
+        return mBytes;
+    }
+
+    /**
+     * 获取当前缓存的值的个数
+     */
+    public synchronized int size() {
+        return mMap.size();
+    }
+
+    /**
+     * 获取命中次数
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * 获取未命中次数
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * 获取因超出预算或被清除而淘汰的值的个数，不包括被替换和主动移除的值
+     */
+    public synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long accesses = mHitCount + mMissCount;
+        int hitPercent = accesses == 0 ? 0 : (int) (100 * mHitCount / accesses);
+        return getClass().getSimpleName() + "[bytes=" + mBytes + "/" + mMaxBytes + ", hits=" + mHitCount
+                + ", misses=" + mMissCount + ", evictions=" + mEvictionCount + ", hitRate=" + hitPercent + "%]";
+    }
+}
@@ -0,0 +1,175 @@
+package com.crop.cropperlib.engine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 纯Java实现的仿射重采样，用于导出旋转的裁剪区域
+ *
+ * 对每个目标像素，按逆映射求出它在源图中的位置，再用滤波器对周围的源像素加权。落在源图之外的像素按透明处理。
+ * 目标图按行划分为若干段，由ForkJoinPool并行处理；每个像素只依赖自己的源位置，输出与线程数无关。
+ */
+public class AffineResampler {
+
+    // 默认每个任务处理的行数
+    public static final int DEFAULT_ROWS_PER_TASK = 16;
+
+    private final ForkJoinPool mPool;
+    private final int mRowsPerTask;
+
+    /**
+     * 使用公共ForkJoinPool和默认的分段行数
+     */
+    public AffineResampler() {
+        this(ForkJoinPool.commonPool(), DEFAULT_ROWS_PER_TASK);
+    }
+
+    /**
+     * @param pool        并行处理的线程池
+     * @param rowsPerTask 每个任务处理的行数
+     */
+    public AffineResampler(ForkJoinPool pool, int rowsPerTask) {
+        if (rowsPerTask <= 0) {
+            throw new IllegalArgumentException("rowsPerTask must be positive");
+        }
+        mPool = pool;
+        mRowsPerTask = rowsPerTask;
+    }
+
+    /**
+     * 从源图中取出一个绕自身中心旋转的矩形，并缩放到给定尺寸
+     *
+     * @param source    源图
+     * @param centerX   矩形中心在源图中的x坐标
+     * @param centerY   矩形中心在源图中的y坐标
+     * @param width     矩形宽度（源像素）
+     * @param height    矩形高度（源像素）
+     * @param angle     矩形的旋转角度（度，顺时针为正）
+     * @param dstWidth  输出宽度
+     * @param dstHeight 输出高度
+     * @param filter    滤波器
+     *
+     * @return 新的输出缓冲
+     */
+    public ArgbBuffer resampleRotated(ArgbBuffer source, double centerX, double centerY, double width, double height,
+                                     double angle, int dstWidth, int dstHeight, ResampleFilter filter) {
+        double[] matrix = mapRectToRotated(centerX, centerY, width, height, angle, dstWidth, dstHeight);
+        ArgbBuffer destination = new ArgbBuffer(dstWidth, dstHeight);
+        resample(source, matrix, destination, filter);
+        return destination;
+    }
+
+    /**
+     * 计算把输出矩形[0, dstWidth] x [0, dstHeight]映射到源图中绕自身中心旋转的矩形的仿射映射
+     *
+     * @param centerX   矩形中心在源图中的x坐标
+     * @param centerY   矩形中心在源图中的y坐标
+     * @param width     矩形宽度（源像素）
+     * @param height    矩形高度（源像素）
+     * @param angle     矩形的旋转角度（度，顺时针为正）
+     * @param dstWidth  输出宽度
+     * @param dstHeight 输出高度
+     *
+     * @return 按行保存的2x3矩阵
+     */
+    public static double[] mapRectToRotated(double centerX, double centerY, double width, double height,
+                                            double angle, int dstWidth, int dstHeight) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid rect size " + width + "x" + height);
+        }
+        if (dstWidth <= 0 || dstHeight <= 0) {
+            throw new IllegalArgumentException("invalid size " + dstWidth + "x" + dstHeight);
+        }
+        double radians = Math.toRadians(angle);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        double scaleX = width / dstWidth;
+        double scaleY = height / dstHeight;
+        return new double[] {
+            cos * scaleX, -sin * scaleY, centerX - cos * width / 2 + sin * height / 2,
+            sin * scaleX, cos * scaleY, centerY - sin * width / 2 - cos * height / 2
+        };
+    }
+
+    /**
+     * 按仿射映射从源图采样，填满输出缓冲
+     *
+     * 输出像素中心(u + 0.5, v + 0.5)对应源图中的
+     * (m[0] * (u + 0.5) + m[1] * (v + 0.5) + m[2], m[3] * (u + 0.5) + m[4] * (v + 0.5) + m[5])，
+     * 源图像素(i, j)的中心位于(i + 0.5, j + 0.5)。
+     *
+     * @param source      源图
+     * @param matrix      输出坐标到源图坐标的映射，长度为6
+     * @param destination 输出缓冲
+     * @param filter      滤波器
+     */
+    public void resample(ArgbBuffer source, double[] matrix, ArgbBuffer destination, ResampleFilter filter) {
+        if (matrix.length != 6) {
+            throw new IllegalArgumentException("matrix must have 6 elements");
+        }
+        Job job = new Job(source, matrix.clone(), destination, filter);
+        mPool.invoke(new RowAction(job, 0, destination.getHeight()));
+    }
+
+    /**
+     * 一次重采样中所有任务共享的只读数据
+     */
+    private static final class Job {
+        final ArgbBuffer source;
+        final double[] matrix;
+        final ArgbBuffer destination;
+        final ResampleFilter filter;
+
+        Job(ArgbBuffer source, double[] matrix, ArgbBuffer destination, ResampleFilter filter) {
+            this.source = source;
+            this.matrix = matrix;
+            this.destination = destination;
+            this.filter = filter;
+        }
+
+        void processRows(int from, int to) {
+            PixelSampler sampler = new PixelSampler(source, filter);
+            int[] dst = destination.getPixels();
+            int dstWidth = destination.getWidth();
+            double[] m = matrix;
+            for (int v = from; v < to; v++) {
+                double rowY = v + 0.5;
+                int dstRow = v * dstWidth;
+                for (int u = 0; u < dstWidth; u++) {
+                    double columnX = u + 0.5;
+                    dst[dstRow + u] = sampler.sample(m[0] * columnX + m[1] * rowY + m[2],
+                            m[3] * columnX + m[4] * rowY + m[5]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 二分行区间直到不超过每个任务的行数，交给ForkJoinPool并行执行
+     */
+    private final class RowAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Job mJob;
+        private final int mFrom;
+        private final int mTo;
+
+        RowAction(Job job, int from, int to) {
+            mJob = job;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= mRowsPerTask) {
+                if (mTo > mFrom) {
+                    mJob.processRows(mFrom, mTo);
+                }
+                return;
+            }
+            int middle = (mFrom + mTo) >>> 1;
+            invokeAll(new RowAction(mJob, mFrom, middle), new RowAction(mJob, middle, mTo));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.crop.cropperlib.engine;
+
+/**
+ * 按行存储的ARGB_8888像素缓冲，每个像素一个int，行与行之间没有填充
+ */
+public class ArgbBuffer {
+
+    private final int[] mPixels;
+    private final int mWidth;
+    private final int mHeight;
+
+    /**
+     * 创建一个新的空白缓冲
+     */
+    public ArgbBuffer(int width, int height) {
+        this(new int[checkSize(width, height)], width, height);
+    }
+
+    /**
+     * 包装已有的像素数组，不复制
+     *
+     * @param pixels 像素，长度至少为width * height
+     * @param width  宽度
+     * @param height 高度
+     */
+    public ArgbBuffer(int[] pixels, int width, int height) {
+        if (pixels.length < checkSize(width, height)) {
+            throw new IllegalArgumentException("pixels too small for " + width + "x" + height);
+        }
+        mPixels = pixels;
+        mWidth = width;
+        mHeight = height;
+    }
+
+    public int[] getPixels() {
+        return mPixels;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    private static int checkSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid size " + width + "x" + height);
+        }
+        return Math.multiplyExact(width, height);
+    }
+}
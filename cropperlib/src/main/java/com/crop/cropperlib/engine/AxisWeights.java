@@ -0,0 +1,92 @@
+package com.crop.cropperlib.engine;
+
+/**
+ * 一个方向上每个目标像素对应的源像素范围和权重
+ *
+ * 权重表在重采样开始前一次性计算，之后只读，可以被多个线程同时使用。
+ */
+final class AxisWeights {
+
+    // 每个目标像素的第一个源像素下标（已包含裁剪偏移）
+    final int[] start;
+
+    // 每个目标像素使用的源像素个数
+    final int[] count;
+
+    // 权重，第d个目标像素的权重从d * stride开始
+    final float[] weights;
+
+    // 每个目标像素在weights中占用的长度
+    final int stride;
+
+    private AxisWeights(int[] start, int[] count, float[] weights, int stride) {
+        this.start = start;
+        this.count = count;
+        this.weights = weights;
+        this.stride = stride;
+    }
+
+    /**
+     * 计算一个方向上的权重表
+     *
+     * @param srcOffset 裁剪区域在源图中的起点
+     * @param srcLength 裁剪区域的长度
+     * @param dstLength 目标长度
+     * @param filter    滤波器
+     *
+     * @return 权重表
+     */
+    static AxisWeights create(int srcOffset, int srcLength, int dstLength, ResampleFilter filter) {
+        double scale = (double) srcLength / dstLength;
+        int[] start = new int[dstLength];
+        int[] count = new int[dstLength];
+
+        if (filter == ResampleFilter.NEAREST) {
+            float[] weights = new float[dstLength];
+            for (int d = 0; d < dstLength; d++) {
+                int index = (int) ((d + 0.5) * scale);
+                start[d] = srcOffset + Math.min(index, srcLength - 1);
+                count[d] = 1;
+                weights[d] = 1f;
+            }
+            return new AxisWeights(start, count, weights, 1);
+        }
+
+        // 缩小时按比例放宽滤波核，起到低通滤波的作用
+        double filterScale = Math.max(scale, 1.0);
+        double support = filter.getRadius() * filterScale;
+        int stride = (int) Math.ceil(support) * 2 + 1;
+        float[] weights = new float[dstLength * stride];
+
+        for (int d = 0; d < dstLength; d++) {
+            double center = (d + 0.5) * scale;
+            int min = Math.max((int) (center - support + 0.5), 0);
+            int max = Math.min((int) (center + support + 0.5), srcLength);
+            if (max <= min) {
+                // 极端情况下至少保留最近的一个源像素
+                min = Math.min((int) center, srcLength - 1);
+                max = min + 1;
+            }
+            int n = Math.min(max - min, stride);
+
+            double total = 0;
+            int base = d * stride;
+            for (int i = 0; i < n; i++) {
+                double w = filter.weight((min + i - center + 0.5) / filterScale);
+                weights[base + i] = (float) w;
+                total += w;
+            }
+            if (total != 0) {
+                for (int i = 0; i < n; i++) {
+                    weights[base + i] = (float) (weights[base + i] / total);
+                }
+            } else {
+                weights[base] = 1f;
+                n = 1;
+            }
+            start[d] = srcOffset + min;
+            count[d] = n;
+        }
+        return new AxisWeights(start, count, weights, stride);
+    }
+}
@@ -0,0 +1,237 @@
+package com.crop.cropperlib.engine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 纯Java实现的裁剪并缩放引擎，直接处理ARGB像素数组，不依赖设备
+ *
+ * 目标图被划分为若干方块，由ForkJoinPool并行处理。每个目标像素的计算只依赖预先算好的只读权重表，
+ * 计算顺序与方块划分和线程数无关，因此无论使用多少线程，输出都逐位相同。
+ * 缩放采用可分离滤波：先在方块所需的源行上做水平滤波，再做垂直滤波。
+ */
+public class CropResizeEngine {
+
+    // 默认方块边长
+    public static final int DEFAULT_TILE_SIZE = 128;
+
+    private static final int CHANNELS = 4;
+
+    private final ForkJoinPool mPool;
+    private final int mTileSize;
+
+    /**
+     * 使用公共ForkJoinPool和默认方块大小
+     */
+    public CropResizeEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * @param pool     并行处理方块的线程池
+     * @param tileSize 方块边长
+     */
+    public CropResizeEngine(ForkJoinPool pool, int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("tileSize must be positive");
+        }
+        mPool = pool;
+        mTileSize = tileSize;
+    }
+
+    /**
+     * 裁剪源图中的区域并缩放到给定尺寸
+     *
+     * @param source     源图
+     * @param cropX      裁剪区域左上角x坐标
+     * @param cropY      裁剪区域左上角y坐标
+     * @param cropWidth  裁剪区域宽度
+     * @param cropHeight 裁剪区域高度
+     * @param dstWidth   输出宽度
+     * @param dstHeight  输出高度
+     * @param filter     滤波器
+     *
+     * @return 新的输出缓冲
+     */
+    public ArgbBuffer cropAndResize(ArgbBuffer source, int cropX, int cropY, int cropWidth, int cropHeight,
+                                    int dstWidth, int dstHeight, ResampleFilter filter) {
+        ArgbBuffer destination = new ArgbBuffer(dstWidth, dstHeight);
+        cropAndResize(source, cropX, cropY, cropWidth, cropHeight, destination, filter);
+        return destination;
+    }
+
+    /**
+     * 裁剪源图中的区域并缩放到输出缓冲的尺寸
+     *
+     * @param source      源图
+     * @param cropX       裁剪区域左上角x坐标
+     * @param cropY       裁剪区域左上角y坐标
+     * @param cropWidth   裁剪区域宽度
+     * @param cropHeight  裁剪区域高度
+     * @param destination 输出缓冲
+     * @param filter      滤波器
+     */
+    public void cropAndResize(ArgbBuffer source, int cropX, int cropY, int cropWidth, int cropHeight,
+                              ArgbBuffer destination, ResampleFilter filter) {
+        if (cropWidth <= 0 || cropHeight <= 0 || cropX < 0 || cropY < 0
+                || cropX + cropWidth > source.getWidth() || cropY + cropHeight > source.getHeight()) {
+            throw new IllegalArgumentException("crop rect [" + cropX + ", " + cropY + ", " + cropWidth + ", "
+                    + cropHeight + "] outside " + source.getWidth() + "x" + source.getHeight());
+        }
+        AxisWeights weightsX = AxisWeights.create(cropX, cropWidth, destination.getWidth(), filter);
+        AxisWeights weightsY = AxisWeights.create(cropY, cropHeight, destination.getHeight(), filter);
+
+        int tilesX = (destination.getWidth() + mTileSize - 1) / mTileSize;
+        int tilesY = (destination.getHeight() + mTileSize - 1) / mTileSize;
+        Job job = new Job(source, destination, weightsX, weightsY, filter == ResampleFilter.NEAREST, tilesX);
+        mPool.invoke(new TileAction(job, 0, tilesX * tilesY));
+    }
+
+    /**
+     * 一次裁剪缩放中所有方块共享的只读数据
+     */
+    private final class Job {
+        final ArgbBuffer source;
+        final ArgbBuffer destination;
+        final AxisWeights weightsX;
+        final AxisWeights weightsY;
+        final boolean nearest;
+        final int tilesX;
+
+        Job(ArgbBuffer source, ArgbBuffer destination, AxisWeights weightsX, AxisWeights weightsY,
+            boolean nearest, int tilesX) {
+            this.source = source;
+            this.destination = destination;
+            this.weightsX = weightsX;
+            this.weightsY = weightsY;
+            this.nearest = nearest;
+            this.tilesX = tilesX;
+        }
+
+        void processTile(int tile) {
+            int x0 = (tile % tilesX) * mTileSize;
+            int y0 = (tile / tilesX) * mTileSize;
+            int x1 = Math.min(x0 + mTileSize, destination.getWidth());
+            int y1 = Math.min(y0 + mTileSize, destination.getHeight());
+            if (nearest) {
+                copyNearest(x0, y0, x1, y1);
+            } else {
+                resample(x0, y0, x1, y1);
+            }
+        }
+
+        private void copyNearest(int x0, int y0, int x1, int y1) {
+            int[] src = source.getPixels();
+            int srcWidth = source.getWidth();
+            int[] dst = destination.getPixels();
+            int dstWidth = destination.getWidth();
+            for (int y = y0; y < y1; y++) {
+                int srcRow = weightsY.start[y] * srcWidth;
+                int dstRow = y * dstWidth;
+                for (int x = x0; x < x1; x++) {
+                    dst[dstRow + x] = src[srcRow + weightsX.start[x]];
+                }
+            }
+        }
+
+        private void resample(int x0, int y0, int x1, int y1) {
+            int[] src = source.getPixels();
+            int srcWidth = source.getWidth();
+            int[] dst = destination.getPixels();
+            int dstWidth = destination.getWidth();
+
+            // 源行范围：start和start + count都随目标坐标单调不减
+            int rowStart = weightsY.start[y0];
+            int rowEnd = weightsY.start[y1 - 1] + weightsY.count[y1 - 1];
+            int cols = x1 - x0;
+            float[] temp = new float[(rowEnd - rowStart) * cols * CHANNELS];
+
+            // 水平滤波
+            for (int row = rowStart; row < rowEnd; row++) {
+                int srcRow = row * srcWidth;
+                int tempRow = (row - rowStart) * cols * CHANNELS;
+                for (int x = x0; x < x1; x++) {
+                    int first = srcRow + weightsX.start[x];
+                    int n = weightsX.count[x];
+                    int base = x * weightsX.stride;
+                    float a = 0;
+                    float r = 0;
+                    float g = 0;
+                    float b = 0;
+                    for (int i = 0; i < n; i++) {
+                        int color = src[first + i];
+                        float w = weightsX.weights[base + i];
+                        a += w * (color >>> 24);
+                        r += w * ((color >> 16) & 0xFF);
+                        g += w * ((color >> 8) & 0xFF);
+                        b += w * (color & 0xFF);
+                    }
+                    int t = tempRow + (x - x0) * CHANNELS;
+                    temp[t] = a;
+                    temp[t + 1] = r;
+                    temp[t + 2] = g;
+                    temp[t + 3] = b;
+                }
+            }
+
+            // 垂直滤波
+            int tempStride = cols * CHANNELS;
+            for (int y = y0; y < y1; y++) {
+                int first = (weightsY.start[y] - rowStart) * tempStride;
+                int n = weightsY.count[y];
+                int base = y * weightsY.stride;
+                int dstRow = y * dstWidth;
+                for (int x = 0; x < cols; x++) {
+                    float a = 0;
+                    float r = 0;
+                    float g = 0;
+                    float b = 0;
+                    int t = first + x * CHANNELS;
+                    for (int j = 0; j < n; j++) {
+                        float w = weightsY.weights[base + j];
+                        a += w * temp[t];
+                        r += w * temp[t + 1];
+                        g += w * temp[t + 2];
+                        b += w * temp[t + 3];
+                        t += tempStride;
+                    }
+                    dst[dstRow + x0 + x] = (clamp(a) << 24) | (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+                }
+            }
+        }
+    }
+
+    private static int clamp(float value) {
+        int rounded = Math.round(value);
+        return rounded < 0 ? 0 : (rounded > 255 ? 255 : rounded);
+    }
+
+    /**
+     * 二分方块区间直到单个方块，交给ForkJoinPool并行执行
+     */
+    private static final class TileAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Job mJob;
+        private final int mFrom;
+        private final int mTo;
+
+        TileAction(Job job, int from, int to) {
+            mJob = job;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= 1) {
+                if (mTo > mFrom) {
+                    mJob.processTile(mFrom);
+                }
+                return;
+            }
+            int middle = (mFrom + mTo) >>> 1;
+            invokeAll(new TileAction(mJob, mFrom, middle), new TileAction(mJob, middle, mTo));
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.crop.cropperlib.engine;
+
+/**
+ * 根据图片内容推荐初始裁剪窗口，直接处理ARGB像素数组，不依赖设备
+ *
+ * 每个像素的能量由边缘能量（亮度的Sobel梯度）和显著性（颜色与全图平均颜色的差）组成，
+ * 能量和高于平均能量部分的一阶矩保存在积分图中，任意候选窗口的得分都是O(1)的。
+ * 得分奖励窗口内的能量占比，惩罚窗口面积和穿过高能量区域的窗口边，并按能量重心与三分线交点的距离给予少量奖励。
+ * 搜索先在若干尺度的粗网格上评估所有候选，再在最好的候选附近逐步减半步长做局部搜索。
+ * 搜索在截止时间到达时返回已找到的最好结果，因此总能在时间预算内给出结果；取消时不返回结果。
+ * 实例会复用内部缓冲，不是线程安全的，每个线程应使用自己的实例。
+ */
+public class CropSuggester {
+
+    /**
+     * 在分析过程中查询是否取消
+     */
+    public interface Cancellation {
+        boolean isCancelled();
+    }
+
+    // 推荐的代理图长边
+    public static final int DEFAULT_PROXY_SIZE = 512;
+
+    // 默认的时间预算，在512像素的代理图上足够完成粗搜索和局部搜索
+    public static final long DEFAULT_TIME_BUDGET_NANOS = 30000000L;
+
+    // 最小的候选窗口相对于最大窗口的边长比例，以及两者之间的尺度数
+    private static final float MIN_SCALE = 0.6f;
+    private static final int SCALE_STEPS = 5;
+
+    // 粗搜索时每个方向上的位置数
+    private static final int COARSE_POSITIONS = 8;
+
+    // 显著性相对于边缘能量的权重（边缘能量先除以4，与显著性的范围相当）
+    private static final int SALIENCY_WEIGHT = 1;
+
+    // 得分中各项的权重
+    private static final double AREA_WEIGHT = 0.25;
+    private static final double BORDER_WEIGHT = 0.1;
+    private static final double THIRDS_WEIGHT = 0.05;
+
+    // 能量重心到三分线交点的距离（按窗口边长归一化）超过该值时不再奖励
+    private static final double THIRDS_RADIUS = 0.25;
+
+    // 每处理多少行检查一次取消和截止时间
+    private static final int CHECK_ROWS = 16;
+
+    private int mWidth;
+    private int mHeight;
+
+    // 行宽为mWidth + 1的积分图：能量、高于平均能量的部分，以及后者乘x、乘y
+    private long[] mEnergy;
+    private long[] mExcess;
+    private long[] mMomentX;
+    private long[] mMomentY;
+
+    // 亮度（计算Sobel梯度用）和每个像素的能量
+    private int[] mLuma;
+    private int[] mPixelEnergy;
+
+    // 全图的平均能量
+    private double mMeanEnergy;
+
+    private long mDeadline;
+    private Cancellation mCancellation;
+
+    // 已找到的最好的候选
+    private double mBestScore;
+    private int mBestX;
+    private int mBestY;
+    private int mBestWidth;
+
+    // 当前搜索的纵横比（宽 / 高）
+    private double mAspectRatio;
+
+    /**
+     * 推荐裁剪窗口
+     *
+     * @param image        图片，通常是长边为{@link #DEFAULT_PROXY_SIZE}左右的缩小图
+     * @param aspectRatio  窗口的纵横比（宽 / 高）；小于等于0时使用图片本身的纵横比
+     * @param budgetNanos  时间预算（纳秒），到达后返回已找到的最好结果
+     * @param cancellation 取消查询，可以为null
+     * @param out          输出按图片归一化的左、上、右、下，长度至少为4
+     *
+     * @return 是否输出了结果；分析被取消时为false
+     */
+    public boolean suggest(ArgbBuffer image, float aspectRatio, long budgetNanos, Cancellation cancellation,
+                           float[] out) {
+        mDeadline = System.nanoTime() + budgetNanos;
+        mCancellation = cancellation;
+        mWidth = image.getWidth();
+        mHeight = image.getHeight();
+        mAspectRatio = aspectRatio > 0 ? aspectRatio : (double) mWidth / mHeight;
+        try {
+            // 最大的窗口居中，作为截止时间到达前没有任何候选时的结果
+            int maxWidth = getWindowWidth(1);
+            mBestX = (mWidth - maxWidth) / 2;
+            mBestY = (mHeight - getWindowHeight(maxWidth)) / 2;
+            mBestWidth = maxWidth;
+            mBestScore = Double.NEGATIVE_INFINITY;
+            if (computeEnergy(image) && mEnergy[mEnergy.length - 1] > 0) {
+                if (coarseSearch()) {
+                    refine();
+                }
+            }
+            if (isCancelled()) {
+                return false;
+            }
+            out[0] = (float) mBestX / mWidth;
+            out[1] = (float) mBestY / mHeight;
+            out[2] = (float) (mBestX + mBestWidth) / mWidth;
+            out[3] = (float) (mBestY + getWindowHeight(mBestWidth)) / mHeight;
+            return true;
+        } finally {
+            mCancellation = null;
+        }
+    }
+
+    /**
+     * 计算能量并建立积分图
+     *
+     * @return 是否在截止时间前完成
+     */
+    private boolean computeEnergy(ArgbBuffer image) {
+        int[] pixels = image.getPixels();
+        int width = mWidth;
+        int height = mHeight;
+        int size = width * height;
+        int integralSize = (width + 1) * (height + 1);
+        if (mLuma == null || mLuma.length < size) {
+            mLuma = new int[size];
+            mPixelEnergy = new int[size];
+        }
+        if (mEnergy == null || mEnergy.length != integralSize) {
+            mEnergy = new long[integralSize];
+            mExcess = new long[integralSize];
+            mMomentX = new long[integralSize];
+            mMomentY = new long[integralSize];
+        }
+
+        long sumR = 0;
+        long sumG = 0;
+        long sumB = 0;
+        int[] luma = mLuma;
+        for (int i = 0; i < size; i++) {
+            int color = pixels[i];
+            int r = (color >> 16) & 0xFF;
+            int g = (color >> 8) & 0xFF;
+            int b = color & 0xFF;
+            sumR += r;
+            sumG += g;
+            sumB += b;
+            luma[i] = (77 * r + 150 * g + 29 * b) >> 8;
+        }
+        int meanR = (int) (sumR / size);
+        int meanG = (int) (sumG / size);
+        int meanB = (int) (sumB / size);
+
+        int[] pixelEnergy = mPixelEnergy;
+        long total = 0;
+        for (int y = 0; y < height; y++) {
+            if (y % CHECK_ROWS == 0 && isExpired()) {
+                return false;
+            }
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int color = pixels[row + x];
+                int e = SALIENCY_WEIGHT * (Math.abs(((color >> 16) & 0xFF) - meanR)
+                        + Math.abs(((color >> 8) & 0xFF) - meanG) + Math.abs((color & 0xFF) - meanB));
+                if (x > 0 && y > 0 && x < width - 1 && y < height - 1) {
+                    e += sobel(luma, row + x, width) >> 2;
+                }
+                pixelEnergy[row + x] = e;
+                total += e;
+            }
+        }
+        mMeanEnergy = (double) total / size;
+
+        // 重心只统计高于平均能量的部分，避免均匀的纹理和噪声把重心拉向窗口中心
+        int floor = (int) mMeanEnergy;
+        long[] energy = mEnergy;
+        long[] excess = mExcess;
+        long[] momentX = mMomentX;
+        long[] momentY = mMomentY;
+        int stride = width + 1;
+        for (int y = 0; y < height; y++) {
+            if (y % CHECK_ROWS == 0 && isExpired()) {
+                return false;
+            }
+            long rowEnergy = 0;
+            long rowExcess = 0;
+            long rowMomentX = 0;
+            long rowMomentY = 0;
+            int row = y * width;
+            int above = (y + 1) * stride;
+            for (int x = 0; x < width; x++) {
+                int e = pixelEnergy[row + x];
+                int over = Math.max(0, e - floor);
+                rowEnergy += e;
+                rowExcess += over;
+                rowMomentX += (long) over * x;
+                rowMomentY += (long) over * y;
+                int index = above + x + 1;
+                energy[index] = energy[index - stride] + rowEnergy;
+                excess[index] = excess[index - stride] + rowExcess;
+                momentX[index] = momentX[index - stride] + rowMomentX;
+                momentY[index] = momentY[index - stride] + rowMomentY;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 亮度的Sobel梯度|gx| + |gy|
+     */
+    private static int sobel(int[] luma, int index, int width) {
+        int topLeft = luma[index - width - 1];
+        int top = luma[index - width];
+        int topRight = luma[index - width + 1];
+        int left = luma[index - 1];
+        int right = luma[index + 1];
+        int bottomLeft = luma[index + width - 1];
+        int bottom = luma[index + width];
+        int bottomRight = luma[index + width + 1];
+        int gx = topRight + 2 * right + bottomRight - topLeft - 2 * left - bottomLeft;
+        int gy = bottomLeft + 2 * bottom + bottomRight - topLeft - 2 * top - topRight;
+        return Math.abs(gx) + Math.abs(gy);
+    }
+
+    /**
+     * 在若干尺度的粗网格上评估所有候选
+     *
+     * @return 是否在截止时间前完成
+     */
+    private boolean coarseSearch() {
+        for (int step = 0; step < SCALE_STEPS; step++) {
+            float scale = 1 - (1 - MIN_SCALE) * step / (SCALE_STEPS - 1);
+            int width = getWindowWidth(scale);
+            int height = getWindowHeight(width);
+            int freeX = mWidth - width;
+            int freeY = mHeight - height;
+            for (int i = 0; i <= COARSE_POSITIONS; i++) {
+                if (isExpired()) {
+                    return false;
+                }
+                int y = freeY * i / COARSE_POSITIONS;
+                for (int j = 0; j <= COARSE_POSITIONS; j++) {
+                    evaluate(freeX * j / COARSE_POSITIONS, y, width);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在最好的候选附近移动和缩放，每轮没有改进时步长减半，直到步长小于1像素
+     */
+    private void refine() {
+        int step = Math.max(1, Math.max(mWidth, mHeight) / (2 * COARSE_POSITIONS));
+        while (step > 0) {
+            if (isExpired()) {
+                return;
+            }
+            int x = mBestX;
+            int y = mBestY;
+            int width = mBestWidth;
+            boolean improved = evaluate(x - step, y, width) | evaluate(x + step, y, width)
+                    | evaluate(x, y - step, width) | evaluate(x, y + step, width)
+                    | evaluate(x - step / 2, y - (int) (step / 2 / mAspectRatio), width + step)
+                    | evaluate(x + step / 2, y + (int) (step / 2 / mAspectRatio), width - step);
+            if (!improved) {
+                step /= 2;
+            }
+        }
+    }
+
+    /**
+     * 评估一个候选；超出图片或尺度不在[最小尺度, 1]内的候选被忽略
+     *
+     * @return 是否成为新的最好候选
+     */
+    private boolean evaluate(int x, int y, int width) {
+        int height = getWindowHeight(width);
+        if (x < 0 || y < 0 || width <= 0 || height <= 0 || x + width > mWidth || y + height > mHeight
+                || width < getWindowWidth(MIN_SCALE) || width > getWindowWidth(1)) {
+            return false;
+        }
+        double score = score(x, y, width, height);
+        if (score > mBestScore) {
+            mBestScore = score;
+            mBestX = x;
+            mBestY = y;
+            mBestWidth = width;
+            return true;
+        }
+        return false;
+    }
+
+    private double score(int x, int y, int width, int height) {
+        long total = mEnergy[mEnergy.length - 1];
+        long inside = sum(mEnergy, x, y, x + width, y + height);
+        double score = (double) inside / total - AREA_WEIGHT * width * height / ((double) mWidth * mHeight);
+
+        // 窗口边穿过高能量区域（例如把主体切开）时扣分；与图片边重合的窗口边不计
+        long border = 0;
+        int borderPixels = 0;
+        if (x > 0) {
+            border += sum(mEnergy, x, y, x + 1, y + height);
+            borderPixels += height;
+        }
+        if (x + width < mWidth) {
+            border += sum(mEnergy, x + width - 1, y, x + width, y + height);
+            borderPixels += height;
+        }
+        if (y > 0) {
+            border += sum(mEnergy, x, y, x + width, y + 1);
+            borderPixels += width;
+        }
+        if (y + height < mHeight) {
+            border += sum(mEnergy, x, y + height - 1, x + width, y + height);
+            borderPixels += width;
+        }
+        if (borderPixels > 0) {
+            double density = border / (borderPixels * mMeanEnergy);
+            score -= BORDER_WEIGHT * Math.min(density, 2) / 2;
+        }
+
+        long excess = sum(mExcess, x, y, x + width, y + height);
+        if (excess > 0) {
+            double centerX = ((double) sum(mMomentX, x, y, x + width, y + height) / excess + 0.5 - x) / width;
+            double centerY = ((double) sum(mMomentY, x, y, x + width, y + height) / excess + 0.5 - y) / height;
+            double dx = Math.min(Math.abs(centerX - 1d / 3), Math.abs(centerX - 2d / 3));
+            double dy = Math.min(Math.abs(centerY - 1d / 3), Math.abs(centerY - 2d / 3));
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            score += THIRDS_WEIGHT * Math.max(0, 1 - distance / THIRDS_RADIUS);
+        }
+        return score;
+    }
+
+    /**
+     * 积分图中[left, right) x [top, bottom)的和
+     */
+    private long sum(long[] integral, int left, int top, int right, int bottom) {
+        int stride = mWidth + 1;
+        return integral[bottom * stride + right] - integral[top * stride + right]
+                - integral[bottom * stride + left] + integral[top * stride + left];
+    }
+
+    /**
+     * 按纵横比放进图片的最大窗口乘以scale后的宽度
+     */
+    private int getWindowWidth(float scale) {
+        double width = Math.min(mWidth, mHeight * mAspectRatio) * scale;
+        return Math.max(1, Math.min(mWidth, (int) Math.round(width)));
+    }
+
+    private int getWindowHeight(int width) {
+        return Math.max(1, Math.min(mHeight, (int) Math.round(width / mAspectRatio)));
+    }
+
+    private boolean isCancelled() {
+        return mCancellation != null && mCancellation.isCancelled();
+    }
+
+    private boolean isExpired() {
+        return isCancelled() || System.nanoTime() >= mDeadline;
+    }
+}
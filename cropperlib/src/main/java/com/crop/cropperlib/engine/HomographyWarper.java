@@ -0,0 +1,219 @@
+package com.crop.cropperlib.engine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 纯Java实现的透视校正：把源图中的任意凸四边形拉伸为矩形
+ *
+ * 输出矩形到源图四边形的映射是一个单应矩阵（3x3，按行保存为9个double）。每个输出像素按逆映射求出源图位置后取样，
+ * 同一行内分子和分母都是列坐标的线性函数，逐列累加即可，每个像素只需要一次除法。
+ * 输出图按行划分为若干段，由ForkJoinPool并行处理；行循环只访问基本类型数组，不分配对象，输出与线程数无关。
+ */
+public class HomographyWarper {
+
+    // 默认每个任务处理的行数
+    public static final int DEFAULT_ROWS_PER_TASK = 16;
+
+    private final ForkJoinPool mPool;
+    private final int mRowsPerTask;
+
+    /**
+     * 使用公共ForkJoinPool和默认的分段行数
+     */
+    public HomographyWarper() {
+        this(ForkJoinPool.commonPool(), DEFAULT_ROWS_PER_TASK);
+    }
+
+    /**
+     * @param pool        并行处理的线程池
+     * @param rowsPerTask 每个任务处理的行数
+     */
+    public HomographyWarper(ForkJoinPool pool, int rowsPerTask) {
+        if (rowsPerTask <= 0) {
+            throw new IllegalArgumentException("rowsPerTask must be positive");
+        }
+        mPool = pool;
+        mRowsPerTask = rowsPerTask;
+    }
+
+    /**
+     * 计算把输出矩形[0, width] x [0, height]映射到源图四边形的单应矩阵
+     *
+     * @param quad   四边形的四个角，依次为左上、右上、右下、左下，格式为x0, y0, x1, y1...
+     * @param width  输出宽度
+     * @param height 输出高度
+     *
+     * @return 按行保存的3x3矩阵
+     */
+    public static double[] mapRectToQuad(float[] quad, int width, int height) {
+        if (quad.length < 8) {
+            throw new IllegalArgumentException("quad must have 8 coordinates");
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid size " + width + "x" + height);
+        }
+        double x0 = quad[0];
+        double y0 = quad[1];
+        double x1 = quad[2];
+        double y1 = quad[3];
+        double x2 = quad[4];
+        double y2 = quad[5];
+        double x3 = quad[6];
+        double y3 = quad[7];
+
+        // 单位正方形到四边形的映射（Heckbert）
+        double sumX = x0 - x1 + x2 - x3;
+        double sumY = y0 - y1 + y2 - y3;
+        double g = 0;
+        double h = 0;
+        if (sumX != 0 || sumY != 0) {
+            double dx1 = x1 - x2;
+            double dx2 = x3 - x2;
+            double dy1 = y1 - y2;
+            double dy2 = y3 - y2;
+            double denominator = dx1 * dy2 - dx2 * dy1;
+            if (denominator == 0) {
+                throw new IllegalArgumentException("degenerate quad");
+            }
+            g = (sumX * dy2 - dx2 * sumY) / denominator;
+            h = (dx1 * sumY - sumX * dy1) / denominator;
+        }
+        double a = x1 - x0 + g * x1;
+        double b = x3 - x0 + h * x3;
+        double d = y1 - y0 + g * y1;
+        double e = y3 - y0 + h * y3;
+
+        // 再把输出像素坐标缩放到单位正方形
+        return new double[] {
+            a / width, b / height, x0,
+            d / width, e / height, y0,
+            g / width, h / height, 1
+        };
+    }
+
+    /**
+     * 按四边形的边长估计输出宽度：取上下两条边中较长的一条，使较长边不被缩小
+     */
+    public static int estimateWidth(float[] quad) {
+        double top = Math.hypot(quad[2] - quad[0], quad[3] - quad[1]);
+        double bottom = Math.hypot(quad[4] - quad[6], quad[5] - quad[7]);
+        return Math.max(1, (int) Math.round(Math.max(top, bottom)));
+    }
+
+    /**
+     * 按四边形的边长估计输出高度：取左右两条边中较长的一条
+     */
+    public static int estimateHeight(float[] quad) {
+        double left = Math.hypot(quad[6] - quad[0], quad[7] - quad[1]);
+        double right = Math.hypot(quad[4] - quad[2], quad[5] - quad[3]);
+        return Math.max(1, (int) Math.round(Math.max(left, right)));
+    }
+
+    /**
+     * 把源图中的四边形拉伸为给定尺寸的矩形
+     *
+     * @param source    源图
+     * @param quad      四边形的四个角（源图坐标），依次为左上、右上、右下、左下
+     * @param dstWidth  输出宽度
+     * @param dstHeight 输出高度
+     * @param filter    滤波器
+     *
+     * @return 新的输出缓冲
+     */
+    public ArgbBuffer warp(ArgbBuffer source, float[] quad, int dstWidth, int dstHeight, ResampleFilter filter) {
+        ArgbBuffer destination = new ArgbBuffer(dstWidth, dstHeight);
+        warp(source, mapRectToQuad(quad, dstWidth, dstHeight), destination, filter);
+        return destination;
+    }
+
+    /**
+     * 按单应矩阵从源图采样，填满输出缓冲
+     *
+     * 输出像素中心(u + 0.5, v + 0.5)对应源图中的(X / W, Y / H)，其中(X, Y, W) = M * (u + 0.5, v + 0.5, 1)；
+     * 源图像素(i, j)的中心位于(i + 0.5, j + 0.5)。W不为正的像素（位于四边形的消失线之外）为透明。
+     *
+     * @param source      源图
+     * @param matrix      输出坐标到源图坐标的单应矩阵，按行保存，长度为9
+     * @param destination 输出缓冲
+     * @param filter      滤波器
+     */
+    public void warp(ArgbBuffer source, double[] matrix, ArgbBuffer destination, ResampleFilter filter) {
+        if (matrix.length != 9) {
+            throw new IllegalArgumentException("matrix must have 9 elements");
+        }
+        Job job = new Job(source, matrix.clone(), destination, filter);
+        mPool.invoke(new RowAction(job, 0, destination.getHeight()));
+    }
+
+    /**
+     * 一次透视校正中所有任务共享的只读数据
+     */
+    private static final class Job {
+        final ArgbBuffer source;
+        final double[] matrix;
+        final ArgbBuffer destination;
+        final ResampleFilter filter;
+
+        Job(ArgbBuffer source, double[] matrix, ArgbBuffer destination, ResampleFilter filter) {
+            this.source = source;
+            this.matrix = matrix;
+            this.destination = destination;
+            this.filter = filter;
+        }
+
+        void processRows(int from, int to) {
+            PixelSampler sampler = new PixelSampler(source, filter);
+            int[] dst = destination.getPixels();
+            int dstWidth = destination.getWidth();
+            double[] m = matrix;
+            for (int v = from; v < to; v++) {
+                double rowY = v + 0.5;
+                int dstRow = v * dstWidth;
+                double x = m[0] * 0.5 + m[1] * rowY + m[2];
+                double y = m[3] * 0.5 + m[4] * rowY + m[5];
+                double w = m[6] * 0.5 + m[7] * rowY + m[8];
+                for (int u = 0; u < dstWidth; u++) {
+                    if (w > 0) {
+                        double inverse = 1 / w;
+                        dst[dstRow + u] = sampler.sample(x * inverse, y * inverse);
+                    } else {
+                        dst[dstRow + u] = 0;
+                    }
+                    x += m[0];
+                    y += m[3];
+                    w += m[6];
+                }
+            }
+        }
+    }
+
+    /**
+     * 二分行区间直到不超过每个任务的行数，交给ForkJoinPool并行执行
+     */
+    private final class RowAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Job mJob;
+        private final int mFrom;
+        private final int mTo;
+
+        RowAction(Job job, int from, int to) {
+            mJob = job;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= mRowsPerTask) {
+                if (mTo > mFrom) {
+                    mJob.processRows(mFrom, mTo);
+                }
+                return;
+            }
+            int middle = (mFrom + mTo) >>> 1;
+            invokeAll(new RowAction(mJob, mFrom, middle), new RowAction(mJob, middle, mTo));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.crop.cropperlib.engine;
+
+import java.util.Arrays;
+
+/**
+ * 给ARGB缓冲加上内切椭圆的抗锯齿透明遮罩，直接修改缓冲中的像素
+ *
+ * 遮罩逐行解析计算，不生成单独的遮罩位图：每一行先按放大和缩小一个像素的两个椭圆求出三段区间，
+ * 外侧的像素直接清为透明，内侧的像素保持不变，只有边缘附近的少数像素按到椭圆的近似有向距离计算覆盖率并乘到透明度上。
+ * 颜色按非预乘的ARGB处理，只修改透明通道。
+ */
+public final class OvalMask {
+
+    // 边缘过渡带的半宽（像素），覆盖像素中心到椭圆距离小于半个对角线的所有像素
+    private static final double EDGE_MARGIN = 1;
+
+    private OvalMask() {
+    }
+
+    /**
+     * 给整个缓冲加上内切椭圆遮罩
+     *
+     * @param buffer ARGB缓冲
+     */
+    public static void apply(ArgbBuffer buffer) {
+        apply(buffer, 0, 0, buffer.getWidth(), buffer.getHeight());
+    }
+
+    /**
+     * 给一张大图中的一块加上大图的内切椭圆遮罩，用于逐块生成输出，结果与对整张大图调用{@link #apply(ArgbBuffer)}相同
+     *
+     * @param tile   ARGB缓冲，对应大图中从(left, top)开始、与缓冲同样尺寸的区域
+     * @param left   区域左边在大图中的x坐标
+     * @param top    区域上边在大图中的y坐标
+     * @param width  大图宽度
+     * @param height 大图高度
+     */
+    public static void apply(ArgbBuffer tile, int left, int top, int width, int height) {
+        int[] pixels = tile.getPixels();
+        int tileWidth = tile.getWidth();
+        int tileHeight = tile.getHeight();
+        int right = left + tileWidth;
+        double radiusX = width / 2d;
+        double radiusY = height / 2d;
+
+        // 椭圆包含半径为短半轴的圆，因此按(1 ± margin / 短半轴)缩放后的椭圆与原椭圆的距离至少为margin
+        double scale = EDGE_MARGIN / Math.min(radiusX, radiusY);
+        double outerX = radiusX * (1 + scale);
+        double outerY = radiusY * (1 + scale);
+        double innerX = radiusX * (1 - scale);
+        double innerY = radiusY * (1 - scale);
+        double inverseX2 = 1 / (radiusX * radiusX);
+        double inverseY2 = 1 / (radiusY * radiusY);
+
+        for (int v = 0; v < tileHeight; v++) {
+            // 大图中第u列的像素在缓冲中的下标为row + u
+            int row = v * tileWidth - left;
+            double y = top + v + 0.5 - radiusY;
+            double outerHalf = halfWidth(outerX, outerY, y);
+            if (outerHalf <= 0) {
+                Arrays.fill(pixels, row + left, row + right, 0);
+                continue;
+            }
+            double innerHalf = scale < 1 ? halfWidth(innerX, innerY, y) : 0;
+
+            // 像素u的中心为u + 0.5，第一个和最后一个中心落在区间内的像素
+            int outerFirst = Math.max(0, (int) Math.ceil(radiusX - outerHalf - 0.5));
+            int outerLast = Math.min(width - 1, (int) Math.floor(radiusX + outerHalf - 0.5));
+            int innerFirst = width;
+            int innerLast = width - 1;
+            if (innerHalf > 0) {
+                innerFirst = Math.max(outerFirst, (int) Math.ceil(radiusX - innerHalf - 0.5));
+                innerLast = Math.min(outerLast, (int) Math.floor(radiusX + innerHalf - 0.5));
+            }
+
+            Arrays.fill(pixels, row + left, row + clamp(outerFirst, left, right), 0);
+            Arrays.fill(pixels, row + clamp(outerLast + 1, left, right), row + right, 0);
+            double yTerm = y * y * inverseY2;
+            double yGradient = y * inverseY2;
+            int edgeEnd = Math.min(innerFirst, outerLast + 1);
+            for (int u = Math.max(outerFirst, left), end = Math.min(edgeEnd, right); u < end; u++) {
+                blendEdge(pixels, row + u, u + 0.5 - radiusX, yTerm, yGradient, inverseX2);
+            }
+            for (int u = Math.max(Math.max(innerLast + 1, edgeEnd), left), end = Math.min(outerLast + 1, right);
+                    u < end; u++) {
+                blendEdge(pixels, row + u, u + 0.5 - radiusX, yTerm, yGradient, inverseX2);
+            }
+        }
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * 椭圆在给定高度处的半宽；该行不与椭圆相交时为0
+     */
+    private static double halfWidth(double radiusX, double radiusY, double y) {
+        double t = y / radiusY;
+        return t >= 1 || t <= -1 ? 0 : radiusX * Math.sqrt(1 - t * t);
+    }
+
+    /**
+     * 按像素中心到椭圆的近似有向距离g / |∇g|（g = x² / a² + y² / b² - 1）计算覆盖率，乘到透明度上
+     */
+    private static void blendEdge(int[] pixels, int index, double x, double yTerm, double yGradient,
+                                  double inverseX2) {
+        double g = x * x * inverseX2 + yTerm - 1;
+        double gradientX = x * inverseX2;
+        double gradient = 2 * Math.sqrt(gradientX * gradientX + yGradient * yGradient);
+        double coverage;
+        if (gradient == 0) {
+            coverage = g < 0 ? 1 : 0;
+        } else {
+            coverage = 0.5 - g / gradient;
+        }
+        if (coverage >= 1) {
+            return;
+        }
+        int color = pixels[index];
+        if (coverage <= 0) {
+            pixels[index] = 0;
+            return;
+        }
+        int weight = (int) (coverage * 255 + 0.5);
+        int alpha = ((color >>> 24) * weight + 127) / 255;
+        pixels[index] = (alpha << 24) | (color & 0xFFFFFF);
+    }
+}
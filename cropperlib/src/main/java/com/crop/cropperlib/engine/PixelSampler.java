@@ -0,0 +1,238 @@
+package com.crop.cropperlib.engine;
+
+/**
+ * 在源图的任意实数坐标处按滤波器取样
+ *
+ * 坐标以像素边缘为整数，源图像素(i, j)的中心位于(i + 0.5, j + 0.5)；落在源图之外的像素按透明处理。
+ * 权重缓冲在创建时分配，取样过程不分配对象。每个实例只能由一个线程使用，并行时每个任务各自创建一个。
+ */
+final class PixelSampler {
+
+    private final int[] mPixels;
+    private final int mWidth;
+    private final int mHeight;
+    private final ResampleFilter mFilter;
+
+    // 每个方向使用的源像素个数
+    private final int mTaps;
+
+    // 两个方向的权重缓冲
+    private final double[] mWeightsX;
+    private final double[] mWeightsY;
+
+    PixelSampler(ArgbBuffer source, ResampleFilter filter) {
+        mPixels = source.getPixels();
+        mWidth = source.getWidth();
+        mHeight = source.getHeight();
+        mFilter = filter;
+        mTaps = filter == ResampleFilter.NEAREST ? 1 : 2 * (int) Math.ceil(filter.getRadius());
+        mWeightsX = new double[mTaps];
+        mWeightsY = new double[mTaps];
+    }
+
+    /**
+     * 取样
+     *
+     * @param sx 源图中的x坐标
+     * @param sy 源图中的y坐标
+     *
+     * @return ARGB颜色
+     */
+    int sample(double sx, double sy) {
+        switch (mFilter) {
+            case NEAREST:
+                return sampleNearest(sx, sy);
+            case BILINEAR:
+                return sampleBilinear(sx - 0.5, sy - 0.5);
+            case BICUBIC:
+                return sampleBicubic(sx - 0.5, sy - 0.5);
+            default:
+                return sampleKernel(sx - 0.5, sy - 0.5);
+        }
+    }
+
+    private int sampleNearest(double sx, double sy) {
+        int x = floor(sx);
+        int y = floor(sy);
+        if (x < 0 || y < 0 || x >= mWidth || y >= mHeight) {
+            return 0;
+        }
+        return mPixels[y * mWidth + x];
+    }
+
+    /**
+     * 双线性插值，px和py是以像素中心为整数的坐标。四个像素都在源图内时使用8位定点权重，与浮点计算的结果相差不超过1
+     */
+    private int sampleBilinear(double px, double py) {
+        int x0 = floor(px);
+        int y0 = floor(py);
+        if (x0 < -1 || y0 < -1 || x0 >= mWidth || y0 >= mHeight) {
+            return 0;
+        }
+        float tx = (float) (px - x0);
+        float ty = (float) (py - y0);
+        int[] src = mPixels;
+        if (x0 >= 0 && y0 >= 0 && x0 + 1 < mWidth && y0 + 1 < mHeight) {
+            // 四个像素都在源图之内：8位定点权重，红蓝和透明绿两对通道各用一次整数乘法
+            int fx = (int) (tx * 256 + 0.5f);
+            int fy = (int) (ty * 256 + 0.5f);
+            int w11 = (fx * fy + 128) >> 8;
+            int w10 = fx - w11;
+            int w01 = fy - w11;
+            int w00 = 256 - fx - fy + w11;
+            int index = y0 * mWidth + x0;
+            int c00 = src[index];
+            int c10 = src[index + 1];
+            int c01 = src[index + mWidth];
+            int c11 = src[index + mWidth + 1];
+            int rb = (c00 & 0xFF00FF) * w00 + (c10 & 0xFF00FF) * w10
+                    + (c01 & 0xFF00FF) * w01 + (c11 & 0xFF00FF) * w11;
+            int ag = ((c00 >>> 8) & 0xFF00FF) * w00 + ((c10 >>> 8) & 0xFF00FF) * w10
+                    + ((c01 >>> 8) & 0xFF00FF) * w01 + ((c11 >>> 8) & 0xFF00FF) * w11;
+            return (((rb + 0x800080) >>> 8) & 0xFF00FF) | ((ag + 0x800080) & 0xFF00FF00);
+        }
+        float a = 0;
+        float r = 0;
+        float g = 0;
+        float b = 0;
+        for (int j = 0; j < 2; j++) {
+            int y = y0 + j;
+            if (y < 0 || y >= mHeight) {
+                continue;
+            }
+            float wy = j == 0 ? 1 - ty : ty;
+            int row = y * mWidth;
+            for (int i = 0; i < 2; i++) {
+                int x = x0 + i;
+                if (x < 0 || x >= mWidth) {
+                    continue;
+                }
+                float w = wy * (i == 0 ? 1 - tx : tx);
+                int color = src[row + x];
+                a += w * (color >>> 24);
+                r += w * ((color >> 16) & 0xFF);
+                g += w * ((color >> 8) & 0xFF);
+                b += w * (color & 0xFF);
+            }
+        }
+        return (clamp(a) << 24) | (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+    }
+
+    /**
+     * 双三次插值。权重按Keys三次卷积的多项式直接计算；4x4邻域完全在源图之内时（绝大多数像素）不做逐个边界检查
+     */
+    private int sampleBicubic(double px, double py) {
+        int x0 = floor(px) - 1;
+        int y0 = floor(py) - 1;
+        if (x0 < 0 || y0 < 0 || x0 + 4 > mWidth || y0 + 4 > mHeight) {
+            return sampleKernel(px, py);
+        }
+        double[] weightsX = mWeightsX;
+        double[] weightsY = mWeightsY;
+        cubicWeights(px - (x0 + 1), weightsX);
+        cubicWeights(py - (y0 + 1), weightsY);
+
+        int[] src = mPixels;
+        double a = 0;
+        double r = 0;
+        double g = 0;
+        double b = 0;
+        int row = y0 * mWidth + x0;
+        for (int j = 0; j < 4; j++, row += mWidth) {
+            double rowA = 0;
+            double rowR = 0;
+            double rowG = 0;
+            double rowB = 0;
+            for (int i = 0; i < 4; i++) {
+                double w = weightsX[i];
+                int color = src[row + i];
+                rowA += w * (color >>> 24);
+                rowR += w * ((color >> 16) & 0xFF);
+                rowG += w * ((color >> 8) & 0xFF);
+                rowB += w * (color & 0xFF);
+            }
+            double w = weightsY[j];
+            a += w * rowA;
+            r += w * rowR;
+            g += w * rowG;
+            b += w * rowB;
+        }
+        return (clamp((float) a) << 24) | (clamp((float) r) << 16) | (clamp((float) g) << 8) | clamp((float) b);
+    }
+
+    /**
+     * 可分离滤波核插值，权重按整个核归一化，源图之外的像素贡献透明
+     */
+    private int sampleKernel(double px, double py) {
+        int taps = mTaps;
+        int half = taps / 2;
+        int x0 = floor(px) - half + 1;
+        int y0 = floor(py) - half + 1;
+        if (x0 + taps <= 0 || y0 + taps <= 0 || x0 >= mWidth || y0 >= mHeight) {
+            return 0;
+        }
+        double[] weightsX = mWeightsX;
+        double[] weightsY = mWeightsY;
+        double totalX = 0;
+        double totalY = 0;
+        for (int i = 0; i < taps; i++) {
+            weightsX[i] = mFilter.weight(px - (x0 + i));
+            weightsY[i] = mFilter.weight(py - (y0 + i));
+            totalX += weightsX[i];
+            totalY += weightsY[i];
+        }
+        double norm = 1 / (totalX * totalY);
+
+        int[] src = mPixels;
+        double a = 0;
+        double r = 0;
+        double g = 0;
+        double b = 0;
+        for (int j = 0; j < taps; j++) {
+            int y = y0 + j;
+            if (y < 0 || y >= mHeight) {
+                continue;
+            }
+            int row = y * mWidth;
+            for (int i = 0; i < taps; i++) {
+                int x = x0 + i;
+                if (x < 0 || x >= mWidth) {
+                    continue;
+                }
+                double w = weightsX[i] * weightsY[j];
+                int color = src[row + x];
+                a += w * (color >>> 24);
+                r += w * ((color >> 16) & 0xFF);
+                g += w * ((color >> 8) & 0xFF);
+                b += w * (color & 0xFF);
+            }
+        }
+        return (clamp((float) (a * norm)) << 24) | (clamp((float) (r * norm)) << 16)
+                | (clamp((float) (g * norm)) << 8) | clamp((float) (b * norm));
+    }
+
+    /**
+     * 计算采样点到左侧第二个像素距离为1 + t时四个像素的Keys三次卷积权重（a = -0.5），四个权重之和为1
+     */
+    private static void cubicWeights(double t, double[] out) {
+        double t2 = t * t;
+        double t3 = t2 * t;
+        out[0] = -0.5 * t3 + t2 - 0.5 * t;
+        out[1] = 1.5 * t3 - 2.5 * t2 + 1;
+        out[2] = -1.5 * t3 + 2 * t2 + 0.5 * t;
+        out[3] = 0.5 * t3 - 0.5 * t2;
+    }
+
+    /**
+     * 比Math.floor快的向下取整，只用于int范围内的坐标
+     */
+    private static int floor(double value) {
+        int truncated = (int) value;
+        return value < truncated ? truncated - 1 : truncated;
+    }
+
+    private static int clamp(float value) {
+        int rounded = Math.round(value);
+        return rounded < 0 ? 0 : (rounded > 255 ? 255 : rounded);
+    }
+}
@@ -0,0 +1,67 @@
+package com.crop.cropperlib.engine;
+
+/**
+ * 重采样使用的滤波器
+ */
+public enum ResampleFilter {
+
+    // 最近邻，不做插值
+    NEAREST(0.5f),
+
+    // 双线性（三角形核）
+    BILINEAR(1f),
+
+    // 双三次（Keys三次卷积，a = -0.5）
+    BICUBIC(2f),
+
+    // Lanczos，窗口半径为3
+    LANCZOS(3f);
+
+    // 缩放比例为1时滤波核的半径（以源像素为单位）
+    private final float mRadius;
+
+    ResampleFilter(float radius) {
+        mRadius = radius;
+    }
+
+    /**
+     * 获取滤波核的半径
+     */
+    public float getRadius() {
+        return mRadius;
+    }
+
+    /**
+     * 计算距离中心x处的权重
+     *
+     * @param x 到采样中心的距离（以滤波核为单位）
+     *
+     * @return 权重
+     */
+    double weight(double x) {
+        x = Math.abs(x);
+        switch (this) {
+            case NEAREST:
+                return x < 0.5 ? 1 : 0;
+            case BILINEAR:
+                return x < 1 ? 1 - x : 0;
+            case BICUBIC:
+                if (x < 1) {
+                    return (1.5 * x - 2.5) * x * x + 1;
+                }
+                if (x < 2) {
+                    return ((-0.5 * x + 2.5) * x - 4) * x + 2;
+                }
+                return 0;
+            default: // LANCZOS
+                if (x < 1e-8) {
+                    return 1;
+                }
+                if (x >= mRadius) {
+                    return 0;
+                }
+                double piX = Math.PI * x;
+                return mRadius * Math.sin(piX) * Math.sin(piX / mRadius) / (piX * piX);
+        }
+    }
+}
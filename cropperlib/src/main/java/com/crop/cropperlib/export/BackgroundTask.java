@@ -0,0 +1,222 @@
+package com.crop.cropperlib.export;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 在后台线程执行、在UI线程交付结果的任务
+ *
+ * 进度和结果通过UI线程的执行器回调给所有已注册的{@link Callback}；注册回调和取消任务都应在UI线程调用。
+ * 结果产生后、交付前任务被取消时，只有任务自己创建并且没有交给别人持有的结果会被{@link #release(Object)}释放；
+ * 来自共享缓存或已放入共享缓存的结果需要用{@link #markResultShared()}标记。
+ *
+ * @param <T> 结果
+ */
+public abstract class BackgroundTask<T> {
+
+    /**
+     * 任务的结果回调，所有方法都在UI线程调用
+     *
+     * @param <T> 结果
+     */
+    public interface Callback<T> {
+
+        /**
+         * 任务进度
+         *
+         * @param progress 0到1之间的进度
+         */
+        void onProgress(float progress);
+
+        /**
+         * 任务成功
+         *
+         * @param result 任务结果
+         */
+        void onSuccess(T result);
+
+        /**
+         * 任务失败
+         *
+         * @param error 失败原因
+         */
+        void onFailure(Exception error);
+
+        /**
+         * 任务被取消
+         */
+        void onCancelled();
+    }
+
+    private final Executor mUiExecutor;
+
+    // 只在UI线程访问
+    private final List<Callback<? super T>> mCallbacks = new ArrayList<>();
+
+    private volatile boolean mCancelled;
+    private volatile boolean mDone;
+    private volatile boolean mResultShared;
+    private Future<?> mFuture;
+
+    /**
+     * @param uiExecutor 在UI线程执行回调的执行器
+     */
+    protected BackgroundTask(Executor uiExecutor) {
+        mUiExecutor = uiExecutor;
+    }
+
+    /**
+     * 在后台线程执行任务。实现应在各个阶段之间调用{@link #isCancelled()}以尽快响应取消，
+     * 并通过{@link #publishProgress(float)}报告进度
+     *
+     * @return 任务结果；任务已取消时可以返回null
+     *
+     * @throws Exception 任务失败
+     */
+    protected abstract T compute() throws Exception;
+
+    /**
+     * 释放交付前被取消的结果；只对任务自己创建、没有标记为共享的结果调用
+     *
+     * @param result 任务结果，不为null
+     */
+    protected abstract void release(T result);
+
+    /**
+     * 添加一个回调；任务结束后添加的回调不会再被调用
+     */
+    public void addCallback(Callback<? super T> callback) {
+        if (callback != null) {
+            mCallbacks.add(callback);
+        }
+    }
+
+    /**
+     * 将任务提交到给定的线程池
+     *
+     * @param executor 线程池
+     */
+    public void submit(ExecutorService executor) {
+        try {
+            mFuture = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    execute();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            deliverFailure(e);
+        }
+    }
+
+    /**
+     * 取消任务。如果结果已经产生但尚未交付，并且没有被标记为共享，结果会被释放
+     */
+    public void cancel() {
+        if (mDone || mCancelled) {
+            return;
+        }
+        mCancelled = true;
+        if (mFuture != null) {
+            mFuture.cancel(true);
+        }
+        mDone = true;
+        for (Callback<? super T> callback : mCallbacks) {
+            callback.onCancelled();
+        }
+        mCallbacks.clear();
+    }
+
+    /**
+     * 任务是否已被取消
+     */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * 任务是否已经结束（成功、失败或取消）
+     */
+    public boolean isDone() {
+        return mDone;
+    }
+
+    /**
+     * 在后台线程标记本次的结果由别人共同持有（例如来自共享缓存或已放入共享缓存），任务被取消时不会释放它
+     */
+    public void markResultShared() {
+        mResultShared = true;
+    }
+
+    /**
+     * 在后台线程报告进度，进度会在UI线程交付给回调
+     *
+     * @param progress 0到1之间的进度
+     */
+    public void publishProgress(final float progress) {
+        if (mCancelled) {
+            return;
+        }
+        mUiExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mDone) {
+                    return;
+                }
+                for (Callback<? super T> callback : mCallbacks) {
+                    callback.onProgress(progress);
+                }
+            }
+        });
+    }
+
+    private void execute() {
+        if (mCancelled) {
+            return;
+        }
+        final T result;
+        try {
+            result = compute();
+        } catch (Exception e) {
+            deliverFailure(e);
+            return;
+        }
+        mUiExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mDone) {
+                    // 在结果交付之前被取消；共享的结果仍被别人使用，不能释放
+                    if (result != null && !mResultShared) {
+                        release(result);
+                    }
+                    return;
+                }
+                mDone = true;
+                for (Callback<? super T> callback : mCallbacks) {
+                    callback.onSuccess(result);
+                }
+                mCallbacks.clear();
+            }
+        });
+    }
+
+    private void deliverFailure(final Exception error) {
+        mUiExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mDone) {
+                    return;
+                }
+                mDone = true;
+                for (Callback<? super T> callback : mCallbacks) {
+                    callback.onFailure(error);
+                }
+                mCallbacks.clear();
+            }
+        });
+    }
+}
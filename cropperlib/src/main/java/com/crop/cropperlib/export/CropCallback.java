@@ -0,0 +1,39 @@
+package com.crop.cropperlib.export;
+
+import ohos.media.image.PixelMap;
+
+/**
+ * 异步裁剪的结果回调，所有方法都在UI线程调用
+ */
+public interface CropCallback extends BackgroundTask.Callback<PixelMap> {
+
+    /**
+     * 裁剪进度
+     *
+     * @param progress 0到1之间的进度
+     */
+    @Override
+    void onProgress(float progress);
+
+    /**
+     * 裁剪成功。同一个任务的所有回调收到同一个结果，开启了结果缓存时也可能与其他任务的结果相同
+     *
+     * @param result 裁剪结果
+     */
+    @Override
+    void onSuccess(PixelMap result);
+
+    /**
+     * 裁剪失败
+     *
+     * @param error 失败原因
+     */
+    @Override
+    void onFailure(Exception error);
+
+    /**
+     * 裁剪任务被取消
+     */
+    @Override
+    void onCancelled();
+}
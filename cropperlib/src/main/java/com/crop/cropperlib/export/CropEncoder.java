@@ -0,0 +1,64 @@
+package com.crop.cropperlib.export;
+
+import ohos.media.image.ImagePacker;
+import ohos.media.image.PixelMap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 把裁剪结果直接编码到输出流
+ *
+ * 编码器边压缩边写入输出流，不会在内存中先生成完整的编码数据，也不会复制位图。
+ */
+public final class CropEncoder {
+
+    public static final String FORMAT_JPEG = "image/jpeg";
+    public static final String FORMAT_PNG = "image/png";
+    public static final String FORMAT_WEBP = "image/webp";
+
+    private CropEncoder() {
+    }
+
+    /**
+     * 编码一张位图并写入输出流。输出流不会被关闭
+     *
+     * @param pixelMap 位图
+     * @param output   输出流
+     * @param format   输出格式，例如{@link #FORMAT_JPEG}
+     * @param quality  编码质量（0到100），对PNG无效
+     *
+     * @throws IOException 编码或写入失败
+     */
+    public static void encode(PixelMap pixelMap, OutputStream output, String format, int quality)
+            throws IOException {
+        checkOptions(format, quality);
+        ImagePacker packer = ImagePacker.create();
+        try {
+            ImagePacker.PackingOptions options = new ImagePacker.PackingOptions();
+            options.format = format;
+            options.quality = quality;
+            if (!packer.initializePacking(output, options) || !packer.addImage(pixelMap)) {
+                throw new IOException("failed to encode " + format);
+            }
+            packer.finalizePacking();
+            output.flush();
+        } finally {
+            packer.release();
+        }
+    }
+
+    /**
+     * 检查输出格式和编码质量
+     *
+     * @throws IllegalArgumentException 格式为空或质量超出范围
+     */
+    public static void checkOptions(String format, int quality) {
+        if (format == null || format.isEmpty()) {
+            throw new IllegalArgumentException("format is empty");
+        }
+        if (quality < 0 || quality > 100) {
+            throw new IllegalArgumentException("quality must be between 0 and 100");
+        }
+    }
+}
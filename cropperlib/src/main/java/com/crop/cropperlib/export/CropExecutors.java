@@ -0,0 +1,56 @@
+package com.crop.cropperlib.export;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 裁剪导出、裁剪推荐和方块解码共用的后台线程池
+ */
+public final class CropExecutors {
+
+    // 最多同时进行的导出任务数，导出占用大量内存，不宜过多
+    private static final int MAX_THREADS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors()));
+
+    // 等待队列长度，超过后新任务会被拒绝
+    private static final int QUEUE_CAPACITY = 16;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static volatile ExecutorService sDefaultExecutor;
+
+    private CropExecutors() {
+    }
+
+    /**
+     * 获取默认的导出线程池；线程数和等待队列都有上限，空闲的线程会被回收
+     */
+    public static ExecutorService getDefault() {
+        if (sDefaultExecutor == null) {
+            synchronized (CropExecutors.class) {
+                if (sDefaultExecutor == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+                            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                            new CropThreadFactory());
+                    executor.allowCoreThreadTimeOut(true);
+                    sDefaultExecutor = executor;
+                }
+            }
+        }
+        return sDefaultExecutor;
+    }
+
+    private static class CropThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "crop-export-" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
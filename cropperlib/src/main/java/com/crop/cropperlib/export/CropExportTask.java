@@ -0,0 +1,56 @@
+package com.crop.cropperlib.export;
+
+import ohos.app.dispatcher.TaskDispatcher;
+import ohos.media.image.PixelMap;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 一个在后台线程执行的裁剪导出任务
+ *
+ * 任务在后台线程执行，进度和结果通过UI线程的TaskDispatcher回调给所有已注册的{@link CropCallback}。
+ * 注册回调和取消任务都应在UI线程调用。
+ */
+public class CropExportTask extends BackgroundTask<PixelMap> {
+
+    /**
+     * 在后台线程执行的裁剪工作
+     */
+    public interface Work {
+
+        /**
+         * 执行裁剪。实现应在各个阶段之间调用{@link CropExportTask#isCancelled()}以尽快响应取消，
+         * 并通过{@link CropExportTask#publishProgress(float)}报告进度；返回来自共享缓存或已放入共享缓存的结果时，
+         * 应调用{@link CropExportTask#markResultShared()}
+         *
+         * @param task 当前任务
+         *
+         * @return 裁剪结果；任务已取消时可以返回null
+         *
+         * @throws Exception 裁剪失败
+         */
+        PixelMap run(CropExportTask task) throws Exception;
+    }
+
+    private final Work mWork;
+
+    public CropExportTask(final TaskDispatcher uiDispatcher, Work work) {
+        super(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                uiDispatcher.asyncDispatch(command);
+            }
+        });
+        mWork = work;
+    }
+
+    @Override
+    protected PixelMap compute() throws Exception {
+        return mWork.run(this);
+    }
+
+    @Override
+    protected void release(PixelMap result) {
+        result.release();
+    }
+}
@@ -1,5 +1,7 @@
 package com.crop.cropperlib.handle;
 
+import com.crop.cropperlib.border.CropQuad;
+import com.crop.cropperlib.border.CropWindow;
 import com.crop.cropperlib.border.Frame;
 import ohos.agp.utils.RectFloat;
 
@@ -10,11 +12,11 @@ class CenterHandler extends Handler {
     }
 
     @Override
-    void refreshCropWindow(float x, float y, RectFloat imageRect, float snapRadius) {
-        float left = Frame.LEFT.getCoordinate();
-        float top = Frame.TOP.getCoordinate();
-        float right = Frame.RIGHT.getCoordinate();
-        float bottom = Frame.BOTTOM.getCoordinate();
+    void refreshCropWindow(CropWindow window, float x, float y, RectFloat imageRect, float snapRadius) {
+        float left = window.getLeft();
+        float top = window.getTop();
+        float right = window.getRight();
+        float bottom = window.getBottom();
 
         float currentCenterX = (left + right) / 2;
         float currentCenterY = (top + bottom) / 2;
@@ -22,32 +24,51 @@ class CenterHandler extends Handler {
         float offsetY = y - currentCenterY;
 
         // 调整裁剪窗口
-        Frame.LEFT.offset(offsetX);
-        Frame.TOP.offset(offsetY);
-        Frame.RIGHT.offset(offsetX);
-        Frame.BOTTOM.offset(offsetY);
+        Frame.LEFT.offset(window, offsetX);
+        Frame.TOP.offset(window, offsetY);
+        Frame.RIGHT.offset(window, offsetX);
+        Frame.BOTTOM.offset(window, offsetY);
 
         // 检查两边是否越界，然后修理
-        if (Frame.LEFT.isOutsideMargin(imageRect, snapRadius)) {
-            float offset = Frame.LEFT.snapToRect(imageRect);
-            Frame.RIGHT.offset(offset);
-        } else if (Frame.RIGHT.isOutsideMargin(imageRect, snapRadius)) {
-            float offset = Frame.RIGHT.snapToRect(imageRect);
-            Frame.LEFT.offset(offset);
+        if (Frame.LEFT.isOutsideMargin(window, imageRect, snapRadius)) {
+            float offset = Frame.LEFT.snapToRect(window, imageRect);
+            Frame.RIGHT.offset(window, offset);
+        } else if (Frame.RIGHT.isOutsideMargin(window, imageRect, snapRadius)) {
+            float offset = Frame.RIGHT.snapToRect(window, imageRect);
+            Frame.LEFT.offset(window, offset);
         }
 
         // 检查我们是否在顶部或底部,越界需修复。
-        if (Frame.TOP.isOutsideMargin(imageRect, snapRadius)) {
-            float offset = Frame.TOP.snapToRect(imageRect);
-            Frame.BOTTOM.offset(offset);
-        } else if (Frame.BOTTOM.isOutsideMargin(imageRect, snapRadius)) {
-            float offset = Frame.BOTTOM.snapToRect(imageRect);
-            Frame.TOP.offset(offset);
+        if (Frame.TOP.isOutsideMargin(window, imageRect, snapRadius)) {
+            float offset = Frame.TOP.snapToRect(window, imageRect);
+            Frame.BOTTOM.offset(window, offset);
+        } else if (Frame.BOTTOM.isOutsideMargin(window, imageRect, snapRadius)) {
+            float offset = Frame.BOTTOM.snapToRect(window, imageRect);
+            Frame.TOP.offset(window, offset);
         }
     }
 
+    /**
+     * 透视模式下平移整个四边形，使四个角的平均位置跟随触摸点，并保持在图像之内
+     */
     @Override
-    void refreshCropWindow(float x, float y, float targetAspectRatio, RectFloat imageRect, float snapRadius) {
-        refreshCropWindow(x, y, imageRect, snapRadius);
+    void refreshCropQuad(CropQuad quad, float x, float y, RectFloat imageRect, float snapRadius) {
+        float offsetX = x - quad.getCenterX();
+        float offsetY = y - quad.getCenterY();
+
+        // 处理器不能保存状态，这里逐个角限制平移量而不使用缓冲
+        for (int corner = 0; corner < 4; corner++) {
+            float cornerX = quad.getX(corner);
+            float cornerY = quad.getY(corner);
+            offsetX = Math.max(imageRect.left - cornerX, Math.min(offsetX, imageRect.right - cornerX));
+            offsetY = Math.max(imageRect.top - cornerY, Math.min(offsetY, imageRect.bottom - cornerY));
+        }
+        quad.offset(offsetX, offsetY);
+    }
+
+    @Override
+    void refreshCropWindow(CropWindow window, float x, float y, float targetAspectRatio,
+                           RectFloat imageRect, float snapRadius) {
+        refreshCropWindow(window, x, y, imageRect, snapRadius);
     }
-}
\ No newline at end of file
+}
@@ -1,27 +1,76 @@
 package com.crop.cropperlib.handle;
 
+import com.crop.cropperlib.border.CropQuad;
+import com.crop.cropperlib.border.CropWindow;
 import com.crop.cropperlib.border.Frame;
-import com.crop.cropperlib.border.FrameGroup;
 import ohos.agp.utils.RectFloat;
 
 class CornerHandler extends Handler {
 
+    // 透视模式下此句柄对应的四边形的角
+    private final int mQuadCorner;
+
     CornerHandler(Frame horizontalFrame, Frame verticalFrame) {
         super(horizontalFrame, verticalFrame);
+        if (horizontalFrame == Frame.TOP) {
+            mQuadCorner = verticalFrame == Frame.LEFT ? CropQuad.TOP_LEFT : CropQuad.TOP_RIGHT;
+        } else {
+            mQuadCorner = verticalFrame == Frame.LEFT ? CropQuad.BOTTOM_LEFT : CropQuad.BOTTOM_RIGHT;
+        }
     }
 
+    /**
+     * 透视模式下只移动对应的角：限制在图像之内，靠近图像边缘时捕捉到边缘；移动后四边形不再是凸四边形时保持原位
+     */
     @Override
-    void refreshCropWindow(float x, float y, float targetAspectRatio, RectFloat imageRect, float snapRadius) {
-        FrameGroup activeEdges = getActiveFrames(x, y, targetAspectRatio);
-        Frame primaryFrame = activeEdges.primary;
-        Frame secondaryFrame = activeEdges.seconder;
-
-        primaryFrame.adjustCoordinate(x, y, imageRect, snapRadius, targetAspectRatio);
-        secondaryFrame.adjustCoordinate(targetAspectRatio);
+    void refreshCropQuad(CropQuad quad, float x, float y, RectFloat imageRect, float snapRadius) {
+        x = snap(x, imageRect.left, imageRect.right, snapRadius);
+        y = snap(y, imageRect.top, imageRect.bottom, snapRadius);
+        float oldX = quad.getX(mQuadCorner);
+        float oldY = quad.getY(mQuadCorner);
+        quad.set(mQuadCorner, x, y);
+        if (!quad.isConvex()) {
+            quad.set(mQuadCorner, oldX, oldY);
+        }
+    }
 
-        if (secondaryFrame.isOutsideMargin(imageRect, snapRadius)) {
-            secondaryFrame.snapToRect(imageRect);
-            primaryFrame.adjustCoordinate(targetAspectRatio);
+    private static float snap(float value, float min, float max, float snapRadius) {
+        if (value < min + snapRadius) {
+            return min;
+        }
+        if (value > max - snapRadius) {
+            return max;
         }
+        return value;
+    }
+
+    /**
+     * 保持纵横比拖动角：对角固定不动，一次算出满足纵横比、图像边界和最小尺寸的宽度，再由宽度得到高度
+     */
+    @Override
+    void refreshCropWindow(CropWindow window, float x, float y, float targetAspectRatio,
+                           RectFloat imageRect, float snapRadius) {
+        Frame verticalFrame = getVerticalFrame();
+        Frame horizontalFrame = getHorizontalFrame();
+        boolean movingRight = verticalFrame == Frame.RIGHT;
+        boolean movingBottom = horizontalFrame == Frame.BOTTOM;
+
+        // 对角的坐标
+        float anchorX = movingRight ? window.getLeft() : window.getRight();
+        float anchorY = movingBottom ? window.getTop() : window.getBottom();
+
+        // 接触点比纵横比宽时由x决定宽度，否则由y决定
+        float widthFromX = movingRight ? x - anchorX : anchorX - x;
+        float widthFromY = (movingBottom ? y - anchorY : anchorY - y) * targetAspectRatio;
+        float width = Math.max(widthFromX, widthFromY);
+
+        float availableWidth = movingRight ? imageRect.right - anchorX : anchorX - imageRect.left;
+        float availableHeight = movingBottom ? imageRect.bottom - anchorY : anchorY - imageRect.top;
+        float maxWidth = Math.min(availableWidth, availableHeight * targetAspectRatio);
+        width = constrainLength(width, getMinLength(targetAspectRatio, true), maxWidth, snapRadius);
+
+        float height = width / targetAspectRatio;
+        verticalFrame.setCoordinate(window, movingRight ? anchorX + width : anchorX - width);
+        horizontalFrame.setCoordinate(window, movingBottom ? anchorY + height : anchorY - height);
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package com.crop.cropperlib.handle;
 
+import com.crop.cropperlib.border.CropQuad;
+import com.crop.cropperlib.border.CropWindow;
 import com.crop.cropperlib.border.Frame;
 import ohos.agp.utils.RectFloat;
 
@@ -16,9 +18,10 @@ public enum Handle {
     TOP(new HorizontalHandler(Frame.TOP)),
     RIGHT(new VerticalHandler(Frame.RIGHT)),
     BOTTOM(new HorizontalHandler(Frame.BOTTOM)),
-    CENTER(new CenterHandler());
+    CENTER(new CenterHandler()),
+    ROTATE(new RotationHandler());
 
-    private Handler mHelper;
+    private final Handler mHelper;
 
     Handle(Handler helper) {
         mHelper = helper;
@@ -31,4 +34,20 @@ public enum Handle {
     public void refreshCropWindow(float x, float y, float targetAspectRatio, RectFloat imageRect, float snapRadius) {
         mHelper.refreshCropWindow(x, y, targetAspectRatio, imageRect, snapRadius);
     }
+
+    public void refreshCropWindow(CropWindow window, float x, float y, RectFloat imageRect, float snapRadius) {
+        mHelper.refreshCropWindow(window, x, y, imageRect, snapRadius);
+    }
+
+    public void refreshCropWindow(CropWindow window, float x, float y, float targetAspectRatio,
+                                  RectFloat imageRect, float snapRadius) {
+        mHelper.refreshCropWindow(window, x, y, targetAspectRatio, imageRect, snapRadius);
+    }
+
+    /**
+     * 透视模式下拖动四边形：角句柄只移动对应的角，中心句柄平移整个四边形，其他句柄不起作用
+     */
+    public void refreshCropQuad(CropQuad quad, float x, float y, RectFloat imageRect, float snapRadius) {
+        mHelper.refreshCropQuad(quad, x, y, imageRect, snapRadius);
+    }
 }
\ No newline at end of file
@@ -1,20 +1,23 @@
 package com.crop.cropperlib.handle;
 
+import com.crop.cropperlib.border.CropQuad;
+import com.crop.cropperlib.border.CropWindow;
 import com.crop.cropperlib.border.Frame;
 import com.crop.cropperlib.border.FrameGroup;
-import com.crop.cropperlib.utils.AspectRatioUtil;
 import ohos.agp.utils.RectFloat;
 
 /**
  * 来处理裁剪窗口的操作的抽象类
+ *
+ * 处理器是Handle枚举持有的单例，会被多个裁剪窗口和线程共用，因此不能保存任何可变状态
  */
 abstract class Handler {
     private static final float UNFIXED_ASPECT_RATIO_CONSTANT = 1;
-    private Frame mHorizontalFrame;
-    private Frame mVerticalFrame;
+    private final Frame mHorizontalFrame;
+    private final Frame mVerticalFrame;
 
-    // 将Pair对象另存为成员变量，以避免每次调用getActiveEdge（）时都必须实例化新对象。
-    private FrameGroup mActiveFrames;
+    // 将边组合另存为成员变量，以避免每次调用getActiveFrames()时都必须实例化新对象；创建后不再修改，保证处理器无状态。
+    private final FrameGroup mActiveFrames;
 
     /**
      * @param horizontalFrame 水平边；可以为null
@@ -27,7 +30,7 @@ abstract class Handler {
     }
 
     /**
-     * 通过直接设置帧坐标来更新裁剪窗口
+     * 通过直接设置共享裁剪窗口的帧坐标来更新裁剪窗口
      *
      * @param x          x坐标
      * @param y          y坐标
@@ -35,20 +38,33 @@ abstract class Handler {
      * @param snapRadius 裁剪窗口应捕捉到图像的最大距离
      */
     void refreshCropWindow(float x, float y, RectFloat imageRect, float snapRadius) {
+        refreshCropWindow(Frame.getSharedWindow(), x, y, imageRect, snapRadius);
+    }
+
+    /**
+     * 通过直接设置帧坐标来更新给定的裁剪窗口
+     *
+     * @param window     裁剪窗口
+     * @param x          x坐标
+     * @param y          y坐标
+     * @param imageRect  图像的边框
+     * @param snapRadius 裁剪窗口应捕捉到图像的最大距离
+     */
+    void refreshCropWindow(CropWindow window, float x, float y, RectFloat imageRect, float snapRadius) {
         FrameGroup activeFrames = getActiveFrames();
         Frame primaryFrame = activeFrames.primary;
         Frame secondaryFrame = activeFrames.seconder;
 
         if (primaryFrame != null) {
-            primaryFrame.adjustCoordinate(x, y, imageRect, snapRadius, UNFIXED_ASPECT_RATIO_CONSTANT);
+            primaryFrame.adjustCoordinate(window, x, y, imageRect, snapRadius, UNFIXED_ASPECT_RATIO_CONSTANT);
         }
         if (secondaryFrame != null) {
-            secondaryFrame.adjustCoordinate(x, y, imageRect, snapRadius, UNFIXED_ASPECT_RATIO_CONSTANT);
+            secondaryFrame.adjustCoordinate(window, x, y, imageRect, snapRadius, UNFIXED_ASPECT_RATIO_CONSTANT);
         }
     }
 
     /**
-     * 通过直接设置帧坐标来更新裁剪窗口；此方法保持给定的纵横比
+     * 通过直接设置共享裁剪窗口的帧坐标来更新裁剪窗口；此方法保持给定的纵横比
      *
      * @param x                 x坐标
      * @param y                 y坐标
@@ -56,58 +72,79 @@ abstract class Handler {
      * @param imageRect         图像的边框
      * @param snapRadius        裁剪窗口应捕捉到图像的最大距离
      */
-    abstract void refreshCropWindow(float x, float y, float targetAspectRatio, RectFloat imageRect, float snapRadius);
+    void refreshCropWindow(float x, float y, float targetAspectRatio, RectFloat imageRect, float snapRadius) {
+        refreshCropWindow(Frame.getSharedWindow(), x, y, targetAspectRatio, imageRect, snapRadius);
+    }
 
     /**
-     * 获取关联的边（即拖动此句柄时应移动的边）。在不保持纵横比的情况下使用。
+     * 通过直接设置帧坐标来更新给定的裁剪窗口；此方法保持给定的纵横比
      *
-     * @return 一组活动边
+     * @param window            裁剪窗口
+     * @param x                 x坐标
+     * @param y                 y坐标
+     * @param targetAspectRatio 要保持的横纵比
+     * @param imageRect         图像的边框
+     * @param snapRadius        裁剪窗口应捕捉到图像的最大距离
      */
-    private FrameGroup getActiveFrames() {
-        return mActiveFrames;
-    }
+    abstract void refreshCropWindow(CropWindow window, float x, float y, float targetAspectRatio,
+                                    RectFloat imageRect, float snapRadius);
 
     /**
-     * 获取关联的边作为有序对。一对中的主边是决定边。当我们需要保持纵横比时使用这个方法。
-     *
-     * @param x 触点x坐标
-     * @param y 触点y坐标
-     * @param targetAspectRatio 需要保持的横纵比
+     * 透视模式下更新四边形；默认不做任何事，只有角和中心处理器支持透视模式
      *
-     * @return 一组活动边
+     * @param quad       四边形
+     * @param x          x坐标
+     * @param y          y坐标
+     * @param imageRect  图像的边框
+     * @param snapRadius 角应捕捉到图像边缘的最大距离
      */
-    FrameGroup getActiveFrames(float x, float y, float targetAspectRatio) {
+    void refreshCropQuad(CropQuad quad, float x, float y, RectFloat imageRect, float snapRadius) {
+    }
 
-        // 如果将此控制柄拖动到给定的x-y坐标，则计算纵横比
-        final float potentialAspectRatio = getAspectRatio(x, y);
+    /**
+     * 获取此处理器移动的水平边（上边或下边）；可以为null
+     */
+    Frame getHorizontalFrame() {
+        return mHorizontalFrame;
+    }
 
-        // 如果接触点比宽高比宽，那么x是确定的边。否则，y是决定性的一方
-        if (potentialAspectRatio > targetAspectRatio) {
-            mActiveFrames.primary = mVerticalFrame;
-            mActiveFrames.seconder = mHorizontalFrame;
-        } else {
-            mActiveFrames.primary = mHorizontalFrame;
-            mActiveFrames.seconder = mVerticalFrame;
-        }
-        return mActiveFrames;
+    /**
+     * 获取此处理器移动的垂直边（左边或右边）；可以为null
+     */
+    Frame getVerticalFrame() {
+        return mVerticalFrame;
     }
 
     /**
-     * 获取裁剪窗口的纵横比
+     * 在保持纵横比的情况下，计算裁剪窗口在一个方向上允许的最小长度
      *
-     * @param x x坐标
-     * @param y y坐标
-     *
-     * @return 纵横比
+     * @param aspectRatio 纵横比（宽/高）
+     * @param isWidth     true表示计算宽度，false表示计算高度
      */
-    private float getAspectRatio(float x, float y) {
+    static float getMinLength(float aspectRatio, boolean isWidth) {
+        if (isWidth) {
+            return Math.max(Frame.MIN_CROP_LENGTH_PX, Frame.MIN_CROP_LENGTH_PX * aspectRatio);
+        }
+        return Math.max(Frame.MIN_CROP_LENGTH_PX, Frame.MIN_CROP_LENGTH_PX / aspectRatio);
+    }
 
-        // 用给定的触摸坐标替换活动边坐标
-        float left = (mVerticalFrame == Frame.LEFT) ? x : Frame.LEFT.getCoordinate();
-        float top = (mHorizontalFrame == Frame.TOP) ? y : Frame.TOP.getCoordinate();
-        float right = (mVerticalFrame == Frame.RIGHT) ? x : Frame.RIGHT.getCoordinate();
-        float bottom = (mHorizontalFrame == Frame.BOTTOM) ? y : Frame.BOTTOM.getCoordinate();
+    /**
+     * 将拖动得到的长度限制在[min, max]之内；距离最大值不超过捕捉半径时直接取最大值，即贴到图像边缘。
+     * 最小值大于最大值时（图像本身太小）以最大值为准
+     */
+    static float constrainLength(float length, float min, float max, float snapRadius) {
+        if (length > max - snapRadius) {
+            return max;
+        }
+        return Math.min(Math.max(length, min), max);
+    }
 
-        return AspectRatioUtil.calculateAspectRatio(left, top, right, bottom);
+    /**
+     * 获取关联的边（即拖动此句柄时应移动的边）。在不保持纵横比的情况下使用。
+     *
+     * @return 一组活动边
+     */
+    private FrameGroup getActiveFrames() {
+        return mActiveFrames;
     }
-}
\ No newline at end of file
+}
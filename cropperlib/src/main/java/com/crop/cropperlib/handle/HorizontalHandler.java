@@ -1,7 +1,7 @@
 package com.crop.cropperlib.handle;
 
+import com.crop.cropperlib.border.CropWindow;
 import com.crop.cropperlib.border.Frame;
-import com.crop.cropperlib.utils.AspectRatioUtil;
 import ohos.agp.utils.RectFloat;
 
 /**
@@ -9,49 +9,34 @@ import ohos.agp.utils.RectFloat;
  */
 class HorizontalHandler extends Handler {
 
-    private Frame mFrame;
+    private final Frame mFrame;
 
     HorizontalHandler(Frame frame) {
         super(frame, null);
         mFrame = frame;
     }
 
+    /**
+     * 保持纵横比拖动上边或下边：对边固定不动，一次算出高度，宽度按纵横比围绕原来的水平中心变化，
+     * 超出图像时整体左右平移回图像内
+     */
     @Override
-    void refreshCropWindow(float x, float y, float targetAspectRatio, RectFloat imageRect, float snapRadius) {
-
-        // 相应地调整此框架
-        mFrame.adjustCoordinate(x, y, imageRect, snapRadius, targetAspectRatio);
-
-        float left = Frame.LEFT.getCoordinate();
-        float right = Frame.RIGHT.getCoordinate();
-
-        // 移动此帧后，裁剪窗口将失去比例
-        float targetWidth = AspectRatioUtil.calculateWidth(Frame.getHeight(), targetAspectRatio);
-
-        // 调整裁剪窗口，使其通过对称地移入或移出相邻边来保持给定的纵横比
-        float difference = targetWidth - Frame.getWidth();
-        float halfDifference = difference / 2;
-        left -= halfDifference;
-        right += halfDifference;
-
-        Frame.LEFT.setCoordinate(left);
-        Frame.RIGHT.setCoordinate(right);
-
-        // 检查两边是否越界，然后修理
-        if (Frame.LEFT.isOutsideMargin(imageRect, snapRadius)
-                && mFrame.isNewRectangleOutOfBounds(Frame.LEFT, imageRect, targetAspectRatio)) {
-
-            float offset = Frame.LEFT.snapToRect(imageRect);
-            Frame.RIGHT.offset(-offset);
-            mFrame.adjustCoordinate(targetAspectRatio);
-        }
-
-        if (Frame.RIGHT.isOutsideMargin(imageRect, snapRadius)
-                && mFrame.isNewRectangleOutOfBounds(Frame.RIGHT, imageRect, targetAspectRatio)) {
-
-            float offset = Frame.RIGHT.snapToRect(imageRect);
-            Frame.LEFT.offset(-offset);
-            mFrame.adjustCoordinate(targetAspectRatio);
-        }
+    void refreshCropWindow(CropWindow window, float x, float y, float targetAspectRatio,
+                           RectFloat imageRect, float snapRadius) {
+        boolean movingBottom = mFrame == Frame.BOTTOM;
+        float anchorY = movingBottom ? window.getTop() : window.getBottom();
+
+        float height = movingBottom ? y - anchorY : anchorY - y;
+        float availableHeight = movingBottom ? imageRect.bottom - anchorY : anchorY - imageRect.top;
+        float maxHeight = Math.min(availableHeight, imageRect.getWidth() / targetAspectRatio);
+        height = constrainLength(height, getMinLength(targetAspectRatio, false), maxHeight, snapRadius);
+
+        float width = height * targetAspectRatio;
+        float centerX = (window.getLeft() + window.getRight()) / 2;
+        float left = Math.max(imageRect.left, Math.min(centerX - width / 2, imageRect.right - width));
+
+        mFrame.setCoordinate(window, movingBottom ? anchorY + height : anchorY - height);
+        Frame.LEFT.setCoordinate(window, left);
+        Frame.RIGHT.setCoordinate(window, left + width);
     }
-}
\ No newline at end of file
+}
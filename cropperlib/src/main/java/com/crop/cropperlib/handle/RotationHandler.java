@@ -0,0 +1,40 @@
+package com.crop.cropperlib.handle;
+
+import com.crop.cropperlib.border.CropWindow;
+import ohos.agp.utils.RectFloat;
+
+/**
+ * 旋转把手：按触摸点相对于窗口中心的方向设置旋转角度，不改变四条边
+ *
+ * 把手位于上边中点的上方，因此角度为0时触摸点在中心的正上方。
+ */
+class RotationHandler extends Handler {
+
+    // 与0、90、180、270度相差不超过此角度（度）时吸附到这些角度
+    private static final float SNAP_ANGLE = 2f;
+
+    RotationHandler() {
+        super(null, null);
+    }
+
+    @Override
+    void refreshCropWindow(CropWindow window, float x, float y, RectFloat imageRect, float snapRadius) {
+        float dx = x - window.getCenterX();
+        float dy = y - window.getCenterY();
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+        float angle = (float) Math.toDegrees(Math.atan2(dx, -dy));
+        float rightAngle = Math.round(angle / 90) * 90f;
+        if (Math.abs(angle - rightAngle) <= SNAP_ANGLE) {
+            angle = rightAngle;
+        }
+        window.setAngle(angle);
+    }
+
+    @Override
+    void refreshCropWindow(CropWindow window, float x, float y, float targetAspectRatio,
+                           RectFloat imageRect, float snapRadius) {
+        refreshCropWindow(window, x, y, imageRect, snapRadius);
+    }
+}
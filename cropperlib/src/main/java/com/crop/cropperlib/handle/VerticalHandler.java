@@ -1,7 +1,7 @@
 package com.crop.cropperlib.handle;
 
+import com.crop.cropperlib.border.CropWindow;
 import com.crop.cropperlib.border.Frame;
-import com.crop.cropperlib.utils.AspectRatioUtil;
 import ohos.agp.utils.RectFloat;
 
 /**
@@ -9,49 +9,34 @@ import ohos.agp.utils.RectFloat;
  */
 class VerticalHandler extends Handler {
 
-    private Frame mFrame;
+    private final Frame mFrame;
 
     VerticalHandler(Frame frame) {
         super(null, frame);
         mFrame = frame;
     }
 
+    /**
+     * 保持纵横比拖动左边或右边：对边固定不动，一次算出宽度，高度按纵横比围绕原来的垂直中心变化，
+     * 超出图像时整体上下平移回图像内
+     */
     @Override
-    void refreshCropWindow(float x, float y, float targetAspectRatio, RectFloat imageRect, float snapRadius) {
-
-        // 相应地调整此框架.
-        mFrame.adjustCoordinate(x, y, imageRect, snapRadius, targetAspectRatio);
-
-        float top = Frame.TOP.getCoordinate();
-        float bottom = Frame.BOTTOM.getCoordinate();
-
-        // 移动此帧后，裁剪窗口将失去比例
-        float targetHeight = AspectRatioUtil.calculateHeight(Frame.getWidth(), targetAspectRatio);
-
-        // 调整裁剪窗口，使其通过对称地移入或移出相邻边来保持给定的纵横比
-        float difference = targetHeight - Frame.getHeight();
-        float halfDifference = difference / 2;
-        top -= halfDifference;
-        bottom += halfDifference;
-
-        Frame.TOP.setCoordinate(top);
-        Frame.BOTTOM.setCoordinate(bottom);
-
-        // 检查我们是否在顶部或底部越界，并修复
-        if (Frame.TOP.isOutsideMargin(imageRect, snapRadius)
-                && mFrame.isNewRectangleOutOfBounds(Frame.TOP, imageRect, targetAspectRatio)) {
-
-            float offset = Frame.TOP.snapToRect(imageRect);
-            Frame.BOTTOM.offset(-offset);
-            mFrame.adjustCoordinate(targetAspectRatio);
-        }
-
-        if (Frame.BOTTOM.isOutsideMargin(imageRect, snapRadius)
-                && mFrame.isNewRectangleOutOfBounds(Frame.BOTTOM, imageRect, targetAspectRatio)) {
-
-            float offset = Frame.BOTTOM.snapToRect(imageRect);
-            Frame.TOP.offset(-offset);
-            mFrame.adjustCoordinate(targetAspectRatio);
-        }
+    void refreshCropWindow(CropWindow window, float x, float y, float targetAspectRatio,
+                           RectFloat imageRect, float snapRadius) {
+        boolean movingRight = mFrame == Frame.RIGHT;
+        float anchorX = movingRight ? window.getLeft() : window.getRight();
+
+        float width = movingRight ? x - anchorX : anchorX - x;
+        float availableWidth = movingRight ? imageRect.right - anchorX : anchorX - imageRect.left;
+        float maxWidth = Math.min(availableWidth, imageRect.getHeight() * targetAspectRatio);
+        width = constrainLength(width, getMinLength(targetAspectRatio, true), maxWidth, snapRadius);
+
+        float height = width / targetAspectRatio;
+        float centerY = (window.getTop() + window.getBottom()) / 2;
+        float top = Math.max(imageRect.top, Math.min(centerY - height / 2, imageRect.bottom - height));
+
+        mFrame.setCoordinate(window, movingRight ? anchorX + width : anchorX - width);
+        Frame.TOP.setCoordinate(window, top);
+        Frame.BOTTOM.setCoordinate(window, top + height);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package com.crop.cropperlib.history;
+
+/**
+ * 裁剪几何的撤销/重做历史，保存在固定容量的基本类型环形缓冲中
+ *
+ * 每条记录对应一次完整的手势（从按下到抬起），保存手势前后状态的差值和一个标签（例如区域id）。
+ * 状态是固定长度的float向量，所有记录的差值连续存放在一个float数组中；撤销时把差值从当前状态中减去，重做时加上。
+ * 记录、撤销和重做都是O(1)的，且不分配对象。超出容量时覆盖最旧的记录；撤销之后再记录会丢弃可以重做的记录。
+ * 本身不是线程安全的，只应在UI线程使用。
+ */
+public class CropHistory {
+
+    // 默认保存的记录数
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int mStateSize;
+    private final int mMask;
+
+    // 每条记录的差值，记录i占用[i * mStateSize, (i + 1) * mStateSize)
+    private final float[] mDeltas;
+    private final int[] mTags;
+
+    // 记录的绝对序号：[mFirst, mPosition)已经生效，[mPosition, mEnd)可以重做
+    private int mFirst;
+    private int mPosition;
+    private int mEnd;
+
+    /**
+     * @param capacity  保存的记录数，会向上取整为2的幂
+     * @param stateSize 状态向量的长度
+     */
+    public CropHistory(int capacity, int stateSize) {
+        if (capacity <= 0 || stateSize <= 0) {
+            throw new IllegalArgumentException("capacity and stateSize must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mStateSize = stateSize;
+        mMask = size - 1;
+        mDeltas = new float[size * stateSize];
+        mTags = new int[size];
+    }
+
+    /**
+     * 记录一次手势。前后状态完全相同（例如只是点击）时不记录
+     *
+     * @param tag    标签，撤销和重做时原样返回
+     * @param before 手势前的状态
+     * @param after  手势后的状态
+     *
+     * @return 是否记录
+     */
+    public boolean record(int tag, float[] before, float[] after) {
+        boolean changed = false;
+        for (int i = 0; i < mStateSize; i++) {
+            if (before[i] != after[i]) {
+                changed = true;
+                break;
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+        int offset = (mPosition & mMask) * mStateSize;
+        for (int i = 0; i < mStateSize; i++) {
+            mDeltas[offset + i] = after[i] - before[i];
+        }
+        mTags[mPosition & mMask] = tag;
+        mPosition++;
+        mEnd = mPosition;
+        if (mEnd - mFirst > mMask + 1) {
+            mFirst++;
+        }
+        return true;
+    }
+
+    public boolean canUndo() {
+        return mPosition > mFirst;
+    }
+
+    public boolean canRedo() {
+        return mPosition < mEnd;
+    }
+
+    /**
+     * 获取下一次撤销的记录的标签，不改变历史
+     *
+     * @throws IllegalStateException 没有可以撤销的记录
+     */
+    public int getUndoTag() {
+        if (!canUndo()) {
+            throw new IllegalStateException("nothing to undo");
+        }
+        return mTags[(mPosition - 1) & mMask];
+    }
+
+    /**
+     * 获取下一次重做的记录的标签，不改变历史
+     *
+     * @throws IllegalStateException 没有可以重做的记录
+     */
+    public int getRedoTag() {
+        if (!canRedo()) {
+            throw new IllegalStateException("nothing to redo");
+        }
+        return mTags[mPosition & mMask];
+    }
+
+    /**
+     * 撤销最近一条记录：从状态中减去它的差值
+     *
+     * @param state 该记录标签对应的当前状态，原地修改
+     *
+     * @return 记录的标签
+     */
+    public int undo(float[] state) {
+        int tag = getUndoTag();
+        mPosition--;
+        int offset = (mPosition & mMask) * mStateSize;
+        for (int i = 0; i < mStateSize; i++) {
+            state[i] -= mDeltas[offset + i];
+        }
+        return tag;
+    }
+
+    /**
+     * 重做下一条记录：给状态加上它的差值
+     *
+     * @param state 该记录标签对应的当前状态，原地修改
+     *
+     * @return 记录的标签
+     */
+    public int redo(float[] state) {
+        int tag = getRedoTag();
+        int offset = (mPosition & mMask) * mStateSize;
+        for (int i = 0; i < mStateSize; i++) {
+            state[i] += mDeltas[offset + i];
+        }
+        mPosition++;
+        return tag;
+    }
+
+    /**
+     * 获取当前位置：已经生效的记录数，范围为[0, {@link #size()}]
+     */
+    public int getPosition() {
+        return mPosition - mFirst;
+    }
+
+    /**
+     * 获取保存的记录数，包括可以重做的记录
+     */
+    public int size() {
+        return mEnd - mFirst;
+    }
+
+    /**
+     * 获取最多保存的记录数
+     */
+    public int getCapacity() {
+        return mMask + 1;
+    }
+
+    public int getStateSize() {
+        return mStateSize;
+    }
+
+    /**
+     * 清除所有记录
+     */
+    public void clear() {
+        mFirst = 0;
+        mPosition = 0;
+        mEnd = 0;
+    }
+}
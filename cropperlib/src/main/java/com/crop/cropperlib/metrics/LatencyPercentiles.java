@@ -0,0 +1,50 @@
+package com.crop.cropperlib.metrics;
+
+/**
+ * 一组耗时样本的百分位数，单位为纳秒
+ */
+public final class LatencyPercentiles {
+
+    private final int mSampleCount;
+    private final long mP50;
+    private final long mP95;
+    private final long mP99;
+    private final long mMax;
+
+    LatencyPercentiles(int sampleCount, long p50, long p95, long p99, long max) {
+        mSampleCount = sampleCount;
+        mP50 = p50;
+        mP95 = p95;
+        mP99 = p99;
+        mMax = max;
+    }
+
+    /**
+     * 获取参与计算的样本数
+     */
+    public int getSampleCount() {
+        return mSampleCount;
+    }
+
+    public long getP50() {
+        return mP50;
+    }
+
+    public long getP95() {
+        return mP95;
+    }
+
+    public long getP99() {
+        return mP99;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyPercentiles[n=%d, p50=%.2fms, p95=%.2fms, p99=%.2fms, max=%.2fms]",
+                mSampleCount, mP50 / 1e6, mP95 / 1e6, mP99 / 1e6, mMax / 1e6);
+    }
+}
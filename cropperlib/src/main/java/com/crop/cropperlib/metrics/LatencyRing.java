@@ -0,0 +1,86 @@
+package com.crop.cropperlib.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 保存最近若干个耗时样本的无锁环形缓冲
+ *
+ * 写入只是一次原子自增加一次原子写，不加锁也不分配对象；读取时复制当前的样本再排序，
+ * 因此可以在任意线程读取百分位数，而不会阻塞写入线程。
+ */
+public class LatencyRing {
+
+    private final AtomicLongArray mSamples;
+    private final int mMask;
+
+    // 已写入的样本总数
+    private final AtomicLong mWritten = new AtomicLong();
+
+    /**
+     * @param capacity 保存的样本数，会向上取整为2的幂
+     */
+    public LatencyRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mSamples = new AtomicLongArray(size);
+        mMask = size - 1;
+    }
+
+    /**
+     * 记录一个样本，覆盖最旧的样本
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        long index = mWritten.getAndIncrement();
+        mSamples.set((int) (index & mMask), nanos);
+    }
+
+    /**
+     * 获取已记录的样本总数，包括已被覆盖的样本
+     */
+    public long getCount() {
+        return mWritten.get();
+    }
+
+    /**
+     * 清除所有样本
+     */
+    public void clear() {
+        mWritten.set(0);
+    }
+
+    /**
+     * 计算当前保存的样本的百分位数
+     *
+     * @return 百分位数；没有样本时各值为0
+     */
+    public LatencyPercentiles getPercentiles() {
+        int size = (int) Math.min(mWritten.get(), mMask + 1);
+        long[] samples = new long[size];
+        for (int i = 0; i < size; i++) {
+            samples[i] = mSamples.get(i);
+        }
+        Arrays.sort(samples);
+        return new LatencyPercentiles(size, percentile(samples, 50), percentile(samples, 95),
+                percentile(samples, 99), size == 0 ? 0 : samples[size - 1]);
+    }
+
+    /**
+     * 按最近秩法取百分位数
+     */
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100d * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
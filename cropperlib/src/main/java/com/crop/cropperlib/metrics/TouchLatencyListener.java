@@ -0,0 +1,19 @@
+package com.crop.cropperlib.metrics;
+
+/**
+ * 每一帧触摸延迟的回调，在UI线程调用，实现应尽快返回
+ *
+ * 所有时间戳都来自{@link System#nanoTime()}。
+ */
+public interface TouchLatencyListener {
+
+    /**
+     * 一次触摸引起的重绘已经完成
+     *
+     * @param receiptNanos      本帧处理的最早一个触摸采样到达onTouchEvent的时间
+     * @param refreshDoneNanos  裁剪窗口更新完成的时间
+     * @param invalidateNanos   请求重绘的时间
+     * @param drawCompleteNanos 绘制完成的时间
+     */
+    void onFrame(long receiptNanos, long refreshDoneNanos, long invalidateNanos, long drawCompleteNanos);
+}
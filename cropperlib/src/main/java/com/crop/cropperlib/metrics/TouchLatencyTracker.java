@@ -0,0 +1,196 @@
+package com.crop.cropperlib.metrics;
+
+/**
+ * 记录从触摸采样到达到对应的一帧绘制完成的延迟
+ *
+ * 每一帧记录四个时间点：最早的未处理采样到达、裁剪窗口更新完成、请求重绘、绘制完成，
+ * 各阶段及总延迟分别保存在{@link LatencyRing}中，可以随时读取滚动的p50/p95/p99。
+ * 没有改变几何的采样不会产生一帧，也不计入统计。记录方法都必须在UI线程调用，读取方法可以在任意线程调用。
+ */
+public class TouchLatencyTracker {
+
+    /**
+     * 延迟的阶段
+     */
+    public enum Stage {
+        // 采样到达到裁剪窗口更新完成
+        REFRESH,
+        // 裁剪窗口更新完成到请求重绘
+        INVALIDATE,
+        // 请求重绘到绘制完成
+        DRAW,
+        // 采样到达到绘制完成
+        TOTAL
+    }
+
+    // 默认保存的样本数
+    public static final int DEFAULT_CAPACITY = 512;
+
+    // 默认的卡顿预算，对应60Hz刷新率的一帧
+    public static final long DEFAULT_JANK_BUDGET_NANOS = 16666667L;
+
+    private static final TouchLatencyListener[] NO_LISTENERS = new TouchLatencyListener[0];
+
+    private final LatencyRing[] mRings = new LatencyRing[Stage.values().length];
+
+    // 监听器数组在修改时整体替换，UI线程遍历时不需要加锁也不分配对象
+    private volatile TouchLatencyListener[] mListeners = NO_LISTENERS;
+
+    private volatile long mJankBudgetNanos = DEFAULT_JANK_BUDGET_NANOS;
+    private volatile long mJankCount;
+
+    // 当前帧的时间点，只在UI线程访问；0表示尚未发生
+    private long mReceiptNanos;
+    private long mRefreshDoneNanos;
+    private long mInvalidateNanos;
+
+    public TouchLatencyTracker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 每个阶段保存的样本数
+     */
+    public TouchLatencyTracker(int capacity) {
+        for (int i = 0; i < mRings.length; i++) {
+            mRings[i] = new LatencyRing(capacity);
+        }
+    }
+
+    /**
+     * 添加监听器
+     */
+    public synchronized void addListener(TouchLatencyListener listener) {
+        TouchLatencyListener[] listeners = mListeners;
+        TouchLatencyListener[] updated = new TouchLatencyListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, updated, 0, listeners.length);
+        updated[listeners.length] = listener;
+        mListeners = updated;
+    }
+
+    /**
+     * 移除监听器
+     */
+    public synchronized void removeListener(TouchLatencyListener listener) {
+        TouchLatencyListener[] listeners = mListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                TouchLatencyListener[] updated = new TouchLatencyListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, listeners.length - i - 1);
+                mListeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 设置卡顿预算：总延迟超过预算的帧计为一次卡顿
+     *
+     * @param budgetNanos 预算（纳秒）
+     */
+    public void setJankBudgetNanos(long budgetNanos) {
+        mJankBudgetNanos = budgetNanos;
+    }
+
+    /**
+     * 获取总延迟超过卡顿预算的帧数
+     */
+    public long getJankCount() {
+        return mJankCount;
+    }
+
+    /**
+     * 获取某个阶段最近样本的百分位数
+     */
+    public LatencyPercentiles getPercentiles(Stage stage) {
+        return mRings[stage.ordinal()].getPercentiles();
+    }
+
+    /**
+     * 获取已记录的帧数
+     */
+    public long getFrameCount() {
+        return mRings[Stage.TOTAL.ordinal()].getCount();
+    }
+
+    /**
+     * 清除所有样本和卡顿计数
+     */
+    public void reset() {
+        for (LatencyRing ring : mRings) {
+            ring.clear();
+        }
+        mJankCount = 0;
+        mReceiptNanos = 0;
+        mRefreshDoneNanos = 0;
+        mInvalidateNanos = 0;
+    }
+
+    /**
+     * 触摸采样到达onTouchEvent；同一帧内只记录最早的一个
+     */
+    public void onTouchReceived() {
+        if (mReceiptNanos == 0) {
+            mReceiptNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 裁剪窗口已根据触摸采样更新
+     *
+     * @param changed 几何是否发生了变化；未变化且本帧尚未请求重绘时，丢弃已记录的采样时间
+     */
+    public void onRefreshDone(boolean changed) {
+        if (mReceiptNanos == 0) {
+            return;
+        }
+        if (mInvalidateNanos != 0) {
+            // 本帧已经请求过重绘，之后的更新会在同一帧中绘制
+            return;
+        }
+        if (changed) {
+            mRefreshDoneNanos = System.nanoTime();
+        } else {
+            mReceiptNanos = 0;
+        }
+    }
+
+    /**
+     * 已请求重绘
+     */
+    public void onInvalidate() {
+        if (mRefreshDoneNanos != 0 && mInvalidateNanos == 0) {
+            mInvalidateNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 绘制完成；如果本帧由触摸引起，记录各阶段的延迟并通知监听器
+     */
+    public void onDrawComplete() {
+        if (mInvalidateNanos == 0) {
+            return;
+        }
+        long drawComplete = System.nanoTime();
+        long receipt = mReceiptNanos;
+        long refreshDone = mRefreshDoneNanos;
+        long invalidate = mInvalidateNanos;
+        mReceiptNanos = 0;
+        mRefreshDoneNanos = 0;
+        mInvalidateNanos = 0;
+
+        long total = drawComplete - receipt;
+        mRings[Stage.REFRESH.ordinal()].record(refreshDone - receipt);
+        mRings[Stage.INVALIDATE.ordinal()].record(invalidate - refreshDone);
+        mRings[Stage.DRAW.ordinal()].record(drawComplete - invalidate);
+        mRings[Stage.TOTAL.ordinal()].record(total);
+        if (total > mJankBudgetNanos) {
+            mJankCount++;
+        }
+
+        for (TouchLatencyListener listener : mListeners) {
+            listener.onFrame(receipt, refreshDone, invalidate, drawComplete);
+        }
+    }
+}
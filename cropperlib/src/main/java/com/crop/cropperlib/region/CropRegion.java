@@ -0,0 +1,53 @@
+package com.crop.cropperlib.region;
+
+import com.crop.cropperlib.border.CropWindow;
+
+/**
+ * 多区域裁剪中的一个区域：独立的裁剪窗口加上它在区域集合中的叠放次序
+ */
+public class CropRegion {
+
+    private final int mId;
+    private final CropWindow mWindow;
+
+    // 叠放次序，越大越靠上，由CropRegionSet维护
+    int mZOrder;
+
+    // 在空间索引中登记的格子范围，由RegionIndex维护
+    boolean mIndexed;
+    int mFirstCellX;
+    int mFirstCellY;
+    int mLastCellX;
+    int mLastCellY;
+
+    CropRegion(int id, CropWindow window) {
+        mId = id;
+        mWindow = window;
+    }
+
+    /**
+     * 获取区域id，在同一个集合中唯一
+     */
+    public int getId() {
+        return mId;
+    }
+
+    /**
+     * 获取区域的裁剪窗口。修改窗口后需要调用{@link CropRegionSet#update(CropRegion)}更新空间索引
+     */
+    public CropWindow getWindow() {
+        return mWindow;
+    }
+
+    /**
+     * 获取叠放次序，越大越靠上
+     */
+    public int getZOrder() {
+        return mZOrder;
+    }
+
+    @Override
+    public String toString() {
+        return "CropRegion[" + mId + ", " + mWindow + "]";
+    }
+}
@@ -0,0 +1,168 @@
+package com.crop.cropperlib.region;
+
+import com.crop.cropperlib.border.CropWindow;
+import com.crop.cropperlib.utils.HitTester;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一张图片上的多个独立裁剪区域，维护选中状态、叠放次序和用于命中测试的空间索引
+ *
+ * 区域按叠放次序从下到上保存，选中的区域总是被移到最上层。修改区域的裁剪窗口后需要调用{@link #update(CropRegion)}，
+ * 拖动过程中可以只在手指抬起时更新一次。本类不是线程安全的，应只在UI线程使用。
+ */
+public class CropRegionSet {
+
+    // 默认的索引格子边长（像素）
+    public static final float DEFAULT_CELL_SIZE = 128f;
+
+    private final List<CropRegion> mRegions = new ArrayList<>();
+    private final List<CropRegion> mReadOnlyRegions = Collections.unmodifiableList(mRegions);
+    private final RegionIndex mIndex;
+
+    private CropRegion mSelected;
+    private int mNextId;
+    private int mNextZOrder;
+
+    /**
+     * @param touchRadius 以像素为单位的触摸半径，区域按此半径向外扩展后登记到索引中
+     */
+    public CropRegionSet(float touchRadius) {
+        this(DEFAULT_CELL_SIZE, touchRadius);
+    }
+
+    /**
+     * @param cellSize    索引格子边长
+     * @param touchRadius 以像素为单位的触摸半径
+     */
+    public CropRegionSet(float cellSize, float touchRadius) {
+        mIndex = new RegionIndex(cellSize, touchRadius);
+    }
+
+    /**
+     * 添加一个使用给定裁剪窗口的区域，放在最上层并选中
+     *
+     * @param window 区域的裁剪窗口，之后由区域持有
+     *
+     * @return 新区域
+     */
+    public CropRegion add(CropWindow window) {
+        CropRegion region = new CropRegion(mNextId++, window);
+        region.mZOrder = mNextZOrder++;
+        mRegions.add(region);
+        mIndex.insert(region);
+        mSelected = region;
+        return region;
+    }
+
+    /**
+     * 移除一个区域；移除选中的区域后，最上层的区域成为选中区域
+     *
+     * @return 区域是否存在
+     */
+    public boolean remove(CropRegion region) {
+        if (!mRegions.remove(region)) {
+            return false;
+        }
+        mIndex.remove(region);
+        if (mSelected == region) {
+            mSelected = mRegions.isEmpty() ? null : mRegions.get(mRegions.size() - 1);
+        }
+        return true;
+    }
+
+    /**
+     * 获取所有区域，按叠放次序从下到上排列。返回的列表只读，并随集合变化
+     */
+    public List<CropRegion> getRegions() {
+        return mReadOnlyRegions;
+    }
+
+    public int size() {
+        return mRegions.size();
+    }
+
+    /**
+     * 获取选中的区域
+     *
+     * @return 选中的区域；集合为空时为null
+     */
+    public CropRegion getSelected() {
+        return mSelected;
+    }
+
+    /**
+     * 是否包含给定区域
+     */
+    public boolean contains(CropRegion region) {
+        return mRegions.contains(region);
+    }
+
+    /**
+     * 按id查找区域
+     *
+     * @return 区域；已被移除或不存在时为null
+     */
+    public CropRegion findById(int id) {
+        for (int i = 0, size = mRegions.size(); i < size; i++) {
+            CropRegion region = mRegions.get(i);
+            if (region.getId() == id) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 选中一个区域并移到最上层
+     */
+    public void select(CropRegion region) {
+        if (!mRegions.contains(region)) {
+            throw new IllegalArgumentException("region is not in this set");
+        }
+        mSelected = region;
+        if (mRegions.get(mRegions.size() - 1) != region) {
+            mRegions.remove(region);
+            mRegions.add(region);
+            region.mZOrder = mNextZOrder++;
+        }
+    }
+
+    /**
+     * 区域的裁剪窗口被修改后更新空间索引
+     */
+    public void update(CropRegion region) {
+        mIndex.remove(region);
+        mIndex.insert(region);
+    }
+
+    /**
+     * 修改触摸半径并重建索引
+     */
+    public void setTouchRadius(float touchRadius) {
+        if (touchRadius == mIndex.getMargin()) {
+            return;
+        }
+        mIndex.setMargin(touchRadius);
+        mIndex.clear();
+        for (CropRegion region : mRegions) {
+            region.mIndexed = false;
+            mIndex.insert(region);
+        }
+    }
+
+    /**
+     * 查找触摸点所在的最上层区域，包括区域边框外触摸半径以内的控制柄区域
+     *
+     * @param x         触点X坐标
+     * @param y         触点Y坐标
+     * @param hitTester 控制柄命中测试，其触摸半径应与本集合的触摸半径相同
+     *
+     * @return 区域；没有时为null
+     */
+    public CropRegion hitTest(float x, float y, HitTester hitTester) {
+        return mIndex.query(x, y, hitTester);
+    }
+}
@@ -0,0 +1,203 @@
+package com.crop.cropperlib.region;
+
+import com.crop.cropperlib.border.CropWindow;
+import com.crop.cropperlib.utils.HitTester;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * 区域的均匀网格索引
+ *
+ * 每个区域按向外扩展触摸半径后的范围登记到覆盖的所有格子中。命中测试只检查触摸点所在格子中的区域，
+ * 耗时取决于该处重叠的区域数，而不是区域总数。格子保存在以格子坐标为long键的开放寻址散列表中，
+ * 查询过程不装箱也不分配对象；变空的格子回收复用，移动区域时也不分配。
+ */
+final class RegionIndex {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final float mCellSize;
+    private float mMargin;
+
+    // 线性探测的散列表，null表示空槽位
+    private Cell[] mCells = new Cell[INITIAL_CAPACITY];
+    private int mCellCount;
+
+    // 回收的空格子
+    private final ArrayList<Cell> mFreeCells = new ArrayList<>();
+
+    // 外接矩形和窗口坐标的缓冲
+    private final float[] mBounds = new float[4];
+    private final float[] mPoint = new float[2];
+
+    RegionIndex(float cellSize, float margin) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive");
+        }
+        mCellSize = cellSize;
+        mMargin = margin;
+    }
+
+    float getMargin() {
+        return mMargin;
+    }
+
+    void setMargin(float margin) {
+        mMargin = margin;
+    }
+
+    void insert(CropRegion region) {
+        float[] bounds = mBounds;
+        region.getWindow().getBounds(bounds);
+        region.mFirstCellX = cell(bounds[0] - mMargin);
+        region.mFirstCellY = cell(bounds[1] - mMargin);
+        region.mLastCellX = cell(bounds[2] + mMargin);
+        region.mLastCellY = cell(bounds[3] + mMargin);
+        region.mIndexed = true;
+        for (int cellY = region.mFirstCellY; cellY <= region.mLastCellY; cellY++) {
+            for (int cellX = region.mFirstCellX; cellX <= region.mLastCellX; cellX++) {
+                long key = key(cellX, cellY);
+                int slot = findSlot(key);
+                Cell cell = mCells[slot];
+                if (cell == null) {
+                    if ((mCellCount + 1) * 2 > mCells.length) {
+                        rehash(mCells.length * 2);
+                        slot = findSlot(key);
+                    }
+                    cell = obtainCell(key);
+                    mCells[slot] = cell;
+                    mCellCount++;
+                }
+                cell.mRegions.add(region);
+            }
+        }
+    }
+
+    void remove(CropRegion region) {
+        if (!region.mIndexed) {
+            return;
+        }
+        region.mIndexed = false;
+        for (int cellY = region.mFirstCellY; cellY <= region.mLastCellY; cellY++) {
+            for (int cellX = region.mFirstCellX; cellX <= region.mLastCellX; cellX++) {
+                int slot = findSlot(key(cellX, cellY));
+                Cell cell = mCells[slot];
+                if (cell != null) {
+                    cell.mRegions.remove(region);
+                    if (cell.mRegions.isEmpty()) {
+                        removeSlot(slot);
+                        mFreeCells.add(cell);
+                    }
+                }
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < mCells.length; i++) {
+            Cell cell = mCells[i];
+            if (cell != null) {
+                cell.mRegions.clear();
+                mFreeCells.add(cell);
+            }
+        }
+        Arrays.fill(mCells, null);
+        mCellCount = 0;
+    }
+
+    /**
+     * 查找包含触摸点（含触摸半径）的最上层区域
+     */
+    CropRegion query(float x, float y, HitTester hitTester) {
+        Cell cell = mCells[findSlot(key(cell(x), cell(y)))];
+        if (cell == null) {
+            return null;
+        }
+        ArrayList<CropRegion> regions = cell.mRegions;
+        CropRegion result = null;
+        for (int i = 0, size = regions.size(); i < size; i++) {
+            CropRegion region = regions.get(i);
+            if (result != null && region.mZOrder < result.mZOrder) {
+                continue;
+            }
+            // 旋转的区域在窗口坐标系中测试
+            CropWindow window = region.getWindow();
+            window.mapToWindow(x, y, mPoint);
+            if (hitTester.classify(mPoint[0], mPoint[1], window) != null) {
+                result = region;
+            }
+        }
+        return result;
+    }
+
+    private int cell(float value) {
+        return (int) Math.floor(value / mCellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    private Cell obtainCell(long key) {
+        int size = mFreeCells.size();
+        Cell cell = size > 0 ? mFreeCells.remove(size - 1) : new Cell();
+        cell.mKey = key;
+        return cell;
+    }
+
+    private int homeSlot(long key) {
+        int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B1;
+        return (hash ^ (hash >>> 16)) & (mCells.length - 1);
+    }
+
+    /**
+     * 查找键所在的槽位；不存在时返回探测序列上的第一个空槽位
+     */
+    private int findSlot(long key) {
+        int mask = mCells.length - 1;
+        int slot = homeSlot(key);
+        while (mCells[slot] != null && mCells[slot].mKey != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * 清空槽位，并把探测序列上后面的格子前移填补空位，不需要删除标记
+     */
+    private void removeSlot(int slot) {
+        int mask = mCells.length - 1;
+        int hole = slot;
+        mCells[hole] = null;
+        mCellCount--;
+        for (int i = (hole + 1) & mask; mCells[i] != null; i = (i + 1) & mask) {
+            int home = homeSlot(mCells[i].mKey);
+            // 起始槽位不在(hole, i]之间的格子可以移到空位上
+            boolean reachable = hole <= i ? home > hole && home <= i : home > hole || home <= i;
+            if (!reachable) {
+                mCells[hole] = mCells[i];
+                mCells[i] = null;
+                hole = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        Cell[] cells = mCells;
+        mCells = new Cell[capacity];
+        for (Cell cell : cells) {
+            if (cell != null) {
+                mCells[findSlot(cell.mKey)] = cell;
+            }
+        }
+    }
+
+    /**
+     * 一个格子及登记在其中的区域
+     */
+    private static final class Cell {
+        long mKey;
+        final ArrayList<CropRegion> mRegions = new ArrayList<>(2);
+    }
+}
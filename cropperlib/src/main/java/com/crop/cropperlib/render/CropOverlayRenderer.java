@@ -0,0 +1,334 @@
+package com.crop.cropperlib.render;
+
+import com.crop.cropperlib.border.CropQuad;
+import com.crop.cropperlib.border.CropShape;
+import com.crop.cropperlib.border.CropWindow;
+import com.crop.cropperlib.utils.PaintUtil;
+import ohos.agp.render.Canvas;
+import ohos.agp.render.Paint;
+import ohos.agp.render.Path;
+import ohos.agp.utils.Point;
+import ohos.agp.utils.RectFloat;
+
+/**
+ * 绘制裁剪窗口的覆盖层：变暗的周边区域、指导线和边框
+ *
+ * 所有几何缓冲在第一次绘制时创建，之后每一帧只修改它们的坐标，拖动过程中不会产生垃圾对象。
+ * 变暗区域使用一条奇偶填充的路径一次画完（外框为图片边界，内框为裁剪窗口）。
+ * 裁剪窗口旋转时，内框是旋转后的四边形，指导线和边框在按窗口角度旋转的画布上绘制。
+ * 椭圆形状时内框是内切椭圆（旋转时用折线逼近），边框画成椭圆，指导线截到椭圆以内。
+ */
+public class CropOverlayRenderer {
+    // 指导线的端点数：两条垂直线和两条水平线，每条两个端点
+    private static final int GUIDELINE_POINT_COUNT = 8;
+
+    // 旋转的椭圆内框用多少段折线逼近
+    private static final int OVAL_SEGMENTS = 64;
+
+    // 单位圆上折线顶点的余弦和正弦
+    private static final float[] OVAL_COS = new float[OVAL_SEGMENTS];
+    private static final float[] OVAL_SIN = new float[OVAL_SEGMENTS];
+
+    // 指导线位于三分之一处时，离中心1/3半轴，在椭圆内的半长为另一半轴的这个比例
+    private static final float OVAL_GUIDELINE_EXTENT = (float) Math.sqrt(1 - 1 / 9d);
+
+    static {
+        for (int i = 0; i < OVAL_SEGMENTS; i++) {
+            double theta = 2 * Math.PI * i / OVAL_SEGMENTS;
+            OVAL_COS[i] = (float) Math.cos(theta);
+            OVAL_SIN[i] = (float) Math.sin(theta);
+        }
+    }
+
+    // 用来在裁剪区域周围绘制白色矩形
+    private final Paint mBorderPaint;
+
+    // 按下时用于在裁剪区域内绘制指导线
+    private final Paint mGuidelinePaint;
+
+    // 用于使特定区域以外变暗
+    private final Paint mSurroundingAreaPaint;
+
+    // 裁剪形状
+    private CropShape mShape = CropShape.RECTANGLE;
+
+    // 以下缓冲在第一次绘制时创建并在之后的每一帧中复用
+    private RectFloat mBorderRect;
+    private Path mSurroundingPath;
+    private Point[] mGuidelinePoints;
+    private float[] mCorners;
+    private Point mKnobStart;
+    private Point mKnobEnd;
+
+    public CropOverlayRenderer() {
+        mBorderPaint = PaintUtil.getBorderPaint();
+        mGuidelinePaint = PaintUtil.getGuidelinePaint();
+        mSurroundingAreaPaint = PaintUtil.getSurroundingAreaPaint();
+    }
+
+    /**
+     * 绘制整个覆盖层
+     *
+     * @param canvas       画布
+     * @param window       裁剪窗口
+     * @param pixelMapRect 图片在组件中的边界框
+     */
+    public void draw(Canvas canvas, CropWindow window, RectFloat pixelMapRect) {
+        ensureBuffers();
+
+        drawDarkenedSurroundingArea(canvas, window, pixelMapRect);
+        if (window.isRotated()) {
+            canvas.save();
+            canvas.rotate(window.getAngle(), window.getCenterX(), window.getCenterY());
+            drawGuidelines(canvas, window);
+            drawBorder(canvas, window);
+            canvas.restore();
+        } else {
+            drawGuidelines(canvas, window);
+            drawBorder(canvas, window);
+        }
+    }
+
+    /**
+     * 绘制透视模式的覆盖层：四边形以外变暗，四条边和四个角的标记
+     *
+     * @param canvas       画布
+     * @param quad         四边形
+     * @param pixelMapRect 图片在组件中的边界框
+     * @param cornerRadius 角标记的半径
+     */
+    public void drawQuad(Canvas canvas, CropQuad quad, RectFloat pixelMapRect, float cornerRadius) {
+        ensureBuffers();
+
+        float[] corners = mCorners;
+        quad.getPoints(corners);
+        Path path = mSurroundingPath;
+        path.reset();
+        path.setFillType(Path.FillType.EVEN_ODD);
+        path.addRect(pixelMapRect.left, pixelMapRect.top, pixelMapRect.right, pixelMapRect.bottom,
+                Path.Direction.CLOCK_WISE);
+        addPolygon(path, corners);
+        canvas.drawPath(path, mSurroundingAreaPaint);
+
+        Point[] points = mGuidelinePoints;
+        for (int i = 0; i < 4; i++) {
+            points[i].modify(corners[i * 2], corners[i * 2 + 1]);
+        }
+        RectFloat rect = mBorderRect;
+        for (int i = 0; i < 4; i++) {
+            canvas.drawLine(points[i], points[(i + 1) % 4], mBorderPaint);
+            rect.left = corners[i * 2] - cornerRadius;
+            rect.top = corners[i * 2 + 1] - cornerRadius;
+            rect.right = corners[i * 2] + cornerRadius;
+            rect.bottom = corners[i * 2 + 1] + cornerRadius;
+            canvas.drawOval(rect, mBorderPaint);
+        }
+    }
+
+    /**
+     * 绘制一个未选中的裁剪窗口的边框，在{@link #draw(Canvas, CropWindow, RectFloat)}之后调用
+     *
+     * @param canvas 画布
+     * @param window 未选中的裁剪窗口
+     */
+    public void drawInactiveWindow(Canvas canvas, CropWindow window) {
+        ensureBuffers();
+        RectFloat rect = mBorderRect;
+        rect.left = window.getLeft();
+        rect.top = window.getTop();
+        rect.right = window.getRight();
+        rect.bottom = window.getBottom();
+        if (window.isRotated()) {
+            canvas.save();
+            canvas.rotate(window.getAngle(), window.getCenterX(), window.getCenterY());
+            drawShape(canvas, rect, mGuidelinePaint);
+            canvas.restore();
+        } else {
+            drawShape(canvas, rect, mGuidelinePaint);
+        }
+    }
+
+    /**
+     * 绘制旋转把手：从上边中点引出的连线和末端的圆，随窗口一起旋转。在{@link #draw(Canvas, CropWindow, RectFloat)}之后调用
+     *
+     * @param canvas   画布
+     * @param window   裁剪窗口
+     * @param distance 把手圆心到上边中点的距离
+     * @param radius   把手圆的半径
+     */
+    public void drawRotationKnob(Canvas canvas, CropWindow window, float distance, float radius) {
+        ensureBuffers();
+        float centerX = window.getCenterX();
+        float top = window.getTop();
+        mKnobStart.modify(centerX, top);
+        mKnobEnd.modify(centerX, top - distance + radius);
+        RectFloat rect = mBorderRect;
+        rect.left = centerX - radius;
+        rect.top = top - distance - radius;
+        rect.right = centerX + radius;
+        rect.bottom = top - distance + radius;
+        canvas.save();
+        canvas.rotate(window.getAngle(), centerX, window.getCenterY());
+        canvas.drawLine(mKnobStart, mKnobEnd, mBorderPaint);
+        canvas.drawOval(rect, mBorderPaint);
+        canvas.restore();
+    }
+
+    /**
+     * 设置裁剪形状，默认为矩形
+     */
+    public void setShape(CropShape shape) {
+        if (shape == null) {
+            throw new IllegalArgumentException("shape is null");
+        }
+        mShape = shape;
+    }
+
+    public CropShape getShape() {
+        return mShape;
+    }
+
+    private void ensureBuffers() {
+        if (mBorderRect == null) {
+            mBorderRect = new RectFloat();
+        }
+        if (mSurroundingPath == null) {
+            mSurroundingPath = new Path();
+            mSurroundingPath.setFillType(Path.FillType.EVEN_ODD);
+        }
+        if (mGuidelinePoints == null) {
+            mGuidelinePoints = new Point[GUIDELINE_POINT_COUNT];
+            for (int i = 0; i < GUIDELINE_POINT_COUNT; i++) {
+                mGuidelinePoints[i] = new Point();
+            }
+        }
+        if (mCorners == null) {
+            mCorners = new float[8];
+        }
+        if (mKnobStart == null) {
+            mKnobStart = new Point();
+            mKnobEnd = new Point();
+        }
+    }
+
+    private void drawDarkenedSurroundingArea(Canvas canvas, CropWindow window, RectFloat pixelMapRect) {
+        // 外框和内框组成奇偶填充路径，只有两者之间的区域会被填充
+        Path path = mSurroundingPath;
+        path.reset();
+        path.setFillType(Path.FillType.EVEN_ODD);
+        path.addRect(pixelMapRect.left, pixelMapRect.top, pixelMapRect.right, pixelMapRect.bottom,
+                Path.Direction.CLOCK_WISE);
+        if (mShape == CropShape.OVAL) {
+            addOval(path, window);
+        } else if (window.isRotated()) {
+            window.getCorners(mCorners);
+            addPolygon(path, mCorners);
+        } else {
+            path.addRect(window.getLeft(), window.getTop(), window.getRight(), window.getBottom(),
+                    Path.Direction.CLOCK_WISE);
+        }
+        canvas.drawPath(path, mSurroundingAreaPaint);
+    }
+
+    /**
+     * 把裁剪窗口的内切椭圆加入路径。旋转的椭圆无法直接加入，按窗口角度旋转折线顶点
+     */
+    private void addOval(Path path, CropWindow window) {
+        if (!window.isRotated()) {
+            RectFloat rect = mBorderRect;
+            rect.left = window.getLeft();
+            rect.top = window.getTop();
+            rect.right = window.getRight();
+            rect.bottom = window.getBottom();
+            path.addOval(rect, Path.Direction.CLOCK_WISE);
+            return;
+        }
+        float centerX = window.getCenterX();
+        float centerY = window.getCenterY();
+        float radiusX = window.getWidth() / 2;
+        float radiusY = window.getHeight() / 2;
+        double radians = Math.toRadians(window.getAngle());
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+        for (int i = 0; i < OVAL_SEGMENTS; i++) {
+            float x = radiusX * OVAL_COS[i];
+            float y = radiusY * OVAL_SIN[i];
+            float rotatedX = centerX + x * cos - y * sin;
+            float rotatedY = centerY + x * sin + y * cos;
+            if (i == 0) {
+                path.moveTo(rotatedX, rotatedY);
+            } else {
+                path.lineTo(rotatedX, rotatedY);
+            }
+        }
+        path.close();
+    }
+
+    /**
+     * 把四个角组成的闭合四边形加入路径
+     */
+    private static void addPolygon(Path path, float[] corners) {
+        path.moveTo(corners[0], corners[1]);
+        path.lineTo(corners[2], corners[3]);
+        path.lineTo(corners[4], corners[5]);
+        path.lineTo(corners[6], corners[7]);
+        path.close();
+    }
+
+    private void drawGuidelines(Canvas canvas, CropWindow window) {
+        float left = window.getLeft();
+        float top = window.getTop();
+        float right = window.getRight();
+        float bottom = window.getBottom();
+        Point[] points = mGuidelinePoints;
+
+        // 椭圆形状时把指导线截到椭圆以内
+        float insetX = 0;
+        float insetY = 0;
+        if (mShape == CropShape.OVAL) {
+            insetX = window.getWidth() / 2 * (1 - OVAL_GUIDELINE_EXTENT);
+            insetY = window.getHeight() / 2 * (1 - OVAL_GUIDELINE_EXTENT);
+        }
+
+        // 绘制垂直线
+        float oneThirdCropWidth = window.getWidth() / 3;
+
+        float x1 = left + oneThirdCropWidth;
+        points[0].modify(x1, top + insetY);
+        points[1].modify(x1, bottom - insetY);
+        canvas.drawLine(points[0], points[1], mGuidelinePaint);
+        float x2 = right - oneThirdCropWidth;
+        points[2].modify(x2, top + insetY);
+        points[3].modify(x2, bottom - insetY);
+        canvas.drawLine(points[2], points[3], mGuidelinePaint);
+
+        // 画水平线
+        float oneThirdCropHeight = window.getHeight() / 3;
+
+        float y1 = top + oneThirdCropHeight;
+        points[4].modify(left + insetX, y1);
+        points[5].modify(right - insetX, y1);
+        canvas.drawLine(points[4], points[5], mGuidelinePaint);
+        float y2 = bottom - oneThirdCropHeight;
+        points[6].modify(left + insetX, y2);
+        points[7].modify(right - insetX, y2);
+        canvas.drawLine(points[6], points[7], mGuidelinePaint);
+    }
+
+    private void drawBorder(Canvas canvas, CropWindow window) {
+        RectFloat rect = mBorderRect;
+        rect.left = window.getLeft();
+        rect.top = window.getTop();
+        rect.right = window.getRight();
+        rect.bottom = window.getBottom();
+        drawShape(canvas, rect, mBorderPaint);
+    }
+
+    private void drawShape(Canvas canvas, RectFloat rect, Paint paint) {
+        if (mShape == CropShape.OVAL) {
+            canvas.drawOval(rect, paint);
+        } else {
+            canvas.drawRect(rect, paint);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.crop.cropperlib.render;
+
+import com.crop.cropperlib.border.CropQuad;
+import com.crop.cropperlib.border.CropWindow;
+
+/**
+ * 记录一次几何修改前的裁剪窗口，修改后判断几何是否真的发生了变化
+ *
+ * 拖动被边界夹住或触点没有移动时，修改不会改变任何坐标，这时不需要重绘。
+ * 组件只支持整体重绘，所以这里只给出是否变化，不计算重绘区域。
+ */
+public class GeometryChangeTracker {
+
+    // 修改前的裁剪窗口快照
+    private final CropWindow mBefore = new CropWindow();
+
+    // 透视模式下修改前的四边形快照
+    private final CropQuad mQuadBefore = new CropQuad();
+
+    /**
+     * 在修改裁剪窗口之前调用，记录当前几何
+     *
+     * @param window 即将被修改的裁剪窗口
+     */
+    public void begin(CropWindow window) {
+        mBefore.set(window);
+    }
+
+    /**
+     * 在修改裁剪窗口之后调用
+     *
+     * @param window 已修改的裁剪窗口
+     *
+     * @return 几何是否发生了变化；未变化时不需要重绘
+     */
+    public boolean end(CropWindow window) {
+        return !mBefore.contentEquals(window);
+    }
+
+    /**
+     * 透视模式下，在修改四边形之前调用
+     *
+     * @param quad 即将被修改的四边形
+     */
+    public void begin(CropQuad quad) {
+        mQuadBefore.set(quad);
+    }
+
+    /**
+     * 透视模式下，在修改四边形之后调用
+     *
+     * @param quad 已修改的四边形
+     *
+     * @return 几何是否发生了变化
+     */
+    public boolean end(CropQuad quad) {
+        return !mQuadBefore.contentEquals(quad);
+    }
+}
@@ -0,0 +1,198 @@
+package com.crop.cropperlib.render;
+
+import com.crop.cropperlib.source.CropSource;
+import com.crop.cropperlib.tile.Tile;
+import com.crop.cropperlib.tile.TileCache;
+import com.crop.cropperlib.tile.TileLoader;
+import com.crop.cropperlib.tile.TilePyramid;
+import com.crop.cropperlib.touch.ZoomPanState;
+import ohos.agp.render.Canvas;
+import ohos.agp.render.Paint;
+import ohos.agp.render.PixelMapHolder;
+import ohos.agp.utils.RectFloat;
+import ohos.app.dispatcher.TaskDispatcher;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.Size;
+
+/**
+ * 绘制缩放后的图片
+ *
+ * 先把预览图中可见的部分放大铺满图片边界框，再在上面绘制原图金字塔中与当前缩放匹配的那一层的可见方块。
+ * 缺少的方块交给后台加载，加载完成前显示的是放大的预览图。只有缩放后预览图的分辨率不足时才会使用方块，
+ * 因此任何时候都只解码可见区域，从不解码整张原图。
+ * 所有方法都必须在UI线程调用。
+ */
+public class ZoomedImageRenderer {
+
+    // 默认的方块缓存字节预算
+    public static final long DEFAULT_TILE_CACHE_MAX_BYTES = 32L * 1024 * 1024;
+
+    private final Paint mPaint = new Paint();
+
+    // 每次绘制复用的源矩形和目标矩形
+    private final RectFloat mSrcRect = new RectFloat();
+    private final RectFloat mDstRect = new RectFloat();
+
+    private final TileCache mTileCache = new TileCache(DEFAULT_TILE_CACHE_MAX_BYTES);
+
+    // 预览图及其绘制用的PixelMapHolder
+    private PixelMap mPreview;
+    private PixelMapHolder mPreviewHolder;
+
+    // 原图金字塔；为null时只放大预览图
+    private TilePyramid mPyramid;
+    private TileLoader mTileLoader;
+
+    // 上一次绘制使用的金字塔层
+    private int mLevel = -1;
+
+    /**
+     * 设置原图，之后缩放时会加载原图方块
+     *
+     * @param source       原图；为null时只放大预览图
+     * @param uiDispatcher UI线程的任务分发器
+     * @param listener     方块加载完成时的回调，通常用于重绘
+     */
+    public void setSource(CropSource source, TaskDispatcher uiDispatcher, TileLoader.Listener listener) {
+        releaseTiles();
+        if (source != null) {
+            mPyramid = new TilePyramid(source);
+            mTileLoader = new TileLoader(mPyramid, mTileCache, uiDispatcher, listener);
+        }
+    }
+
+    /**
+     * 设置方块缓存的字节预算，超出的方块会被立即释放
+     */
+    public void setTileCacheMaxBytes(long maxBytes) {
+        mTileCache.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * 释放所有方块并放弃尚未完成的加载
+     */
+    public void releaseTiles() {
+        if (mTileLoader != null) {
+            mTileLoader.cancelAll();
+            mTileLoader = null;
+        }
+        mPyramid = null;
+        mTileCache.clear();
+        mLevel = -1;
+    }
+
+    /**
+     * 绘制缩放后的图片
+     *
+     * @param canvas  画布
+     * @param preview 组件显示的预览图
+     * @param zoomPan 缩放和平移状态
+     * @param bounds  图片在组件中的边界框
+     */
+    public void draw(Canvas canvas, PixelMap preview, ZoomPanState zoomPan, RectFloat bounds) {
+        float boundsWidth = bounds.getWidth();
+        float boundsHeight = bounds.getHeight();
+        if (preview == null || boundsWidth <= 0 || boundsHeight <= 0) {
+            return;
+        }
+        float zoom = zoomPan.getZoom();
+        float panX = zoomPan.getPanX();
+        float panY = zoomPan.getPanY();
+
+        // 预览图中可见的部分放大铺满边界框
+        Size previewSize = preview.getImageInfo().size;
+        float previewPerBaseX = previewSize.width / boundsWidth;
+        float previewPerBaseY = previewSize.height / boundsHeight;
+        mSrcRect.left = panX * previewPerBaseX;
+        mSrcRect.top = panY * previewPerBaseY;
+        mSrcRect.right = (panX + boundsWidth / zoom) * previewPerBaseX;
+        mSrcRect.bottom = (panY + boundsHeight / zoom) * previewPerBaseY;
+        canvas.drawPixelMapHolderRect(getPreviewHolder(preview), mSrcRect, bounds, mPaint);
+
+        if (mPyramid == null) {
+            return;
+        }
+        CropSource source = mPyramid.getSource();
+        float sourcePerBaseX = source.getWidth() / boundsWidth;
+        float sourcePerBaseY = source.getHeight() / boundsHeight;
+        float displayPerSource = zoom / sourcePerBaseX;
+        if (displayPerSource * source.getWidth() <= previewSize.width) {
+            // 预览图的分辨率已经足够
+            return;
+        }
+
+        int level = mPyramid.getLevel(displayPerSource);
+        if (level != mLevel) {
+            // 层变化后，之前请求的其他层方块都已不再需要
+            mTileLoader.cancelAll();
+            mLevel = level;
+        }
+
+        // 可见区域在原图中的范围
+        int span = mPyramid.getTileSpan(level);
+        float sourceLeft = panX * sourcePerBaseX;
+        float sourceTop = panY * sourcePerBaseY;
+        float sourceRight = (panX + boundsWidth / zoom) * sourcePerBaseX;
+        float sourceBottom = (panY + boundsHeight / zoom) * sourcePerBaseY;
+        int firstColumn = Math.max(0, (int) (sourceLeft / span));
+        int lastColumn = Math.min(mPyramid.getColumnCount(level) - 1, (int) Math.ceil(sourceRight / span) - 1);
+        int firstRow = Math.max(0, (int) (sourceTop / span));
+        int lastRow = Math.min(mPyramid.getRowCount(level) - 1, (int) Math.ceil(sourceBottom / span) - 1);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Tile tile = mTileCache.get(TilePyramid.key(level, column, row));
+                if (tile == null) {
+                    mTileLoader.request(level, column, row);
+                    continue;
+                }
+                float tileLeft = column * span;
+                float tileTop = row * span;
+                float tileRight = Math.min(tileLeft + span, source.getWidth());
+                float tileBottom = Math.min(tileTop + span, source.getHeight());
+                drawTile(canvas, tile, tileLeft, tileTop, tileRight, tileBottom,
+                        sourceLeft, sourceTop, sourceRight, sourceBottom, bounds);
+            }
+        }
+    }
+
+    /**
+     * 绘制一个方块与可见区域相交的部分
+     */
+    private void drawTile(Canvas canvas, Tile tile, float tileLeft, float tileTop, float tileRight, float tileBottom,
+                          float visibleLeft, float visibleTop, float visibleRight, float visibleBottom,
+                          RectFloat bounds) {
+        float left = Math.max(tileLeft, visibleLeft);
+        float top = Math.max(tileTop, visibleTop);
+        float right = Math.min(tileRight, visibleRight);
+        float bottom = Math.min(tileBottom, visibleBottom);
+        if (right <= left || bottom <= top) {
+            return;
+        }
+        float tileScaleX = tile.getWidth() / (tileRight - tileLeft);
+        float tileScaleY = tile.getHeight() / (tileBottom - tileTop);
+        mSrcRect.left = (left - tileLeft) * tileScaleX;
+        mSrcRect.top = (top - tileTop) * tileScaleY;
+        mSrcRect.right = (right - tileLeft) * tileScaleX;
+        mSrcRect.bottom = (bottom - tileTop) * tileScaleY;
+
+        float viewScaleX = bounds.getWidth() / (visibleRight - visibleLeft);
+        float viewScaleY = bounds.getHeight() / (visibleBottom - visibleTop);
+        mDstRect.left = bounds.left + (left - visibleLeft) * viewScaleX;
+        mDstRect.top = bounds.top + (top - visibleTop) * viewScaleY;
+        mDstRect.right = bounds.left + (right - visibleLeft) * viewScaleX;
+        mDstRect.bottom = bounds.top + (bottom - visibleTop) * viewScaleY;
+        canvas.drawPixelMapHolderRect(tile.getHolder(), mSrcRect, mDstRect, mPaint);
+    }
+
+    private PixelMapHolder getPreviewHolder(PixelMap preview) {
+        if (preview != mPreview) {
+            if (mPreviewHolder != null) {
+                mPreviewHolder.release();
+            }
+            mPreview = preview;
+            mPreviewHolder = new PixelMapHolder(preview);
+        }
+        return mPreviewHolder;
+    }
+}
@@ -0,0 +1,142 @@
+package com.crop.cropperlib.source;
+
+import ohos.media.image.ImageSource;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.PixelFormat;
+import ohos.media.image.common.Rect;
+import ohos.media.image.common.Size;
+
+/**
+ * 被裁剪的原始编码图片
+ *
+ * 只保存ImageSource和原图尺寸，不持有完整解码的位图。显示用的预览图按缩小后的尺寸解码，
+ * 导出时只解码裁剪区域对应的原图像素。
+ */
+public class CropSource {
+
+    private final ImageSource mImageSource;
+
+    // 原图尺寸
+    private final int mWidth;
+    private final int mHeight;
+
+    /**
+     * @param imageSource 原始编码图片
+     */
+    public CropSource(ImageSource imageSource) {
+        if (imageSource == null) {
+            throw new IllegalArgumentException("imageSource is null");
+        }
+        mImageSource = imageSource;
+        Size size = imageSource.getImageInfo().size;
+        mWidth = size.width;
+        mHeight = size.height;
+    }
+
+    /**
+     * 获取原图宽度
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * 获取原图高度
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * 解码一张不超过给定尺寸、保持宽高比的预览图；原图更小时按原尺寸解码
+     *
+     * @param maxWidth  预览图最大宽度
+     * @param maxHeight 预览图最大高度
+     *
+     * @return 预览图
+     */
+    public PixelMap decodePreview(int maxWidth, int maxHeight) {
+        ImageSource.DecodingOptions options = new ImageSource.DecodingOptions();
+        options.desiredSize = getPreviewSize(maxWidth, maxHeight);
+        options.desiredPixelFormat = PixelFormat.ARGB_8888;
+        return mImageSource.createPixelmap(options);
+    }
+
+    /**
+     * 计算{@link #decodePreview(int, int)}解码的预览图尺寸
+     *
+     * @param maxWidth  预览图最大宽度
+     * @param maxHeight 预览图最大高度
+     *
+     * @return 预览图尺寸
+     */
+    public Size getPreviewSize(int maxWidth, int maxHeight) {
+        float scale = Math.min(1f, Math.min((float) maxWidth / mWidth, (float) maxHeight / mHeight));
+        int width = Math.max(1, Math.round(mWidth * scale));
+        int height = Math.max(1, Math.round(mHeight * scale));
+        return new Size(width, height);
+    }
+
+    /**
+     * 只解码原图中给定的区域
+     *
+     * @param region 原图坐标系中的区域，超出原图的部分会被裁掉
+     *
+     * @return 区域内的原图像素
+     */
+    public PixelMap decodeRegion(Rect region) {
+        Rect clipped = clip(region);
+        return decodeClippedRegion(clipped, clipped.width, clipped.height, false);
+    }
+
+    /**
+     * 只解码原图中给定的区域，并缩小到给定尺寸
+     *
+     * @param region 原图坐标系中的区域，超出原图的部分会被裁掉
+     * @param width  输出宽度
+     * @param height 输出高度
+     *
+     * @return 区域内缩小后的像素
+     */
+    public PixelMap decodeRegion(Rect region, int width, int height) {
+        return decodeClippedRegion(clip(region), width, height, false);
+    }
+
+    /**
+     * 只解码原图中给定的区域，并缩小到给定尺寸
+     *
+     * @param region   原图坐标系中的区域，超出原图的部分会被裁掉
+     * @param width    输出宽度
+     * @param height   输出高度
+     * @param editable 结果是否可以写入像素，例如就地加遮罩
+     *
+     * @return 区域内缩小后的像素
+     */
+    public PixelMap decodeRegion(Rect region, int width, int height, boolean editable) {
+        return decodeClippedRegion(clip(region), width, height, editable);
+    }
+
+    private PixelMap decodeClippedRegion(Rect region, int width, int height, boolean editable) {
+        ImageSource.DecodingOptions options = new ImageSource.DecodingOptions();
+        options.desiredRegion = region;
+        options.desiredSize = new Size(Math.max(1, width), Math.max(1, height));
+        options.desiredPixelFormat = PixelFormat.ARGB_8888;
+        options.editable = editable;
+        return mImageSource.createPixelmap(options);
+    }
+
+    /**
+     * 释放原始编码图片
+     */
+    public void release() {
+        mImageSource.release();
+    }
+
+    private Rect clip(Rect region) {
+        int left = Math.max(0, Math.min(region.minX, mWidth - 1));
+        int top = Math.max(0, Math.min(region.minY, mHeight - 1));
+        int width = Math.max(1, Math.min(region.width, mWidth - left));
+        int height = Math.max(1, Math.min(region.height, mHeight - top));
+        return new Rect(left, top, width, height);
+    }
+}
@@ -0,0 +1,164 @@
+package com.crop.cropperlib.state;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 可以持久化的裁剪几何：所有区域的裁剪窗口、选中的区域和透视四边形
+ *
+ * 坐标按图片归一化（图片左上角为0，右下角为1），与组件尺寸、预览图分辨率和缩放无关，
+ * 因此进程被杀后在不同的布局尺寸下也能恢复到图片上的同一位置。
+ * 二进制格式很紧凑（一个区域时共61字节，每多一个区域增加20字节），适合放进Ability的状态或一个小文件：
+ * 魔数、版本、区域数、选中区域的下标，之后是每个区域的左、上、右、下、角度和四边形的8个坐标，均为大端序。
+ */
+public final class CropState {
+
+    // 每个区域保存的值：左、上、右、下、角度
+    public static final int REGION_SIZE = 5;
+
+    private static final int MAGIC = 0x43524F50;
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 1 + 2 + 2;
+    private static final int QUAD_SIZE = 8;
+
+    private final float[] mRegions;
+    private final int mSelectedIndex;
+    private final float[] mQuad;
+
+    /**
+     * @param regions       每个区域依次为归一化的左、上、右、下和角度（度），至少一个区域
+     * @param selectedIndex 选中区域的下标
+     * @param quad          归一化的透视四边形，依次为左上、右上、右下、左下角的x, y坐标
+     */
+    public CropState(float[] regions, int selectedIndex, float[] quad) {
+        int count = regions.length / REGION_SIZE;
+        if (count == 0 || regions.length % REGION_SIZE != 0 || count > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid region data length " + regions.length);
+        }
+        if (selectedIndex < 0 || selectedIndex >= count) {
+            throw new IllegalArgumentException("selectedIndex out of range: " + selectedIndex);
+        }
+        if (quad.length != QUAD_SIZE) {
+            throw new IllegalArgumentException("quad must have 8 coordinates");
+        }
+        checkFinite(regions);
+        checkFinite(quad);
+        mRegions = regions.clone();
+        mSelectedIndex = selectedIndex;
+        mQuad = quad.clone();
+    }
+
+    /**
+     * 从{@link #toByteArray()}的结果恢复
+     *
+     * @throws IllegalArgumentException 数据不完整、末尾有多余的字节、版本不支持或包含非法的值
+     */
+    public static CropState fromByteArray(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("not a crop state");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported crop state version " + version);
+            }
+            int count = buffer.getShort();
+            int selectedIndex = buffer.getShort();
+            if (count <= 0) {
+                throw new IllegalArgumentException("invalid region count " + count);
+            }
+            float[] regions = new float[count * REGION_SIZE];
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = buffer.getFloat();
+            }
+            float[] quad = new float[QUAD_SIZE];
+            for (int i = 0; i < quad.length; i++) {
+                quad[i] = buffer.getFloat();
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException(buffer.remaining() + " trailing bytes after crop state");
+            }
+            return new CropState(regions, selectedIndex, quad);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated crop state", e);
+        }
+    }
+
+    /**
+     * 编码为二进制
+     */
+    public byte[] toByteArray() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (mRegions.length + QUAD_SIZE) * 4);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putShort((short) getRegionCount());
+        buffer.putShort((short) mSelectedIndex);
+        for (float value : mRegions) {
+            buffer.putFloat(value);
+        }
+        for (float value : mQuad) {
+            buffer.putFloat(value);
+        }
+        return buffer.array();
+    }
+
+    public int getRegionCount() {
+        return mRegions.length / REGION_SIZE;
+    }
+
+    public int getSelectedIndex() {
+        return mSelectedIndex;
+    }
+
+    /**
+     * 获取一个区域的归一化几何
+     *
+     * @param index 区域下标
+     * @param out   输出的左、上、右、下和角度，长度至少为{@link #REGION_SIZE}
+     */
+    public void getRegion(int index, float[] out) {
+        System.arraycopy(mRegions, index * REGION_SIZE, out, 0, REGION_SIZE);
+    }
+
+    /**
+     * 获取归一化的透视四边形
+     *
+     * @param out 输出的坐标，长度至少为8
+     */
+    public void getQuad(float[] out) {
+        System.arraycopy(mQuad, 0, out, 0, QUAD_SIZE);
+    }
+
+    private static void checkFinite(float[] values) {
+        for (float value : values) {
+            if (Float.isNaN(value) || Float.isInfinite(value)) {
+                throw new IllegalArgumentException("crop state contains " + value);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CropState)) {
+            return false;
+        }
+        CropState other = (CropState) obj;
+        return mSelectedIndex == other.mSelectedIndex && Arrays.equals(mRegions, other.mRegions)
+                && Arrays.equals(mQuad, other.mQuad);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(mRegions) + mSelectedIndex) + Arrays.hashCode(mQuad);
+    }
+
+    @Override
+    public String toString() {
+        return "CropState[" + getRegionCount() + " regions, selected " + mSelectedIndex + "]";
+    }
+}
@@ -0,0 +1,148 @@
+package com.crop.cropperlib.suggest;
+
+import com.crop.cropperlib.engine.ArgbBuffer;
+import com.crop.cropperlib.engine.CropSuggester;
+import com.crop.cropperlib.export.CropExecutors;
+import ohos.app.dispatcher.TaskDispatcher;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.Rect;
+import ohos.media.image.common.Size;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 在后台线程分析图片内容，分析完成后在UI线程交付推荐的裁剪窗口
+ *
+ * 请求时在调用线程上把图片缩小为长边不超过代理尺寸的副本并读出像素，之后图片可以立即被替换或释放；
+ * 分析在共享的{@link CropExecutors#getDefault()}线程池上进行，受时间预算限制，不为每个组件创建线程，也不需要关闭。
+ * 每次请求都会取消之前尚未交付的请求；被取消的分析每处理若干行就会发现并退出，很快让出复用的{@link CropSuggester}。
+ * {@link #request(PixelMap, float)}和{@link #cancel()}都必须在UI线程调用。
+ */
+public class CropSuggestionLoader {
+
+    /**
+     * 推荐结果的回调，在UI线程调用
+     */
+    public interface Listener {
+        /**
+         * @param rect 按图片归一化的左、上、右、下
+         */
+        void onCropSuggested(float[] rect);
+    }
+
+    private final TaskDispatcher mUiDispatcher;
+    private final Listener mListener;
+
+    // 复用内部缓冲，只在后台线程中持有它的锁时使用
+    private final CropSuggester mSuggester = new CropSuggester();
+
+    private int mProxySize = CropSuggester.DEFAULT_PROXY_SIZE;
+    private long mTimeBudgetNanos = CropSuggester.DEFAULT_TIME_BUDGET_NANOS;
+
+    // 每次请求或取消后递增；旧的请求在分析中和交付前发现代数变化即放弃
+    private volatile int mGeneration;
+
+    public CropSuggestionLoader(TaskDispatcher uiDispatcher, Listener listener) {
+        mUiDispatcher = uiDispatcher;
+        mListener = listener;
+    }
+
+    /**
+     * 设置代理图的最大长边，越大越准确也越慢
+     *
+     * @param proxySize 代理图的最大长边（像素）
+     */
+    public void setProxySize(int proxySize) {
+        if (proxySize <= 0) {
+            throw new IllegalArgumentException("proxySize must be positive");
+        }
+        mProxySize = proxySize;
+    }
+
+    /**
+     * 设置分析的时间预算，到达后交付已找到的最好结果
+     *
+     * @param timeBudgetMs 时间预算（毫秒）
+     */
+    public void setTimeBudgetMs(long timeBudgetMs) {
+        if (timeBudgetMs < 0) {
+            throw new IllegalArgumentException("timeBudgetMs must not be negative");
+        }
+        mTimeBudgetNanos = timeBudgetMs * 1000000L;
+    }
+
+    /**
+     * 请求分析一张图片，取消之前的请求。线程池的等待队列已满时放弃这次推荐
+     *
+     * @param pixelMap    图片，方法返回后即可替换或释放
+     * @param aspectRatio 窗口的纵横比（宽 / 高）；小于等于0时使用图片本身的纵横比
+     */
+    public void request(PixelMap pixelMap, final float aspectRatio) {
+        final int generation = ++mGeneration;
+        final ArgbBuffer proxy = createProxy(pixelMap);
+        final long budgetNanos = mTimeBudgetNanos;
+        Runnable analysis = new Runnable() {
+            @Override
+            public void run() {
+                final float[] rect = new float[4];
+                boolean suggested;
+                synchronized (mSuggester) {
+                    suggested = generation == mGeneration && mSuggester.suggest(proxy, aspectRatio, budgetNanos,
+                            new CropSuggester.Cancellation() {
+                                @Override
+                                public boolean isCancelled() {
+                                    return generation != mGeneration;
+                                }
+                            }, rect);
+                }
+                if (!suggested) {
+                    return;
+                }
+                mUiDispatcher.asyncDispatch(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            mListener.onCropSuggested(rect);
+                        }
+                    }
+                });
+            }
+        };
+        try {
+            CropExecutors.getDefault().execute(analysis);
+        } catch (RejectedExecutionException e) {
+            // 推荐只是辅助功能，导出任务繁忙时直接放弃
+        }
+    }
+
+    /**
+     * 放弃尚未交付的请求，例如图片变化或用户开始操作时
+     */
+    public void cancel() {
+        mGeneration++;
+    }
+
+    /**
+     * 把图片缩小为长边不超过代理尺寸的副本并读出像素
+     */
+    private ArgbBuffer createProxy(PixelMap pixelMap) {
+        Size size = pixelMap.getImageInfo().size;
+        float scale = Math.min(1f, (float) mProxySize / Math.max(size.width, size.height));
+        int width = Math.max(1, Math.round(size.width * scale));
+        int height = Math.max(1, Math.round(size.height * scale));
+        ArgbBuffer proxy = new ArgbBuffer(width, height);
+        if (scale == 1) {
+            pixelMap.readPixels(proxy.getPixels(), 0, width, new Rect(0, 0, width, height));
+            return proxy;
+        }
+        PixelMap.InitializationOptions options = new PixelMap.InitializationOptions();
+        options.size = new Size(width, height);
+        PixelMap scaled = PixelMap.create(pixelMap, options);
+        try {
+            scaled.readPixels(proxy.getPixels(), 0, width, new Rect(0, 0, width, height));
+        } finally {
+            scaled.release();
+        }
+        return proxy;
+    }
+}
@@ -0,0 +1,80 @@
+package com.crop.cropperlib.tile;
+
+import ohos.agp.render.PixelMapHolder;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.Size;
+
+/**
+ * 金字塔中某一层的一个已解码方块
+ */
+public class Tile {
+
+    private final int mLevel;
+    private final int mColumn;
+    private final int mRow;
+    private final PixelMap mPixelMap;
+    private final PixelMapHolder mHolder;
+    private final int mWidth;
+    private final int mHeight;
+    private final long mBytes;
+
+    Tile(int level, int column, int row, PixelMap pixelMap) {
+        mLevel = level;
+        mColumn = column;
+        mRow = row;
+        mPixelMap = pixelMap;
+        mHolder = new PixelMapHolder(pixelMap);
+        Size size = pixelMap.getImageInfo().size;
+        mWidth = size.width;
+        mHeight = size.height;
+        mBytes = pixelMap.getPixelBytesNumber();
+    }
+
+    public int getLevel() {
+        return mLevel;
+    }
+
+    public int getColumn() {
+        return mColumn;
+    }
+
+    public int getRow() {
+        return mRow;
+    }
+
+    /**
+     * 获取方块的像素宽度
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * 获取方块的像素高度
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * 获取用于绘制的PixelMapHolder
+     */
+    public PixelMapHolder getHolder() {
+        return mHolder;
+    }
+
+    /**
+     * 获取像素占用的字节数
+     */
+    public long getBytes() {
+        return mBytes;
+    }
+
+    /**
+     * 释放像素
+     */
+    void release() {
+        mHolder.release();
+        mPixelMap.release();
+    }
+}
@@ -0,0 +1,28 @@
+package com.crop.cropperlib.tile;
+
+import com.crop.cropperlib.cache.LruByteCache;
+
+/**
+ * 已解码方块的LRU缓存，按像素字节数限制内存，被淘汰的方块会立即释放
+ *
+ * 方块在绘制时被使用，因此放入和淘汰都只应在UI线程进行。
+ */
+public class TileCache extends LruByteCache<Long, Tile> {
+
+    /**
+     * @param maxBytes 字节预算
+     */
+    public TileCache(long maxBytes) {
+        super(maxBytes);
+    }
+
+    @Override
+    protected long sizeOf(Tile value) {
+        return value.getBytes();
+    }
+
+    @Override
+    protected void onRemoved(Long key, Tile value) {
+        value.release();
+    }
+}
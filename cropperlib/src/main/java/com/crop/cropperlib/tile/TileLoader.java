@@ -0,0 +1,90 @@
+package com.crop.cropperlib.tile;
+
+import com.crop.cropperlib.export.CropExecutors;
+import ohos.app.dispatcher.TaskDispatcher;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 在后台线程解码方块，解码完成后在UI线程放入缓存并通知重绘
+ *
+ * 解码在共享的{@link CropExecutors#getDefault()}线程池上进行，不为每个组件创建线程，也不需要关闭；
+ * 组件丢弃后，尚未执行的请求发现代数变化即放弃。
+ * {@link #request(int, int, int)}和{@link #cancelAll()}都必须在UI线程调用。
+ */
+public class TileLoader {
+
+    /**
+     * 方块加载完成的回调，在UI线程调用
+     */
+    public interface Listener {
+        void onTileLoaded();
+    }
+
+    private final TilePyramid mPyramid;
+    private final TileCache mCache;
+    private final TaskDispatcher mUiDispatcher;
+    private final Listener mListener;
+
+    // 已请求但尚未放入缓存的方块，只在UI线程访问
+    private final Set<Long> mPending = new HashSet<>();
+
+    // 每次cancelAll()后递增；旧的请求在解码前后发现代数变化即放弃
+    private volatile int mGeneration;
+
+    public TileLoader(TilePyramid pyramid, TileCache cache, TaskDispatcher uiDispatcher, Listener listener) {
+        mPyramid = pyramid;
+        mCache = cache;
+        mUiDispatcher = uiDispatcher;
+        mListener = listener;
+    }
+
+    /**
+     * 请求加载一个方块；已在缓存中或已在加载中的方块会被忽略。线程池的等待队列已满时放弃这次请求，
+     * 之后的绘制会再次请求该方块
+     */
+    public void request(final int level, final int column, final int row) {
+        final Long key = TilePyramid.key(level, column, row);
+        if (mPending.contains(key) || mCache.containsKey(key)) {
+            return;
+        }
+        mPending.add(key);
+        final int generation = mGeneration;
+        Runnable decode = new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mGeneration) {
+                    return;
+                }
+                final Tile tile = mPyramid.decode(level, column, row);
+                mUiDispatcher.asyncDispatch(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            tile.release();
+                            return;
+                        }
+                        mPending.remove(key);
+                        mCache.put(key, tile);
+                        mListener.onTileLoaded();
+                    }
+                });
+            }
+        };
+        try {
+            CropExecutors.getDefault().execute(decode);
+        } catch (RejectedExecutionException e) {
+            mPending.remove(key);
+        }
+    }
+
+    /**
+     * 放弃所有尚未完成的请求，例如缩放层级变化时
+     */
+    public void cancelAll() {
+        mGeneration++;
+        mPending.clear();
+    }
+}
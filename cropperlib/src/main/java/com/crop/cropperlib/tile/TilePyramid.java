@@ -0,0 +1,109 @@
+package com.crop.cropperlib.tile;
+
+import com.crop.cropperlib.source.CropSource;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.Rect;
+
+/**
+ * 原图的分辨率金字塔
+ *
+ * 第level层是原图缩小2^level倍的结果，每层被划分为边长tileSize的方块。每个方块按需从原图区域解码，
+ * 因此任何时候都不会解码整张原图。
+ */
+public class TilePyramid {
+
+    // 默认方块边长（以所在层的像素为单位）
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    private final CropSource mSource;
+    private final int mTileSize;
+    private final int mLevelCount;
+
+    public TilePyramid(CropSource source) {
+        this(source, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * @param source   原图
+     * @param tileSize 方块边长
+     */
+    public TilePyramid(CropSource source, int tileSize) {
+        mSource = source;
+        mTileSize = tileSize;
+        int levels = 1;
+        int longest = Math.max(source.getWidth(), source.getHeight());
+        while ((longest >> (levels - 1)) > tileSize) {
+            levels++;
+        }
+        mLevelCount = levels;
+    }
+
+    public CropSource getSource() {
+        return mSource;
+    }
+
+    public int getLevelCount() {
+        return mLevelCount;
+    }
+
+    /**
+     * 选择显示时使用的层：该层的一个像素不小于一个屏幕像素
+     *
+     * @param displayPerSource 每个原图像素对应的屏幕像素数
+     *
+     * @return 层号
+     */
+    public int getLevel(float displayPerSource) {
+        int level = 0;
+        float scale = displayPerSource;
+        while (scale <= 0.5f && level < mLevelCount - 1) {
+            scale *= 2;
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * 获取一个方块覆盖的原图像素边长
+     */
+    public int getTileSpan(int level) {
+        return mTileSize << level;
+    }
+
+    /**
+     * 获取某一层的列数
+     */
+    public int getColumnCount(int level) {
+        int span = getTileSpan(level);
+        return (mSource.getWidth() + span - 1) / span;
+    }
+
+    /**
+     * 获取某一层的行数
+     */
+    public int getRowCount(int level) {
+        int span = getTileSpan(level);
+        return (mSource.getHeight() + span - 1) / span;
+    }
+
+    /**
+     * 把层号和行列号编码为缓存使用的键
+     */
+    public static long key(int level, int column, int row) {
+        return ((long) level << 48) | ((long) row << 24) | column;
+    }
+
+    /**
+     * 解码一个方块，在后台线程调用
+     */
+    Tile decode(int level, int column, int row) {
+        int span = getTileSpan(level);
+        int left = column * span;
+        int top = row * span;
+        int width = Math.min(span, mSource.getWidth() - left);
+        int height = Math.min(span, mSource.getHeight() - top);
+        PixelMap pixelMap = mSource.decodeRegion(new Rect(left, top, width, height),
+                (width + (1 << level) - 1) >> level, (height + (1 << level) - 1) >> level);
+        return new Tile(level, column, row, pixelMap);
+    }
+}
@@ -0,0 +1,182 @@
+package com.crop.cropperlib.touch;
+
+import ohos.app.dispatcher.TaskDispatcher;
+import ohos.app.dispatcher.task.Revocable;
+
+/**
+ * 将一帧之内收到的多个移动采样合并为一次处理
+ *
+ * 触摸屏的采样率通常高于屏幕刷新率。每个移动采样只记录下最新的位置，并且每个帧间隔最多向UI线程投递一次处理任务，
+ * 任务执行时只把最新（或按速度预测的）位置交给目标，其余采样被丢弃并计数。
+ * HarmonyOS的Java接口没有垂直同步回调，帧间隔由定时器近似，应按屏幕刷新率设置（见{@link #getFrameIntervalMs(float)}），
+ * 否则在90Hz或120Hz的屏幕上会降低处理频率并增加最多一帧的延迟。定时器的精度为1毫秒。
+ * 所有方法都必须在UI线程调用。
+ */
+public class MoveCoalescer {
+
+    /**
+     * 接收合并后的移动位置
+     */
+    public interface Target {
+        void onCoalescedMove(float x, float y);
+    }
+
+    // 默认帧间隔，对应60Hz刷新率，在无法获取刷新率时使用
+    public static final long DEFAULT_FRAME_INTERVAL_MS = 16;
+
+    private static final float MILLIS_PER_SECOND = 1000f;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final TaskDispatcher mDispatcher;
+    private final Target mTarget;
+
+    // 预先创建的处理任务，避免每帧分配
+    private final Runnable mFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            mScheduled = null;
+            flush(mPredictionEnabled);
+        }
+    };
+
+    private long mFrameIntervalMs = DEFAULT_FRAME_INTERVAL_MS;
+    private boolean mPredictionEnabled;
+
+    // 最新采样及其前一个采样，用于计算速度
+    private float mLatestX;
+    private float mLatestY;
+    private long mLatestTimeNanos;
+    private float mPreviousX;
+    private float mPreviousY;
+    private long mPreviousTimeNanos;
+    private boolean mHasPrevious;
+
+    // 尚未处理的采样数
+    private int mPendingCount;
+
+    // 已投递但尚未执行的处理任务；为null表示没有任务
+    private Revocable mScheduled;
+
+    // 上一次处理的时间
+    private long mLastFlushNanos;
+
+    // 被合并掉的采样总数
+    private long mDroppedCount;
+
+    public MoveCoalescer(TaskDispatcher dispatcher, Target target) {
+        mDispatcher = dispatcher;
+        mTarget = target;
+    }
+
+    /**
+     * 设置帧间隔，即两次处理之间的最短时间
+     *
+     * @param frameIntervalMs 帧间隔（毫秒）
+     */
+    public void setFrameIntervalMs(long frameIntervalMs) {
+        mFrameIntervalMs = Math.max(0, frameIntervalMs);
+    }
+
+    /**
+     * 按屏幕刷新率计算帧间隔，向下取整，使处理频率不低于刷新率
+     *
+     * @param refreshRate 刷新率（Hz）
+     *
+     * @return 帧间隔（毫秒），至少为1；刷新率不是正数时为{@link #DEFAULT_FRAME_INTERVAL_MS}
+     */
+    public static long getFrameIntervalMs(float refreshRate) {
+        if (!(refreshRate > 0)) {
+            return DEFAULT_FRAME_INTERVAL_MS;
+        }
+        return Math.max(1, (long) (MILLIS_PER_SECOND / refreshRate));
+    }
+
+    /**
+     * 开启后，处理时会根据最近两个采样的速度把位置外推到处理时刻之后半帧
+     */
+    public void setPredictionEnabled(boolean predictionEnabled) {
+        mPredictionEnabled = predictionEnabled;
+    }
+
+    /**
+     * 记录一个新的移动采样，必要时投递处理任务
+     */
+    public void offer(float x, float y) {
+        long now = System.nanoTime();
+        if (mPendingCount > 0) {
+            mDroppedCount++;
+        }
+        if (mLatestTimeNanos != 0) {
+            mPreviousX = mLatestX;
+            mPreviousY = mLatestY;
+            mPreviousTimeNanos = mLatestTimeNanos;
+            mHasPrevious = true;
+        }
+        mLatestX = x;
+        mLatestY = y;
+        mLatestTimeNanos = now;
+        mPendingCount++;
+
+        if (mScheduled == null) {
+            long elapsedMs = (now - mLastFlushNanos) / NANOS_PER_MILLI;
+            long delayMs = mFrameIntervalMs - elapsedMs;
+            if (delayMs > 0) {
+                mScheduled = mDispatcher.delayDispatch(mFlushTask, delayMs);
+            } else {
+                mScheduled = mDispatcher.asyncDispatch(mFlushTask);
+            }
+        }
+    }
+
+    /**
+     * 立即按实际的最新位置处理尚未处理的采样并结束本次手势，在手指抬起时调用，保证最后的位置不会丢失
+     */
+    public void finish() {
+        flush(false);
+        reset();
+    }
+
+    private void flush(boolean predict) {
+        if (mScheduled != null) {
+            mScheduled.revoke();
+            mScheduled = null;
+        }
+        if (mPendingCount == 0) {
+            return;
+        }
+        mPendingCount = 0;
+        mLastFlushNanos = System.nanoTime();
+
+        float x = mLatestX;
+        float y = mLatestY;
+        if (predict && mHasPrevious && mLatestTimeNanos > mPreviousTimeNanos) {
+            // 线性外推到当前时刻之后半帧，即大约下一帧显示的时刻
+            float dt = mLatestTimeNanos - mPreviousTimeNanos;
+            float lookahead = (mLastFlushNanos - mLatestTimeNanos) + mFrameIntervalMs * NANOS_PER_MILLI / 2f;
+            x += (mLatestX - mPreviousX) / dt * lookahead;
+            y += (mLatestY - mPreviousY) / dt * lookahead;
+        }
+        mTarget.onCoalescedMove(x, y);
+    }
+
+    /**
+     * 丢弃尚未处理的采样并重置速度，在一次手势结束或被取消时调用
+     */
+    public void reset() {
+        if (mScheduled != null) {
+            mScheduled.revoke();
+            mScheduled = null;
+        }
+        mPendingCount = 0;
+        mHasPrevious = false;
+        mLatestTimeNanos = 0;
+    }
+
+    /**
+     * 获取被合并掉（未单独处理）的采样总数
+     */
+    public long getDroppedCount() {
+        return mDroppedCount;
+    }
+}
@@ -0,0 +1,183 @@
+package com.crop.cropperlib.touch;
+
+/**
+ * 图片在组件中的缩放和平移状态，以及双指缩放手势的计算
+ *
+ * 坐标分为两种：组件坐标，即屏幕上的位置；基准坐标，即未缩放时图片在组件中的位置。
+ * 缩放为zoom时，图片边界框内组件坐标p对应基准坐标 boundsLeft + panX + (p - boundsLeft) / zoom，y方向同理。
+ * 平移总是被限制在图片边界框之内，使缩放后的图片始终铺满边界框。
+ */
+public class ZoomPanState {
+
+    public static final float MIN_ZOOM = 1f;
+
+    private float mZoom = MIN_ZOOM;
+    private float mMaxZoom = MIN_ZOOM;
+
+    // 可见区域左上角相对于边界框左上角的基准坐标偏移
+    private float mPanX;
+    private float mPanY;
+
+    // 图片边界框（组件坐标）
+    private float mBoundsLeft;
+    private float mBoundsTop;
+    private float mBoundsWidth;
+    private float mBoundsHeight;
+
+    // 双指手势开始时的状态
+    private boolean mPinching;
+    private float mStartZoom;
+    private float mStartDistance;
+    private float mStartBaseX;
+    private float mStartBaseY;
+
+    /**
+     * 设置图片边界框，会重置缩放
+     */
+    public void setBounds(float left, float top, float width, float height) {
+        mBoundsLeft = left;
+        mBoundsTop = top;
+        mBoundsWidth = width;
+        mBoundsHeight = height;
+        reset();
+    }
+
+    /**
+     * 设置最大缩放倍数
+     */
+    public void setMaxZoom(float maxZoom) {
+        mMaxZoom = Math.max(MIN_ZOOM, maxZoom);
+        setZoom(mZoom, mBoundsLeft, mBoundsTop);
+    }
+
+    /**
+     * 恢复到未缩放的状态
+     */
+    public void reset() {
+        mZoom = MIN_ZOOM;
+        mPanX = 0;
+        mPanY = 0;
+        mPinching = false;
+    }
+
+    public float getZoom() {
+        return mZoom;
+    }
+
+    public float getMaxZoom() {
+        return mMaxZoom;
+    }
+
+    public float getPanX() {
+        return mPanX;
+    }
+
+    public float getPanY() {
+        return mPanY;
+    }
+
+    /**
+     * 是否处于缩放状态
+     */
+    public boolean isZoomed() {
+        return mZoom > MIN_ZOOM;
+    }
+
+    /**
+     * 是否正在进行双指手势
+     */
+    public boolean isPinching() {
+        return mPinching;
+    }
+
+    /**
+     * 以组件坐标中的一点为中心缩放
+     *
+     * @param zoom   新的缩放倍数
+     * @param focusX 缩放中心x坐标（组件坐标）
+     * @param focusY 缩放中心y坐标（组件坐标）
+     */
+    public void setZoom(float zoom, float focusX, float focusY) {
+        float baseX = toBaseX(focusX);
+        float baseY = toBaseY(focusY);
+        mZoom = Math.max(MIN_ZOOM, Math.min(zoom, mMaxZoom));
+        anchor(baseX, baseY, focusX, focusY);
+    }
+
+    /**
+     * 开始双指手势
+     *
+     * @param midX     两指中点x坐标（组件坐标）
+     * @param midY     两指中点y坐标（组件坐标）
+     * @param distance 两指距离
+     */
+    public void beginPinch(float midX, float midY, float distance) {
+        mPinching = true;
+        mStartZoom = mZoom;
+        mStartDistance = Math.max(distance, 1f);
+        mStartBaseX = toBaseX(midX);
+        mStartBaseY = toBaseY(midY);
+    }
+
+    /**
+     * 更新双指手势：缩放倍数按两指距离变化，手势开始时中点下的图片位置跟随当前中点，从而同时实现平移
+     *
+     * @return 缩放或平移是否发生了变化
+     */
+    public boolean updatePinch(float midX, float midY, float distance) {
+        if (!mPinching) {
+            return false;
+        }
+        float oldZoom = mZoom;
+        float oldPanX = mPanX;
+        float oldPanY = mPanY;
+        mZoom = Math.max(MIN_ZOOM, Math.min(mStartZoom * distance / mStartDistance, mMaxZoom));
+        anchor(mStartBaseX, mStartBaseY, midX, midY);
+        return oldZoom != mZoom || oldPanX != mPanX || oldPanY != mPanY;
+    }
+
+    /**
+     * 结束双指手势
+     */
+    public void endPinch() {
+        mPinching = false;
+    }
+
+    /**
+     * 组件坐标转换为基准坐标（x方向）
+     */
+    public float toBaseX(float viewX) {
+        return mBoundsLeft + mPanX + (viewX - mBoundsLeft) / mZoom;
+    }
+
+    /**
+     * 组件坐标转换为基准坐标（y方向）
+     */
+    public float toBaseY(float viewY) {
+        return mBoundsTop + mPanY + (viewY - mBoundsTop) / mZoom;
+    }
+
+    /**
+     * 基准坐标转换为组件坐标（x方向）
+     */
+    public float toViewX(float baseX) {
+        return mBoundsLeft + (baseX - mBoundsLeft - mPanX) * mZoom;
+    }
+
+    /**
+     * 基准坐标转换为组件坐标（y方向）
+     */
+    public float toViewY(float baseY) {
+        return mBoundsTop + (baseY - mBoundsTop - mPanY) * mZoom;
+    }
+
+    /**
+     * 调整平移，使基准坐标(baseX, baseY)显示在组件坐标(viewX, viewY)处，并限制在边界框之内
+     */
+    private void anchor(float baseX, float baseY, float viewX, float viewY) {
+        float panX = baseX - mBoundsLeft - (viewX - mBoundsLeft) / mZoom;
+        float panY = baseY - mBoundsTop - (viewY - mBoundsTop) / mZoom;
+        mPanX = Math.max(0, Math.min(panX, mBoundsWidth - mBoundsWidth / mZoom));
+        mPanY = Math.max(0, Math.min(panY, mBoundsHeight - mBoundsHeight / mZoom));
+    }
+}
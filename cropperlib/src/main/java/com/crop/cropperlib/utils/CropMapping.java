@@ -0,0 +1,123 @@
+package com.crop.cropperlib.utils;
+
+/**
+ * 组件坐标到位图像素坐标的仿射映射
+ *
+ * 每个方向都是 x' = x * scale + offset。组件的缩放平移、显示位图在组件中的位置和显示位图到原图的比例依次复合为一个映射，
+ * 全程使用double计算，只在得到像素区域时取整一次，因此导出的区域不受预览图分辨率的影响。
+ */
+public class CropMapping {
+
+    // mapRect输出数组中各个值的下标
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int WIDTH = 2;
+    public static final int HEIGHT = 3;
+
+    private double mScaleX = 1;
+    private double mOffsetX;
+    private double mScaleY = 1;
+    private double mOffsetY;
+
+    /**
+     * 恢复为恒等映射
+     */
+    public void reset() {
+        mScaleX = 1;
+        mOffsetX = 0;
+        mScaleY = 1;
+        mOffsetY = 0;
+    }
+
+    /**
+     * 复制另一个映射
+     */
+    public void set(CropMapping other) {
+        mScaleX = other.mScaleX;
+        mOffsetX = other.mOffsetX;
+        mScaleY = other.mScaleY;
+        mOffsetY = other.mOffsetY;
+    }
+
+    /**
+     * 在当前映射之后再应用 x' = x * scaleX + offsetX、y' = y * scaleY + offsetY
+     */
+    public void postConcat(double scaleX, double offsetX, double scaleY, double offsetY) {
+        if (scaleX <= 0 || scaleY <= 0) {
+            throw new IllegalArgumentException("scale must be positive");
+        }
+        mOffsetX = mOffsetX * scaleX + offsetX;
+        mScaleX *= scaleX;
+        mOffsetY = mOffsetY * scaleY + offsetY;
+        mScaleY *= scaleY;
+    }
+
+    /**
+     * 在当前映射之后再应用组件坐标到显示位图像素的换算：扣除组件平移露出的部分后除以组件缩放，
+     * 位图大于组件时再加上居中显示时两侧被隐藏的部分
+     *
+     * @param scaleX      组件的水平缩放
+     * @param scaleY      组件的垂直缩放
+     * @param transX      组件的水平平移
+     * @param transY      组件的垂直平移
+     * @param viewWidth   组件宽度
+     * @param viewHeight  组件高度
+     * @param imageWidth  显示位图宽度
+     * @param imageHeight 显示位图高度
+     */
+    public void postConcatDisplay(float scaleX, float scaleY, float transX, float transY,
+                                  int viewWidth, int viewHeight, int imageWidth, int imageHeight) {
+        double pixelMapLeft = (transX < 0) ? -transX : 0;
+        double pixelMapTop = (transY < 0) ? -transY : 0;
+        double hideX = imageWidth > viewWidth ? (imageWidth - viewWidth) / 2d : 0;
+        double hideY = imageHeight > viewHeight ? (imageHeight - viewHeight) / 2d : 0;
+        postConcat(1d / scaleX, pixelMapLeft / scaleX + hideX, 1d / scaleY, pixelMapTop / scaleY + hideY);
+    }
+
+    public double mapX(double x) {
+        return x * mScaleX + mOffsetX;
+    }
+
+    public double mapY(double y) {
+        return y * mScaleY + mOffsetY;
+    }
+
+    public double getScaleX() {
+        return mScaleX;
+    }
+
+    public double getScaleY() {
+        return mScaleY;
+    }
+
+    /**
+     * 映射一个矩形并取整为像素区域。四条边分别四舍五入，相邻的矩形映射后仍然恰好相邻；结果被限制在位图之内，且至少为1像素
+     *
+     * @param left   左边缘
+     * @param top    上边缘
+     * @param right  右边缘
+     * @param bottom 下边缘
+     * @param width  目标位图宽度
+     * @param height 目标位图高度
+     * @param out    输出的区域，依次为x、y、宽度、高度（{@link #X}、{@link #Y}、{@link #WIDTH}、{@link #HEIGHT}）
+     */
+    public void mapRect(float left, float top, float right, float bottom, int width, int height, int[] out) {
+        int x0 = clamp((int) Math.round(mapX(left)), 0, width - 1);
+        int y0 = clamp((int) Math.round(mapY(top)), 0, height - 1);
+        int x1 = clamp((int) Math.round(mapX(right)), x0 + 1, width);
+        int y1 = clamp((int) Math.round(mapY(bottom)), y0 + 1, height);
+        out[X] = x0;
+        out[Y] = y0;
+        out[WIDTH] = x1 - x0;
+        out[HEIGHT] = y1 - y0;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    @Override
+    public String toString() {
+        return "CropMapping[x * " + mScaleX + " + " + mOffsetX + ", y * " + mScaleY + " + " + mOffsetY + "]";
+    }
+}
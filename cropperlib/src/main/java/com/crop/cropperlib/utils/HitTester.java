@@ -0,0 +1,144 @@
+package com.crop.cropperlib.utils;
+
+import com.crop.cropperlib.border.CropWindow;
+import com.crop.cropperlib.handle.Handle;
+
+/**
+ * 把触摸点归类到裁剪窗口的九个控制柄区域之一
+ *
+ * 裁剪窗口的四条边各自向两侧扩展触摸半径，形成水平和垂直的触摸带。最近的角只需要分别比较两个方向上的距离，
+ * 再用平方距离判断是否落在角的触摸圆内；否则按触摸带判断边，最后判断是否在窗口内部。
+ * 整个过程是常数次比较，不开平方，也不遍历控制柄。额外的触摸目标（例如旋转手柄）放在{@link TargetGrid}中，
+ * 同样只检查触摸点附近的网格。
+ */
+public class HitTester {
+
+    // 按 行 * 3 + 列 排列的角控制柄，行和列的0表示上/左，2表示下/右
+    private static final Handle[] CORNERS = {
+        Handle.TOP_LEFT, null, Handle.TOP_RIGHT,
+        null, null, null,
+        Handle.BOTTOM_LEFT, null, Handle.BOTTOM_RIGHT
+    };
+
+    // 额外的触摸目标
+    private final TargetGrid mExtraTargets;
+
+    // 额外触摸目标的网格按这个半径划分，所以半径创建后不能修改；需要新的半径时创建新的HitTester
+    private final float mRadius;
+
+    /**
+     * @param radius 以像素为单位的触摸半径
+     */
+    public HitTester(float radius) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        mRadius = radius;
+        mExtraTargets = new TargetGrid(radius);
+    }
+
+    public float getRadius() {
+        return mRadius;
+    }
+
+    /**
+     * 获取额外触摸目标的网格；目标的半径不能超过创建时的触摸半径
+     */
+    public TargetGrid getExtraTargets() {
+        return mExtraTargets;
+    }
+
+    /**
+     * 把dp换算为像素
+     *
+     * @param dp      dp值
+     * @param density 屏幕密度，即每dp的像素数
+     *
+     * @return 像素值
+     */
+    public static float dpToPx(float dp, float density) {
+        return dp * density;
+    }
+
+    /**
+     * 归类触摸点
+     *
+     * @return 按下的控制柄；触摸点不在任何控制柄区域和窗口内部时为null
+     */
+    public Handle classify(float x, float y, CropWindow window) {
+        return classify(x, y, window.getLeft(), window.getTop(), window.getRight(), window.getBottom(), mRadius);
+    }
+
+    /**
+     * 归类触摸点
+     *
+     * @return 按下的控制柄；触摸点不在任何控制柄区域和窗口内部时为null
+     */
+    public Handle classify(float x, float y, float left, float top, float right, float bottom) {
+        return classify(x, y, left, top, right, bottom, mRadius);
+    }
+
+    /**
+     * 归类触摸点
+     *
+     * @param x      触点X坐标
+     * @param y      触点Y坐标
+     * @param left   左边界的x坐标
+     * @param top    上界的y坐标
+     * @param right  右边界的x坐标
+     * @param bottom 下边界的y坐标
+     * @param radius 以像素为单位的触摸半径
+     *
+     * @return 按下的控制柄；触摸点不在任何控制柄区域和窗口内部时为null
+     */
+    public static Handle classify(float x, float y, float left, float top, float right, float bottom, float radius) {
+        float dxLeft = x - left;
+        float dxRight = x - right;
+        float dyTop = y - top;
+        float dyBottom = y - bottom;
+
+        // 最近的角：两个方向分别取较近的边，距离相等时取左和上
+        boolean nearLeft = Math.abs(dxLeft) <= Math.abs(dxRight);
+        boolean nearTop = Math.abs(dyTop) <= Math.abs(dyBottom);
+        float dx = nearLeft ? dxLeft : dxRight;
+        float dy = nearTop ? dyTop : dyBottom;
+        float radiusSquared = radius * radius;
+        if (dx * dx + dy * dy <= radiusSquared) {
+            return CORNERS[(nearTop ? 0 : 6) + (nearLeft ? 0 : 2)];
+        }
+
+        // 水平触摸带：x在左右边之间，y在上边或下边的半径之内
+        if (x > left && x < right) {
+            if (Math.abs(dyTop) <= radius) {
+                return Handle.TOP;
+            }
+            if (Math.abs(dyBottom) <= radius) {
+                return Handle.BOTTOM;
+            }
+        }
+
+        // 垂直触摸带
+        if (y > top && y < bottom) {
+            if (Math.abs(dxLeft) <= radius) {
+                return Handle.LEFT;
+            }
+            if (Math.abs(dxRight) <= radius) {
+                return Handle.RIGHT;
+            }
+        }
+
+        if (x >= left && x <= right && y >= top && y <= bottom) {
+            return Handle.CENTER;
+        }
+        return null;
+    }
+
+    /**
+     * 检查额外的触摸目标
+     *
+     * @return 包含触摸点的最近目标的id；没有时为{@link TargetGrid#NO_TARGET}
+     */
+    public int hitExtraTarget(float x, float y) {
+        return mExtraTargets.hit(x, y);
+    }
+}
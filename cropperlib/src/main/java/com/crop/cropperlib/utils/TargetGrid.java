@@ -0,0 +1,190 @@
+package com.crop.cropperlib.utils;
+
+import java.util.Arrays;
+
+/**
+ * 圆形触摸目标的均匀网格索引
+ *
+ * 网格边长是目标最大半径的两倍，每个目标登记到它的外接正方形覆盖的所有格子中（最多4个），
+ * 查询时只需要检查触摸点所在的一个格子，耗时与目标总数无关。格子使用开放寻址的散列表保存，查询过程不分配对象。
+ */
+public class TargetGrid {
+
+    // 没有命中任何目标
+    public static final int NO_TARGET = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final float mMaxRadius;
+    private final float mInverseCellSize;
+
+    // 目标，按添加顺序保存
+    private float[] mX = new float[INITIAL_CAPACITY];
+    private float[] mY = new float[INITIAL_CAPACITY];
+    private float[] mRadius = new float[INITIAL_CAPACITY];
+    private int[] mId = new int[INITIAL_CAPACITY];
+    private int mCount;
+
+    // 格子中的登记项：目标下标和同一格子中下一个登记项的下标（-1表示没有）
+    private int[] mEntryTarget = new int[INITIAL_CAPACITY];
+    private int[] mEntryNext = new int[INITIAL_CAPACITY];
+    private int mEntryCount;
+
+    // 格子散列表：键为格子坐标，值为该格子第一个登记项的下标
+    private long[] mCellKeys = new long[INITIAL_CAPACITY * 2];
+    private int[] mCellHeads = new int[INITIAL_CAPACITY * 2];
+    private boolean[] mCellUsed = new boolean[INITIAL_CAPACITY * 2];
+    private int mCellCount;
+
+    /**
+     * @param maxRadius 目标的最大半径
+     */
+    public TargetGrid(float maxRadius) {
+        if (maxRadius <= 0) {
+            throw new IllegalArgumentException("maxRadius must be positive");
+        }
+        mMaxRadius = maxRadius;
+        mInverseCellSize = 1f / (2 * maxRadius);
+    }
+
+    /**
+     * 移除所有目标
+     */
+    public void clear() {
+        mCount = 0;
+        mEntryCount = 0;
+        mCellCount = 0;
+        Arrays.fill(mCellUsed, false);
+    }
+
+    /**
+     * 获取目标个数
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * 添加一个目标
+     *
+     * @param id     目标id，不能为负数
+     * @param x      圆心x坐标
+     * @param y      圆心y坐标
+     * @param radius 半径，不能超过最大半径
+     */
+    public void add(int id, float x, float y, float radius) {
+        if (id < 0) {
+            throw new IllegalArgumentException("id must not be negative");
+        }
+        if (radius <= 0 || radius > mMaxRadius) {
+            throw new IllegalArgumentException("radius must be in (0, " + mMaxRadius + "]");
+        }
+        if (mCount == mX.length) {
+            int capacity = mCount * 2;
+            mX = Arrays.copyOf(mX, capacity);
+            mY = Arrays.copyOf(mY, capacity);
+            mRadius = Arrays.copyOf(mRadius, capacity);
+            mId = Arrays.copyOf(mId, capacity);
+        }
+        int index = mCount++;
+        mX[index] = x;
+        mY[index] = y;
+        mRadius[index] = radius;
+        mId[index] = id;
+
+        int lastCellX = cell(x + radius);
+        int lastCellY = cell(y + radius);
+        for (int cellY = cell(y - radius); cellY <= lastCellY; cellY++) {
+            for (int cellX = cell(x - radius); cellX <= lastCellX; cellX++) {
+                addEntry(cellKey(cellX, cellY), index);
+            }
+        }
+    }
+
+    /**
+     * 查找包含触摸点的目标；多个目标包含触摸点时取圆心最近的
+     *
+     * @return 目标id；没有时为{@link #NO_TARGET}
+     */
+    public int hit(float x, float y) {
+        if (mCount == 0) {
+            return NO_TARGET;
+        }
+        int slot = findSlot(cellKey(cell(x), cell(y)));
+        if (!mCellUsed[slot]) {
+            return NO_TARGET;
+        }
+        int result = NO_TARGET;
+        float closest = Float.POSITIVE_INFINITY;
+        for (int entry = mCellHeads[slot]; entry >= 0; entry = mEntryNext[entry]) {
+            int i = mEntryTarget[entry];
+            float dx = x - mX[i];
+            float dy = y - mY[i];
+            float distanceSquared = dx * dx + dy * dy;
+            if (distanceSquared <= mRadius[i] * mRadius[i] && distanceSquared < closest) {
+                closest = distanceSquared;
+                result = mId[i];
+            }
+        }
+        return result;
+    }
+
+    private void addEntry(long key, int target) {
+        if (mEntryCount == mEntryTarget.length) {
+            mEntryTarget = Arrays.copyOf(mEntryTarget, mEntryCount * 2);
+            mEntryNext = Arrays.copyOf(mEntryNext, mEntryCount * 2);
+        }
+        if ((mCellCount + 1) * 2 > mCellKeys.length) {
+            rehash(mCellKeys.length * 2);
+        }
+        int entry = mEntryCount++;
+        mEntryTarget[entry] = target;
+        int slot = findSlot(key);
+        if (mCellUsed[slot]) {
+            mEntryNext[entry] = mCellHeads[slot];
+        } else {
+            mCellUsed[slot] = true;
+            mCellKeys[slot] = key;
+            mEntryNext[entry] = -1;
+            mCellCount++;
+        }
+        mCellHeads[slot] = entry;
+    }
+
+    private int cell(float value) {
+        float scaled = value * mInverseCellSize;
+        int cell = (int) scaled;
+        return scaled < cell ? cell - 1 : cell;
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    private int findSlot(long key) {
+        int mask = mCellKeys.length - 1;
+        int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (mCellUsed[slot] && mCellKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] keys = mCellKeys;
+        int[] heads = mCellHeads;
+        boolean[] used = mCellUsed;
+        mCellKeys = new long[capacity];
+        mCellHeads = new int[capacity];
+        mCellUsed = new boolean[capacity];
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                int slot = findSlot(keys[i]);
+                mCellUsed[slot] = true;
+                mCellKeys[slot] = keys[i];
+                mCellHeads[slot] = heads[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.crop.cropperlib.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AxisWeightsTest {
+
+    private static final double EPSILON = 1e-5;
+
+    @Test
+    public void weightsSumToOne() {
+        int[][] lengths = {{100, 100}, {100, 37}, {37, 100}, {1000, 3}, {3, 1000}, {1, 1}, {2, 1}};
+        for (ResampleFilter filter : ResampleFilter.values()) {
+            for (int[] length : lengths) {
+                AxisWeights weights = AxisWeights.create(0, length[0], length[1], filter);
+                for (int d = 0; d < length[1]; d++) {
+                    double total = 0;
+                    for (int i = 0; i < weights.count[d]; i++) {
+                        total += weights.weights[d * weights.stride + i];
+                    }
+                    assertEquals(filter + " " + length[0] + " -> " + length[1] + " at " + d, 1, total, EPSILON);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sourceRangeStaysInsideCrop() {
+        for (ResampleFilter filter : ResampleFilter.values()) {
+            AxisWeights weights = AxisWeights.create(20, 50, 173, filter);
+            for (int d = 0; d < 173; d++) {
+                assertTrue(weights.start[d] >= 20);
+                assertTrue(weights.count[d] >= 1 && weights.count[d] <= weights.stride);
+                assertTrue(weights.start[d] + weights.count[d] <= 70);
+            }
+        }
+    }
+}
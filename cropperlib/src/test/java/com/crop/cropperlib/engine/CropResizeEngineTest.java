@@ -0,0 +1,85 @@
+package com.crop.cropperlib.engine;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CropResizeEngineTest {
+
+    private static ForkJoinPool sSingleThread;
+    private static ForkJoinPool sFourThreads;
+
+    @BeforeClass
+    public static void createPools() {
+        sSingleThread = new ForkJoinPool(1);
+        sFourThreads = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdownPools() {
+        sSingleThread.shutdown();
+        sFourThreads.shutdown();
+    }
+
+    @Test
+    public void outputIsIdenticalForOneAndManyThreads() {
+        ArgbBuffer source = randomBuffer(301, 203, 1);
+        int[][] sizes = {{64, 48}, {257, 131}, {600, 400}};
+        for (ResampleFilter filter : ResampleFilter.values()) {
+            for (int[] size : sizes) {
+                ArgbBuffer single = new CropResizeEngine(sSingleThread, 32)
+                        .cropAndResize(source, 17, 9, 250, 180, size[0], size[1], filter);
+                ArgbBuffer parallel = new CropResizeEngine(sFourThreads, 32)
+                        .cropAndResize(source, 17, 9, 250, 180, size[0], size[1], filter);
+                assertArrayEquals(filter + " " + size[0] + "x" + size[1], single.getPixels(), parallel.getPixels());
+            }
+        }
+    }
+
+    @Test
+    public void outputDoesNotDependOnTileSize() {
+        ArgbBuffer source = randomBuffer(200, 150, 2);
+        ArgbBuffer small = new CropResizeEngine(sFourThreads, 7)
+                .cropAndResize(source, 0, 0, 200, 150, 123, 77, ResampleFilter.LANCZOS);
+        ArgbBuffer large = new CropResizeEngine(sFourThreads, 128)
+                .cropAndResize(source, 0, 0, 200, 150, 123, 77, ResampleFilter.LANCZOS);
+        assertArrayEquals(small.getPixels(), large.getPixels());
+    }
+
+    @Test
+    public void sameSizeCropCopiesPixels() {
+        ArgbBuffer source = randomBuffer(50, 40, 3);
+        for (ResampleFilter filter : ResampleFilter.values()) {
+            ArgbBuffer result = new CropResizeEngine(sSingleThread, 16)
+                    .cropAndResize(source, 5, 7, 30, 20, 30, 20, filter);
+            for (int y = 0; y < 20; y++) {
+                for (int x = 0; x < 30; x++) {
+                    assertEquals(filter.toString(), source.getPixels()[(y + 7) * 50 + x + 5],
+                            result.getPixels()[y * 30 + x]);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cropOutsideSourceIsRejected() {
+        new CropResizeEngine(sSingleThread, 16)
+                .cropAndResize(randomBuffer(10, 10, 4), 5, 5, 10, 10, 5, 5, ResampleFilter.BILINEAR);
+    }
+
+    static ArgbBuffer randomBuffer(int width, int height, long seed) {
+        Random random = new Random(seed);
+        ArgbBuffer buffer = new ArgbBuffer(width, height);
+        int[] pixels = buffer.getPixels();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return buffer;
+    }
+}
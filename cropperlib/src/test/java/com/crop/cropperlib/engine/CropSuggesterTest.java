@@ -0,0 +1,69 @@
+package com.crop.cropperlib.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CropSuggesterTest {
+
+    private static final float EPSILON = 1e-6f;
+
+    // 足够完成粗搜索和局部搜索的时间预算
+    private static final long LONG_BUDGET_NANOS = 2000000000L;
+
+    @Test
+    public void zeroBudgetReturnsCenteredWindow() {
+        ArgbBuffer image = CropResizeEngineTest.randomBuffer(400, 300, 25);
+        float[] rect = new float[4];
+        assertTrue(new CropSuggester().suggest(image, 1f, 0, null, rect));
+        // 纵横比为1的最大窗口是300x300，水平居中
+        assertEquals(50f / 400, rect[0], EPSILON);
+        assertEquals(0f, rect[1], EPSILON);
+        assertEquals(350f / 400, rect[2], EPSILON);
+        assertEquals(1f, rect[3], EPSILON);
+    }
+
+    @Test
+    public void cancelledAnalysisReturnsNoResult() {
+        ArgbBuffer image = CropResizeEngineTest.randomBuffer(400, 300, 26);
+        float[] rect = {-1, -1, -1, -1};
+        boolean suggested = new CropSuggester().suggest(image, 1f, LONG_BUDGET_NANOS,
+                new CropSuggester.Cancellation() {
+                    @Override
+                    public boolean isCancelled() {
+                        return true;
+                    }
+                }, rect);
+        assertFalse(suggested);
+        assertEquals(-1f, rect[0], 0);
+    }
+
+    @Test
+    public void windowContainsHighEnergyBlob() {
+        int width = 512;
+        int height = 384;
+        int centerX = 410;
+        int centerY = 90;
+        int radius = 30;
+        ArgbBuffer image = new ArgbBuffer(width, height);
+        int[] pixels = image.getPixels();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int dx = x - centerX;
+                int dy = y - centerY;
+                boolean inside = dx * dx + dy * dy <= radius * radius;
+                pixels[y * width + x] = inside ? 0xFFFFF040 : 0xFF202428;
+            }
+        }
+        float[] rect = new float[4];
+        assertTrue(new CropSuggester().suggest(image, 1f, LONG_BUDGET_NANOS, null, rect));
+        assertTrue(rect[0] * width <= centerX - radius);
+        assertTrue(rect[1] * height <= centerY - radius);
+        assertTrue(rect[2] * width >= centerX + radius);
+        assertTrue(rect[3] * height >= centerY + radius);
+        // 窗口偏离中心，而不是退回居中的默认窗口
+        assertTrue((rect[0] + rect[2]) / 2 > 0.5f);
+    }
+}
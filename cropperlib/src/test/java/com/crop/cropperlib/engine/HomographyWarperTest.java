@@ -0,0 +1,73 @@
+package com.crop.cropperlib.engine;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class HomographyWarperTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static ForkJoinPool sSingleThread;
+    private static ForkJoinPool sFourThreads;
+
+    @BeforeClass
+    public static void createPools() {
+        sSingleThread = new ForkJoinPool(1);
+        sFourThreads = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdownPools() {
+        sSingleThread.shutdown();
+        sFourThreads.shutdown();
+    }
+
+    @Test
+    public void identityQuadReturnsSource() {
+        ArgbBuffer source = CropResizeEngineTest.randomBuffer(67, 45, 19);
+        float[] quad = {0, 0, 67, 0, 67, 45, 0, 45};
+        for (ResampleFilter filter : ResampleFilter.values()) {
+            ArgbBuffer result = new HomographyWarper(sFourThreads, 8).warp(source, quad, 67, 45, filter);
+            assertArrayEquals(filter.toString(), source.getPixels(), result.getPixels());
+        }
+    }
+
+    @Test
+    public void knownQuadMapsCornersExactly() {
+        float[] quad = {12.5f, 30, 410, 8, 380.25f, 295, 40, 260.75f};
+        int width = 320;
+        int height = 240;
+        double[] matrix = HomographyWarper.mapRectToQuad(quad, width, height);
+        double[] corners = {0, 0, width, 0, width, height, 0, height};
+        for (int i = 0; i < 8; i += 2) {
+            double u = corners[i];
+            double v = corners[i + 1];
+            double w = matrix[6] * u + matrix[7] * v + matrix[8];
+            assertEquals("corner " + i / 2 + " x", quad[i], (matrix[0] * u + matrix[1] * v + matrix[2]) / w, EPSILON);
+            assertEquals("corner " + i / 2 + " y", quad[i + 1], (matrix[3] * u + matrix[4] * v + matrix[5]) / w,
+                    EPSILON);
+        }
+    }
+
+    @Test
+    public void outputIsIdenticalForOneAndManyThreads() {
+        ArgbBuffer source = CropResizeEngineTest.randomBuffer(240, 180, 20);
+        float[] quad = {20, 15, 220, 5, 230, 170, 10, 160};
+        for (ResampleFilter filter : ResampleFilter.values()) {
+            ArgbBuffer single = new HomographyWarper(sSingleThread, 16).warp(source, quad, 200, 150, filter);
+            ArgbBuffer parallel = new HomographyWarper(sFourThreads, 5).warp(source, quad, 200, 150, filter);
+            assertArrayEquals(filter.toString(), single.getPixels(), parallel.getPixels());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void degenerateQuadIsRejected() {
+        HomographyWarper.mapRectToQuad(new float[] {0, 0, 10, 10, 20, 20, 30, 30}, 10, 10);
+    }
+}
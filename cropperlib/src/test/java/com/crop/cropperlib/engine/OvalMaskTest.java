@@ -0,0 +1,50 @@
+package com.crop.cropperlib.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class OvalMaskTest {
+
+    @Test
+    public void tilesMatchWholeBuffer() {
+        int width = 301;
+        int height = 187;
+        ArgbBuffer source = CropResizeEngineTest.randomBuffer(width, height, 20);
+        ArgbBuffer whole = new ArgbBuffer(source.getPixels().clone(), width, height);
+        OvalMask.apply(whole);
+
+        int[] tiled = new int[width * height];
+        int tileWidth = 64;
+        int tileHeight = 50;
+        for (int top = 0; top < height; top += tileHeight) {
+            for (int left = 0; left < width; left += tileWidth) {
+                int columns = Math.min(tileWidth, width - left);
+                int rows = Math.min(tileHeight, height - top);
+                ArgbBuffer tile = new ArgbBuffer(columns, rows);
+                for (int y = 0; y < rows; y++) {
+                    System.arraycopy(source.getPixels(), (top + y) * width + left, tile.getPixels(), y * columns,
+                            columns);
+                }
+                OvalMask.apply(tile, left, top, width, height);
+                for (int y = 0; y < rows; y++) {
+                    System.arraycopy(tile.getPixels(), y * columns, tiled, (top + y) * width + left, columns);
+                }
+            }
+        }
+        assertArrayEquals(whole.getPixels(), tiled);
+    }
+
+    @Test
+    public void cornersAreTransparentAndCenterIsKept() {
+        ArgbBuffer buffer = CropResizeEngineTest.randomBuffer(40, 30, 21);
+        int center = buffer.getPixels()[15 * 40 + 20];
+        OvalMask.apply(buffer);
+        assertEquals(0, buffer.getPixels()[0]);
+        assertEquals(0, buffer.getPixels()[40 - 1]);
+        assertEquals(0, buffer.getPixels()[29 * 40]);
+        assertEquals(0, buffer.getPixels()[30 * 40 - 1]);
+        assertEquals(center, buffer.getPixels()[15 * 40 + 20]);
+    }
+}
@@ -0,0 +1,193 @@
+package com.crop.cropperlib.export;
+
+import com.crop.cropperlib.cache.LruByteCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BackgroundTaskTest {
+
+    private static final String KEY = "crop";
+
+    /**
+     * 代替PixelMap的结果，记录是否被释放
+     */
+    private static final class Result {
+        boolean mReleased;
+    }
+
+    private static final class ResultCache extends LruByteCache<String, Result> {
+        ResultCache() {
+            super(1024);
+        }
+
+        @Override
+        protected long sizeOf(Result value) {
+            return 1;
+        }
+    }
+
+    /**
+     * 与CropExporter的异步裁剪相同：命中缓存时返回缓存的结果，否则创建新的结果并放入缓存
+     */
+    private static final class CachingTask extends BackgroundTask<Result> {
+        private final ResultCache mCache;
+        Result mComputed;
+
+        CachingTask(Executor uiExecutor, ResultCache cache) {
+            super(uiExecutor);
+            mCache = cache;
+        }
+
+        @Override
+        protected Result compute() {
+            if (mCache != null) {
+                Result cached = mCache.get(KEY);
+                if (cached != null) {
+                    markResultShared();
+                    mComputed = cached;
+                    return cached;
+                }
+            }
+            mComputed = new Result();
+            if (mCache != null) {
+                mCache.put(KEY, mComputed);
+                markResultShared();
+            }
+            return mComputed;
+        }
+
+        @Override
+        protected void release(Result result) {
+            result.mReleased = true;
+        }
+    }
+
+    /**
+     * 记录UI线程的回调，由测试线程手动执行
+     */
+    private static final class UiQueue implements Executor {
+        final List<Runnable> mPending = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            mPending.add(command);
+        }
+
+        void drain() {
+            while (!mPending.isEmpty()) {
+                mPending.remove(0).run();
+            }
+        }
+    }
+
+    private static final class RecordingCallback implements BackgroundTask.Callback<Result> {
+        final List<String> mEvents = new ArrayList<>();
+
+        @Override
+        public void onProgress(float progress) {
+            mEvents.add("progress");
+        }
+
+        @Override
+        public void onSuccess(Result result) {
+            mEvents.add("success");
+        }
+
+        @Override
+        public void onFailure(Exception error) {
+            mEvents.add("failure");
+        }
+
+        @Override
+        public void onCancelled() {
+            mEvents.add("cancelled");
+        }
+    }
+
+    @Test
+    public void cancelAfterCacheHitKeepsCachedResult() throws InterruptedException {
+        ResultCache cache = new ResultCache();
+        Result shared = new Result();
+        cache.put(KEY, shared);
+        UiQueue ui = new UiQueue();
+        CachingTask task = new CachingTask(ui, cache);
+        RecordingCallback callback = new RecordingCallback();
+        task.addCallback(callback);
+
+        computeThenCancel(task, ui);
+
+        assertSame(shared, task.mComputed);
+        assertFalse(shared.mReleased);
+        assertSame(shared, cache.get(KEY));
+        assertEquals(1, callback.mEvents.size());
+        assertEquals("cancelled", callback.mEvents.get(0));
+    }
+
+    @Test
+    public void cancelAfterCachingFreshResultKeepsIt() throws InterruptedException {
+        ResultCache cache = new ResultCache();
+        UiQueue ui = new UiQueue();
+        CachingTask task = new CachingTask(ui, cache);
+
+        computeThenCancel(task, ui);
+
+        assertFalse(task.mComputed.mReleased);
+        assertSame(task.mComputed, cache.get(KEY));
+    }
+
+    @Test
+    public void cancelAfterUncachedResultReleasesIt() throws InterruptedException {
+        UiQueue ui = new UiQueue();
+        CachingTask task = new CachingTask(ui, null);
+
+        computeThenCancel(task, ui);
+
+        assertTrue(task.mComputed.mReleased);
+    }
+
+    @Test
+    public void deliveredResultIsNotReleased() throws InterruptedException {
+        UiQueue ui = new UiQueue();
+        CachingTask task = new CachingTask(ui, null);
+        RecordingCallback callback = new RecordingCallback();
+        task.addCallback(callback);
+
+        runInBackground(task);
+        ui.drain();
+        task.cancel();
+
+        assertTrue(task.isDone());
+        assertFalse(task.mComputed.mReleased);
+        assertEquals(1, callback.mEvents.size());
+        assertEquals("success", callback.mEvents.get(0));
+    }
+
+    /**
+     * 在后台线程完成计算，在结果交付之前取消，再执行UI线程的交付
+     */
+    private static void computeThenCancel(CachingTask task, UiQueue ui) throws InterruptedException {
+        runInBackground(task);
+        assertFalse(task.isDone());
+        task.cancel();
+        ui.drain();
+        assertTrue(task.isCancelled());
+    }
+
+    private static void runInBackground(BackgroundTask<?> task) throws InterruptedException {
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        task.submit(background);
+        background.shutdown();
+        assertTrue(background.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
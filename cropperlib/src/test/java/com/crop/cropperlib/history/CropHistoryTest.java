@@ -0,0 +1,154 @@
+package com.crop.cropperlib.history;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CropHistoryTest {
+
+    private static final int STATE_SIZE = 3;
+
+    @Test
+    public void undoAndRedoRestoreEachState() {
+        CropHistory history = new CropHistory(8, STATE_SIZE);
+        float[] state = {0, 0, 0};
+        float[][] states = {{1, 2, 3}, {4, 2, 3}, {4, -5, 6}};
+        for (int i = 0; i < states.length; i++) {
+            assertTrue(history.record(i, state, states[i]));
+            state = states[i].clone();
+        }
+        assertEquals(3, history.size());
+
+        for (int i = states.length - 1; i >= 0; i--) {
+            assertEquals(i, history.getUndoTag());
+            assertEquals(i, history.undo(state));
+            assertArrayEquals(i == 0 ? new float[STATE_SIZE] : states[i - 1], state, 0f);
+        }
+        assertFalse(history.canUndo());
+        for (int i = 0; i < states.length; i++) {
+            assertEquals(i, history.redo(state));
+            assertArrayEquals(states[i], state, 0f);
+        }
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    public void unchangedGestureIsNotRecorded() {
+        CropHistory history = new CropHistory(8, STATE_SIZE);
+        float[] state = {1, 2, 3};
+        assertFalse(history.record(0, state, state.clone()));
+        assertFalse(history.canUndo());
+        assertEquals(0, history.size());
+    }
+
+    @Test
+    public void recordAfterUndoDropsRedo() {
+        CropHistory history = new CropHistory(8, STATE_SIZE);
+        float[] state = {0, 0, 0};
+        history.record(0, state, new float[] {1, 0, 0});
+        history.record(1, new float[] {1, 0, 0}, new float[] {2, 0, 0});
+        state = new float[] {2, 0, 0};
+        history.undo(state);
+        assertTrue(history.canRedo());
+
+        history.record(2, state, new float[] {1, 5, 0});
+        assertFalse(history.canRedo());
+        assertEquals(2, history.size());
+        assertEquals(2, history.getPosition());
+        assertEquals(2, history.getUndoTag());
+    }
+
+    @Test
+    public void fullHistoryDropsOldestRecord() {
+        CropHistory history = new CropHistory(3, 1);
+        assertEquals(4, history.getCapacity());
+        float[] state = {0};
+        for (int i = 0; i < 6; i++) {
+            history.record(i, state, new float[] {i + 1});
+            state[0] = i + 1;
+        }
+        assertEquals(4, history.size());
+        int undone = 0;
+        while (history.canUndo()) {
+            history.undo(state);
+            undone++;
+        }
+        assertEquals(4, undone);
+        // 最早的两条记录已被覆盖，只能撤销到第二次记录之后的状态
+        assertArrayEquals(new float[] {2}, state, 0f);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void undoWithoutRecordsThrows() {
+        new CropHistory(4, STATE_SIZE).undo(new float[STATE_SIZE]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void redoAtEndThrows() {
+        CropHistory history = new CropHistory(4, 1);
+        history.record(0, new float[] {0}, new float[] {1});
+        history.redo(new float[] {1});
+    }
+
+    @Test
+    public void randomOperationsMatchSnapshotList() {
+        Random random = new Random(21);
+        int capacity = 16;
+        CropHistory history = new CropHistory(capacity, STATE_SIZE);
+        // 对照模型：保存每条记录之后的完整状态，下标0是最早还能撤销到的状态
+        List<float[]> snapshots = new ArrayList<>();
+        float[] state = new float[STATE_SIZE];
+        snapshots.add(state.clone());
+        int position = 0;
+        for (int step = 0; step < 20000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                // 整数坐标保证差值的加减没有舍入误差
+                float[] next = state.clone();
+                next[random.nextInt(STATE_SIZE)] += random.nextInt(7) - 3;
+                boolean recorded = history.record(step, state, next);
+                assertEquals(!Arrays.equals(next, state), recorded);
+                if (recorded) {
+                    while (snapshots.size() > position + 1) {
+                        snapshots.remove(snapshots.size() - 1);
+                    }
+                    snapshots.add(next.clone());
+                    position++;
+                    if (snapshots.size() > capacity + 1) {
+                        snapshots.remove(0);
+                        position--;
+                    }
+                    state = next;
+                }
+            } else if (operation < 8) {
+                assertEquals(position > 0, history.canUndo());
+                if (position > 0) {
+                    history.undo(state);
+                    position--;
+                }
+            } else if (operation < 9) {
+                assertEquals(position < snapshots.size() - 1, history.canRedo());
+                if (position < snapshots.size() - 1) {
+                    history.redo(state);
+                    position++;
+                }
+            } else if (random.nextInt(50) == 0) {
+                history.clear();
+                snapshots.clear();
+                snapshots.add(state.clone());
+                position = 0;
+            }
+            assertArrayEquals("step " + step, snapshots.get(position), state, 0f);
+            assertEquals(position, history.getPosition());
+            assertEquals(snapshots.size() - 1, history.size());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.crop.cropperlib.region;
+
+import com.crop.cropperlib.border.CropWindow;
+import com.crop.cropperlib.utils.HitTester;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertSame;
+
+/**
+ * 用随机的添加、移动、选中和移除操作比较空间索引的命中测试与遍历所有区域的结果
+ */
+public class CropRegionSetTest {
+
+    private static final float TOUCH_RADIUS = 24f;
+
+    @Test
+    public void hitTestMatchesBruteForce() {
+        Random random = new Random(17);
+        // 格子边长较小，让每个区域登记到很多格子中，覆盖散列表的扩容和删除
+        CropRegionSet set = new CropRegionSet(16f, TOUCH_RADIUS);
+        HitTester hitTester = new HitTester(TOUCH_RADIUS);
+        float[] point = new float[2];
+        for (int step = 0; step < 3000; step++) {
+            List<CropRegion> regions = set.getRegions();
+            int operation = random.nextInt(10);
+            if (regions.size() < 4 || operation < 3) {
+                set.add(randomWindow(random));
+            } else if (operation < 6) {
+                CropRegion region = regions.get(random.nextInt(regions.size()));
+                region.getWindow().set(randomWindow(random));
+                set.update(region);
+            } else if (operation < 8) {
+                set.select(regions.get(random.nextInt(regions.size())));
+            } else if (regions.size() > 20 || operation == 8) {
+                set.remove(regions.get(random.nextInt(regions.size())));
+            } else {
+                float touchRadius = random.nextBoolean() ? TOUCH_RADIUS / 2 : TOUCH_RADIUS;
+                set.setTouchRadius(touchRadius);
+                hitTester = new HitTester(touchRadius);
+            }
+
+            for (int i = 0; i < 50; i++) {
+                float x = random.nextFloat() * 1200 - 100;
+                float y = random.nextFloat() * 1200 - 100;
+                CropRegion expected = null;
+                for (CropRegion region : regions) {
+                    CropWindow window = region.getWindow();
+                    window.mapToWindow(x, y, point);
+                    if (hitTester.classify(point[0], point[1], window) != null) {
+                        expected = region;
+                    }
+                }
+                assertSame(expected, set.hitTest(x, y, hitTester));
+            }
+        }
+    }
+
+    private static CropWindow randomWindow(Random random) {
+        CropWindow window = new CropWindow();
+        float left = random.nextFloat() * 900;
+        float top = random.nextFloat() * 900;
+        window.set(left, top, left + 20 + random.nextFloat() * 200, top + 20 + random.nextFloat() * 200);
+        window.setAngle(random.nextInt(4) == 0 ? random.nextFloat() * 90 - 45 : 0);
+        return window;
+    }
+}
@@ -0,0 +1,96 @@
+package com.crop.cropperlib.state;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CropStateTest {
+
+    private static final float[] QUAD = {0.1f, 0.1f, 0.9f, 0.15f, 0.85f, 0.9f, 0.05f, 0.8f};
+
+    @Test
+    public void roundTripKeepsEveryValue() {
+        float[] regions = {
+            0.1f, 0.2f, 0.6f, 0.7f, 0f,
+            0.3f, 0.05f, 0.95f, 0.5f, 37.5f,
+            0f, 0f, 1f, 1f, -90f
+        };
+        CropState state = new CropState(regions, 1, QUAD);
+        byte[] data = state.toByteArray();
+        // 头部9字节，每个区域20字节，四边形32字节
+        assertEquals(9 + 3 * 20 + 32, data.length);
+
+        CropState restored = CropState.fromByteArray(data);
+        assertEquals(state, restored);
+        assertEquals(state.hashCode(), restored.hashCode());
+        assertEquals(3, restored.getRegionCount());
+        assertEquals(1, restored.getSelectedIndex());
+        float[] region = new float[CropState.REGION_SIZE];
+        for (int i = 0; i < 3; i++) {
+            restored.getRegion(i, region);
+            assertArrayEquals(Arrays.copyOfRange(regions, i * CropState.REGION_SIZE,
+                    (i + 1) * CropState.REGION_SIZE), region, 0f);
+        }
+        float[] quad = new float[8];
+        restored.getQuad(quad);
+        assertArrayEquals(QUAD, quad, 0f);
+    }
+
+    @Test
+    public void everyTruncationIsRejected() {
+        byte[] data = singleRegion().toByteArray();
+        for (int length = 0; length < data.length; length++) {
+            assertRejected(Arrays.copyOf(data, length));
+        }
+    }
+
+    @Test
+    public void trailingBytesAreRejected() {
+        byte[] data = singleRegion().toByteArray();
+        assertRejected(Arrays.copyOf(data, data.length + 1));
+        assertRejected(Arrays.copyOf(data, data.length + 20));
+    }
+
+    @Test
+    public void badMagicIsRejected() {
+        byte[] data = singleRegion().toByteArray();
+        data[0] ^= 1;
+        assertRejected(data);
+    }
+
+    @Test
+    public void badVersionIsRejected() {
+        byte[] data = singleRegion().toByteArray();
+        data[4] = 2;
+        assertRejected(data);
+    }
+
+    @Test
+    public void invalidContentIsRejected() {
+        byte[] data = singleRegion().toByteArray();
+        // 区域数为0
+        assertRejected(ByteBuffer.wrap(data.clone()).putShort(5, (short) 0).array());
+        // 选中的下标超出区域数
+        assertRejected(ByteBuffer.wrap(data.clone()).putShort(7, (short) 1).array());
+        // 坐标为NaN
+        assertRejected(ByteBuffer.wrap(data.clone()).putFloat(9, Float.NaN).array());
+    }
+
+    private static CropState singleRegion() {
+        return new CropState(new float[] {0.25f, 0.25f, 0.75f, 0.75f, 12f}, 0, QUAD);
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            CropState.fromByteArray(data);
+            fail("accepted " + data.length + " bytes");
+        } catch (IllegalArgumentException expected) {
+            // 预期的异常
+        }
+    }
+}
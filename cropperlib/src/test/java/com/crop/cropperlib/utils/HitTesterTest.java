@@ -0,0 +1,145 @@
+package com.crop.cropperlib.utils;
+
+import com.crop.cropperlib.handle.Handle;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 用随机触摸点比较{@link HitTester}和原来逐个计算距离的控制柄分类
+ */
+public class HitTesterTest {
+
+    private static final int POINT_COUNT = 2000000;
+    private static final int TARGET_COUNT = 200;
+    private static final float MAX_TARGET_RADIUS = 48f;
+
+    @Test
+    public void pressedHandleMatchesBaseline() {
+        Random random = new Random(15);
+        for (int i = 0; i < POINT_COUNT; i++) {
+            // 每个点使用一个随机窗口；一半的批次中窗口的宽或高小于触摸半径
+            float radius = 8 + random.nextFloat() * 40;
+            float left = random.nextFloat() * 500;
+            float top = random.nextFloat() * 500;
+            float right = left + (i / 1000 % 4 == 0 ? random.nextFloat() * radius : random.nextFloat() * 600);
+            float bottom = top + (i / 1000 % 4 == 1 ? random.nextFloat() * radius : random.nextFloat() * 600);
+            // 触摸点分布在窗口及其周围一圈触摸半径之外
+            float margin = 2 * radius;
+            float x = left - margin + random.nextFloat() * (right - left + 2 * margin);
+            float y = top - margin + random.nextFloat() * (bottom - top + 2 * margin);
+
+            Handle expected = baselinePressedHandle(x, y, left, top, right, bottom, radius);
+            Handle actual = HandleUtil.getPressedHandle(x, y, left, top, right, bottom, radius);
+            assertEquals("(" + x + ", " + y + ") in [" + left + ", " + top + ", " + right + ", " + bottom
+                    + "] radius " + radius, expected, actual);
+        }
+    }
+
+    @Test
+    public void classifyReturnsNullOnlyOutsideWindowAndBands() {
+        float left = 100;
+        float top = 100;
+        float right = 300;
+        float bottom = 200;
+        float radius = 20;
+        Random random = new Random(16);
+        for (int i = 0; i < 100000; i++) {
+            float x = random.nextFloat() * 400;
+            float y = random.nextFloat() * 300;
+            boolean inBounds = x >= left - radius && x <= right + radius && y >= top - radius && y <= bottom + radius;
+            Handle handle = HitTester.classify(x, y, left, top, right, bottom, radius);
+            if (!inBounds) {
+                assertNull(handle);
+            } else if (x >= left && x <= right && y >= top && y <= bottom) {
+                assertNotNull(handle);
+            }
+        }
+    }
+
+    @Test
+    public void targetGridMatchesBruteForce() {
+        Random random = new Random(17);
+        TargetGrid grid = new TargetGrid(MAX_TARGET_RADIUS);
+        float[] targetX = new float[TARGET_COUNT];
+        float[] targetY = new float[TARGET_COUNT];
+        float[] targetRadius = new float[TARGET_COUNT];
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            // 包括负坐标，检查格子坐标向下取整
+            targetX[i] = random.nextFloat() * 2000 - 1000;
+            targetY[i] = random.nextFloat() * 2000 - 1000;
+            targetRadius[i] = 1 + random.nextFloat() * (MAX_TARGET_RADIUS - 1);
+            grid.add(i, targetX[i], targetY[i], targetRadius[i]);
+        }
+        assertEquals(TARGET_COUNT, grid.size());
+
+        for (int i = 0; i < POINT_COUNT / 10; i++) {
+            float x = random.nextFloat() * 2200 - 1100;
+            float y = random.nextFloat() * 2200 - 1100;
+            int expected = TargetGrid.NO_TARGET;
+            float closest = Float.POSITIVE_INFINITY;
+            for (int t = 0; t < TARGET_COUNT; t++) {
+                float dx = x - targetX[t];
+                float dy = y - targetY[t];
+                float distanceSquared = dx * dx + dy * dy;
+                if (distanceSquared <= targetRadius[t] * targetRadius[t] && distanceSquared < closest) {
+                    closest = distanceSquared;
+                    expected = t;
+                }
+            }
+            assertEquals("(" + x + ", " + y + ")", expected, grid.hit(x, y));
+        }
+
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertEquals(TargetGrid.NO_TARGET, grid.hit(targetX[0], targetY[0]));
+    }
+
+    /**
+     * 原来的分类方法：计算到四个角的距离取最近的，再依次检查四条边的触摸带，其余都归为中心
+     */
+    private static Handle baselinePressedHandle(float x, float y, float left, float top, float right, float bottom,
+                                                float targetRadius) {
+        Handle closestHandle = null;
+        float closestDistance = Float.POSITIVE_INFINITY;
+
+        float distance = MathUtil.calculateDistance(x, y, left, top);
+        if (distance < closestDistance) {
+            closestDistance = distance;
+            closestHandle = Handle.TOP_LEFT;
+        }
+        distance = MathUtil.calculateDistance(x, y, right, top);
+        if (distance < closestDistance) {
+            closestDistance = distance;
+            closestHandle = Handle.TOP_RIGHT;
+        }
+        distance = MathUtil.calculateDistance(x, y, left, bottom);
+        if (distance < closestDistance) {
+            closestDistance = distance;
+            closestHandle = Handle.BOTTOM_LEFT;
+        }
+        distance = MathUtil.calculateDistance(x, y, right, bottom);
+        if (distance < closestDistance) {
+            closestDistance = distance;
+            closestHandle = Handle.BOTTOM_RIGHT;
+        }
+        if (closestDistance <= targetRadius) {
+            return closestHandle;
+        }
+
+        if (x > left && x < right && Math.abs(y - top) <= targetRadius) {
+            return Handle.TOP;
+        } else if (x > left && x < right && Math.abs(y - bottom) <= targetRadius) {
+            return Handle.BOTTOM;
+        } else if (y > top && y < bottom && Math.abs(x - left) <= targetRadius) {
+            return Handle.LEFT;
+        } else if (y > top && y < bottom && Math.abs(x - right) <= targetRadius) {
+            return Handle.RIGHT;
+        }
+        return Handle.CENTER;
+    }
+}
@@ -1,10 +1,35 @@
 package com.example.cropper;
 
+import com.crop.cropperlib.cache.CropResultCache;
 import ohos.aafwk.ability.AbilityPackage;
 
 public class MyApplication extends AbilityPackage {
+    // 所有裁剪组件共享的裁剪结果缓存
+    private static final CropResultCache CROP_RESULT_CACHE = new CropResultCache();
+
+    // 前台运行且内存已严重不足的等级（与onTrimMemory的TRIM_MEMORY_RUNNING_CRITICAL相同）；
+    // 达到此等级及以上（包括转入后台后的各个等级）时清空缓存，否则只淘汰一半
+    private static final int CRITICAL_MEMORY_LEVEL = 15;
+
     @Override
     public void onInitialize() {
         super.onInitialize();
     }
-}
\ No newline at end of file
+
+    /**
+     * 系统要求释放内存时回调。SDK没有为level提供常量，取值与onTrimMemory的等级一致：
+     * 前台运行时为5（内存偏低）、10（内存低）、15（内存严重不足），
+     * 界面不可见时为20，进程在后台时为40、60、80，数值越大越可能被回收
+     *
+     * @param level 内存等级
+     */
+    @Override
+    public void onMemoryLevel(int level) {
+        super.onMemoryLevel(level);
+        CROP_RESULT_CACHE.onMemoryPressure(level >= CRITICAL_MEMORY_LEVEL);
+    }
+
+    public static CropResultCache getCropResultCache() {
+        return CROP_RESULT_CACHE;
+    }
+}
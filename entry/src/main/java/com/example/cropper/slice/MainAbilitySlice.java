@@ -1,6 +1,8 @@
 package com.example.cropper.slice;
 
 import com.crop.cropperlib.CropImage;
+import com.crop.cropperlib.export.CropCallback;
+import com.example.cropper.MyApplication;
 import com.example.cropper.ResourceTable;
 import ohos.aafwk.ability.AbilitySlice;
 import ohos.aafwk.content.Intent;
@@ -17,16 +19,35 @@ public class MainAbilitySlice extends AbilitySlice {
     public void onStart(Intent intent) {
         super.onStart(intent);
         super.setUIContent(ResourceTable.Layout_ability_main);
+        ((CropImage) findComponentById(ResourceTable.Id_cropImage))
+                .setCropResultCache(MyApplication.getCropResultCache());
 
         Button cropButton = (Button) findComponentById(ResourceTable.Id_cropButton);
         cropButton.setClickedListener(new Component.ClickedListener() {
             @Override
             public void onClick(Component component) {
-                Image image = (Image) findComponentById(ResourceTable.Id_image);
+                final Image image = (Image) findComponentById(ResourceTable.Id_image);
                 CropImage cropImage = (CropImage) findComponentById(ResourceTable.Id_cropImage);
 
-                PixelMap pixelMap = cropImage.getCroppedImage();
-                image.setPixelMap(pixelMap);
+                cropImage.getCroppedImageAsync(new CropCallback() {
+                    @Override
+                    public void onProgress(float progress) {
+                    }
+
+                    @Override
+                    public void onSuccess(PixelMap result) {
+                        image.setPixelMap(result);
+                    }
+
+                    @Override
+                    public void onFailure(Exception error) {
+                        HiLog.error(LABEL, "crop failed: %{public}s", error.getMessage());
+                    }
+
+                    @Override
+                    public void onCancelled() {
+                    }
+                });
             }
         });
     }